@@ -15,15 +15,16 @@
 
 /*
  * ColumnCosineSimilarityToHeatmap.java
- * Copyright (C) 2025 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2025-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.data.conversion;
 
+import adams.core.Performance;
 import adams.data.heatmap.Heatmap;
 import adams.data.spreadsheet.SpreadSheet;
 import adams.data.spreadsheet.SpreadSheetColumnRange;
 import adams.data.spreadsheet.SpreadSheetHelper;
-import adams.data.statistics.StatUtils;
+import adams.data.statistics.CovarianceMatrix;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -46,6 +47,13 @@ import java.util.List;
  * &nbsp;&nbsp;&nbsp;example: A range is a comma-separated list of single 1-based indices or sub-ranges of indices ('start-end'); 'inv(...)' inverts the range '...'; column names (case-sensitive) as well as the following placeholders can be used: first, second, third, last_2, last_1, last; numeric indices can be enforced by preceding them with '#' (eg '#12'); column names can be surrounded by double quotes.
  * </pre>
  *
+ * <pre>-num-threads &lt;int&gt; (property: numThreads)
+ * &nbsp;&nbsp;&nbsp;The number of threads to use for computing the matrix; -1 = # of CPUs&#47;cores;
+ * &nbsp;&nbsp;&nbsp; 0 or 1 = sequential execution.
+ * &nbsp;&nbsp;&nbsp;default: -1
+ * &nbsp;&nbsp;&nbsp;minimum: -1
+ * </pre>
+ *
  <!-- options-end -->
  *
  * @author  fracpete (fracpete at waikato dot ac dot nz)
@@ -58,7 +66,10 @@ public class ColumnCosineSimilarityToHeatmap
 
   /** the range of columns to compute the correlation for. */
   protected SpreadSheetColumnRange m_Columns;
-  
+
+  /** the number of threads to use. */
+  protected int m_NumThreads;
+
   /**
    * Returns a string describing the object.
    *
@@ -81,6 +92,10 @@ public class ColumnCosineSimilarityToHeatmap
     m_OptionManager.add(
       "columns", "columns",
       new SpreadSheetColumnRange(SpreadSheetColumnRange.ALL));
+
+    m_OptionManager.add(
+      "num-threads", "numThreads",
+      -1, -1, null);
   }
 
   /**
@@ -112,6 +127,39 @@ public class ColumnCosineSimilarityToHeatmap
     return "The columns to include in the calculations.";
   }
 
+  /**
+   * Sets the number of threads to use.
+   *
+   * @param value	the number of threads: -1 = # of CPUs/cores
+   */
+  public void setNumThreads(int value) {
+    if (getOptionManager().isValid("numThreads", value)) {
+      m_NumThreads = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the number of threads to use.
+   *
+   * @return		the number of threads: -1 = # of CPUs/cores
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String numThreadsTipText() {
+    return
+      "The number of threads to use for computing the matrix; "
+	+ "-1 = # of CPUs/cores; 0 or 1 = sequential execution.";
+  }
+
   /**
    * Returns the class that is accepted as input.
    *
@@ -140,13 +188,10 @@ public class ColumnCosineSimilarityToHeatmap
    */
   @Override
   protected Object doConvert() throws Exception {
-    Heatmap		result;
     SpreadSheet		sheet;
     int[] 		cols;
     List<double[]> 	values;
     int 		i;
-    int 		n;
-    double		cc;
 
     sheet = (SpreadSheet) m_Input;
     m_Columns.setData(sheet);
@@ -162,14 +207,7 @@ public class ColumnCosineSimilarityToHeatmap
     }
 
     // compute heatmap
-    result = new Heatmap(values.size(), values.size());
-    for (i = 0; i < cols.length; i++) {
-      for (n = i; n < cols.length; n++) {
-	cc = StatUtils.cosineSimilarity(values.get(i), values.get(n));
-	result.set(i, n, cc);
-      }
-    }
-
-    return result;
+    return new Heatmap(CovarianceMatrix.cosineSimilarity(
+      values.toArray(new double[values.size()][]), Performance.determineNumThreads(m_NumThreads)));
   }
 }
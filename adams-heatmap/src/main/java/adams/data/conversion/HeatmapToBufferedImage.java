@@ -15,18 +15,18 @@
 
 /*
  * HeatmapToBufferedImage.java
- * Copyright (C) 2011-2022 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.data.conversion;
 
 import adams.data.heatmap.Heatmap;
+import adams.data.heatmap.HeatmapImageRenderer;
 import adams.data.image.AbstractImageContainer;
 import adams.data.image.BufferedImageContainer;
 import adams.gui.visualization.core.BiColorGenerator;
 import adams.gui.visualization.core.ColorGradientGenerator;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 
 /**
@@ -353,15 +353,10 @@ public class HeatmapToBufferedImage
   protected Object doConvert() throws Exception {
     BufferedImageContainer	result;
     BufferedImage		image;
-    Color[]			colors;
     Heatmap			map;
     double			min;
     double			max;
-    double			range;
-    int				x;
-    int				y;
-    Graphics2D			g;
-    Color			color;
+    HeatmapImageRenderer	renderer;
 
     map = (Heatmap) m_Input;
     if (m_UseFixedRange) {
@@ -376,21 +371,8 @@ public class HeatmapToBufferedImage
 	getLogger().warning("Max/min are the same, using min=" + min + ", max=" + max + " instead!");
       }
     }
-    colors = getGradientColors();
-    range  = max - min;
-
-    image = new BufferedImage(map.getWidth(), map.getHeight(), BufferedImage.TYPE_INT_RGB);
-    g      = image.createGraphics();
-    for (y = 0; y < map.getHeight(); y++) {
-      for (x = 0; x < map.getWidth(); x++) {
-	if (map.isMissing(y, x))
-	  color = m_MissingValueColor;
-	else
-	  color = colors[(int) (((map.get(y, x) - min) / range) * (colors.length - 2)) + 1];
-	g.setColor(color);
-	g.drawLine(x, y, x, y);
-      }
-    }
+    renderer = new HeatmapImageRenderer(getGradientColors(), m_MissingValueColor, min, max);
+    image    = renderer.render(map);
 
     result = new BufferedImageContainer();
     result.setImage(image);
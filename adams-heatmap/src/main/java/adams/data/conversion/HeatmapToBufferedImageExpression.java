@@ -15,13 +15,15 @@
 
 /*
  * HeatmapToBufferedImageExpression.java
- * Copyright (C) 2016-2022 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2016-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.data.conversion;
 
 import adams.core.QuickInfoHelper;
-import adams.core.base.BaseString;
+import adams.data.heatmap.AbstractHeatmapStorage;
 import adams.data.heatmap.Heatmap;
+import adams.data.heatmap.HeatmapExpression;
+import adams.data.heatmap.HeatmapImageRenderer;
 import adams.data.image.AbstractImageContainer;
 import adams.data.image.BufferedImageContainer;
 import adams.gui.visualization.core.BiColorGenerator;
@@ -30,9 +32,14 @@ import adams.parser.GrammarSupplier;
 import adams.parser.MathematicalExpression;
 import adams.parser.MathematicalExpressionText;
 
+import gnu.trove.map.hash.TDoubleDoubleHashMap;
+import gnu.trove.set.hash.TDoubleHashSet;
+
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  <!-- globalinfo-start -->
@@ -185,6 +192,31 @@ import java.awt.image.BufferedImage;
  * &nbsp;&nbsp;&nbsp;default: (X - 273.15) &#47; 50
  * </pre>
  * 
+ * <pre>-use-lookup-table &lt;boolean&gt; (property: useLookupTable)
+ * &nbsp;&nbsp;&nbsp;If enabled, the expression gets evaluated only once for equidistant values
+ * &nbsp;&nbsp;&nbsp;in the lookup range and the heatmap values get mapped to the closest one;
+ * &nbsp;&nbsp;&nbsp;otherwise the expression gets parsed once and evaluated for each value (expressions
+ * &nbsp;&nbsp;&nbsp;using more than arithmetics and numeric functions get evaluated once for each
+ * &nbsp;&nbsp;&nbsp;distinct value).
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ * 
+ * <pre>-lookup-min &lt;double&gt; (property: lookupMin)
+ * &nbsp;&nbsp;&nbsp;The smallest value of the lookup table, smaller values get clipped.
+ * &nbsp;&nbsp;&nbsp;default: 273.15
+ * </pre>
+ * 
+ * <pre>-lookup-max &lt;double&gt; (property: lookupMax)
+ * &nbsp;&nbsp;&nbsp;The largest value of the lookup table, larger values get clipped.
+ * &nbsp;&nbsp;&nbsp;default: 323.15
+ * </pre>
+ * 
+ * <pre>-lookup-size &lt;int&gt; (property: lookupSize)
+ * &nbsp;&nbsp;&nbsp;The number of entries in the lookup table.
+ * &nbsp;&nbsp;&nbsp;default: 4096
+ * &nbsp;&nbsp;&nbsp;minimum: 2
+ * </pre>
+ * 
  <!-- options-end -->
  *
  * @author  fracpete (fracpete at waikato dot ac dot nz)
@@ -196,6 +228,9 @@ public class HeatmapToBufferedImageExpression
   /** for serialization. */
   private static final long serialVersionUID = 2535421741524997185L;
 
+  /** the maximum number of distinct values to evaluate with the full expression parser. */
+  public final static int MAX_DISTINCT = 65536;
+
   /** the generator to use. */
   protected ColorGradientGenerator m_Generator;
 
@@ -205,9 +240,30 @@ public class HeatmapToBufferedImageExpression
   /** the math expression. */
   protected MathematicalExpressionText m_Expression;
 
+  /** whether to use a lookup table. */
+  protected boolean m_UseLookupTable;
+
+  /** the smallest value of the lookup table. */
+  protected double m_LookupMin;
+
+  /** the largest value of the lookup table. */
+  protected double m_LookupMax;
+
+  /** the size of the lookup table. */
+  protected int m_LookupSize;
+
   /** the gradient colors. */
   protected Color[] m_GradientColors;
 
+  /** the lookup table with the evaluated expression. */
+  protected transient double[] m_LookupTable;
+
+  /** the compiled expression, null if not supported by the arithmetic subset. */
+  protected transient HeatmapExpression m_Compiled;
+
+  /** whether the expression has been compiled. */
+  protected transient boolean m_CompiledChecked;
+
   /**
    * Returns a string describing the object.
    *
@@ -240,6 +296,22 @@ public class HeatmapToBufferedImageExpression
     m_OptionManager.add(
       "expression", "expression",
       new MathematicalExpressionText("(X - 273.15) / 50"));
+
+    m_OptionManager.add(
+      "use-lookup-table", "useLookupTable",
+      false);
+
+    m_OptionManager.add(
+      "lookup-min", "lookupMin",
+      273.15);
+
+    m_OptionManager.add(
+      "lookup-max", "lookupMax",
+      323.15);
+
+    m_OptionManager.add(
+      "lookup-size", "lookupSize",
+      4096, 2, null);
   }
 
   /**
@@ -249,7 +321,10 @@ public class HeatmapToBufferedImageExpression
   protected void reset() {
     super.reset();
 
-    m_GradientColors = null;
+    m_GradientColors  = null;
+    m_LookupTable     = null;
+    m_Compiled        = null;
+    m_CompiledChecked = false;
   }
 
   /**
@@ -358,6 +433,131 @@ public class HeatmapToBufferedImageExpression
     return "The expression to use for generating the greyscale values.";
   }
 
+  /**
+   * Sets whether to evaluate the expression only for the values of a
+   * lookup table.
+   *
+   * @param value	true if to use a lookup table
+   */
+  public void setUseLookupTable(boolean value) {
+    m_UseLookupTable = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to evaluate the expression only for the values of a
+   * lookup table.
+   *
+   * @return		true if to use a lookup table
+   */
+  public boolean getUseLookupTable() {
+    return m_UseLookupTable;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String useLookupTableTipText() {
+    return
+      "If enabled, the expression gets evaluated only once for equidistant "
+	+ "values in the lookup range and the heatmap values get mapped to the "
+	+ "closest one; otherwise the expression gets parsed once and evaluated "
+	+ "for each value (expressions using more than arithmetics and numeric "
+	+ "functions get evaluated once for each distinct value).";
+  }
+
+  /**
+   * Sets the smallest value of the lookup table.
+   *
+   * @param value	the minimum
+   */
+  public void setLookupMin(double value) {
+    m_LookupMin = value;
+    reset();
+  }
+
+  /**
+   * Returns the smallest value of the lookup table.
+   *
+   * @return		the minimum
+   */
+  public double getLookupMin() {
+    return m_LookupMin;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String lookupMinTipText() {
+    return "The smallest value of the lookup table, smaller values get clipped.";
+  }
+
+  /**
+   * Sets the largest value of the lookup table.
+   *
+   * @param value	the maximum
+   */
+  public void setLookupMax(double value) {
+    m_LookupMax = value;
+    reset();
+  }
+
+  /**
+   * Returns the largest value of the lookup table.
+   *
+   * @return		the maximum
+   */
+  public double getLookupMax() {
+    return m_LookupMax;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String lookupMaxTipText() {
+    return "The largest value of the lookup table, larger values get clipped.";
+  }
+
+  /**
+   * Sets the number of entries in the lookup table.
+   *
+   * @param value	the size
+   */
+  public void setLookupSize(int value) {
+    if (getOptionManager().isValid("lookupSize", value)) {
+      m_LookupSize = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the number of entries in the lookup table.
+   *
+   * @return		the size
+   */
+  public int getLookupSize() {
+    return m_LookupSize;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String lookupSizeTipText() {
+    return "The number of entries in the lookup table.";
+  }
+
   /**
    * Returns the class that is accepted as input.
    *
@@ -390,6 +590,145 @@ public class HeatmapToBufferedImageExpression
     return m_GradientColors;
   }
 
+  /**
+   * Hook method for performing checks before converting the data.
+   *
+   * @return		null if no error, otherwise error message
+   */
+  @Override
+  protected String checkData() {
+    String	result;
+
+    result = super.checkData();
+
+    if (result == null) {
+      if (m_UseLookupTable) {
+	if (m_LookupMin >= m_LookupMax)
+	  result = "Lookup max must be greater than lookup min: max=" + m_LookupMax + ", min=" + m_LookupMin;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the expression parsed into a tree of operators.
+   *
+   * @return		the compiled expression, null if the expression is not
+   * 			supported by the arithmetic subset
+   * @see		HeatmapExpression
+   */
+  protected synchronized HeatmapExpression getCompiled() {
+    if (!m_CompiledChecked) {
+      m_Compiled        = HeatmapExpression.compile(m_Expression.getValue());
+      m_CompiledChecked = true;
+      if (m_Compiled == null)
+	getLogger().info("Expression not supported by compiled evaluation, using expression parser: " + m_Expression.getValue());
+    }
+
+    return m_Compiled;
+  }
+
+  /**
+   * Evaluates the expression for all the values in parallel. Uses the
+   * compiled expression if possible, otherwise the expression parser.
+   *
+   * @param values	the values to evaluate the expression for
+   * @return		the results
+   * @throws Exception	if evaluation fails
+   */
+  protected double[] evaluate(final double[] values) throws Exception {
+    final double[]		result;
+    final String		expr;
+    final HeatmapExpression	compiled;
+
+    result   = new double[values.length];
+    compiled = getCompiled();
+    if (compiled != null) {
+      IntStream.range(0, values.length).parallel().forEach((i) -> result[i] = compiled.evaluate(values[i]));
+      return result;
+    }
+
+    expr = m_Expression.getValue();
+    try {
+      IntStream.range(0, values.length).parallel().forEach((i) -> {
+	Map<String,Object> symbols = new HashMap<>();
+	symbols.put("X", values[i]);
+	try {
+	  result[i] = MathematicalExpression.evaluate(expr, symbols);
+	}
+	catch (Exception e) {
+	  throw new IllegalStateException("Failed to evaluate expression for X=" + values[i], e);
+	}
+      });
+    }
+    catch (IllegalStateException e) {
+      if (e.getCause() instanceof Exception)
+	throw (Exception) e.getCause();
+      throw e;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the lookup table, initializes it if necessary.
+   *
+   * @return		the expression evaluated for the equidistant values
+   * @throws Exception	if evaluation fails
+   */
+  protected synchronized double[] getLookupTable() throws Exception {
+    double[]	values;
+    int		i;
+
+    if (m_LookupTable == null) {
+      values = new double[m_LookupSize];
+      for (i = 0; i < m_LookupSize; i++)
+	values[i] = m_LookupMin + (m_LookupMax - m_LookupMin) * i / (m_LookupSize - 1);
+      m_LookupTable = evaluate(values);
+    }
+
+    return m_LookupTable;
+  }
+
+  /**
+   * Evaluates the expression for all the distinct, non-missing values
+   * of the heatmap. Only used if the expression cannot be compiled.
+   *
+   * @param map		the heatmap to process
+   * @return		the mapping from heatmap value to evaluated expression
+   * @throws Exception	if evaluation fails or there are more than
+   * 			{@link #MAX_DISTINCT} distinct values
+   */
+  protected TDoubleDoubleHashMap evaluateDistinct(Heatmap map) throws Exception {
+    TDoubleDoubleHashMap	result;
+    TDoubleHashSet		distinct;
+    AbstractHeatmapStorage	storage;
+    double[]			values;
+    double[]			evaluated;
+    double			value;
+    int				i;
+
+    storage  = map.getStorage();
+    distinct = new TDoubleHashSet();
+    for (i = 0; i < storage.size(); i++) {
+      value = storage.get(i);
+      if (!Heatmap.isMissingValue(value))
+	distinct.add(value);
+      if (distinct.size() > MAX_DISTINCT)
+	throw new IllegalStateException(
+	  "More than " + MAX_DISTINCT + " distinct values for an expression that cannot be compiled, "
+	    + "use the lookup table instead: " + m_Expression.getValue());
+    }
+    values    = distinct.toArray();
+    evaluated = evaluate(values);
+    result    = new TDoubleDoubleHashMap(values.length);
+    for (i = 0; i < values.length; i++)
+      result.put(values[i], evaluated[i]);
+
+    return result;
+  }
+
   /**
    * Performs the actual conversion.
    *
@@ -400,35 +739,55 @@ public class HeatmapToBufferedImageExpression
   protected Object doConvert() throws Exception {
     BufferedImageContainer	result;
     BufferedImage		image;
-    Color[]			colors;
     Heatmap			map;
-    int				x;
-    int				y;
-    Graphics2D			g;
-    Color			color;
-    double			val;
-    MathematicalExpression	expr;
-
-    map    = (Heatmap) m_Input;
-    colors = getGradientColors();
-    image  = new BufferedImage(map.getWidth(), map.getHeight(), BufferedImage.TYPE_INT_RGB);
-    g      = image.createGraphics();
-    expr   = new MathematicalExpression();
-    expr.setExpression(m_Expression.getValue());
-    for (y = 0; y < map.getHeight(); y++) {
-      for (x = 0; x < map.getWidth(); x++) {
-	if (map.isMissing(y, x)) {
-	  color = m_MissingValueColor;
+    HeatmapImageRenderer	renderer;
+    final double[]		table;
+    final TDoubleDoubleHashMap	evaluated;
+    final HeatmapExpression	compiled;
+
+    map      = (Heatmap) m_Input;
+    compiled = m_UseLookupTable ? null : getCompiled();
+
+    // the expression generates values between 0 and 1
+    if (m_UseLookupTable) {
+      table    = getLookupTable();
+      renderer = new HeatmapImageRenderer(getGradientColors(), m_MissingValueColor, 0.0, 1.0) {
+	@Override
+	public int toARGB(double value) {
+	  int	index;
+	  if (Heatmap.isMissingValue(value))
+	    return super.toARGB(value);
+	  index = (int) Math.round((value - m_LookupMin) / (m_LookupMax - m_LookupMin) * (table.length - 1));
+	  if (index < 0)
+	    index = 0;
+	  else if (index >= table.length)
+	    index = table.length - 1;
+	  return super.toARGB(table[index]);
 	}
-	else {
-	  expr.setSymbols(new BaseString[]{new BaseString("X=" + map.get(y, x))});
-	  val   = expr.evaluate();
-	  color = colors[(int) (val * (colors.length - 2)) + 1];
+      };
+    }
+    else if (compiled != null) {
+      renderer = new HeatmapImageRenderer(getGradientColors(), m_MissingValueColor, 0.0, 1.0) {
+	@Override
+	public int toARGB(double value) {
+	  if (Heatmap.isMissingValue(value))
+	    return super.toARGB(value);
+	  return super.toARGB(compiled.evaluate(value));
 	}
-	g.setColor(color);
-	g.drawLine(x, y, x, y);
-      }
+      };
+    }
+    else {
+      evaluated = evaluateDistinct(map);
+      renderer  = new HeatmapImageRenderer(getGradientColors(), m_MissingValueColor, 0.0, 1.0) {
+	@Override
+	public int toARGB(double value) {
+	  if (Heatmap.isMissingValue(value))
+	    return super.toARGB(value);
+	  return super.toARGB(evaluated.get(value));
+	}
+      };
     }
+    image = renderer.render(map);
 
     result = new BufferedImageContainer();
     result.setImage(image);
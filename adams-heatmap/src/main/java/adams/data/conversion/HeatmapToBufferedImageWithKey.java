@@ -16,12 +16,13 @@
 /*
  * HeatmapToBufferedImageWithKey.java
  * Copyright (C) 2014 Soilcares Research, Wageningen, The Netherlands
- * Copyright (C) 2015-2022 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2015-2026 University of Waikato, Hamilton, NZ
  */
 package adams.data.conversion;
 
 import adams.core.annotation.ThirdPartyCopyright;
 import adams.data.heatmap.Heatmap;
+import adams.data.heatmap.HeatmapImageRenderer;
 import adams.data.image.AbstractImageContainer;
 import adams.data.image.BufferedImageContainer;
 import adams.gui.visualization.core.BiColorGenerator;
@@ -393,11 +394,11 @@ public class HeatmapToBufferedImageWithKey
     Heatmap			map;
     double 			min;
     double		 	max;
-    double 			range;
     int				x;
     int 			y;
     Graphics2D			g;
     Color			color;
+    HeatmapImageRenderer	renderer;
 
     map = (Heatmap) m_Input;
     colors = getGradientColors();
@@ -417,7 +418,6 @@ public class HeatmapToBufferedImageWithKey
       }
     }
 
-    range = max - min;
     image = null;
 
     //if displaying the key on the heatmap.
@@ -445,16 +445,9 @@ public class HeatmapToBufferedImageWithKey
       g.fillRect(0, 0, totalWidth, totalHeight);
 
       //heatmap part
-      for (y = 0; y < map.getHeight(); y++) {
-	for (x = 0; x < map.getWidth(); x++) {
-	  if ((map.get(y, x) == 0.0) || map.isMissing(y, x))
-	    color = m_MissingColor;
-	  else
-	    color = colors[(int) (((map.get(y, x) - min) / range) * (colors.length - 2)) + 1];
-	  g.setColor(color);
-	  g.fillRect(x*m_ScaleFactor , y* m_ScaleFactor + spaceTop, m_ScaleFactor, m_ScaleFactor);
-	}
-      }
+      renderer = new HeatmapImageRenderer(colors, m_MissingColor, min, max);
+      renderer.setZeroIsMissing(true);
+      renderer.render(map, image, 0, spaceTop, m_ScaleFactor);
 
       // key/legend part
       for(int i = 0; i< heightMap; i++) {
@@ -486,19 +479,11 @@ public class HeatmapToBufferedImageWithKey
     //If not displaying the key
     else {
       image = new BufferedImage(map.getWidth()* m_ScaleFactor, map.getHeight()*m_ScaleFactor, BufferedImage.TYPE_INT_RGB);
-      g		= image.createGraphics();
 
       //draw heatmap
-      for (y = 0; y < map.getHeight(); y++) {
-	for (x = 0; x < map.getWidth(); x++) {
-	  if (map.get(y, x) == 0.0)
-	    color = m_MissingColor;
-	  else
-	    color = colors[(int) (((map.get(y, x) - min) / range) * (colors.length - 2)) + 1];
-	  g.setColor(color);
-	  g.fillRect(x*m_ScaleFactor , y* m_ScaleFactor, m_ScaleFactor, m_ScaleFactor);
-	}
-      }
+      renderer = new HeatmapImageRenderer(colors, m_MissingColor, min, max);
+      renderer.setZeroIsMissing(true);
+      renderer.render(map, image, 0, 0, m_ScaleFactor);
     }
 
     result = new BufferedImageContainer();
@@ -0,0 +1,51 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * FusableHeatmapFilter.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.filter;
+
+import adams.data.heatmap.Heatmap;
+
+/**
+ * Interface for element-wise heatmap filters whose processing can be fused
+ * with other element-wise filters into a single pass over the values.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ * @see HeatmapFilterChain
+ */
+public interface FusableHeatmapFilter {
+
+  /**
+   * Returns whether the row operation is derived from the values of the
+   * heatmap (eg its sum or statistics), i.e., whether all preceding operations
+   * must have been applied before the operation can be obtained.
+   *
+   * @return		true if the values are required
+   */
+  public boolean requiresValues();
+
+  /**
+   * Returns the operation to apply to each row of the heatmap.
+   *
+   * @param data	the heatmap to obtain the operation for, must not be modified
+   * @return		the operation, null if the heatmap must be processed
+   * 			with the regular filter instead (eg to record errors)
+   */
+  public HeatmapRowOperation getRowOperation(Heatmap data);
+}
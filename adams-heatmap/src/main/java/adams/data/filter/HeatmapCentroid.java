@@ -15,7 +15,7 @@
 
 /*
  * Centroid.java
- * Copyright (C) 2011-2015 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.data.filter;
@@ -223,11 +223,10 @@ public class HeatmapCentroid
    */
   protected Heatmap findCentroid(Heatmap data) {
     Heatmap		result;
+    final double[]	moments;
     double		m00;
     double		m01;
     double		m10;
-    int			x;
-    int			y;
     double		x_bar;
     double		y_bar;
     Field		field;
@@ -235,16 +234,19 @@ public class HeatmapCentroid
     result = data.getClone();
 
     // Centroid: {x_bar, y_bar} = {M10/M00, M01/M00}
-    m00 = 0;
-    m01 = 0;
-    m10 = 0;
-    for (y = 0; y < data.getHeight(); y++) {
-      for (x = 0; x < data.getWidth(); x++) {
-	m00 +=     data.get(y, x);
-	m10 += x * data.get(y, x);
-	m01 += y * data.get(y, x);
+    moments = new double[3];
+    data.forEachRow((row, values, offset, length) -> {
+      int	x;
+
+      for (x = 0; x < length; x++) {
+	moments[0] +=       values[offset + x];
+	moments[1] += x   * values[offset + x];
+	moments[2] += row * values[offset + x];
       }
-    }
+    });
+    m00 = moments[0];
+    m10 = moments[1];
+    m01 = moments[2];
 
     if (m00 > 0) {
       x_bar = m10 / m00;
@@ -0,0 +1,214 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapFilterChain.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.filter;
+
+import adams.data.heatmap.Heatmap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ <!-- globalinfo-start -->
+ * Applies the specified heatmap filters one after the other.<br>
+ * Consecutive element-wise filters (see adams.data.filter.FusableHeatmapFilter) are fused into a single pass over the rows of a working copy, which gets updated in place. Only filters that require the values of the heatmap (eg the sum) force the pending operations to be applied first. All other filters (eg crop or rotate) get applied as usual.<br>
+ * The ID update and process information of fused filters get applied just like when applying the filters one after the other.
+ * <br><br>
+ <!-- globalinfo-end -->
+ *
+ <!-- options-start -->
+ * <pre>-logging-level &lt;OFF|SEVERE|WARNING|INFO|CONFIG|FINE|FINER|FINEST&gt; (property: loggingLevel)
+ * &nbsp;&nbsp;&nbsp;The logging level for outputting errors and debugging output.
+ * &nbsp;&nbsp;&nbsp;default: WARNING
+ * </pre>
+ * 
+ * <pre>-no-id-update &lt;boolean&gt; (property: dontUpdateID)
+ * &nbsp;&nbsp;&nbsp;If enabled, suppresses updating the ID of adams.data.id.IDHandler data containers.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ * 
+ * <pre>-filter &lt;adams.data.filter.Filter&gt; [-filter ...] (property: filters)
+ * &nbsp;&nbsp;&nbsp;The filters to apply, in the specified order.
+ * &nbsp;&nbsp;&nbsp;default: 
+ * </pre>
+ * 
+ <!-- options-end -->
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class HeatmapFilterChain
+  extends AbstractFilter<Heatmap> {
+
+  /** for serialization. */
+  private static final long serialVersionUID = -5278405530219183127L;
+
+  /** the filters to apply. */
+  protected Filter[] m_Filters;
+
+  /**
+   * Returns a string describing the object.
+   *
+   * @return 			a description suitable for displaying in the gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+        "Applies the specified heatmap filters one after the other.\n"
+      + "Consecutive element-wise filters (see " + FusableHeatmapFilter.class.getName() + ") "
+      + "are fused into a single pass over the rows of a working copy, which "
+      + "gets updated in place. Only filters that require the values of the "
+      + "heatmap (eg the sum) force the pending operations to be applied first. "
+      + "All other filters (eg crop or rotate) get applied as usual.\n"
+      + "The ID update and process information of fused filters get applied "
+      + "just like when applying the filters one after the other.";
+  }
+
+  /**
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+      "filter", "filters",
+      new Filter[0]);
+  }
+
+  /**
+   * Sets the filters to apply.
+   *
+   * @param value 	the filters
+   */
+  public void setFilters(Filter[] value) {
+    m_Filters = value;
+    reset();
+  }
+
+  /**
+   * Returns the filters to apply.
+   *
+   * @return 		the filters
+   */
+  public Filter[] getFilters() {
+    return m_Filters;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String filtersTipText() {
+    return "The filters to apply, in the specified order.";
+  }
+
+  /**
+   * Performs the bookkeeping that {@link AbstractFilter#filter}
+   * performs after filtering, for a filter that got fused and therefore
+   * never had its filter method called: updating the ID and adding the
+   * process information.
+   *
+   * @param filter	the fused filter
+   * @param data	the heatmap to update
+   */
+  protected void updateFused(Filter filter, Heatmap data) {
+    if ((filter instanceof AbstractFilter) && !((AbstractFilter) filter).getDontUpdateID())
+      data.setID(data.getID() + "'");
+    data.getNotes().addProcessInformation(filter);
+  }
+
+  /**
+   * Applies the pending operations in a single pass.
+   *
+   * @param source	the heatmap to read the values from
+   * @param target	the heatmap to write the values to, can be the same as the source
+   * @param ops		the operations to apply
+   * @param fused	the filters the operations belong to
+   */
+  protected void apply(Heatmap source, Heatmap target, List<HeatmapRowOperation> ops, List<Filter> fused) {
+    if (isLoggingEnabled())
+      getLogger().info("Fused pass with " + ops.size() + " operation(s)");
+
+    HeatmapRowOperationHelper.apply(source, target, ops);
+    for (Filter filter: fused)
+      updateFused(filter, target);
+    ops.clear();
+    fused.clear();
+  }
+
+  /**
+   * Performs the actual filtering.
+   *
+   * @param data	the data to filter
+   * @return		the filtered data
+   */
+  @Override
+  protected Heatmap processData(Heatmap data) {
+    Heatmap			current;
+    Heatmap			working;
+    List<HeatmapRowOperation>	ops;
+    List<Filter>		fused;
+    FusableHeatmapFilter	fusable;
+    HeatmapRowOperation		op;
+
+    // the input heatmap is never modified, only heatmaps generated in here
+    current = data;
+    ops     = new ArrayList<>();
+    fused   = new ArrayList<>();
+    for (Filter filter: m_Filters) {
+      op = null;
+      if (filter instanceof FusableHeatmapFilter) {
+	fusable = (FusableHeatmapFilter) filter;
+	if (fusable.requiresValues() && !ops.isEmpty()) {
+	  working = (current == data) ? data.getHeader() : current;
+	  apply(current, working, ops, fused);
+	  current = working;
+	}
+	op = fusable.getRowOperation(current);
+      }
+
+      if (op != null) {
+	ops.add(op);
+	fused.add(filter);
+      }
+      else {
+	if (!ops.isEmpty()) {
+	  working = (current == data) ? data.getHeader() : current;
+	  apply(current, working, ops, fused);
+	  current = working;
+	}
+	current = (Heatmap) filter.filter(current);
+      }
+    }
+
+    if (!ops.isEmpty()) {
+      working = (current == data) ? data.getHeader() : current;
+      apply(current, working, ops, fused);
+      current = working;
+    }
+
+    if (current == data)
+      current = data.getClone();
+
+    return current;
+  }
+}
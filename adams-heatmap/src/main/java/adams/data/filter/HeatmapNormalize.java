@@ -15,13 +15,12 @@
 
 /*
  * Normalize.java
- * Copyright (C) 2011 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.data.filter;
 
 import adams.data.heatmap.Heatmap;
-import adams.data.statistics.StatUtils;
 
 /**
  <!-- globalinfo-start -->
@@ -45,7 +44,8 @@ import adams.data.statistics.StatUtils;
  * @version $Revision$
  */
 public class HeatmapNormalize
-  extends AbstractFilter<Heatmap> {
+  extends AbstractFilter<Heatmap>
+  implements FusableHeatmapFilter {
 
   /** for serialization. */
   private static final long serialVersionUID = 2270876952032422552L;
@@ -59,6 +59,70 @@ public class HeatmapNormalize
     return "Normalizes the values of a heatmap to have a range of 0 to 1.";
   }
 
+  /**
+   * Returns whether the row operation is derived from the values of the
+   * heatmap, i.e., whether all preceding operations must have been applied
+   * before the operation can be obtained.
+   *
+   * @return		always true, as the sum of the values is required
+   */
+  public boolean requiresValues() {
+    return true;
+  }
+
+  /**
+   * Computes the sum of the values.
+   *
+   * @param data	the heatmap to process
+   * @return		the sum
+   */
+  protected double sum(Heatmap data) {
+    double[]		values;
+    double		result;
+    int			row;
+    int			col;
+
+    // processed row by row, to support heatmaps that don't reside in the heap
+    values = new double[data.getWidth()];
+    result = 0.0;
+    for (row = 0; row < data.getHeight(); row++) {
+      data.getStorage().getRow(row, values, 0);
+      for (col = 0; col < values.length; col++)
+	result += values[col];
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the operation that divides the values by the sum.
+   *
+   * @param sum		the sum to divide by
+   * @return		the operation
+   */
+  protected HeatmapRowOperation newOperation(final double sum) {
+    return (values) -> {
+      for (int i = 0; i < values.length; i++)
+	values[i] /= sum;
+    };
+  }
+
+  /**
+   * Returns the operation to apply to each row of the heatmap.
+   *
+   * @param data	the heatmap to obtain the operation for
+   * @return		the operation, null if the sum is zero
+   */
+  public HeatmapRowOperation getRowOperation(Heatmap data) {
+    double	sum;
+
+    sum = sum(data);
+    if (sum == 0)
+      return null;
+    else
+      return newOperation(sum);
+  }
+
   /**
    * Performs the actual filtering.
    *
@@ -67,18 +131,15 @@ public class HeatmapNormalize
    */
   protected Heatmap processData(Heatmap data) {
     Heatmap		result;
-    Double[]		values;
+    double		sum;
 
+    sum    = sum(data);
     result = data.getHeader();
-    values = data.toDoubleArray();
-    values = StatUtils.normalize(values);
-    if (values == null) {
+    if (sum == 0) {
       result.getNotes().addError(getClass(), "Failed to normalize, sum = 0!");
-      result.set(data.toDoubleArray());
-    }
-    else {
-      result.set(values);
+      sum = 1.0;
     }
+    HeatmapRowOperationHelper.apply(data, result, newOperation(sum));
 
     return result;
   }
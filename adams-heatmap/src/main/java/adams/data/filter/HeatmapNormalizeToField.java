@@ -15,7 +15,7 @@
 
 /*
  * NormalizeToField.java
- * Copyright (C) 2011 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.data.filter;
@@ -53,7 +53,8 @@ import adams.data.report.Field;
  * @version $Revision$
  */
 public class HeatmapNormalizeToField
-  extends AbstractFilter<Heatmap> {
+  extends AbstractFilter<Heatmap>
+  implements FusableHeatmapFilter {
 
   /** for serialization. */
   private static final long serialVersionUID = -1306518673446335794L;
@@ -115,6 +116,61 @@ public class HeatmapNormalizeToField
     return "The (numeric) field in the report to normalize all the heatmap values against (ie, simply divide them by this value).";
   }
 
+  /**
+   * Returns whether the row operation is derived from the values of the
+   * heatmap, i.e., whether all preceding operations must have been applied
+   * before the operation can be obtained.
+   *
+   * @return		always false, as only the report is used
+   */
+  public boolean requiresValues() {
+    return false;
+  }
+
+  /**
+   * Checks whether the heatmap can be processed.
+   *
+   * @param data	the heatmap to check
+   * @return		null if it can be processed, otherwise error message
+   */
+  protected String checkData(Heatmap data) {
+    if (!data.hasReport())
+      return "No report attached!";
+    if (!data.getReport().hasValue(m_Field))
+      return "Field '" + m_Field + "' not found in report!";
+    if (!(data.getReport().getValue(m_Field) instanceof Double))
+      return "Field '" + m_Field + "' not numeric!";
+    if (data.getReport().getDoubleValue(m_Field) == 0.0)
+      return "Field '" + m_Field + "' is zero!";
+    return null;
+  }
+
+  /**
+   * Returns the operation that divides all values by the factor.
+   *
+   * @param factor	the value from the report
+   * @return		the operation
+   */
+  protected HeatmapRowOperation newOperation(final double factor) {
+    return (values) -> {
+      for (int i = 0; i < values.length; i++)
+	values[i] /= factor;
+    };
+  }
+
+  /**
+   * Returns the operation to apply to each row of the heatmap.
+   *
+   * @param data	the heatmap to obtain the operation for
+   * @return		the operation, null if the heatmap cannot be processed
+   */
+  public HeatmapRowOperation getRowOperation(Heatmap data) {
+    if (checkData(data) != null)
+      return null;
+    else
+      return newOperation(data.getReport().getDoubleValue(m_Field));
+  }
+
   /**
    * Performs the actual filtering.
    *
@@ -124,38 +180,20 @@ public class HeatmapNormalizeToField
   @Override
   protected Heatmap processData(Heatmap data) {
     Heatmap		result;
-    Double[]		values;
-    double		factor;
-    int			i;
+    HeatmapRowOperation	op;
+    String		msg;
 
-    if (!data.hasReport()) {
-      result = data.getClone();
-      result.getNotes().addError(getClass(), "No report attached!");
-      return result;
-    }
-    if (!data.getReport().hasValue(m_Field)) {
-      result = data.getClone();
-      result.getNotes().addError(getClass(), "Field '" + m_Field + "' not found in report!");
-      return result;
-    }
-    if (!(data.getReport().getValue(m_Field) instanceof Double)) {
+    msg = checkData(data);
+    if (msg != null) {
       result = data.getClone();
-      result.getNotes().addError(getClass(), "Field '" + m_Field + "' not numeric!");
+      result.getNotes().addError(getClass(), msg);
       return result;
     }
 
-    factor = data.getReport().getDoubleValue(m_Field);
-    if (factor == 0.0) {
-      result = data.getClone();
-      result.getNotes().addError(getClass(), "Field '" + m_Field + "' is zero!");
-      return result;
-    }
+    op = newOperation(data.getReport().getDoubleValue(m_Field));
 
     result = data.getHeader();
-    values = data.toDoubleArray();
-    for (i = 0; i < values.length; i++)
-      values[i] /= factor;
-    result.set(values);
+    HeatmapRowOperationHelper.apply(data, result, op);
 
     return result;
   }
@@ -15,7 +15,7 @@
 
 /*
  * Rotate.java
- * Copyright (C) 2011 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.data.filter;
@@ -43,6 +43,13 @@ import adams.data.heatmap.Heatmap;
  * &nbsp;&nbsp;&nbsp;default: ROTATE_180_DEGREES
  * </pre>
  *
+ * <pre>-view &lt;boolean&gt; (property: view)
+ * &nbsp;&nbsp;&nbsp;If enabled, a view of the original heatmap is generated rather than a copy;
+ * &nbsp;&nbsp;&nbsp; the values only get copied when the rotated heatmap gets modified; until then, changes
+ * &nbsp;&nbsp;&nbsp;to the original heatmap are visible in the rotated heatmap as well.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ *
  <!-- options-end -->
  *
  * @author  fracpete (fracpete at waikato dot ac dot nz)
@@ -72,6 +79,9 @@ public class HeatmapRotate
   /** the type of rotation to perform. */
   protected Rotation m_Rotation;
 
+  /** whether to generate a view rather than a copy. */
+  protected boolean m_View;
+
   /**
    * Returns a string describing the object.
    *
@@ -90,6 +100,10 @@ public class HeatmapRotate
     m_OptionManager.add(
 	"rotation", "rotation",
 	Rotation.ROTATE_180_DEGREES);
+
+    m_OptionManager.add(
+	"view", "view",
+	false);
   }
 
   /**
@@ -121,6 +135,39 @@ public class HeatmapRotate
     return "The type of rotation to perform on the heatmap.";
   }
 
+  /**
+   * Sets whether to generate a view of the original heatmap rather than a copy.
+   *
+   * @param value 	true if to generate a view
+   */
+  public void setView(boolean value) {
+    m_View = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to generate a view of the original heatmap rather than a copy.
+   *
+   * @return 		true if to generate a view
+   */
+  public boolean getView() {
+    return m_View;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String viewTipText() {
+    return
+        "If enabled, a view of the original heatmap is generated rather than "
+      + "a copy; the values only get copied when the rotated heatmap gets modified; "
+      + "until then, changes to the original heatmap are visible in the "
+      + "rotated heatmap as well.";
+  }
+
   /**
    * Performs the actual filtering.
    *
@@ -129,35 +176,27 @@ public class HeatmapRotate
    */
   protected Heatmap processData(Heatmap data) {
     Heatmap		result;
-    int			x;
-    int			y;
-
-    if (m_Rotation == Rotation.ROTATE_90_DEGREES) {
-      result = data.getHeader(data.getWidth(), data.getHeight());
-      for (y = 0; y < data.getHeight(); y++) {
-	for (x = 0; x < data.getWidth(); x++) {
-	  result.set(x, result.getWidth() - y - 1, data.get(y, x));
-	}
-      }
-    }
-    else if (m_Rotation == Rotation.ROTATE_180_DEGREES) {
-      result = data.getHeader(data.getHeight(), data.getWidth());
-      for (y = 0; y < data.getHeight(); y++) {
-	for (x = 0; x < data.getWidth(); x++) {
-	  result.set(result.getHeight() - y - 1, result.getWidth() - x - 1, data.get(y, x));
-	}
-      }
-    }
-    else if (m_Rotation == Rotation.ROTATE_270_DEGREES) {
-      result = data.getHeader(data.getWidth(), data.getHeight());
-      for (y = 0; y < data.getHeight(); y++) {
-	for (x = 0; x < data.getWidth(); x++) {
-	  result.set(result.getHeight() - x - 1, y, data.get(y, x));
-	}
-      }
-    }
-    else {
+    Heatmap		view;
+    double[]		values;
+    int			row;
+
+    if (m_Rotation == Rotation.ROTATE_90_DEGREES)
+      view = data.rotatedView(90);
+    else if (m_Rotation == Rotation.ROTATE_180_DEGREES)
+      view = data.rotatedView(180);
+    else if (m_Rotation == Rotation.ROTATE_270_DEGREES)
+      view = data.rotatedView(270);
+    else
       throw new IllegalStateException("Unhandled rotation: " + m_Rotation);
+
+    if (m_View)
+      return view;
+
+    result = data.getHeader(view.getHeight(), view.getWidth());
+    values = new double[view.getWidth()];
+    for (row = 0; row < view.getHeight(); row++) {
+      view.getStorage().getRow(row, values, 0);
+      result.getStorage().setRow(row, values, 0);
     }
 
     return result;
@@ -0,0 +1,71 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapRowOperationHelper.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.filter;
+
+import adams.data.heatmap.Heatmap;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Helper class for applying {@link HeatmapRowOperation}s to heatmaps.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class HeatmapRowOperationHelper {
+
+  /**
+   * Applies the operation to all rows of the source heatmap and stores the
+   * results in the target heatmap.
+   *
+   * @param source	the heatmap to read the rows from
+   * @param target	the heatmap to write the rows to, same dimensions as
+   * 			the source (can be the source itself)
+   * @param op		the operation to apply
+   */
+  public static void apply(Heatmap source, Heatmap target, HeatmapRowOperation op) {
+    apply(source, target, Arrays.asList(op));
+  }
+
+  /**
+   * Applies the operations, in order, to all rows of the source heatmap and
+   * stores the results in the target heatmap. Processed row by row, to
+   * support heatmaps that don't reside in the heap.
+   *
+   * @param source	the heatmap to read the rows from
+   * @param target	the heatmap to write the rows to, same dimensions as
+   * 			the source (can be the source itself)
+   * @param ops		the operations to apply
+   */
+  public static void apply(Heatmap source, Heatmap target, List<HeatmapRowOperation> ops) {
+    double[]	values;
+    int		row;
+
+    values = new double[source.getWidth()];
+    for (row = 0; row < source.getHeight(); row++) {
+      source.getStorage().getRow(row, values, 0);
+      for (HeatmapRowOperation op: ops)
+	op.apply(values);
+      target.getStorage().setRow(row, values, 0);
+    }
+    target.invalidateStatistics();
+  }
+}
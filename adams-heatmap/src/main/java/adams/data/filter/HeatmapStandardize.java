@@ -15,12 +15,13 @@
 
 /*
  * Standardize.java
- * Copyright (C) 2011 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.data.filter;
 
 import adams.data.heatmap.Heatmap;
+import adams.data.heatmap.HeatmapStatisticsCache;
 import adams.data.statistics.StatUtils;
 
 /**
@@ -46,7 +47,8 @@ import adams.data.statistics.StatUtils;
  * @version $Revision$
  */
 public class HeatmapStandardize
-  extends AbstractFilter<Heatmap> {
+  extends AbstractFilter<Heatmap>
+  implements FusableHeatmapFilter {
 
   /** for serialization. */
   private static final long serialVersionUID = 2270876952032422552L;
@@ -68,18 +70,66 @@ public class HeatmapStandardize
   }
 
   /**
-   * Performs the actual filtering.
+   * Returns whether the row operation is derived from the values of the
+   * heatmap, i.e., whether all preceding operations must have been applied
+   * before the operation can be obtained.
+   *
+   * @return		always true, as mean and standard deviation are required
+   */
+  public boolean requiresValues() {
+    return true;
+  }
+
+  /**
+   * Returns the operation to apply to each row of the heatmap. As the
+   * minimum of the standardized values gets subtracted, each value v turns
+   * into (v - min) / stdev.
+   *
+   * @param data	the heatmap to obtain the operation for
+   * @return		the operation, null if missing values are present or
+   * 			the standard deviation is zero
+   */
+  public HeatmapRowOperation getRowOperation(Heatmap data) {
+    HeatmapStatisticsCache	stats;
+    final double		min;
+    final double		stdev;
+
+    stats = data.getStatisticsCache();
+    if ((stats.getMissingCount() > 0) || (stats.getCount() == 0))
+      return null;
+    stdev = stats.getStdDev(false);
+    if (stdev == 0)
+      return null;
+    min = stats.getMin();
+
+    return (values) -> {
+      for (int i = 0; i < values.length; i++)
+	values[i] = (values[i] - min) / stdev;
+    };
+  }
+
+  /**
+   * Performs the actual filtering. Uses the same row operation as the
+   * fused processing, unless missing values are present or the standard
+   * deviation is zero.
    *
    * @param data	the data to filter
    * @return		the filtered data
    */
   protected Heatmap processData(Heatmap data) {
     Heatmap		result;
+    HeatmapRowOperation	op;
     Double[]		values;
     int			i;
     double		min;
 
     result = data.getHeader();
+    op     = getRowOperation(data);
+    if (op != null) {
+      HeatmapRowOperationHelper.apply(data, result, op);
+      return result;
+    }
+
     values = data.toDoubleArray();
     values = StatUtils.standardize(values, false);
     min    = StatUtils.min(values).doubleValue();
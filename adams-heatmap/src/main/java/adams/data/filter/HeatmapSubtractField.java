@@ -15,7 +15,7 @@
 
 /*
  * SubtractField.java
- * Copyright (C) 2012 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2012-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.data.filter;
@@ -52,7 +52,8 @@ import adams.data.report.Field;
  * @version $Revision$
  */
 public class HeatmapSubtractField
-  extends AbstractFilter<Heatmap> {
+  extends AbstractFilter<Heatmap>
+  implements FusableHeatmapFilter {
 
   /** for serialization. */
   private static final long serialVersionUID = -7041791005249685082L;
@@ -113,6 +114,64 @@ public class HeatmapSubtractField
     return "The (numeric) field in the report to subtract from the heatmap values.";
   }
 
+  /**
+   * Returns whether the row operation is derived from the values of the
+   * heatmap, i.e., whether all preceding operations must have been applied
+   * before the operation can be obtained.
+   *
+   * @return		always false, as only the report is used
+   */
+  public boolean requiresValues() {
+    return false;
+  }
+
+  /**
+   * Checks whether the heatmap can be processed.
+   *
+   * @param data	the heatmap to check
+   * @return		null if it can be processed, otherwise error message
+   */
+  protected String checkData(Heatmap data) {
+    if (!data.hasReport())
+      return "No report attached!";
+    if (!data.getReport().hasValue(m_Field))
+      return "Field '" + m_Field + "' not found in report!";
+    if (!(data.getReport().getValue(m_Field) instanceof Double))
+      return "Field '" + m_Field + "' not numeric!";
+    return null;
+  }
+
+  /**
+   * Returns the operation that subtracts the value from all positive values, without going below zero.
+   *
+   * @param subtract	the value from the report
+   * @return		the operation
+   */
+  protected HeatmapRowOperation newOperation(final double subtract) {
+    return (values) -> {
+      for (int i = 0; i < values.length; i++) {
+	if (values[i] > 0) {
+	  values[i] -= subtract;
+	  if (values[i] < 0.0)
+	    values[i] = 0.0;
+	}
+      }
+    };
+  }
+
+  /**
+   * Returns the operation to apply to each row of the heatmap.
+   *
+   * @param data	the heatmap to obtain the operation for
+   * @return		the operation, null if the heatmap cannot be processed
+   */
+  public HeatmapRowOperation getRowOperation(Heatmap data) {
+    if (checkData(data) != null)
+      return null;
+    else
+      return newOperation(data.getReport().getDoubleValue(m_Field));
+  }
+
   /**
    * Performs the actual filtering.
    *
@@ -122,38 +181,20 @@ public class HeatmapSubtractField
   @Override
   protected Heatmap processData(Heatmap data) {
     Heatmap		result;
-    Double[]		values;
-    double		subtract;
-    int			i;
+    HeatmapRowOperation	op;
+    String		msg;
 
-    if (!data.hasReport()) {
-      result = data.getClone();
-      result.getNotes().addError(getClass(), "No report attached!");
-      return result;
-    }
-    if (!data.getReport().hasValue(m_Field)) {
+    msg = checkData(data);
+    if (msg != null) {
       result = data.getClone();
-      result.getNotes().addError(getClass(), "Field '" + m_Field + "' not found in report!");
-      return result;
-    }
-    if (!(data.getReport().getValue(m_Field) instanceof Double)) {
-      result = data.getClone();
-      result.getNotes().addError(getClass(), "Field '" + m_Field + "' not numeric!");
+      result.getNotes().addError(getClass(), msg);
       return result;
     }
 
-    subtract = data.getReport().getDoubleValue(m_Field);
+    op = newOperation(data.getReport().getDoubleValue(m_Field));
 
     result = data.getHeader();
-    values = data.toDoubleArray();
-    for (i = 0; i < values.length; i++) {
-      if (values[i] > 0) {
-	values[i] -= subtract;
-	if (values[i] < 0.0)
-	  values[i] = 0.0;
-      }
-    }
-    result.set(values);
+    HeatmapRowOperationHelper.apply(data, result, op);
 
     return result;
   }
@@ -15,7 +15,7 @@
 
 /*
  * HeatmapThreshold.java
- * Copyright (C) 2011-2015 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.data.filter;
@@ -70,13 +70,20 @@ import adams.data.heatmap.Heatmap;
  * &nbsp;&nbsp;&nbsp;default: SKIP
  * </pre>
  * 
+ * <pre>-in-place &lt;boolean&gt; (property: inPlace)
+ * &nbsp;&nbsp;&nbsp;If enabled, the input heatmap gets modified directly rather than a copy; 
+ * &nbsp;&nbsp;&nbsp;only use this if no other part of the flow uses the input heatmap.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ * 
  <!-- options-end -->
  *
  * @author  fracpete (fracpete at waikato dot ac dot nz)
  * @version $Revision$
  */
 public class HeatmapThreshold
-  extends AbstractFilter<Heatmap> {
+  extends AbstractFilter<Heatmap>
+  implements FusableHeatmapFilter {
 
   /** for serialization. */
   private static final long serialVersionUID = -1306518673446335794L;
@@ -122,6 +129,9 @@ public class HeatmapThreshold
   /** how missing values are treated. */
   protected MissingValuesHandling m_MissingValuesHandling;
 
+  /** whether to modify the heatmap in place. */
+  protected boolean m_InPlace;
+
   /**
    * Returns a string describing the object.
    *
@@ -159,6 +169,10 @@ public class HeatmapThreshold
     m_OptionManager.add(
       "missing-values-handling", "missingValuesHandling",
       MissingValuesHandling.SKIP);
+
+    m_OptionManager.add(
+      "in-place", "inPlace",
+      false);
   }
 
   /**
@@ -311,6 +325,122 @@ public class HeatmapThreshold
 	  + "eg whether they get skipped or always replaced.";
   }
 
+  /**
+   * Sets whether to modify the input heatmap directly.
+   *
+   * @param value 	true if to modify in place
+   */
+  public void setInPlace(boolean value) {
+    m_InPlace = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to modify the input heatmap directly.
+   *
+   * @return 		true if to modify in place
+   */
+  public boolean getInPlace() {
+    return m_InPlace;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String inPlaceTipText() {
+    return
+        "If enabled, the input heatmap gets modified directly rather than a "
+	  + "copy; only use this if no other part of the flow uses the input heatmap.";
+  }
+
+  /**
+   * Returns whether the row operation is derived from the values of the
+   * heatmap, i.e., whether all preceding operations must have been applied
+   * before the operation can be obtained.
+   *
+   * @return		true unless a manual threshold is used
+   */
+  @Override
+  public boolean requiresValues() {
+    return !(m_Threshold instanceof Manual);
+  }
+
+  /**
+   * Returns the operation that replaces the values according to the threshold.
+   *
+   * @param threshold	the threshold to use
+   * @return		the operation
+   */
+  protected HeatmapRowOperation newOperation(final double threshold) {
+    return (values) -> {
+      double	value;
+      int	i;
+
+      for (i = 0; i < values.length; i++) {
+	value = values[i];
+	if (Heatmap.isMissingValue(value)) {
+	  switch (m_MissingValuesHandling) {
+	    case SKIP:
+	      // don't do anything;
+	      break;
+
+	    case REPLACE:
+	      if (!m_ReplaceWithMissing)
+		values[i] = m_Replacement;
+	      break;
+
+	    default:
+	      throw new IllegalStateException("Unhandled missing values handling: " + m_MissingValuesHandling);
+	  }
+	}
+	else {
+	  switch (m_Type) {
+	    case BELOW:
+	      if (value < threshold) {
+		if (m_ReplaceWithMissing)
+		  values[i] = Heatmap.MISSING_VALUE;
+		else
+		  values[i] = m_Replacement;
+	      }
+	      break;
+
+	    case ABOVE:
+	      if (value > threshold) {
+		if (m_ReplaceWithMissing)
+		  values[i] = Heatmap.MISSING_VALUE;
+		else
+		  values[i] = m_Replacement;
+	      }
+	      break;
+
+	    default:
+	      throw new IllegalStateException("Unhandled type: " + m_Type);
+	  }
+	}
+      }
+    };
+  }
+
+  /**
+   * Returns the operation to apply to each row of the heatmap.
+   *
+   * @param data	the heatmap to obtain the operation for
+   * @return		the operation
+   */
+  @Override
+  public HeatmapRowOperation getRowOperation(Heatmap data) {
+    double	threshold;
+
+    threshold = m_Threshold.calcThreshold(data);
+    if (isLoggingEnabled())
+      getLogger().info("Threshold: " + threshold);
+
+    return newOperation(threshold);
+  }
+
   /**
    * Performs the actual filtering.
    *
@@ -319,57 +449,15 @@ public class HeatmapThreshold
    */
   protected Heatmap processData(Heatmap data) {
     Heatmap		result;
-    int			i;
-    double		value;
-    double		threshold;
+    HeatmapRowOperation	op;
 
-    result    = data.getClone();
-    threshold = m_Threshold.calcThreshold(data);
-    if (isLoggingEnabled())
-      getLogger().info("Threshold: " + threshold);
+    if (m_InPlace)
+      result = data;
+    else
+      result = data.getHeader();
+    op = getRowOperation(data);
 
-    for (i = 0; i < data.size(); i++) {
-      value = data.get(i);
-      if (Heatmap.isMissingValue(value)) {
-	switch (m_MissingValuesHandling) {
-	  case SKIP:
-	    // don't do anything;
-	    break;
-
-	  case REPLACE:
-	    if (!m_ReplaceWithMissing)
-	      result.set(i, m_Replacement);
-	    break;
-
-	  default:
-	    throw new IllegalStateException("Unhandled missing values handling: " + m_MissingValuesHandling);
-	}
-      }
-      else {
-	switch (m_Type) {
-	  case BELOW:
-	    if (value < threshold) {
-	      if (m_ReplaceWithMissing)
-		result.setMissing(i);
-	      else
-		result.set(i, m_Replacement);
-	    }
-	    break;
-
-	  case ABOVE:
-	    if (value > threshold) {
-	      if (m_ReplaceWithMissing)
-		result.setMissing(i);
-	      else
-		result.set(i, m_Replacement);
-	    }
-	    break;
-
-	  default:
-	    throw new IllegalStateException("Unhandled type: " + m_Type);
-	}
-      }
-    }
+    HeatmapRowOperationHelper.apply(data, result, op);
 
     return result;
   }
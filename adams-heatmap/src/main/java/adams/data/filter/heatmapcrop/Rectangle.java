@@ -15,7 +15,7 @@
 
 /**
  * Rectangle.java
- * Copyright (C) 2015 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2015-2026 University of Waikato, Hamilton, NZ
  */
 
 package adams.data.filter.heatmapcrop;
@@ -60,6 +60,13 @@ import adams.data.heatmap.Heatmap;
  * &nbsp;&nbsp;&nbsp;minimum: 1
  * </pre>
  * 
+ * <pre>-view &lt;boolean&gt; (property: view)
+ * &nbsp;&nbsp;&nbsp;If enabled, a view of the original heatmap is generated rather than a copy;
+ * &nbsp;&nbsp;&nbsp; the values only get copied when the cropped heatmap gets modified; until then, changes
+ * &nbsp;&nbsp;&nbsp;to the original heatmap are visible in the cropped heatmap as well.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ * 
  <!-- options-end -->
  *
  * @author FracPete (fracpete at waikato dot ac dot nz)
@@ -82,6 +89,9 @@ public class Rectangle
   /** the width of the submap. */
   protected int m_Width;
 
+  /** whether to generate a view rather than a copy. */
+  protected boolean m_View;
+
   /**
    * Returns a string describing the object.
    *
@@ -114,6 +124,10 @@ public class Rectangle
     m_OptionManager.add(
 	"width", "width",
 	320, 1, null);
+
+    m_OptionManager.add(
+	"view", "view",
+	false);
   }
 
   /**
@@ -240,6 +254,39 @@ public class Rectangle
     return "The width of the rectangle.";
   }
 
+  /**
+   * Sets whether to generate a view of the original heatmap rather than a copy.
+   *
+   * @param value 	true if to generate a view
+   */
+  public void setView(boolean value) {
+    m_View = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to generate a view of the original heatmap rather than a copy.
+   *
+   * @return 		true if to generate a view
+   */
+  public boolean getView() {
+    return m_View;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String viewTipText() {
+    return
+        "If enabled, a view of the original heatmap is generated rather than "
+      + "a copy; the values only get copied when the cropped heatmap gets modified; "
+      + "until then, changes to the original heatmap are visible in the "
+      + "cropped heatmap as well.";
+  }
+
   /**
    * Performs the actual cropping.
    *
@@ -248,6 +295,9 @@ public class Rectangle
    */
   @Override
   protected Heatmap doCrop(Heatmap map) {
-    return map.submap(m_Y - 1, m_X - 1, m_Height, m_Width);
+    if (m_View)
+      return map.submapView(m_Y - 1, m_X - 1, m_Height, m_Width);
+    else
+      return map.submap(m_Y - 1, m_X - 1, m_Height, m_Width);
   }
 }
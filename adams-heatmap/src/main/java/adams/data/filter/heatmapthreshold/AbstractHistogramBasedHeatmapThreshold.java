@@ -0,0 +1,125 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractHistogramBasedHeatmapThreshold.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.data.filter.heatmapthreshold;
+
+import adams.data.heatmap.Heatmap;
+import adams.data.heatmap.HeatmapStatisticsCache;
+
+/**
+ * Ancestor of threshold algorithms that determine the threshold from a
+ * histogram with fixed-width bins between the minimum and maximum of the
+ * heatmap. The histogram is obtained from the statistics cache of the heatmap,
+ * i.e., it only gets computed once per heatmap and number of bins. The bin
+ * determined by the algorithm is turned back into a value in the units of the
+ * heatmap, using the upper boundary of the bin.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractHistogramBasedHeatmapThreshold
+  extends AbstractHeatmapThreshold {
+
+  private static final long serialVersionUID = 4360911284398046720L;
+
+  /** the number of bins. */
+  protected int m_NumBins;
+
+  /**
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+	"num-bins", "numBins",
+	256, 2, null);
+  }
+
+  /**
+   * Sets the number of bins to use for the histogram.
+   *
+   * @param value	the number of bins
+   */
+  public void setNumBins(int value) {
+    if (getOptionManager().isValid("numBins", value)) {
+      m_NumBins = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the number of bins to use for the histogram.
+   *
+   * @return		the number of bins
+   */
+  public int getNumBins() {
+    return m_NumBins;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String numBinsTipText() {
+    return "The number of bins to use for the histogram of the heatmap values.";
+  }
+
+  /**
+   * Determines the threshold bin from the histogram. All bins up to and
+   * including the returned one are considered background.
+   *
+   * @param histogram	the counts per bin (do not modify)
+   * @return		the threshold bin
+   */
+  protected abstract int calcThresholdBin(int[] histogram);
+
+  /**
+   * Performs the actual calculation of the threshold.
+   *
+   * @param map		the map to base the calculation on
+   * @return		the threshold
+   */
+  @Override
+  protected double doCalcThreshold(Heatmap map) {
+    double			result;
+    HeatmapStatisticsCache	stats;
+    int				bin;
+
+    stats = map.getStatisticsCache();
+    if (stats.getCount() == 0)
+      return Heatmap.MISSING_VALUE;
+    if (stats.getMax() <= stats.getMin())
+      return stats.getMin();
+
+    bin = calcThresholdBin(stats.getHistogram(m_NumBins));
+    if (bin < 0)
+      bin = 0;
+    else if (bin >= m_NumBins)
+      bin = m_NumBins - 1;
+    result = stats.getMin() + (bin + 1) * (stats.getMax() - stats.getMin()) / m_NumBins;
+    if (isLoggingEnabled())
+      getLogger().info("Threshold (bin/value): " + bin + "/" + result);
+
+    return result;
+  }
+}
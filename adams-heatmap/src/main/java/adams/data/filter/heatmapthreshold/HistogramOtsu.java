@@ -0,0 +1,142 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HistogramOtsu.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.data.filter.heatmapthreshold;
+
+import adams.core.TechnicalInformation;
+import adams.core.TechnicalInformation.Field;
+import adams.core.TechnicalInformation.Type;
+import adams.core.TechnicalInformationHandler;
+
+/**
+ <!-- globalinfo-start -->
+ * Computes the variance based threshold using Otsu's method from a histogram of the heatmap values, i.e., without turning the heatmap into an image first.<br>
+ * <br>
+ * For more information see:<br>
+ * WikiPedia. Otsu's method.
+ * <br><br>
+ <!-- globalinfo-end -->
+ *
+ <!-- options-start -->
+ * <pre>-logging-level &lt;OFF|SEVERE|WARNING|INFO|CONFIG|FINE|FINER|FINEST&gt; (property: loggingLevel)
+ * &nbsp;&nbsp;&nbsp;The logging level for outputting errors and debugging output.
+ * &nbsp;&nbsp;&nbsp;default: WARNING
+ * </pre>
+ * 
+ * <pre>-num-bins &lt;int&gt; (property: numBins)
+ * &nbsp;&nbsp;&nbsp;The number of bins to use for the histogram of the heatmap values.
+ * &nbsp;&nbsp;&nbsp;default: 256
+ * &nbsp;&nbsp;&nbsp;minimum: 2
+ * </pre>
+ * 
+ <!-- options-end -->
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class HistogramOtsu
+  extends AbstractHistogramBasedHeatmapThreshold
+  implements TechnicalInformationHandler {
+
+  private static final long serialVersionUID = -2387011634508735339L;
+
+  /**
+   * Returns a string describing the object.
+   *
+   * @return 			a description suitable for displaying in the gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+	"Computes the variance based threshold using Otsu's method from a "
+	+ "histogram of the heatmap values, i.e., without turning the heatmap "
+	+ "into an image first.\n\n"
+	+ "For more information see:\n"
+	+ getTechnicalInformation();
+  }
+
+  /**
+   * Returns an instance of a TechnicalInformation object, containing
+   * detailed information about the technical background of this class,
+   * e.g., paper reference or book this class is based on.
+   *
+   * @return 		the technical information about this class
+   */
+  public TechnicalInformation getTechnicalInformation() {
+    TechnicalInformation 	result;
+
+    result = new TechnicalInformation(Type.MISC);
+    result.setValue(Field.AUTHOR, "WikiPedia");
+    result.setValue(Field.TITLE, "Otsu's method");
+    result.setValue(Field.HTTP, "https://en.wikipedia.org/wiki/Otsu%27s_method");
+
+    return result;
+  }
+
+  /**
+   * Determines the bin that maximizes the between-class variance.
+   *
+   * @param histogram	the counts per bin (do not modify)
+   * @return		the threshold bin
+   */
+  @Override
+  protected int calcThresholdBin(int[] histogram) {
+    int		result;
+    long	total;
+    double	sumAll;
+    double	sumBack;
+    long	weightBack;
+    long	weightFore;
+    double	meanBack;
+    double	meanFore;
+    double	between;
+    double	maxBetween;
+    int		i;
+
+    total  = 0;
+    sumAll = 0.0;
+    for (i = 0; i < histogram.length; i++) {
+      total  += histogram[i];
+      sumAll += (double) i * histogram[i];
+    }
+
+    result     = 0;
+    maxBetween = -1.0;
+    sumBack    = 0.0;
+    weightBack = 0;
+    for (i = 0; i < histogram.length; i++) {
+      weightBack += histogram[i];
+      if (weightBack == 0)
+	continue;
+      weightFore = total - weightBack;
+      if (weightFore == 0)
+	break;
+      sumBack  += (double) i * histogram[i];
+      meanBack = sumBack / weightBack;
+      meanFore = (sumAll - sumBack) / weightFore;
+      between  = (double) weightBack * (double) weightFore * (meanBack - meanFore) * (meanBack - meanFore);
+      if (between > maxBetween) {
+	maxBetween = between;
+	result     = i;
+      }
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Li.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.data.filter.heatmapthreshold;
+
+import adams.core.TechnicalInformation;
+import adams.core.TechnicalInformation.Field;
+import adams.core.TechnicalInformation.Type;
+import adams.core.TechnicalInformationHandler;
+
+/**
+ <!-- globalinfo-start -->
+ * Computes the threshold using Li's iterative minimum cross entropy method from a histogram of the heatmap values. Starting with the mean, the threshold gets updated from the means of the background and foreground until it no longer changes.<br>
+ * <br>
+ * For more information see:<br>
+ * C.H. Li, P.K.S. Tam (1998). An iterative algorithm for minimum cross entropy thresholding. Pattern Recognition Letters. 19(8):771-776.
+ * <br><br>
+ <!-- globalinfo-end -->
+ *
+ <!-- options-start -->
+ * <pre>-logging-level &lt;OFF|SEVERE|WARNING|INFO|CONFIG|FINE|FINER|FINEST&gt; (property: loggingLevel)
+ * &nbsp;&nbsp;&nbsp;The logging level for outputting errors and debugging output.
+ * &nbsp;&nbsp;&nbsp;default: WARNING
+ * </pre>
+ * 
+ * <pre>-num-bins &lt;int&gt; (property: numBins)
+ * &nbsp;&nbsp;&nbsp;The number of bins to use for the histogram of the heatmap values.
+ * &nbsp;&nbsp;&nbsp;default: 256
+ * &nbsp;&nbsp;&nbsp;minimum: 2
+ * </pre>
+ * 
+ * <pre>-max-iterations &lt;int&gt; (property: maxIterations)
+ * &nbsp;&nbsp;&nbsp;The maximum number of iterations to perform.
+ * &nbsp;&nbsp;&nbsp;default: 1000
+ * &nbsp;&nbsp;&nbsp;minimum: 1
+ * </pre>
+ * 
+ <!-- options-end -->
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Li
+  extends AbstractHistogramBasedHeatmapThreshold
+  implements TechnicalInformationHandler {
+
+  private static final long serialVersionUID = -8542617349098347212L;
+
+  /** the tolerance for the convergence. */
+  public final static double TOLERANCE = 0.5;
+
+  /** the maximum number of iterations. */
+  protected int m_MaxIterations;
+
+  /**
+   * Returns a string describing the object.
+   *
+   * @return 			a description suitable for displaying in the gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+	"Computes the threshold using Li's iterative minimum cross entropy "
+	+ "method from a histogram of the heatmap values. Starting with the "
+	+ "mean, the threshold gets updated from the means of the background "
+	+ "and foreground until it no longer changes.\n\n"
+	+ "For more information see:\n"
+	+ getTechnicalInformation();
+  }
+
+  /**
+   * Returns an instance of a TechnicalInformation object, containing
+   * detailed information about the technical background of this class,
+   * e.g., paper reference or book this class is based on.
+   *
+   * @return 		the technical information about this class
+   */
+  public TechnicalInformation getTechnicalInformation() {
+    TechnicalInformation 	result;
+
+    result = new TechnicalInformation(Type.ARTICLE);
+    result.setValue(Field.AUTHOR, "C.H. Li and P.K.S. Tam");
+    result.setValue(Field.TITLE, "An iterative algorithm for minimum cross entropy thresholding");
+    result.setValue(Field.JOURNAL, "Pattern Recognition Letters");
+    result.setValue(Field.YEAR, "1998");
+    result.setValue(Field.VOLUME, "19");
+    result.setValue(Field.NUMBER, "8");
+    result.setValue(Field.PAGES, "771-776");
+
+    return result;
+  }
+
+  /**
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+	"max-iterations", "maxIterations",
+	1000, 1, null);
+  }
+
+  /**
+   * Sets the maximum number of iterations.
+   *
+   * @param value	the maximum
+   */
+  public void setMaxIterations(int value) {
+    if (getOptionManager().isValid("maxIterations", value)) {
+      m_MaxIterations = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the maximum number of iterations.
+   *
+   * @return		the maximum
+   */
+  public int getMaxIterations() {
+    return m_MaxIterations;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String maxIterationsTipText() {
+    return "The maximum number of iterations to perform.";
+  }
+
+  /**
+   * Determines the threshold bin iteratively. Bin i is treated as intensity
+   * i+1 to keep the logarithms defined.
+   *
+   * @param histogram	the counts per bin (do not modify)
+   * @return		the threshold bin
+   */
+  @Override
+  protected int calcThresholdBin(int[] histogram) {
+    int		result;
+    long	total;
+    double	sum;
+    double	sumBack;
+    double	sumFore;
+    long	numBack;
+    long	numFore;
+    double	meanBack;
+    double	meanFore;
+    double	oldThreshold;
+    double	newThreshold;
+    double	temp;
+    int		iteration;
+    int		i;
+
+    total = 0;
+    sum   = 0.0;
+    for (i = 0; i < histogram.length; i++) {
+      total += histogram[i];
+      sum   += (double) (i + 1) * histogram[i];
+    }
+    if (total == 0)
+      return 0;
+
+    result       = 0;
+    newThreshold = sum / total;
+    for (iteration = 0; iteration < m_MaxIterations; iteration++) {
+      oldThreshold = newThreshold;
+      result       = (int) (oldThreshold + 0.5);
+      sumBack      = 0.0;
+      numBack      = 0;
+      sumFore      = 0.0;
+      numFore      = 0;
+      for (i = 0; i < histogram.length; i++) {
+	if (i + 1 <= result) {
+	  sumBack += (double) (i + 1) * histogram[i];
+	  numBack += histogram[i];
+	}
+	else {
+	  sumFore += (double) (i + 1) * histogram[i];
+	  numFore += histogram[i];
+	}
+      }
+      if ((numBack == 0) || (numFore == 0))
+	break;
+      meanBack = sumBack / numBack;
+      meanFore = sumFore / numFore;
+      temp     = (meanBack - meanFore) / (Math.log(meanBack) - Math.log(meanFore));
+      if (temp < 0)
+	newThreshold = (int) (temp - 0.5);
+      else
+	newThreshold = (int) (temp + 0.5);
+      if (Math.abs(newThreshold - oldThreshold) <= TOLERANCE)
+	break;
+    }
+
+    return result - 1;
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Triangle.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.data.filter.heatmapthreshold;
+
+import adams.core.TechnicalInformation;
+import adams.core.TechnicalInformation.Field;
+import adams.core.TechnicalInformation.Type;
+import adams.core.TechnicalInformationHandler;
+
+/**
+ <!-- globalinfo-start -->
+ * Computes the threshold using the triangle method from a histogram of the heatmap values: a line is drawn from the peak of the histogram to the far end of the longer tail and the bin with the largest distance to this line is used as threshold.<br>
+ * <br>
+ * For more information see:<br>
+ * G.W. Zack, W.E. Rogers, S.A. Latt (1977). Automatic measurement of sister chromatid exchange frequency. Journal of Histochemistry and Cytochemistry. 25(7):741-753.
+ * <br><br>
+ <!-- globalinfo-end -->
+ *
+ <!-- options-start -->
+ * <pre>-logging-level &lt;OFF|SEVERE|WARNING|INFO|CONFIG|FINE|FINER|FINEST&gt; (property: loggingLevel)
+ * &nbsp;&nbsp;&nbsp;The logging level for outputting errors and debugging output.
+ * &nbsp;&nbsp;&nbsp;default: WARNING
+ * </pre>
+ * 
+ * <pre>-num-bins &lt;int&gt; (property: numBins)
+ * &nbsp;&nbsp;&nbsp;The number of bins to use for the histogram of the heatmap values.
+ * &nbsp;&nbsp;&nbsp;default: 256
+ * &nbsp;&nbsp;&nbsp;minimum: 2
+ * </pre>
+ * 
+ <!-- options-end -->
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Triangle
+  extends AbstractHistogramBasedHeatmapThreshold
+  implements TechnicalInformationHandler {
+
+  private static final long serialVersionUID = 2919284585869424431L;
+
+  /**
+   * Returns a string describing the object.
+   *
+   * @return 			a description suitable for displaying in the gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+	"Computes the threshold using the triangle method from a histogram of "
+	+ "the heatmap values: a line is drawn from the peak of the histogram "
+	+ "to the far end of the longer tail and the bin with the largest "
+	+ "distance to this line is used as threshold.\n\n"
+	+ "For more information see:\n"
+	+ getTechnicalInformation();
+  }
+
+  /**
+   * Returns an instance of a TechnicalInformation object, containing
+   * detailed information about the technical background of this class,
+   * e.g., paper reference or book this class is based on.
+   *
+   * @return 		the technical information about this class
+   */
+  public TechnicalInformation getTechnicalInformation() {
+    TechnicalInformation 	result;
+
+    result = new TechnicalInformation(Type.ARTICLE);
+    result.setValue(Field.AUTHOR, "G.W. Zack and W.E. Rogers and S.A. Latt");
+    result.setValue(Field.TITLE, "Automatic measurement of sister chromatid exchange frequency");
+    result.setValue(Field.JOURNAL, "Journal of Histochemistry and Cytochemistry");
+    result.setValue(Field.YEAR, "1977");
+    result.setValue(Field.VOLUME, "25");
+    result.setValue(Field.NUMBER, "7");
+    result.setValue(Field.PAGES, "741-753");
+
+    return result;
+  }
+
+  /**
+   * Determines the bin with the largest distance to the line between peak
+   * and the end of the longer tail.
+   *
+   * @param histogram	the counts per bin (do not modify)
+   * @return		the threshold bin
+   */
+  @Override
+  protected int calcThresholdBin(int[] histogram) {
+    int[]	data;
+    int		first;
+    int		last;
+    int		peak;
+    boolean	inverted;
+    double	nx;
+    double	ny;
+    double	d;
+    double	dist;
+    double	maxDist;
+    int		split;
+    int		i;
+
+    // range of non-empty bins, including one empty bin on either side
+    first = 0;
+    for (i = 0; i < histogram.length; i++) {
+      if (histogram[i] > 0) {
+	first = i;
+	break;
+      }
+    }
+    if (first > 0)
+      first--;
+    last = 0;
+    for (i = histogram.length - 1; i > 0; i--) {
+      if (histogram[i] > 0) {
+	last = i;
+	break;
+      }
+    }
+    if (last < histogram.length - 1)
+      last++;
+    peak = 0;
+    for (i = 0; i < histogram.length; i++) {
+      if (histogram[peak] < histogram[i])
+	peak = i;
+    }
+
+    // always work on the left-hand tail, flip histogram if necessary
+    inverted = ((peak - first) < (last - peak));
+    if (inverted) {
+      data = new int[histogram.length];
+      for (i = 0; i < histogram.length; i++)
+	data[i] = histogram[histogram.length - 1 - i];
+      first = histogram.length - 1 - last;
+      peak  = histogram.length - 1 - peak;
+    }
+    else {
+      data = histogram;
+    }
+    if (first == peak)
+      return inverted ? histogram.length - 1 - first : first;
+
+    // normalized line from (first, data[first]) to (peak, data[peak])
+    nx = data[peak];
+    ny = first - peak;
+    d  = Math.sqrt(nx * nx + ny * ny);
+    nx /= d;
+    ny /= d;
+    d  = nx * first + ny * data[first];
+
+    split   = first;
+    maxDist = 0.0;
+    for (i = first + 1; i <= peak; i++) {
+      dist = nx * i + ny * data[i] - d;
+      if (dist > maxDist) {
+	split   = i;
+	maxDist = dist;
+      }
+    }
+    split--;
+
+    if (inverted)
+      return histogram.length - 1 - split;
+    else
+      return split;
+  }
+}
@@ -0,0 +1,265 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractHeatmapStorage.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.data.heatmap;
+
+import adams.core.CleanUpHandler;
+import adams.core.CloneHandler;
+
+import java.io.Serializable;
+
+/**
+ * Ancestor for the storage of the values of a heatmap. The values are
+ * stored in row-major order, with the offset of a cell computed as
+ * <code>row * stride + col</code>. Storages that can hold more cells than
+ * fit into an int offset must override the row/column based methods.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractHeatmapStorage
+  implements Serializable, CloneHandler<AbstractHeatmapStorage>, CleanUpHandler {
+
+  private static final long serialVersionUID = -1203480418306578734L;
+
+  /** the height. */
+  protected int m_Height;
+
+  /** the width. */
+  protected int m_Width;
+
+  /**
+   * Initializes the storage.
+   *
+   * @param height	the number of rows
+   * @param width	the number of columns
+   */
+  protected AbstractHeatmapStorage(int height, int width) {
+    if (height < 0)
+      throw new IllegalArgumentException("Height cannot be negative: " + height);
+    if (width < 0)
+      throw new IllegalArgumentException("Width cannot be negative: " + width);
+
+    m_Height = height;
+    m_Width  = width;
+  }
+
+  /**
+   * Returns the number of rows.
+   *
+   * @return		the height
+   */
+  public int getHeight() {
+    return m_Height;
+  }
+
+  /**
+   * Returns the number of columns.
+   *
+   * @return		the width
+   */
+  public int getWidth() {
+    return m_Width;
+  }
+
+  /**
+   * Returns the number of cells.
+   *
+   * @return		the number of cells
+   * @throws IllegalStateException	if there are more cells than can be
+   * 					addressed with an int offset
+   * @see		#getNumCells()
+   */
+  public int size() {
+    if (getNumCells() > Integer.MAX_VALUE)
+      throw new IllegalStateException(
+	"Too many cells for offset-based access, use row/column access instead: " + m_Height + " x " + m_Width);
+    return m_Height * m_Width;
+  }
+
+  /**
+   * Returns the number of cells, which can exceed the int range for
+   * storages that don't reside on the heap.
+   *
+   * @return		the number of cells
+   */
+  public long getNumCells() {
+    return (long) m_Height * m_Width;
+  }
+
+  /**
+   * Returns the distance between the first cells of two consecutive rows.
+   *
+   * @return		the stride
+   */
+  public int getStride() {
+    return m_Width;
+  }
+
+  /**
+   * Returns the offset of the cell.
+   *
+   * @param row		the row of the cell
+   * @param col		the column of the cell
+   * @return		the offset
+   * @throws ArrayIndexOutOfBoundsException	if the column is invalid
+   */
+  public int getOffset(int row, int col) {
+    if ((col < 0) || (col >= m_Width))
+      throw new ArrayIndexOutOfBoundsException("Invalid column: " + col + " (width: " + m_Width + ")");
+    return row * getStride() + col;
+  }
+
+  /**
+   * Returns whether the values are stored as single precision floats.
+   *
+   * @return		true if float precision
+   */
+  public abstract boolean isFloatPrecision();
+
+  /**
+   * Returns the value at the specified offset.
+   *
+   * @param pos		the offset
+   * @return		the value
+   */
+  public abstract double get(int pos);
+
+  /**
+   * Sets the value at the specified offset.
+   *
+   * @param pos		the offset
+   * @param value	the value
+   */
+  public abstract void set(int pos, double value);
+
+  /**
+   * Returns the value of the cell.
+   *
+   * @param row		the row of the cell
+   * @param col		the column of the cell
+   * @return		the value
+   */
+  public double get(int row, int col) {
+    return get(getOffset(row, col));
+  }
+
+  /**
+   * Sets the value of the cell.
+   *
+   * @param row		the row of the cell
+   * @param col		the column of the cell
+   * @param value	the value
+   */
+  public void set(int row, int col, double value) {
+    set(getOffset(row, col), value);
+  }
+
+  /**
+   * Copies the values of the row into the array.
+   *
+   * @param row		the row to copy
+   * @param dest	the array to copy to
+   * @param offset	the offset in the array
+   */
+  public void getRow(int row, double[] dest, int offset) {
+    int		start;
+    int		i;
+
+    start = row * getStride();
+    for (i = 0; i < m_Width; i++)
+      dest[offset + i] = get(start + i);
+  }
+
+  /**
+   * Sets the values of the row from the array.
+   *
+   * @param row		the row to set
+   * @param src		the array to copy from
+   * @param offset	the offset in the array
+   */
+  public void setRow(int row, double[] src, int offset) {
+    int		start;
+    int		i;
+
+    start = row * getStride();
+    for (i = 0; i < m_Width; i++)
+      set(start + i, src[offset + i]);
+  }
+
+  /**
+   * Sets all the values, stored row-wise in the array.
+   *
+   * @param values	the values
+   */
+  public void set(double[] values) {
+    int		row;
+
+    if (values.length != size())
+      throw new IllegalArgumentException(
+	"Length of array does not match storage size: " + values.length + " != " + size());
+
+    for (row = 0; row < m_Height; row++)
+      setRow(row, values, row * m_Width);
+  }
+
+  /**
+   * Returns all the values as row-wise array.
+   *
+   * @return		the values
+   */
+  public double[] toArray() {
+    double[]	result;
+    int		row;
+
+    result = new double[size()];
+    for (row = 0; row < m_Height; row++)
+      getRow(row, result, row * m_Width);
+
+    return result;
+  }
+
+  /**
+   * Returns a new, empty storage of the same type.
+   *
+   * @param height	the number of rows
+   * @param width	the number of columns
+   * @return		the new storage
+   */
+  public abstract AbstractHeatmapStorage newInstance(int height, int width);
+
+  /**
+   * Releases any resources held by the storage, e.g., files. The storage
+   * must not be used afterwards.
+   * <br><br>
+   * The default implementation does nothing.
+   */
+  @Override
+  public void cleanUp() {
+  }
+
+  /**
+   * Returns a short description of the storage.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + ": height=" + m_Height + ", width=" + m_Width;
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * DoubleHeatmapStorage.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.data.heatmap;
+
+/**
+ * Stores the heatmap values in a single, contiguous double array.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class DoubleHeatmapStorage
+  extends AbstractHeatmapStorage {
+
+  private static final long serialVersionUID = 4766394004478474012L;
+
+  /** the values. */
+  protected double[] m_Data;
+
+  /**
+   * Initializes the storage with zeroes.
+   *
+   * @param height	the number of rows
+   * @param width	the number of columns
+   */
+  public DoubleHeatmapStorage(int height, int width) {
+    super(height, width);
+    if (getNumCells() > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("Too many cells: " + height + " x " + width);
+    m_Data = new double[height * width];
+  }
+
+  /**
+   * Initializes the storage with the row-wise values (not copied).
+   *
+   * @param height	the number of rows
+   * @param width	the number of columns
+   * @param data	the values to use
+   */
+  public DoubleHeatmapStorage(int height, int width, double[] data) {
+    super(height, width);
+    if (data.length != height * width)
+      throw new IllegalArgumentException(
+	"Length of array does not match storage size: " + data.length + " != " + (height * width));
+    m_Data = data;
+  }
+
+  /**
+   * Returns whether the values are stored as single precision floats.
+   *
+   * @return		always false
+   */
+  @Override
+  public boolean isFloatPrecision() {
+    return false;
+  }
+
+  /**
+   * Returns the underlying row-major array.
+   *
+   * @return		the array
+   */
+  public double[] getData() {
+    return m_Data;
+  }
+
+  /**
+   * Returns the value at the specified offset.
+   *
+   * @param pos		the offset
+   * @return		the value
+   */
+  @Override
+  public double get(int pos) {
+    return m_Data[pos];
+  }
+
+  /**
+   * Sets the value at the specified offset.
+   *
+   * @param pos		the offset
+   * @param value	the value
+   */
+  @Override
+  public void set(int pos, double value) {
+    m_Data[pos] = value;
+  }
+
+  /**
+   * Copies the values of the row into the array.
+   *
+   * @param row		the row to copy
+   * @param dest	the array to copy to
+   * @param offset	the offset in the array
+   */
+  @Override
+  public void getRow(int row, double[] dest, int offset) {
+    System.arraycopy(m_Data, row * getStride(), dest, offset, m_Width);
+  }
+
+  /**
+   * Sets the values of the row from the array.
+   *
+   * @param row		the row to set
+   * @param src		the array to copy from
+   * @param offset	the offset in the array
+   */
+  @Override
+  public void setRow(int row, double[] src, int offset) {
+    System.arraycopy(src, offset, m_Data, row * getStride(), m_Width);
+  }
+
+  /**
+   * Sets all the values, stored row-wise in the array.
+   *
+   * @param values	the values
+   */
+  @Override
+  public void set(double[] values) {
+    if (values.length != size())
+      throw new IllegalArgumentException(
+	"Length of array does not match storage size: " + values.length + " != " + size());
+    System.arraycopy(values, 0, m_Data, 0, values.length);
+  }
+
+  /**
+   * Returns all the values as row-wise array.
+   *
+   * @return		the values
+   */
+  @Override
+  public double[] toArray() {
+    return m_Data.clone();
+  }
+
+  /**
+   * Returns a new, empty storage of the same type.
+   *
+   * @param height	the number of rows
+   * @param width	the number of columns
+   * @return		the new storage
+   */
+  @Override
+  public AbstractHeatmapStorage newInstance(int height, int width) {
+    return new DoubleHeatmapStorage(height, width);
+  }
+
+  /**
+   * Returns a copy of the storage.
+   *
+   * @return		the copy
+   */
+  @Override
+  public DoubleHeatmapStorage getClone() {
+    return new DoubleHeatmapStorage(m_Height, m_Width, m_Data.clone());
+  }
+}
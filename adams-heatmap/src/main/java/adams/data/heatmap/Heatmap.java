@@ -15,10 +15,11 @@
 
 /*
  * Heatmap.java
- * Copyright (C) 2011-2024 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.data.heatmap;
 
+import adams.core.CleanUpHandler;
 import adams.core.CompareUtils;
 import adams.core.Constants;
 import adams.core.UniqueIDs;
@@ -39,16 +40,40 @@ import adams.data.spreadsheet.SpreadSheet;
 import adams.data.spreadsheet.SpreadSheetSupporter;
 import adams.data.statistics.InformativeStatisticSupporter;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
 import java.util.TreeSet;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
- * Simple wrapper around a 2-D array representing a heatmap.
+ * Simple wrapper around a 2-D array representing a heatmap. The values
+ * are kept in an {@link AbstractHeatmapStorage}, which uses a contiguous
+ * row-major array in either double or float precision.
+ * <br><br>
+ * Serialization uses a compact binary encoding of the values and the report
+ * (see {@link #writeCompact(ObjectOutput)}), written via the
+ * {@link SerializedForm} proxy. The value block can be compressed by setting
+ * the system property {@link #PROPERTY_COMPRESS} to true. Heatmaps that were
+ * serialized with the default serialization of earlier versions can still
+ * be read.
  *
  * @author  fracpete (fracpete at waikato dot ac dot nz)
  */
@@ -56,11 +81,22 @@ public class Heatmap
   implements Serializable, MutableIDHandler, MutableReportHandler<Report>,
              NotesHandler, DataContainer<HeatmapValue>,
              InformativeStatisticSupporter<HeatmapStatistic>,
-             SpreadSheetSupporter {
+             SpreadSheetSupporter, CleanUpHandler {
 
   /** for serialization. */
   private static final long serialVersionUID = 2380816899974969042L;
 
+  /** the fields of the default serialized form of earlier versions, only used for reading. */
+  private static final ObjectStreamField[] serialPersistentFields = {
+    new ObjectStreamField("m_ID", String.class),
+    new ObjectStreamField("m_UUID", long.class),
+    new ObjectStreamField("m_Map", double[][].class),
+    new ObjectStreamField("m_Report", Report.class),
+    new ObjectStreamField("m_Notes", Notes.class),
+    new ObjectStreamField("m_Min", HeatmapValue.class),
+    new ObjectStreamField("m_Max", HeatmapValue.class),
+  };
+
   /** the field for the "filename" meta-data entry. */
   public final static String FIELD_FILENAME = "Filename";
 
@@ -70,6 +106,33 @@ public class Heatmap
   /** the missing value. */
   public final static double MISSING_VALUE = Double.NaN;
 
+  /** the system property for enabling compression of the serialized values. */
+  public final static String PROPERTY_COMPRESS = "adams.data.heatmap.Heatmap.compress";
+
+  /** the version of the serialization format. */
+  public final static int SERIALIZATION_VERSION = 1;
+
+  /** the approximate number of bytes per serialized value block. */
+  public final static int SERIALIZATION_BLOCK = 64 * 1024;
+
+  /** serialized storage: double precision values. */
+  protected final static byte STORAGE_DOUBLE = 0;
+
+  /** serialized storage: single precision values. */
+  protected final static byte STORAGE_FLOAT = 1;
+
+  /** serialized storage: storage object (eg file-backed). */
+  protected final static byte STORAGE_OBJECT = 2;
+
+  /** serialized report: none. */
+  protected final static byte REPORT_NONE = 0;
+
+  /** serialized report: compact encoding of the fields. */
+  protected final static byte REPORT_COMPACT = 1;
+
+  /** serialized report: report object. */
+  protected final static byte REPORT_OBJECT = 2;
+
   /** the singleton comparator. */
   protected static DataPointComparator<HeatmapValue> m_Comparator;
 
@@ -80,7 +143,7 @@ public class Heatmap
   protected long m_UUID;
 
   /** the actual heat map. */
-  protected double[][] m_Map;
+  protected AbstractHeatmapStorage m_Storage;
 
   /** meta-information on the heatmap. */
   protected Report m_Report;
@@ -88,21 +151,19 @@ public class Heatmap
   /** the attached notes. */
   protected Notes m_Notes;
 
-  /** the minimum intensity value. */
-  protected HeatmapValue m_Min;
-
-  /** the maximum intensity value. */
-  protected HeatmapValue m_Max;
+  /** the cached statistics, null if invalidated. */
+  protected transient HeatmapStatisticsCache m_StatisticsCache;
 
   /**
-   * Initializes the heatmap.
+   * Initializes an empty heatmap. Only used for deserialization.
    */
-  private Heatmap() {
-    m_ID     = "";
-    m_UUID   = UniqueIDs.nextLong();
-    m_Report = createEmptyReport();
-    m_Notes  = new Notes();
-    resetMinMax();
+  public Heatmap() {
+    m_ID      = "";
+    m_UUID    = UniqueIDs.nextLong();
+    m_Storage = new DoubleHeatmapStorage(0, 0);
+    m_Report  = createEmptyReport();
+    m_Notes   = new Notes();
+    invalidateStatistics();
   }
 
   /**
@@ -112,23 +173,44 @@ public class Heatmap
    * @param cols	the number of cols in the map
    */
   public Heatmap(int rows, int cols) {
+    this(rows, cols, false);
+  }
+
+  /**
+   * Initializes an empty heatmap with a given size.
+   *
+   * @param rows	the number of rows in the map
+   * @param cols	the number of cols in the map
+   * @param floatPrecision	whether to store the values as floats rather than doubles
+   */
+  public Heatmap(int rows, int cols, boolean floatPrecision) {
     this();
-    m_Map = new double[rows][cols];
+    if (floatPrecision)
+      m_Storage = new FloatHeatmapStorage(rows, cols);
+    else
+      m_Storage = new DoubleHeatmapStorage(rows, cols);
   }
 
   /**
-   * Initializes the heatmap with the 2-D data.
+   * Initializes the heatmap with the 2-D data (gets copied).
    *
    * @param map		the map data
    */
   public Heatmap(double[][] map) {
     this();
-    m_Map = map.clone();
-    resetMinMax();
-    for (int y = 0; y < getHeight(); y++) {
-      for (int x = 0; x < getWidth(); x++)
-	updateMinMax(y, x, m_Map[y][x]);
-    }
+    m_Storage = new DoubleHeatmapStorage(map.length, (map.length > 0) ? map[0].length : 0);
+    for (int y = 0; y < getHeight(); y++)
+      m_Storage.setRow(y, map[y], 0);
+  }
+
+  /**
+   * Initializes the heatmap with the storage (does not get copied).
+   *
+   * @param storage	the storage to use
+   */
+  public Heatmap(AbstractHeatmapStorage storage) {
+    this();
+    m_Storage = storage;
   }
 
   /**
@@ -191,68 +273,115 @@ public class Heatmap
   }
 
   /**
-   * Resets the min/max values.
+   * Returns the underlying storage of the values.
+   *
+   * @return		the storage
    */
-  protected void resetMinMax() {
-    m_Min = new HeatmapValue(0, 0, Double.MAX_VALUE);
-    m_Max = new HeatmapValue(0, 0, Double.MIN_VALUE);
+  public AbstractHeatmapStorage getStorage() {
+    return m_Storage;
   }
 
   /**
-   * Updates the min/max values.
+   * Returns whether the values are stored as single precision floats.
    *
-   * @param value	the new value
+   * @return		true if float precision
    */
-  protected void updateMinMax(int row, int col, double value) {
-    HeatmapValue  val;
+  public boolean isFloatPrecision() {
+    return m_Storage.isFloatPrecision();
+  }
 
-    if (!isMissingValue(value)) {
-      val = new HeatmapValue(row, col, value);
-      if (val.getValue() < m_Min.getValue())
-        m_Min = val;
-      if (val.getValue() > m_Max.getValue())
-        m_Max = val;
+  /**
+   * Releases the resources held by the storage, e.g., the temporary file
+   * of a {@link MappedHeatmapStorage}, and replaces it with an empty one.
+   * Views created beforehand can still be read, as file mappings only get
+   * released by the garbage collector.
+   */
+  @Override
+  public void cleanUp() {
+    m_Storage.cleanUp();
+    m_Storage = new DoubleHeatmapStorage(0, 0);
+    invalidateStatistics();
+  }
+
+  /**
+   * Discards the cached statistics. Needs to be called when modifying the
+   * underlying storage directly.
+   */
+  public void invalidateStatistics() {
+    m_StatisticsCache = null;
+  }
+
+  /**
+   * Returns the statistics of the values, computing them if necessary.
+   * The statistics of views that haven't been copied yet are not cached,
+   * as changes to the parent are visible in the view.
+   *
+   * @return		the statistics
+   * @see		ViewHeatmapStorage
+   */
+  public HeatmapStatisticsCache getStatisticsCache() {
+    HeatmapStatisticsCache	result;
+
+    result = m_StatisticsCache;
+    if (result == null) {
+      result = new HeatmapStatisticsCache(m_Storage);
+      if (!((m_Storage instanceof ViewHeatmapStorage) && ((ViewHeatmapStorage) m_Storage).isView()))
+	m_StatisticsCache = result;
     }
+
+    return result;
   }
 
   /**
    * Returns the smallest value in the heatmap.
    *
-   * @return		the minimum, {@link Double#MAX_VALUE} if only zeroes
-   * 			in the heatmp
+   * @return		the minimum, {@link Double#MAX_VALUE} if only missing
+   * 			values in the heatmap
    */
   public double getMin() {
-    return m_Min.getValue();
+    return getStatisticsCache().getMin();
   }
 
   /**
    * Returns the smallest value in the heatmap.
    *
-   * @return		the minimum, {@link Double#MAX_VALUE} if only zeroes
-   * 			in the heatmp
+   * @return		the minimum, {@link Double#MAX_VALUE} at 0,0 if only
+   * 			missing values in the heatmap
    */
   public HeatmapValue getMinValue() {
-    return m_Min;
+    HeatmapStatisticsCache	stats;
+
+    stats = getStatisticsCache();
+    if (stats.getMinRow() == -1)
+      return new HeatmapValue(0, 0, stats.getMin());
+    else
+      return new HeatmapValue(stats.getMinRow(), stats.getMinColumn(), stats.getMin());
   }
 
   /**
    * Returns the largest value in the heatmap.
    *
-   * @return		the maximum, {@link Double#MIN_VALUE} if only zeroes
-   * 			in the heatmp
+   * @return		the maximum, {@link Double#MIN_VALUE} if only missing
+   * 			values in the heatmap
    */
   public double getMax() {
-    return m_Max.getValue();
+    return getStatisticsCache().getMax();
   }
 
   /**
    * Returns the largest value in the heatmap.
    *
-   * @return		the maximum, {@link Double#MIN_VALUE} if only zeroes
-   * 			in the heatmp
+   * @return		the maximum, {@link Double#MIN_VALUE} at 0,0 if only
+   * 			missing values in the heatmap
    */
   public HeatmapValue getMaxValue() {
-    return m_Max;
+    HeatmapStatisticsCache	stats;
+
+    stats = getStatisticsCache();
+    if (stats.getMaxRow() == -1)
+      return new HeatmapValue(0, 0, stats.getMax());
+    else
+      return new HeatmapValue(stats.getMaxRow(), stats.getMaxColumn(), stats.getMax());
   }
 
   /**
@@ -261,7 +390,7 @@ public class Heatmap
    * @return		the height
    */
   public int getHeight() {
-    return m_Map.length;
+    return m_Storage.getHeight();
   }
 
   /**
@@ -270,20 +399,19 @@ public class Heatmap
    * @return		the width
    */
   public int getWidth() {
-    if (m_Map.length > 0)
-      return m_Map[0].length;
-    else
-      return 0;
+    return m_Storage.getWidth();
   }
 
   /**
    * Returns the total amount of data points in the map.
    *
    * @return		the total size
+   * @throws IllegalStateException	if the storage holds more cells than
+   * 					can be addressed with an int
    */
   @Override
   public int size() {
-    return getWidth() * getHeight();
+    return m_Storage.size();
   }
 
   /**
@@ -320,7 +448,7 @@ public class Heatmap
    * @return		the heat value at the location
    */
   public double get(int row, int col) {
-    return m_Map[row][col];
+    return m_Storage.get(row, col);
   }
 
   /**
@@ -331,7 +459,7 @@ public class Heatmap
    * @return		the heat value at the position
    */
   public double get(int pos) {
-    return get(getY(pos), getX(pos));
+    return m_Storage.get(pos);
   }
 
   /**
@@ -342,9 +470,8 @@ public class Heatmap
    * @param value	the heat value to set (>= 0.0)
    */
   public void set(int row, int col, double value) {
-    updateMinMax(row, col, value);
-
-    m_Map[row][col] = value;
+    m_Storage.set(row, col, value);
+    m_StatisticsCache = null;
   }
 
   /**
@@ -355,7 +482,8 @@ public class Heatmap
    * @param value	the heat value to set
    */
   public void set(int pos, double value) {
-    set(getY(pos), getX(pos), value);
+    m_Storage.set(pos, value);
+    m_StatisticsCache = null;
   }
 
   /**
@@ -366,21 +494,12 @@ public class Heatmap
    * @throws IllegalArgumentException	if array length and size of heatmap don't match
    */
   public void set(double[] values) {
-    int		x;
-    int		y;
-    int		index;
-
     if (values.length != size())
       throw new IllegalArgumentException(
 	  "Length of array does not match heatmap size: " + values.length + " != " + size());
 
-    index = 0;
-    for (y = 0; y < getHeight(); y++) {
-      for (x = 0; x < getWidth(); x++) {
-	set(y, x, values[index]);
-	index++;
-      }
-    }
+    m_Storage.set(values);
+    invalidateStatistics();
   }
 
   /**
@@ -391,21 +510,15 @@ public class Heatmap
    * @throws IllegalArgumentException	if array length and size of heatmap don't match
    */
   public void set(Double[] values) {
-    int		x;
-    int		y;
-    int		index;
+    int		i;
 
     if (values.length != size())
       throw new IllegalArgumentException(
 	  "Length of array does not match heatmap size: " + values.length + " != " + size());
 
-    index = 0;
-    for (y = 0; y < getHeight(); y++) {
-      for (x = 0; x < getWidth(); x++) {
-	set(y, x, values[index]);
-	index++;
-      }
-    }
+    for (i = 0; i < values.length; i++)
+      m_Storage.set(i, values[i]);
+    invalidateStatistics();
   }
 
   /**
@@ -467,7 +580,7 @@ public class Heatmap
   public Heatmap getClone() {
     Heatmap	result;
 
-    result = new Heatmap(m_Map.clone());
+    result = new Heatmap(m_Storage.getClone());
     result.setID(new String(getID()));
     result.setReport(getReport().getClone());
     result.m_Notes = getNotes().getClone();
@@ -526,20 +639,181 @@ public class Heatmap
    * @return		the heat values as Double array
    */
   public Double[] toDoubleArray(boolean skipMissing) {
-    List<Double>	result;
-    int			x;
-    int			y;
+    Double[]	result;
+    double[]	values;
+    int		i;
+
+    values = toPrimitiveArray(skipMissing);
+    result = new Double[values.length];
+    for (i = 0; i < values.length; i++)
+      result[i] = values[i];
 
-    result = new ArrayList<Double>();
+    return result;
+  }
+
+  /**
+   * Turns the heatmap into a double array (row wise).
+   *
+   * @param skipMissing	whether to skip missing values
+   * @return		the heat values
+   */
+  public double[] toPrimitiveArray(boolean skipMissing) {
+    double[]	result;
+    double[]	row;
+    int		count;
+    int		x;
+    int		y;
+
+    if (!skipMissing)
+      return m_Storage.toArray();
+
+    result = new double[size()];
+    row    = new double[getWidth()];
+    count  = 0;
     for (y = 0; y < getHeight(); y++) {
-      for (x = 0; x < getWidth(); x++) {
-	if (skipMissing && isMissing(y, x))
-	  continue;
-	result.add(get(y, x));
+      m_Storage.getRow(y, row, 0);
+      for (x = 0; x < row.length; x++) {
+	if (!isMissingValue(row[x]))
+	  result[count++] = row[x];
       }
     }
+    if (count < result.length)
+      result = Arrays.copyOf(result, count);
 
-    return result.toArray(new Double[result.size()]);
+    return result;
+  }
+
+  /**
+   * Copies the values of the row into the array.
+   *
+   * @param row		the row to copy
+   * @param dest	the array to copy to, gets allocated if null or too short
+   * @return		the array with the values
+   */
+  public double[] getRow(int row, double[] dest) {
+    if ((dest == null) || (dest.length < getWidth()))
+      dest = new double[getWidth()];
+    m_Storage.getRow(row, dest, 0);
+    return dest;
+  }
+
+  /**
+   * Visits the rows in the specified range as array spans. For double
+   * precision storage the backing array gets handed out directly,
+   * otherwise the row gets copied into a buffer that is reused.
+   *
+   * @param visitor	the visitor to apply
+   * @param start	the first row (incl)
+   * @param end		the last row (excl)
+   */
+  protected void forEachRow(HeatmapRowVisitor visitor, int start, int end) {
+    double[]	data;
+    double[]	buffer;
+    int		y;
+
+    if (m_Storage instanceof DoubleHeatmapStorage) {
+      data = ((DoubleHeatmapStorage) m_Storage).getData();
+      for (y = start; y < end; y++)
+	visitor.visit(y, data, y * m_Storage.getStride(), getWidth());
+    }
+    else {
+      buffer = new double[getWidth()];
+      for (y = start; y < end; y++) {
+	m_Storage.getRow(y, buffer, 0);
+	visitor.visit(y, buffer, 0, buffer.length);
+      }
+    }
+  }
+
+  /**
+   * Visits all rows as array spans, from top to bottom.
+   *
+   * @param visitor	the visitor to apply
+   * @see		HeatmapRowVisitor
+   */
+  public void forEachRow(HeatmapRowVisitor visitor) {
+    forEachRow(visitor, 0, getHeight());
+  }
+
+  /**
+   * Visits all rows as array spans, using the specified number of threads.
+   * With more than one thread, the visitor must be thread-safe and rows get
+   * visited in no particular order.
+   *
+   * @param visitor	the visitor to apply
+   * @param numThreads	the number of threads, &lt;= 1 for sequential
+   * @see		HeatmapRowVisitor
+   */
+  public void forEachRow(HeatmapRowVisitor visitor, int numThreads) {
+    HeatmapRowTask.run(getHeight(), numThreads, (start, end) -> forEachRow(visitor, start, end));
+  }
+
+  /**
+   * Visits all cells, row-wise.
+   *
+   * @param visitor	the visitor to apply
+   */
+  public void forEachCell(HeatmapCellVisitor visitor) {
+    forEachCell(visitor, false, 1);
+  }
+
+  /**
+   * Visits all cells, row-wise.
+   *
+   * @param visitor	the visitor to apply
+   * @param skipMissing	whether to skip missing values
+   */
+  public void forEachCell(HeatmapCellVisitor visitor, boolean skipMissing) {
+    forEachCell(visitor, skipMissing, 1);
+  }
+
+  /**
+   * Visits all cells, using the specified number of threads. With more than
+   * one thread, the visitor must be thread-safe and the cells get visited
+   * in no particular order.
+   *
+   * @param visitor	the visitor to apply
+   * @param skipMissing	whether to skip missing values
+   * @param numThreads	the number of threads, &lt;= 1 for sequential
+   */
+  public void forEachCell(final HeatmapCellVisitor visitor, final boolean skipMissing, int numThreads) {
+    forEachRow((row, values, offset, length) -> {
+      int	x;
+
+      for (x = 0; x < length; x++) {
+	if (skipMissing && isMissingValue(values[offset + x]))
+	  continue;
+	visitor.visit(row, x, values[offset + x]);
+      }
+    }, numThreads);
+  }
+
+  /**
+   * Returns a spliterator over the values (row-wise), without boxing.
+   *
+   * @return		the spliterator
+   */
+  public Spliterator.OfDouble valueSpliterator() {
+    return new HeatmapValueSpliterator(m_Storage);
+  }
+
+  /**
+   * Returns a sequential stream of the values (row-wise).
+   *
+   * @return		the stream
+   */
+  public DoubleStream values() {
+    return values(false);
+  }
+
+  /**
+   * Returns a stream of the values (row-wise).
+   *
+   * @param parallel	whether to return a parallel stream
+   * @return		the stream
+   */
+  public DoubleStream values(boolean parallel) {
+    return StreamSupport.doubleStream(valueSpliterator(), parallel);
   }
 
   /**
@@ -557,8 +831,9 @@ public class Heatmap
   public int compareTo(Object o) {
     int				result;
     Heatmap			other;
-    Iterator<HeatmapValue>	iter;
-    Iterator<HeatmapValue>	iterOther;
+    int				i;
+    double			value;
+    double			valueOther;
 
     if (o == null)
       return 1;
@@ -575,12 +850,23 @@ public class Heatmap
     if (result == 0)
       result = compareToHeader(o);
 
-    if (result == 0) {
-      iter      = iterator();
-      iterOther = other.iterator();
-
-      while (iter.hasNext() && (result == 0))
-	result = iter.next().compareTo(iterOther.next());
+    // same order as comparing the HeatmapValue objects of both maps
+    for (i = 0; (i < size()) && (result == 0); i++) {
+      result = Integer.compare(getY(i), other.getY(i));
+      if (result == 0)
+	result = Integer.compare(getX(i), other.getX(i));
+      if (result == 0) {
+	value      = get(getY(i), getX(i));
+	valueOther = other.get(other.getY(i), other.getX(i));
+	if (isMissingValue(value) && isMissingValue(valueOther))
+	  result = 0;
+	else if (isMissingValue(value))
+	  result = -1;
+	else if (isMissingValue(valueOther))
+	  result = 1;
+	else
+	  result = Double.compare(value, valueOther);
+      }
     }
 
     return result;
@@ -741,8 +1027,6 @@ public class Heatmap
     int		x;
     int		y;
 
-    resetMinMax();
-
     for (y = 0; y < getHeight(); y++) {
       for (x = 0; x < getWidth(); x++)
 	setMissing(y, x);
@@ -947,6 +1231,14 @@ public class Heatmap
     Iterator<HeatmapValue>	iter;
     HeatmapValue		v;
 
+    if (other instanceof Heatmap) {
+      ((Heatmap) other).forEachCell((row, col, value) -> {
+	if ((row < getHeight()) && (col < getWidth()) && isMissing(row, col))
+	  set(row, col, value);
+      });
+      return;
+    }
+
     iter = other.iterator();
     while (iter.hasNext()) {
       v = iter.next();
@@ -1030,7 +1322,7 @@ public class Heatmap
   public Heatmap getHeader(int height, int width) {
     Heatmap	result;
 
-    result = new Heatmap(height, width);
+    result = new Heatmap(m_Storage.newInstance(height, width));
     result.assign(this);
 
     return result;
@@ -1125,32 +1417,84 @@ public class Heatmap
   }
 
   /**
-   * Returns the specified submap.
+   * Returns the specified submap (copy of the values).
    *
    * @param row		the row of the top-left corner
    * @param col		the column of the top-left corner
    * @param height	the height of the submap
    * @param width	the width of the submap
+   * @see		#submapView(int, int, int, int)
    */
   public Heatmap submap(int row, int col, int height, int width) {
-    Heatmap	result;
-    int		x;
-    int		y;
-
-    if (row + height > getHeight())
-      throw new IllegalArgumentException("Submap exceeds height: " + (row + height) + " > " + getHeight());
-    if (col + width > getWidth())
-      throw new IllegalArgumentException("Submap exceeds width: " + (col + width) + " > " + getWidth());
+    Heatmap			result;
+    AbstractHeatmapStorage	view;
+    double[]			values;
+    int				y;
 
+    view   = ViewHeatmapStorage.window(m_Storage, row, col, height, width);
     result = getHeader(height, width);
-    for (y = row; y < row + height; y++) {
-      for (x = col; x < col + width; x++)
-	result.set(y - row, x - col, get(y, x));
+    values = new double[width];
+    for (y = 0; y < height; y++) {
+      view.getRow(y, values, 0);
+      result.getStorage().setRow(y, values, 0);
     }
 
     return result;
   }
 
+  /**
+   * Returns the specified submap as view, i.e., without copying the values.
+   * The values only get copied once the submap gets modified; until then,
+   * changes to this heatmap are visible in the submap as well.
+   *
+   * @param row		the row of the top-left corner
+   * @param col		the column of the top-left corner
+   * @param height	the height of the submap
+   * @param width	the width of the submap
+   * @see		ViewHeatmapStorage
+   */
+  public Heatmap submapView(int row, int col, int height, int width) {
+    return newView(ViewHeatmapStorage.window(m_Storage, row, col, height, width));
+  }
+
+  /**
+   * Returns a view of the heatmap rotated clockwise, i.e., without copying
+   * the values. The values only get copied once the view gets modified;
+   * until then, changes to this heatmap are visible in the view as well.
+   *
+   * @param degrees	the degrees to rotate by (90, 180, 270)
+   * @see		ViewHeatmapStorage
+   */
+  public Heatmap rotatedView(int degrees) {
+    return newView(ViewHeatmapStorage.rotate(m_Storage, degrees));
+  }
+
+  /**
+   * Returns a transposed view of the heatmap, i.e., without copying the
+   * values. The values only get copied once the view gets modified.
+   *
+   * @see		ViewHeatmapStorage
+   */
+  public Heatmap transposedView() {
+    return newView(ViewHeatmapStorage.transpose(m_Storage));
+  }
+
+  /**
+   * Creates a heatmap with the same meta-data as this one, using the view
+   * as storage.
+   *
+   * @param view	the view to use
+   * @return		the heatmap
+   */
+  protected Heatmap newView(ViewHeatmapStorage view) {
+    Heatmap	result;
+
+    result = new Heatmap(view);
+    result.assign(this);
+
+    return result;
+  }
+
   /**
    * Returns a comma-separated string of all the intensity values.
    *
@@ -1287,4 +1631,534 @@ public class Heatmap
   public static boolean isMissingValue(double value) {
     return Double.isNaN(value);
   }
+
+  /**
+   * Returns whether the values get compressed when serializing.
+   *
+   * @return		true if compressed
+   * @see		#PROPERTY_COMPRESS
+   */
+  public static boolean isSerializationCompressed() {
+    return Boolean.getBoolean(PROPERTY_COMPRESS);
+  }
+
+  /**
+   * Writes the values of the storage in blocks of rows, either raw or
+   * deflated (prefixed with the compressed length).
+   *
+   * @param out		the output to write to
+   * @param floatPrecision	whether to write floats rather than doubles
+   * @param compress	whether to compress the blocks
+   * @throws IOException	if writing fails
+   */
+  protected void writeValues(ObjectOutput out, boolean floatPrecision, boolean compress) throws IOException {
+    int		bytesPerValue;
+    int		width;
+    int		rows;
+    int		row;
+    int		n;
+    int		i;
+    int		len;
+    double[]	values;
+    ByteBuffer	buffer;
+    byte[]	compressed;
+    Deflater	deflater;
+
+    width         = getWidth();
+    bytesPerValue = floatPrecision ? 4 : 8;
+    rows          = Math.max(1, SERIALIZATION_BLOCK / Math.max(1, width * bytesPerValue));
+    values        = new double[rows * width];
+    buffer        = ByteBuffer.allocate(values.length * bytesPerValue);
+    deflater      = null;
+    compressed    = null;
+    if (compress) {
+      deflater   = new Deflater(Deflater.BEST_SPEED);
+      compressed = new byte[buffer.capacity() + buffer.capacity() / 100 + 64];
+    }
+
+    try {
+      for (row = 0; row < getHeight(); row += rows) {
+	n = Math.min(rows, getHeight() - row);
+	for (i = 0; i < n; i++)
+	  m_Storage.getRow(row + i, values, i * width);
+	buffer.clear();
+	if (floatPrecision) {
+	  for (i = 0; i < n * width; i++)
+	    buffer.putFloat((float) values[i]);
+	}
+	else {
+	  buffer.asDoubleBuffer().put(values, 0, n * width);
+	  buffer.position(n * width * bytesPerValue);
+	}
+	if (compress) {
+	  deflater.reset();
+	  deflater.setInput(buffer.array(), 0, buffer.position());
+	  deflater.finish();
+	  len = 0;
+	  while (!deflater.finished()) {
+	    if (len == compressed.length)
+	      compressed = Arrays.copyOf(compressed, compressed.length * 2);
+	    len += deflater.deflate(compressed, len, compressed.length - len);
+	  }
+	  out.writeInt(len);
+	  out.write(compressed, 0, len);
+	}
+	else {
+	  out.write(buffer.array(), 0, buffer.position());
+	}
+      }
+    }
+    finally {
+      if (deflater != null)
+	deflater.end();
+    }
+  }
+
+  /**
+   * Reads the values written by {@link #writeValues(ObjectOutput, boolean, boolean)}
+   * into the storage.
+   *
+   * @param in		the input to read from
+   * @param floatPrecision	whether floats rather than doubles were written
+   * @param compress	whether the blocks are compressed
+   * @throws IOException	if reading fails
+   */
+  protected void readValues(ObjectInput in, boolean floatPrecision, boolean compress) throws IOException {
+    int		bytesPerValue;
+    int		width;
+    int		rows;
+    int		row;
+    int		n;
+    int		i;
+    int		len;
+    double[]	values;
+    ByteBuffer	buffer;
+    byte[]	compressed;
+    Inflater	inflater;
+
+    width         = getWidth();
+    bytesPerValue = floatPrecision ? 4 : 8;
+    rows          = Math.max(1, SERIALIZATION_BLOCK / Math.max(1, width * bytesPerValue));
+    values        = new double[rows * width];
+    buffer        = ByteBuffer.allocate(values.length * bytesPerValue);
+    inflater      = null;
+    compressed    = null;
+    if (compress) {
+      inflater   = new Inflater();
+      compressed = new byte[0];
+    }
+
+    try {
+      for (row = 0; row < getHeight(); row += rows) {
+	n = Math.min(rows, getHeight() - row);
+	if (compress) {
+	  len = in.readInt();
+	  if (compressed.length < len)
+	    compressed = new byte[len];
+	  in.readFully(compressed, 0, len);
+	  inflater.reset();
+	  inflater.setInput(compressed, 0, len);
+	  len = 0;
+	  while ((len < n * width * bytesPerValue) && !inflater.finished())
+	    len += inflater.inflate(buffer.array(), len, n * width * bytesPerValue - len);
+	  if (len != n * width * bytesPerValue)
+	    throw new IOException("Corrupt value block at row " + row + ": expected " + (n * width * bytesPerValue) + " bytes, got " + len);
+	}
+	else {
+	  in.readFully(buffer.array(), 0, n * width * bytesPerValue);
+	}
+	buffer.clear();
+	if (floatPrecision) {
+	  for (i = 0; i < n * width; i++)
+	    values[i] = buffer.getFloat();
+	}
+	else {
+	  buffer.asDoubleBuffer().get(values, 0, n * width);
+	}
+	for (i = 0; i < n; i++)
+	  m_Storage.setRow(row + i, values, i * width);
+      }
+    }
+    catch (DataFormatException e) {
+      throw new IOException("Failed to decompress values!", e);
+    }
+    finally {
+      if (inflater != null)
+	inflater.end();
+    }
+  }
+
+  /**
+   * Writes the string as length-prefixed UTF-8 bytes, which, unlike
+   * {@link ObjectOutput#writeUTF(String)}, is not limited to 64KB.
+   *
+   * @param out		the output to write to
+   * @param s		the string to write
+   * @throws IOException	if writing fails
+   */
+  protected static void writeString(ObjectOutput out, String s) throws IOException {
+    byte[]	bytes;
+
+    bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a string written by {@link #writeString(ObjectOutput, String)}.
+   *
+   * @param in		the input to read from
+   * @return		the string
+   * @throws IOException	if reading fails
+   */
+  protected static String readString(ObjectInput in) throws IOException {
+    byte[]	bytes;
+
+    bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Checks whether the report can be written with
+   * {@link #writeReport(ObjectOutput, Report)} without losing information,
+   * ie it is a plain report and all the fields are numeric, boolean or
+   * string fields with values of the matching type.
+   *
+   * @param report	the report to check
+   * @return		true if the compact encoding is lossless
+   */
+  protected static boolean isCompactReport(Report report) {
+    Object	value;
+
+    if (report.getClass() != Report.class)
+      return false;
+
+    for (AbstractField field: report.getFields()) {
+      value = report.getValue(field);
+      switch (field.getDataType()) {
+	case NUMERIC:
+	  if ((value != null) && !(value instanceof Number))
+	    return false;
+	  break;
+	case BOOLEAN:
+	  if ((value != null) && !(value instanceof Boolean))
+	    return false;
+	  break;
+	case STRING:
+	  if ((value != null) && !(value instanceof String))
+	    return false;
+	  break;
+	default:
+	  return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Writes the fields of the report (name, type, value). Only reports
+   * that pass {@link #isCompactReport(Report)} can be written this way.
+   *
+   * @param out		the output to write to
+   * @param report	the report to write
+   * @throws IOException	if writing fails
+   */
+  protected static void writeReport(ObjectOutput out, Report report) throws IOException {
+    List<AbstractField>	fields;
+    Object		value;
+
+    fields = report.getFields();
+    out.writeInt(report.getDatabaseID());
+    out.writeInt(fields.size());
+    for (AbstractField field: fields) {
+      writeString(out, field.getName());
+      value = report.getValue(field);
+      switch (field.getDataType()) {
+	case NUMERIC:
+	  out.writeByte('N');
+	  break;
+	case BOOLEAN:
+	  out.writeByte('B');
+	  break;
+	case STRING:
+	  out.writeByte('S');
+	  break;
+	default:
+	  throw new IOException("Field type not supported by compact encoding: " + field);
+      }
+      out.writeBoolean(value != null);
+      if (value == null)
+	continue;
+      if (field.getDataType() == DataType.NUMERIC)
+	out.writeDouble(((Number) value).doubleValue());
+      else if (field.getDataType() == DataType.BOOLEAN)
+	out.writeBoolean((Boolean) value);
+      else
+	writeString(out, (String) value);
+    }
+  }
+
+  /**
+   * Reads a report written by {@link #writeReport(ObjectOutput, Report)}.
+   *
+   * @param in		the input to read from
+   * @return		the report
+   * @throws IOException	if reading fails
+   */
+  protected static Report readReport(ObjectInput in) throws IOException {
+    Report	result;
+    int		count;
+    int		i;
+    String	name;
+    byte	type;
+    Field	field;
+
+    result = new Report();
+    result.setDatabaseID(in.readInt());
+    count  = in.readInt();
+    for (i = 0; i < count; i++) {
+      name = readString(in);
+      type = in.readByte();
+      switch (type) {
+	case 'N':
+	  field = new Field(name, DataType.NUMERIC);
+	  break;
+	case 'B':
+	  field = new Field(name, DataType.BOOLEAN);
+	  break;
+	case 'S':
+	  field = new Field(name, DataType.STRING);
+	  break;
+	default:
+	  field = new Field(name, DataType.UNKNOWN);
+	  break;
+      }
+      result.addField(field);
+      if (!in.readBoolean())
+	continue;
+      if (type == 'N')
+	result.setValue(field, in.readDouble());
+      else if (type == 'B')
+	result.setValue(field, in.readBoolean());
+      else
+	result.setValue(field, readString(in));
+    }
+
+    return result;
+  }
+
+  /**
+   * Writes the heatmap: version, ID, dimensions, storage type and the values
+   * as bulk primitive blocks (optionally deflated), followed by the report
+   * and the notes. File-backed storages and reports that the compact encoding
+   * cannot represent losslessly get written as objects.
+   *
+   * @param out		the output to write to
+   * @throws IOException	if writing fails
+   * @see		#PROPERTY_COMPRESS
+   */
+  protected void writeCompact(ObjectOutput out) throws IOException {
+    boolean	compress;
+
+    out.writeInt(SERIALIZATION_VERSION);
+    out.writeObject(m_ID);
+    out.writeLong(m_UUID);
+    out.writeInt(getHeight());
+    out.writeInt(getWidth());
+
+    // values
+    if (m_Storage instanceof MappedHeatmapStorage) {
+      out.writeByte(STORAGE_OBJECT);
+      out.writeObject(m_Storage);
+    }
+    else {
+      compress = isSerializationCompressed();
+      out.writeByte(m_Storage.isFloatPrecision() ? STORAGE_FLOAT : STORAGE_DOUBLE);
+      out.writeBoolean(compress);
+      writeValues(out, m_Storage.isFloatPrecision(), compress);
+    }
+
+    // report
+    if (m_Report == null) {
+      out.writeByte(REPORT_NONE);
+    }
+    else if (isCompactReport(m_Report)) {
+      out.writeByte(REPORT_COMPACT);
+      writeReport(out, m_Report);
+    }
+    else {
+      out.writeByte(REPORT_OBJECT);
+      out.writeObject(m_Report);
+    }
+
+    // notes
+    out.writeObject(m_Notes);
+  }
+
+  /**
+   * Reads the heatmap written by {@link #writeCompact(ObjectOutput)}.
+   *
+   * @param in		the input to read from
+   * @throws IOException	if reading fails
+   * @throws ClassNotFoundException	if a class cannot be found
+   */
+  protected void readCompact(ObjectInput in) throws IOException, ClassNotFoundException {
+    int		version;
+    int		height;
+    int		width;
+    byte	storage;
+    byte	report;
+    boolean	compress;
+
+    version = in.readInt();
+    if (version != SERIALIZATION_VERSION)
+      throw new IOException("Unsupported serialization version: " + version);
+    m_ID   = (String) in.readObject();
+    m_UUID = in.readLong();
+    height = in.readInt();
+    width  = in.readInt();
+
+    // values
+    storage = in.readByte();
+    switch (storage) {
+      case STORAGE_OBJECT:
+	m_Storage = (AbstractHeatmapStorage) in.readObject();
+	break;
+      case STORAGE_FLOAT:
+      case STORAGE_DOUBLE:
+	if (storage == STORAGE_FLOAT)
+	  m_Storage = new FloatHeatmapStorage(height, width);
+	else
+	  m_Storage = new DoubleHeatmapStorage(height, width);
+	compress = in.readBoolean();
+	readValues(in, storage == STORAGE_FLOAT, compress);
+	break;
+      default:
+	throw new IOException("Unknown storage type: " + storage);
+    }
+
+    // report
+    report = in.readByte();
+    switch (report) {
+      case REPORT_NONE:
+	m_Report = null;
+	break;
+      case REPORT_COMPACT:
+	m_Report = readReport(in);
+	break;
+      case REPORT_OBJECT:
+	m_Report = (Report) in.readObject();
+	break;
+      default:
+	throw new IOException("Unknown report type: " + report);
+    }
+
+    // notes
+    m_Notes = (Notes) in.readObject();
+
+    invalidateStatistics();
+  }
+
+  /**
+   * Replaces the heatmap with its compact serialized form.
+   *
+   * @return		the serialized form
+   */
+  protected Object writeReplace() {
+    return new SerializedForm(this);
+  }
+
+  /**
+   * Reads a heatmap that was written with the default serialization of
+   * earlier versions, which stored the values as 2-D array.
+   *
+   * @param in		the stream to read from
+   * @throws IOException	if reading fails
+   * @throws ClassNotFoundException	if a class cannot be found
+   */
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    ObjectInputStream.GetField	fields;
+    double[][]			map;
+    int				y;
+
+    fields   = in.readFields();
+    m_ID     = (String) fields.get("m_ID", "");
+    m_UUID   = fields.get("m_UUID", UniqueIDs.nextLong());
+    m_Report = (Report) fields.get("m_Report", null);
+    m_Notes  = (Notes) fields.get("m_Notes", null);
+    if (m_Notes == null)
+      m_Notes = new Notes();
+    map = (double[][]) fields.get("m_Map", null);
+    if (map == null)
+      map = new double[0][0];
+    m_Storage = new DoubleHeatmapStorage(map.length, (map.length > 0) ? map[0].length : 0);
+    for (y = 0; y < map.length; y++)
+      m_Storage.setRow(y, map[y], 0);
+    invalidateStatistics();
+  }
+
+  /**
+   * The serialized form of a heatmap, using the compact encoding of
+   * {@link Heatmap#writeCompact(ObjectOutput)}.
+   */
+  protected static class SerializedForm
+    implements Externalizable {
+
+    /** for serialization. */
+    private static final long serialVersionUID = -2093785123484722911L;
+
+    /** the heatmap. */
+    protected Heatmap m_Heatmap;
+
+    /**
+     * Only used for deserialization.
+     */
+    public SerializedForm() {
+      this(null);
+    }
+
+    /**
+     * Initializes the serialized form.
+     *
+     * @param heatmap	the heatmap to serialize
+     */
+    public SerializedForm(Heatmap heatmap) {
+      m_Heatmap = heatmap;
+    }
+
+    /**
+     * Writes the heatmap.
+     *
+     * @param out	the output to write to
+     * @throws IOException	if writing fails
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+      m_Heatmap.writeCompact(out);
+    }
+
+    /**
+     * Reads the heatmap.
+     *
+     * @param in	the input to read from
+     * @throws IOException	if reading fails
+     * @throws ClassNotFoundException	if a class cannot be found
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+      m_Heatmap = new Heatmap();
+      m_Heatmap.readCompact(in);
+    }
+
+    /**
+     * Returns the heatmap that was read.
+     *
+     * @return		the heatmap
+     */
+    protected Object readResolve() {
+      return m_Heatmap;
+    }
+  }
 }
@@ -0,0 +1,313 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapAccumulator.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.heatmap;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Folds heatmaps of the same dimensions into running per-cell aggregates
+ * (count, sum, minimum, maximum, mean and variance), one heatmap at a time,
+ * i.e., the memory requirements don't depend on the number of heatmaps.
+ * Means and variances are updated with Welford's algorithm. Missing values
+ * are skipped; cells without any values are missing in the generated
+ * heatmaps.
+ * <br><br>
+ * The aggregates are kept in contiguous arrays and blocks of rows get
+ * updated in parallel, see {@link HeatmapRowTask}.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class HeatmapAccumulator
+  implements Serializable {
+
+  private static final long serialVersionUID = -3493870451826419318L;
+
+  /** the number of threads to use. */
+  protected int m_NumThreads;
+
+  /** the empty (0x0) heatmap with the meta-data and precision of the first heatmap. */
+  protected Heatmap m_Header;
+
+  /** the number of heatmaps added. */
+  protected int m_NumHeatmaps;
+
+  /** the height. */
+  protected int m_Height;
+
+  /** the width. */
+  protected int m_Width;
+
+  /** the number of values per cell. */
+  protected int[] m_Count;
+
+  /** the sums per cell. */
+  protected double[] m_Sum;
+
+  /** the minimums per cell. */
+  protected double[] m_Min;
+
+  /** the maximums per cell. */
+  protected double[] m_Max;
+
+  /** the means per cell. */
+  protected double[] m_Mean;
+
+  /** the sums of squared differences from the mean per cell. */
+  protected double[] m_M2;
+
+  /**
+   * Initializes the accumulator.
+   *
+   * @param numThreads	the number of threads to use, &lt;= 1 for sequential
+   */
+  public HeatmapAccumulator(int numThreads) {
+    m_NumThreads = numThreads;
+    clear();
+  }
+
+  /**
+   * Removes all aggregates.
+   */
+  public void clear() {
+    m_Header      = null;
+    m_NumHeatmaps = 0;
+    m_Height      = 0;
+    m_Width       = 0;
+    m_Count       = null;
+    m_Sum         = null;
+    m_Min         = null;
+    m_Max         = null;
+    m_Mean        = null;
+    m_M2          = null;
+  }
+
+  /**
+   * Returns the number of heatmaps that have been added.
+   *
+   * @return		the number of heatmaps
+   */
+  public int getNumHeatmaps() {
+    return m_NumHeatmaps;
+  }
+
+  /**
+   * Returns whether no heatmaps have been added yet.
+   *
+   * @return		true if empty
+   */
+  public boolean isEmpty() {
+    return (m_NumHeatmaps == 0);
+  }
+
+  /**
+   * Initializes the aggregates with the dimensions of the heatmap.
+   *
+   * @param map		the first heatmap
+   */
+  protected void initialize(Heatmap map) {
+    int		size;
+
+    m_Header = new Heatmap(0, 0, map.isFloatPrecision());
+    m_Header.assign(map);
+    m_Height = map.getHeight();
+    m_Width  = map.getWidth();
+    size     = map.size();
+    m_Count  = new int[size];
+    m_Sum    = new double[size];
+    m_Min    = new double[size];
+    m_Max    = new double[size];
+    m_Mean   = new double[size];
+    m_M2     = new double[size];
+    Arrays.fill(m_Min, Double.POSITIVE_INFINITY);
+    Arrays.fill(m_Max, Double.NEGATIVE_INFINITY);
+  }
+
+  /**
+   * Folds the values of a row into the aggregates.
+   *
+   * @param row		the row
+   * @param values	the values of the row
+   */
+  protected void addRow(int row, double[] values) {
+    int		offset;
+    int		i;
+    int		n;
+    double	x;
+    double	delta;
+
+    offset = row * m_Width;
+    for (i = 0; i < m_Width; i++) {
+      x = values[i];
+      if (Double.isNaN(x))
+	continue;
+      n                 = ++m_Count[offset + i];
+      m_Sum[offset + i] += x;
+      if (x < m_Min[offset + i])
+	m_Min[offset + i] = x;
+      if (x > m_Max[offset + i])
+	m_Max[offset + i] = x;
+      delta              = x - m_Mean[offset + i];
+      m_Mean[offset + i] += delta / n;
+      m_M2[offset + i]   += delta * (x - m_Mean[offset + i]);
+    }
+  }
+
+  /**
+   * Folds the heatmap into the aggregates.
+   *
+   * @param map		the heatmap to add
+   */
+  public void add(final Heatmap map) {
+    if (m_NumHeatmaps == 0) {
+      initialize(map);
+    }
+    else {
+      if (map.getHeight() != m_Height)
+	throw new IllegalArgumentException("Heatmap differs in height: " + map.getHeight() + " != " + m_Height);
+      if (map.getWidth() != m_Width)
+	throw new IllegalArgumentException("Heatmap differs in width: " + map.getWidth() + " != " + m_Width);
+    }
+
+    HeatmapRowTask.run(m_Height, m_NumThreads, (start, end) -> {
+      double[] values = new double[m_Width];
+      for (int row = start; row < end; row++) {
+	map.getStorage().getRow(row, values, 0);
+	addRow(row, values);
+      }
+    });
+    m_NumHeatmaps++;
+  }
+
+  /**
+   * Interface for turning the aggregates of a cell into a value.
+   */
+  protected interface CellValue {
+
+    /**
+     * Returns the value for the cell.
+     *
+     * @param index	the index of the cell
+     * @return		the value, NaN for missing
+     */
+    public double get(int index);
+  }
+
+  /**
+   * Generates a heatmap from the aggregates.
+   *
+   * @param value	for obtaining the value of a cell
+   * @return		the heatmap
+   */
+  protected Heatmap generate(final CellValue value) {
+    final Heatmap	result;
+
+    if (m_NumHeatmaps == 0)
+      throw new IllegalStateException("No heatmaps added yet!");
+
+    result = m_Header.getHeader(m_Height, m_Width);
+    HeatmapRowTask.run(m_Height, m_NumThreads, (start, end) -> {
+      double[] values = new double[m_Width];
+      for (int row = start; row < end; row++) {
+	int offset = row * m_Width;
+	for (int i = 0; i < m_Width; i++)
+	  values[i] = value.get(offset + i);
+	result.getStorage().setRow(row, values, 0);
+      }
+    });
+    result.invalidateStatistics();
+
+    return result;
+  }
+
+  /**
+   * Returns the number of values per cell.
+   *
+   * @return		the counts
+   */
+  public Heatmap getCount() {
+    return generate((i) -> m_Count[i]);
+  }
+
+  /**
+   * Returns the sums per cell.
+   *
+   * @return		the sums
+   */
+  public Heatmap getSum() {
+    return generate((i) -> (m_Count[i] == 0) ? Heatmap.MISSING_VALUE : m_Sum[i]);
+  }
+
+  /**
+   * Returns the minimums per cell.
+   *
+   * @return		the minimums
+   */
+  public Heatmap getMin() {
+    return generate((i) -> (m_Count[i] == 0) ? Heatmap.MISSING_VALUE : m_Min[i]);
+  }
+
+  /**
+   * Returns the maximums per cell.
+   *
+   * @return		the maximums
+   */
+  public Heatmap getMax() {
+    return generate((i) -> (m_Count[i] == 0) ? Heatmap.MISSING_VALUE : m_Max[i]);
+  }
+
+  /**
+   * Returns the means per cell.
+   *
+   * @return		the means
+   */
+  public Heatmap getMean() {
+    return generate((i) -> (m_Count[i] == 0) ? Heatmap.MISSING_VALUE : m_Mean[i]);
+  }
+
+  /**
+   * Returns the variances per cell.
+   *
+   * @param isSample	whether to compute the sample variance (n-1) rather
+   * 			than the population one (n)
+   * @return		the variances
+   */
+  public Heatmap getVariance(final boolean isSample) {
+    final int	min;
+
+    min = isSample ? 2 : 1;
+    return generate((i) -> (m_Count[i] < min) ? Heatmap.MISSING_VALUE : m_M2[i] / (isSample ? m_Count[i] - 1 : m_Count[i]));
+  }
+
+  /**
+   * Returns the standard deviations per cell.
+   *
+   * @param isSample	whether to compute the sample standard deviation (n-1)
+   * 			rather than the population one (n)
+   * @return		the standard deviations
+   */
+  public Heatmap getStdDev(final boolean isSample) {
+    final int	min;
+
+    min = isSample ? 2 : 1;
+    return generate((i) -> (m_Count[i] < min) ? Heatmap.MISSING_VALUE : Math.sqrt(m_M2[i] / (isSample ? m_Count[i] - 1 : m_Count[i])));
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapCellVisitor.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.data.heatmap;
+
+/**
+ * Interface for visiting the cells of a heatmap without creating
+ * {@link HeatmapValue} objects.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ * @see Heatmap#forEachCell(HeatmapCellVisitor)
+ */
+public interface HeatmapCellVisitor {
+
+  /**
+   * Visits the cell.
+   *
+   * @param row		the row of the cell
+   * @param col		the column of the cell
+   * @param value	the value of the cell
+   */
+  public void visit(int row, int col, double value);
+}
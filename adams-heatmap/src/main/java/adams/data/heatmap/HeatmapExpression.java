@@ -0,0 +1,344 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapExpression.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.heatmap;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Numeric expression over the heatmap value X, parsed once into a tree of
+ * operators that can be evaluated for many values without re-parsing.
+ * <br><br>
+ * Only supports the arithmetic subset of the mathematical expressions:
+ * numbers, the variable X (or [X]), the constants pi and e, parentheses,
+ * +, -, *, /, %, ^, unary minus and the numeric functions abs, sqrt, cbrt,
+ * log, log10, exp, sin, sinh, cos, cosh, tan, tanh, atan, atan2, hypot,
+ * signum, rint, floor, ceil, pow/power, min and max. For any other
+ * expression, {@link #compile(String)} returns null and the caller has to
+ * use the full expression parser instead.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class HeatmapExpression
+  implements Serializable {
+
+  private static final long serialVersionUID = 4613283616787406245L;
+
+  /**
+   * Interface for a node of the expression tree.
+   */
+  protected interface Node
+    extends DoubleUnaryOperator, Serializable {
+  }
+
+  /** the expression. */
+  protected String m_Expression;
+
+  /** the root of the tree. */
+  protected Node m_Root;
+
+  /** the current position while parsing. */
+  protected transient int m_Pos;
+
+  /**
+   * Initializes the expression.
+   *
+   * @param expression	the expression to parse
+   */
+  protected HeatmapExpression(String expression) {
+    m_Expression = expression;
+  }
+
+  /**
+   * Returns the expression.
+   *
+   * @return		the expression
+   */
+  public String getExpression() {
+    return m_Expression;
+  }
+
+  /**
+   * Evaluates the expression for the value. Thread-safe.
+   *
+   * @param x		the value for X
+   * @return		the result
+   */
+  public double evaluate(double x) {
+    return m_Root.applyAsDouble(x);
+  }
+
+  /**
+   * Skips whitespace.
+   */
+  protected void skipWhitespace() {
+    while ((m_Pos < m_Expression.length()) && Character.isWhitespace(m_Expression.charAt(m_Pos)))
+      m_Pos++;
+  }
+
+  /**
+   * Consumes the character if it is the next non-whitespace character.
+   *
+   * @param c		the character to look for
+   * @return		true if consumed
+   */
+  protected boolean consume(char c) {
+    skipWhitespace();
+    if ((m_Pos < m_Expression.length()) && (m_Expression.charAt(m_Pos) == c)) {
+      m_Pos++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Combines the two operands with the binary operator.
+   *
+   * @param op		the operator
+   * @param left	the left operand
+   * @param right	the right operand
+   * @return		the node
+   */
+  protected Node binary(char op, Node left, Node right) {
+    switch (op) {
+      case '+':
+	return x -> left.applyAsDouble(x) + right.applyAsDouble(x);
+      case '-':
+	return x -> left.applyAsDouble(x) - right.applyAsDouble(x);
+      case '*':
+	return x -> left.applyAsDouble(x) * right.applyAsDouble(x);
+      case '/':
+	return x -> left.applyAsDouble(x) / right.applyAsDouble(x);
+      case '%':
+	return x -> left.applyAsDouble(x) % right.applyAsDouble(x);
+      case '^':
+	return x -> Math.pow(left.applyAsDouble(x), right.applyAsDouble(x));
+      default:
+	throw new IllegalArgumentException("Unsupported operator: " + op);
+    }
+  }
+
+  /**
+   * Parses: product (('+'|'-') product)*
+   *
+   * @return		the node
+   */
+  protected Node parseSum() {
+    Node	result;
+
+    result = parseProduct();
+    while (true) {
+      if (consume('+'))
+	result = binary('+', result, parseProduct());
+      else if (consume('-'))
+	result = binary('-', result, parseProduct());
+      else
+	return result;
+    }
+  }
+
+  /**
+   * Parses: power (('*'|'/'|'%') power)*
+   *
+   * @return		the node
+   */
+  protected Node parseProduct() {
+    Node	result;
+
+    result = parsePower();
+    while (true) {
+      if (consume('*'))
+	result = binary('*', result, parsePower());
+      else if (consume('/'))
+	result = binary('/', result, parsePower());
+      else if (consume('%'))
+	result = binary('%', result, parsePower());
+      else
+	return result;
+    }
+  }
+
+  /**
+   * Parses: unary ('^' unary)*
+   *
+   * @return		the node
+   */
+  protected Node parsePower() {
+    Node	result;
+
+    result = parseUnary();
+    while (consume('^'))
+      result = binary('^', result, parseUnary());
+
+    return result;
+  }
+
+  /**
+   * Parses: '-' unary | primary
+   *
+   * @return		the node
+   */
+  protected Node parseUnary() {
+    Node	operand;
+
+    if (consume('-')) {
+      operand = parseUnary();
+      return x -> -operand.applyAsDouble(x);
+    }
+
+    return parsePrimary();
+  }
+
+  /**
+   * Parses numbers, variables, constants, functions and parentheses.
+   *
+   * @return		the node
+   */
+  protected Node parsePrimary() {
+    Node	result;
+    int		start;
+    String	name;
+    double	value;
+
+    if (consume('(')) {
+      result = parseSum();
+      if (!consume(')'))
+	throw new IllegalArgumentException("Expected ')' at " + m_Pos);
+      return result;
+    }
+
+    if (consume('[')) {
+      if (!consume('X') || !consume(']'))
+	throw new IllegalArgumentException("Unsupported variable at " + m_Pos);
+      return x -> x;
+    }
+
+    skipWhitespace();
+    start = m_Pos;
+    if ((m_Pos < m_Expression.length()) && (Character.isDigit(m_Expression.charAt(m_Pos)) || (m_Expression.charAt(m_Pos) == '.'))) {
+      while ((m_Pos < m_Expression.length()) && (Character.isDigit(m_Expression.charAt(m_Pos)) || (m_Expression.charAt(m_Pos) == '.')))
+	m_Pos++;
+      value = Double.parseDouble(m_Expression.substring(start, m_Pos));
+      return x -> value;
+    }
+
+    while ((m_Pos < m_Expression.length()) && Character.isLetterOrDigit(m_Expression.charAt(m_Pos)))
+      m_Pos++;
+    name = m_Expression.substring(start, m_Pos);
+    switch (name) {
+      case "X":
+	return x -> x;
+      case "pi":
+	return x -> Math.PI;
+      case "e":
+	return x -> Math.E;
+      case "":
+	throw new IllegalArgumentException("Unexpected input at " + m_Pos);
+      default:
+	return parseFunction(name);
+    }
+  }
+
+  /**
+   * Parses the arguments of the function.
+   *
+   * @param name	the name of the function
+   * @return		the node
+   */
+  protected Node parseFunction(String name) {
+    List<Node>	args;
+    Node	a;
+    Node	b;
+
+    if (!consume('('))
+      throw new IllegalArgumentException("Unsupported symbol: " + name);
+    args = new ArrayList<>();
+    do {
+      args.add(parseSum());
+    }
+    while (consume(',') || consume(';'));
+    if (!consume(')'))
+      throw new IllegalArgumentException("Expected ')' at " + m_Pos);
+
+    a = args.get(0);
+    if (args.size() == 1) {
+      switch (name) {
+	case "abs":    return x -> Math.abs(a.applyAsDouble(x));
+	case "sqrt":   return x -> Math.sqrt(a.applyAsDouble(x));
+	case "cbrt":   return x -> Math.cbrt(a.applyAsDouble(x));
+	case "log":    return x -> Math.log(a.applyAsDouble(x));
+	case "log10":  return x -> Math.log10(a.applyAsDouble(x));
+	case "exp":    return x -> Math.exp(a.applyAsDouble(x));
+	case "sin":    return x -> Math.sin(a.applyAsDouble(x));
+	case "sinh":   return x -> Math.sinh(a.applyAsDouble(x));
+	case "cos":    return x -> Math.cos(a.applyAsDouble(x));
+	case "cosh":   return x -> Math.cosh(a.applyAsDouble(x));
+	case "tan":    return x -> Math.tan(a.applyAsDouble(x));
+	case "tanh":   return x -> Math.tanh(a.applyAsDouble(x));
+	case "atan":   return x -> Math.atan(a.applyAsDouble(x));
+	case "signum": return x -> Math.signum(a.applyAsDouble(x));
+	case "rint":   return x -> Math.rint(a.applyAsDouble(x));
+	case "floor":  return x -> Math.floor(a.applyAsDouble(x));
+	case "ceil":   return x -> Math.ceil(a.applyAsDouble(x));
+      }
+    }
+    else if (args.size() == 2) {
+      b = args.get(1);
+      switch (name) {
+	case "atan2": return x -> Math.atan2(a.applyAsDouble(x), b.applyAsDouble(x));
+	case "hypot": return x -> Math.hypot(a.applyAsDouble(x), b.applyAsDouble(x));
+	case "pow":
+	case "power": return x -> Math.pow(a.applyAsDouble(x), b.applyAsDouble(x));
+	case "min":   return x -> Math.min(a.applyAsDouble(x), b.applyAsDouble(x));
+	case "max":   return x -> Math.max(a.applyAsDouble(x), b.applyAsDouble(x));
+      }
+    }
+
+    throw new IllegalArgumentException("Unsupported function: " + name + "/" + args.size());
+  }
+
+  /**
+   * Parses the expression into a tree.
+   *
+   * @param expression	the expression to parse
+   * @return		the compiled expression, null if the expression is
+   * 			not supported by the arithmetic subset
+   */
+  public static HeatmapExpression compile(String expression) {
+    HeatmapExpression	result;
+
+    result = new HeatmapExpression(expression);
+    try {
+      result.m_Pos  = 0;
+      result.m_Root = result.parseSum();
+      result.skipWhitespace();
+      if (result.m_Pos < expression.length())
+	return null;
+    }
+    catch (Exception e) {
+      return null;
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,349 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapImageRenderer.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.data.heatmap;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Renders heatmaps into images of type {@link BufferedImage#TYPE_INT_RGB},
+ * using a lookup table of the gradient colors and writing directly into
+ * the pixel array of the image. Large heatmaps get rendered in bands of
+ * rows on the fork/join pool.
+ * <br>
+ * A value gets mapped to the gradient color at index
+ * <code>(int) (((value - min) / (max - min)) * (colors.length - 2)) + 1</code>.
+ * Colors that are not fully opaque get blended with the existing pixels.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class HeatmapImageRenderer {
+
+  /** the minimum number of cells before rendering in parallel. */
+  public final static int PARALLEL_THRESHOLD = 256 * 256;
+
+  /** the approximate number of cells per band. */
+  public final static int BAND_CELLS = 64 * 1024;
+
+  /** the gradient colors as ARGB. */
+  protected int[] m_Lookup;
+
+  /** the missing value color as ARGB. */
+  protected int m_Missing;
+
+  /** the minimum. */
+  protected double m_Min;
+
+  /** the maximum. */
+  protected double m_Max;
+
+  /** whether to treat zeroes as missing values. */
+  protected boolean m_ZeroIsMissing;
+
+  /** whether to render in parallel. */
+  protected boolean m_Parallel;
+
+  /**
+   * Initializes the renderer.
+   *
+   * @param colors	the gradient colors
+   * @param missing	the color for missing values
+   * @param min		the value mapped to the first color
+   * @param max		the value mapped to the last color
+   */
+  public HeatmapImageRenderer(Color[] colors, Color missing, double min, double max) {
+    int		i;
+
+    if (colors.length < 2)
+      throw new IllegalArgumentException("At least two gradient colors required: " + colors.length);
+
+    m_Lookup = new int[colors.length];
+    for (i = 0; i < colors.length; i++)
+      m_Lookup[i] = colors[i].getRGB();
+    m_Missing       = missing.getRGB();
+    m_Min           = min;
+    m_Max           = max;
+    m_ZeroIsMissing = false;
+    m_Parallel      = true;
+  }
+
+  /**
+   * Sets whether to treat zeroes as missing values.
+   *
+   * @param value	true if zeroes are missing values
+   */
+  public void setZeroIsMissing(boolean value) {
+    m_ZeroIsMissing = value;
+  }
+
+  /**
+   * Returns whether to treat zeroes as missing values.
+   *
+   * @return		true if zeroes are missing values
+   */
+  public boolean getZeroIsMissing() {
+    return m_ZeroIsMissing;
+  }
+
+  /**
+   * Sets whether to render large heatmaps in parallel.
+   *
+   * @param value	true if to render in parallel
+   */
+  public void setParallel(boolean value) {
+    m_Parallel = value;
+  }
+
+  /**
+   * Returns whether to render large heatmaps in parallel.
+   *
+   * @return		true if to render in parallel
+   */
+  public boolean getParallel() {
+    return m_Parallel;
+  }
+
+  /**
+   * Returns the ARGB color for the value.
+   *
+   * @param value	the value to get the color for
+   * @return		the ARGB color
+   */
+  public int toARGB(double value) {
+    int		index;
+
+    if (Double.isNaN(value) || (m_ZeroIsMissing && (value == 0.0)))
+      return m_Missing;
+
+    index = (int) (((value - m_Min) / (m_Max - m_Min)) * (m_Lookup.length - 2)) + 1;
+    if (index < 1)
+      index = 1;
+    else if (index >= m_Lookup.length)
+      index = m_Lookup.length - 1;
+
+    return m_Lookup[index];
+  }
+
+  /**
+   * Blends the ARGB color over the RGB pixel.
+   *
+   * @param argb	the color to paint
+   * @param rgb		the existing pixel
+   * @return		the new pixel
+   */
+  protected static int blend(int argb, int rgb) {
+    int		alpha;
+    int		inv;
+    int		r;
+    int		g;
+    int		b;
+
+    alpha = argb >>> 24;
+    if (alpha == 0xFF)
+      return argb & 0xFFFFFF;
+    if (alpha == 0)
+      return rgb & 0xFFFFFF;
+
+    inv = 255 - alpha;
+    r   = (((argb >> 16) & 0xFF) * alpha + ((rgb >> 16) & 0xFF) * inv + 127) / 255;
+    g   = (((argb >>  8) & 0xFF) * alpha + ((rgb >>  8) & 0xFF) * inv + 127) / 255;
+    b   = (( argb        & 0xFF) * alpha + ( rgb        & 0xFF) * inv + 127) / 255;
+
+    return (r << 16) | (g << 8) | b;
+  }
+
+  /**
+   * Renders the rows of the heatmap.
+   *
+   * @param map		the heatmap to render
+   * @param pixels	the pixels of the image
+   * @param stride	the scanline stride of the image
+   * @param left	the left offset in the image
+   * @param top		the top offset in the image
+   * @param scale	the number of pixels per cell in either direction
+   * @param fromRow	the first row (incl)
+   * @param toRow	the last row (excl)
+   */
+  protected void renderRows(Heatmap map, int[] pixels, int stride, int left, int top, int scale, int fromRow, int toRow) {
+    AbstractHeatmapStorage	storage;
+    int				width;
+    int				y;
+    int				x;
+    int				i;
+    int				n;
+    int				offset;
+    int				argb;
+    int				pos;
+    boolean			opaque;
+
+    storage = map.getStorage();
+    width   = storage.getWidth();
+    for (y = fromRow; y < toRow; y++) {
+      for (i = 0; i < scale; i++) {
+	offset = (top + y * scale + i) * stride + left;
+	pos    = y * storage.getStride();
+	for (x = 0; x < width; x++) {
+	  argb   = toARGB(storage.get(pos + x));
+	  opaque = (argb >>> 24) == 0xFF;
+	  for (n = 0; n < scale; n++) {
+	    if (opaque)
+	      pixels[offset] = argb & 0xFFFFFF;
+	    else
+	      pixels[offset] = blend(argb, pixels[offset]);
+	    offset++;
+	  }
+	}
+      }
+    }
+  }
+
+  /**
+   * Renders a band of rows, splitting it further if too large.
+   */
+  protected class BandTask
+    extends RecursiveAction {
+
+    private static final long serialVersionUID = -2436427409931567045L;
+
+    /** the heatmap. */
+    protected Heatmap m_Map;
+
+    /** the pixels. */
+    protected int[] m_Pixels;
+
+    /** the scanline stride. */
+    protected int m_Stride;
+
+    /** the left offset. */
+    protected int m_Left;
+
+    /** the top offset. */
+    protected int m_Top;
+
+    /** the scale. */
+    protected int m_Scale;
+
+    /** the first row (incl). */
+    protected int m_FromRow;
+
+    /** the last row (excl). */
+    protected int m_ToRow;
+
+    /** the maximum number of rows per band. */
+    protected int m_BandRows;
+
+    /**
+     * Initializes the task.
+     *
+     * @param map	the heatmap to render
+     * @param pixels	the pixels of the image
+     * @param stride	the scanline stride of the image
+     * @param left	the left offset in the image
+     * @param top	the top offset in the image
+     * @param scale	the number of pixels per cell in either direction
+     * @param fromRow	the first row (incl)
+     * @param toRow	the last row (excl)
+     * @param bandRows	the maximum number of rows to render without splitting
+     */
+    protected BandTask(Heatmap map, int[] pixels, int stride, int left, int top, int scale, int fromRow, int toRow, int bandRows) {
+      m_Map      = map;
+      m_Pixels   = pixels;
+      m_Stride   = stride;
+      m_Left     = left;
+      m_Top      = top;
+      m_Scale    = scale;
+      m_FromRow  = fromRow;
+      m_ToRow    = toRow;
+      m_BandRows = bandRows;
+    }
+
+    /**
+     * Renders the band or splits it.
+     */
+    @Override
+    protected void compute() {
+      int	mid;
+
+      if (m_ToRow - m_FromRow <= m_BandRows) {
+	renderRows(m_Map, m_Pixels, m_Stride, m_Left, m_Top, m_Scale, m_FromRow, m_ToRow);
+      }
+      else {
+	mid = (m_FromRow + m_ToRow) >>> 1;
+	invokeAll(
+	  new BandTask(m_Map, m_Pixels, m_Stride, m_Left, m_Top, m_Scale, m_FromRow, mid, m_BandRows),
+	  new BandTask(m_Map, m_Pixels, m_Stride, m_Left, m_Top, m_Scale, mid, m_ToRow, m_BandRows));
+      }
+    }
+  }
+
+  /**
+   * Renders the heatmap into the image at the specified location.
+   *
+   * @param map		the heatmap to render
+   * @param image	the image to render into, must be of type {@link BufferedImage#TYPE_INT_RGB}
+   * @param left	the left offset in the image
+   * @param top		the top offset in the image
+   * @param scale	the number of pixels per cell in either direction
+   */
+  public void render(Heatmap map, BufferedImage image, int left, int top, int scale) {
+    int[]	pixels;
+    int		stride;
+    int		bandRows;
+
+    if (image.getType() != BufferedImage.TYPE_INT_RGB)
+      throw new IllegalArgumentException("Image must be of type TYPE_INT_RGB!");
+    if (scale < 1)
+      throw new IllegalArgumentException("Scale must be at least 1: " + scale);
+    if ((left < 0) || (top < 0)
+      || (left + map.getWidth() * scale > image.getWidth())
+      || (top + map.getHeight() * scale > image.getHeight()))
+      throw new IllegalArgumentException("Heatmap does not fit into image!");
+
+    pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    stride = ((SinglePixelPackedSampleModel) image.getSampleModel()).getScanlineStride();
+
+    if (m_Parallel && ((long) map.size() * scale * scale >= PARALLEL_THRESHOLD)) {
+      bandRows = Math.max(1, BAND_CELLS / Math.max(1, map.getWidth() * scale * scale));
+      ForkJoinPool.commonPool().invoke(new BandTask(map, pixels, stride, left, top, scale, 0, map.getHeight(), bandRows));
+    }
+    else {
+      renderRows(map, pixels, stride, left, top, scale, 0, map.getHeight());
+    }
+  }
+
+  /**
+   * Renders the heatmap into a new image of the same dimensions.
+   *
+   * @param map		the heatmap to render
+   * @return		the generated image
+   */
+  public BufferedImage render(Heatmap map) {
+    BufferedImage	result;
+
+    result = new BufferedImage(map.getWidth(), map.getHeight(), BufferedImage.TYPE_INT_RGB);
+    render(map, result, 0, 0, 1);
+
+    return result;
+  }
+}
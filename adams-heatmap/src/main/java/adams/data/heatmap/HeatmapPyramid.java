@@ -0,0 +1,555 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapPyramid.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.data.heatmap;
+
+import java.awt.Point;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Multi-resolution (mipmap) representation of a heatmap. Level 0 is the
+ * heatmap itself, each further level halves width and height, storing the
+ * minimum, maximum and mean of the (non-missing) cells it covers. Levels get
+ * built lazily, each one from the level below.
+ * <br>
+ * Minimum and maximum are stored as floats, rounded outwards, so that they
+ * are always valid bounds for the underlying values. This allows searches
+ * like {@link #locate(double, double)} to skip whole blocks of cells while
+ * still returning exact results.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class HeatmapPyramid
+  implements Serializable {
+
+  private static final long serialVersionUID = 2416633004913398215L;
+
+  /**
+   * The statistics available per level.
+   */
+  public enum Statistic {
+    MIN,
+    MAX,
+    MEAN,
+  }
+
+  /**
+   * A single aggregated level.
+   */
+  public static class Level
+    implements Serializable {
+
+    private static final long serialVersionUID = -1820924385532418047L;
+
+    /** the width. */
+    protected int m_Width;
+
+    /** the height. */
+    protected int m_Height;
+
+    /** the minimums (rounded down). */
+    protected float[] m_Min;
+
+    /** the maximums (rounded up). */
+    protected float[] m_Max;
+
+    /** the means. */
+    protected float[] m_Mean;
+
+    /** the number of non-missing cells covered. */
+    protected int[] m_Count;
+
+    /**
+     * Initializes the level.
+     *
+     * @param width	the width
+     * @param height	the height
+     */
+    protected Level(int width, int height) {
+      m_Width  = width;
+      m_Height = height;
+      m_Min    = new float[width * height];
+      m_Max    = new float[width * height];
+      m_Mean   = new float[width * height];
+      m_Count  = new int[width * height];
+    }
+
+    /**
+     * Returns the width.
+     *
+     * @return		the width
+     */
+    public int getWidth() {
+      return m_Width;
+    }
+
+    /**
+     * Returns the height.
+     *
+     * @return		the height
+     */
+    public int getHeight() {
+      return m_Height;
+    }
+
+    /**
+     * Returns the minimum of the cell (rounded down to float precision).
+     *
+     * @param row	the row
+     * @param col	the column
+     * @return		the minimum, NaN if all cells missing
+     */
+    public double getMin(int row, int col) {
+      return m_Min[row * m_Width + col];
+    }
+
+    /**
+     * Returns the maximum of the cell (rounded up to float precision).
+     *
+     * @param row	the row
+     * @param col	the column
+     * @return		the maximum, NaN if all cells missing
+     */
+    public double getMax(int row, int col) {
+      return m_Max[row * m_Width + col];
+    }
+
+    /**
+     * Returns the mean of the cell.
+     *
+     * @param row	the row
+     * @param col	the column
+     * @return		the mean, NaN if all cells missing
+     */
+    public double getMean(int row, int col) {
+      return m_Mean[row * m_Width + col];
+    }
+
+    /**
+     * Returns the number of non-missing values the cell covers.
+     *
+     * @param row	the row
+     * @param col	the column
+     * @return		the count
+     */
+    public int getCount(int row, int col) {
+      return m_Count[row * m_Width + col];
+    }
+
+    /**
+     * Stores the aggregated values for the cell.
+     *
+     * @param pos	the cell index
+     * @param min	the minimum
+     * @param max	the maximum
+     * @param sum	the sum
+     * @param count	the number of values
+     */
+    protected void set(int pos, double min, double max, double sum, int count) {
+      float	f;
+
+      if (count == 0) {
+	m_Min[pos]  = Float.NaN;
+	m_Max[pos]  = Float.NaN;
+	m_Mean[pos] = Float.NaN;
+      }
+      else {
+	f = (float) min;
+	if (f > min)
+	  f = Math.nextDown(f);
+	m_Min[pos] = f;
+	f = (float) max;
+	if (f < max)
+	  f = Math.nextUp(f);
+	m_Max[pos]  = f;
+	m_Mean[pos] = (float) (sum / count);
+      }
+      m_Count[pos] = count;
+    }
+  }
+
+  /** the underlying heatmap. */
+  protected Heatmap m_Heatmap;
+
+  /** the levels (index 0 unused). */
+  protected Level[] m_Levels;
+
+  /** the highest level built so far, can be checked without locking. */
+  protected volatile int m_BuiltLevel;
+
+  /** the number of threads to use for building levels. */
+  protected int m_NumThreads;
+
+  /**
+   * Initializes the pyramid, without building any levels yet.
+   *
+   * @param map		the heatmap to use as level 0
+   */
+  public HeatmapPyramid(Heatmap map) {
+    int		levels;
+    int		size;
+
+    m_Heatmap    = map;
+    m_NumThreads = 1;
+    m_BuiltLevel = 0;
+    size         = Math.max(map.getWidth(), map.getHeight());
+    levels       = 1;
+    while (size > 1) {
+      size = (size + 1) / 2;
+      levels++;
+    }
+    m_Levels = new Level[levels];
+  }
+
+  /**
+   * Sets the number of threads to use for building levels.
+   *
+   * @param value	the number of threads, &lt;= 1 for sequential
+   */
+  public void setNumThreads(int value) {
+    m_NumThreads = value;
+  }
+
+  /**
+   * Returns the number of threads to use for building levels.
+   *
+   * @return		the number of threads
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Returns the underlying heatmap.
+   *
+   * @return		the heatmap
+   */
+  public Heatmap getHeatmap() {
+    return m_Heatmap;
+  }
+
+  /**
+   * Returns the number of levels, including level 0 (the heatmap).
+   * The top level consists of a single cell.
+   *
+   * @return		the number of levels
+   */
+  public int getNumLevels() {
+    return m_Levels.length;
+  }
+
+  /**
+   * Returns the factor by which the level is scaled down.
+   *
+   * @param level	the level
+   * @return		the factor (2^level)
+   */
+  public static int getFactor(int level) {
+    return 1 << level;
+  }
+
+  /**
+   * Returns the width of the specified level.
+   *
+   * @param level	the level
+   * @return		the width
+   */
+  public int getWidth(int level) {
+    return (m_Heatmap.getWidth() + getFactor(level) - 1) >> level;
+  }
+
+  /**
+   * Returns the height of the specified level.
+   *
+   * @param level	the level
+   * @return		the height
+   */
+  public int getHeight(int level) {
+    return (m_Heatmap.getHeight() + getFactor(level) - 1) >> level;
+  }
+
+  /**
+   * Returns the coarsest level that still has at least one cell per pixel
+   * when displaying the heatmap with the specified scale factor.
+   *
+   * @param scale	the scale factor (1.0 = 100%)
+   * @return		the level
+   */
+  public int getLevelForScale(double scale) {
+    int		result;
+
+    result = 0;
+    if (scale <= 0)
+      return result;
+    while ((result < m_Levels.length - 1) && (getFactor(result + 1) * scale <= 1.0))
+      result++;
+
+    return result;
+  }
+
+  /**
+   * Returns whether the level has been built already. Does not block while
+   * levels are being built, i.e., can be called from the EDT.
+   *
+   * @param level	the level
+   * @return		true if available
+   */
+  public boolean isBuilt(int level) {
+    return (level <= m_BuiltLevel);
+  }
+
+  /**
+   * Returns whether all levels have been built already. Does not block
+   * while levels are being built, i.e., can be called from the EDT.
+   *
+   * @return		true if all levels available
+   */
+  public boolean isComplete() {
+    return isBuilt(m_Levels.length - 1);
+  }
+
+  /**
+   * Builds the level from the heatmap.
+   *
+   * @return		the level
+   */
+  protected Level buildFromHeatmap() {
+    final Level				result;
+    final AbstractHeatmapStorage	storage;
+
+    result  = new Level(getWidth(1), getHeight(1));
+    storage = m_Heatmap.getStorage();
+    HeatmapRowTask.run(result.getHeight(), m_NumThreads, (start, end) -> {
+      int	y;
+      int	x;
+      int	yy;
+      int	xx;
+      int	count;
+      double	min;
+      double	max;
+      double	sum;
+      double	value;
+
+      for (y = start; y < end; y++) {
+	for (x = 0; x < result.getWidth(); x++) {
+	  min   = Double.POSITIVE_INFINITY;
+	  max   = Double.NEGATIVE_INFINITY;
+	  sum   = 0.0;
+	  count = 0;
+	  for (yy = 2 * y; (yy < 2 * y + 2) && (yy < storage.getHeight()); yy++) {
+	    for (xx = 2 * x; (xx < 2 * x + 2) && (xx < storage.getWidth()); xx++) {
+	      value = storage.get(yy * storage.getStride() + xx);
+	      if (Double.isNaN(value))
+		continue;
+	      min = Math.min(min, value);
+	      max = Math.max(max, value);
+	      sum += value;
+	      count++;
+	    }
+	  }
+	  result.set(y * result.getWidth() + x, min, max, sum, count);
+	}
+      }
+    });
+
+    return result;
+  }
+
+  /**
+   * Builds the level from the one below.
+   *
+   * @param lower	the level below
+   * @param width	the width of the new level
+   * @param height	the height of the new level
+   * @return		the level
+   */
+  protected Level buildFromLevel(final Level lower, int width, int height) {
+    final Level		result;
+
+    result = new Level(width, height);
+    HeatmapRowTask.run(result.getHeight(), m_NumThreads, (start, end) -> {
+      int	y;
+      int	x;
+      int	yy;
+      int	xx;
+      int	pos;
+      int	count;
+      double	min;
+      double	max;
+      double	sum;
+
+      for (y = start; y < end; y++) {
+	for (x = 0; x < result.getWidth(); x++) {
+	  min   = Double.POSITIVE_INFINITY;
+	  max   = Double.NEGATIVE_INFINITY;
+	  sum   = 0.0;
+	  count = 0;
+	  for (yy = 2 * y; (yy < 2 * y + 2) && (yy < lower.getHeight()); yy++) {
+	    for (xx = 2 * x; (xx < 2 * x + 2) && (xx < lower.getWidth()); xx++) {
+	      pos = yy * lower.getWidth() + xx;
+	      if (lower.m_Count[pos] == 0)
+		continue;
+	      min    = Math.min(min, lower.m_Min[pos]);
+	      max    = Math.max(max, lower.m_Max[pos]);
+	      sum   += (double) lower.m_Mean[pos] * lower.m_Count[pos];
+	      count += lower.m_Count[pos];
+	    }
+	  }
+	  result.set(y * result.getWidth() + x, min, max, sum, count);
+	}
+      }
+    });
+
+    return result;
+  }
+
+  /**
+   * Returns the specified level, building it (and any levels below) if
+   * necessary.
+   *
+   * @param level	the level (1 or higher)
+   * @return		the level
+   */
+  public synchronized Level getLevel(int level) {
+    int		i;
+
+    if ((level < 1) || (level >= m_Levels.length))
+      throw new IllegalArgumentException("Level must be in [1, " + (m_Levels.length - 1) + "]: " + level);
+
+    for (i = 1; i <= level; i++) {
+      if (m_Levels[i] != null)
+	continue;
+      if (i == 1)
+	m_Levels[i] = buildFromHeatmap();
+      else
+	m_Levels[i] = buildFromLevel(m_Levels[i - 1], getWidth(i), getHeight(i));
+      m_BuiltLevel = i;
+    }
+
+    return m_Levels[level];
+  }
+
+  /**
+   * Builds all levels.
+   */
+  public void build() {
+    if (m_Levels.length > 1)
+      getLevel(m_Levels.length - 1);
+  }
+
+  /**
+   * Returns the statistic of the level as heatmap. Level 0 returns the
+   * underlying heatmap itself.
+   *
+   * @param level	the level
+   * @param stat	the statistic to use for the cells
+   * @return		the heatmap
+   */
+  public Heatmap toHeatmap(int level, Statistic stat) {
+    Heatmap	result;
+    Level	lvl;
+    float[]	values;
+    int		i;
+
+    if (level == 0)
+      return m_Heatmap;
+
+    lvl = getLevel(level);
+    switch (stat) {
+      case MIN:
+	values = lvl.m_Min;
+	break;
+      case MAX:
+	values = lvl.m_Max;
+	break;
+      case MEAN:
+	values = lvl.m_Mean;
+	break;
+      default:
+	throw new IllegalStateException("Unhandled statistic: " + stat);
+    }
+
+    result = new Heatmap(lvl.getHeight(), lvl.getWidth(), true);
+    for (i = 0; i < values.length; i++)
+      result.set(i, values[i]);
+    result.setID(m_Heatmap.getID());
+
+    return result;
+  }
+
+  /**
+   * Collects the cells of the heatmap with values in the specified range,
+   * only descending into blocks whose bounds overlap with the range.
+   *
+   * @param level	the current level
+   * @param row		the row in the level
+   * @param col		the column in the level
+   * @param lower	the lower bound (incl)
+   * @param upper	the upper bound (incl)
+   * @param result	for storing the located cells
+   */
+  protected void locate(int level, int row, int col, double lower, double upper, List<Point> result) {
+    Level	lvl;
+    double	value;
+    int		y;
+    int		x;
+
+    if (level == 0) {
+      value = m_Heatmap.get(row, col);
+      if (!Double.isNaN(value) && (value >= lower) && (value <= upper))
+	result.add(new Point(col, row));
+      return;
+    }
+
+    lvl = m_Levels[level];
+    if (lvl.getCount(row, col) == 0)
+      return;
+    if ((lvl.getMax(row, col) < lower) || (lvl.getMin(row, col) > upper))
+      return;
+
+    for (y = 2 * row; (y < 2 * row + 2) && (y < getHeight(level - 1)); y++) {
+      for (x = 2 * col; (x < 2 * col + 2) && (x < getWidth(level - 1)); x++)
+	locate(level - 1, y, x, lower, upper, result);
+    }
+  }
+
+  /**
+   * Returns the locations of all cells with values in the specified range.
+   * Builds all levels if necessary.
+   *
+   * @param lower	the lower bound (incl)
+   * @param upper	the upper bound (incl)
+   * @return		the locations (x = column, y = row)
+   */
+  public List<Point> locate(double lower, double upper) {
+    List<Point>	result;
+    int		top;
+
+    result = new ArrayList<>();
+    if (m_Heatmap.size() == 0)
+      return result;
+    top    = m_Levels.length - 1;
+    build();
+    locate(top, 0, 0, lower, upper, result);
+
+    return result;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapRowTask.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.heatmap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits a range of heatmap rows recursively across a fork/join pool,
+ * handing blocks of consecutive rows to a processor. Processors must only
+ * write to the rows of their block.
+ * <br><br>
+ * The pools are shared: one pool per number of threads gets created lazily
+ * and is kept for the lifetime of the JVM (with daemon worker threads that
+ * expire when idle).
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class HeatmapRowTask
+  extends RecursiveAction {
+
+  private static final long serialVersionUID = -8015330530736102264L;
+
+  /** the maximum number of rows to process in a single block. */
+  public final static int BLOCK_ROWS = 32;
+
+  /** the shared pools, per number of threads. */
+  protected final static Map<Integer,ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+  /**
+   * Interface for processing a block of rows.
+   */
+  public interface RowBlockProcessor {
+
+    /**
+     * Processes the block of rows.
+     *
+     * @param start	the first row (incl)
+     * @param end	the last row (excl)
+     */
+    public void process(int start, int end);
+  }
+
+  /** the processor. */
+  protected RowBlockProcessor m_Processor;
+
+  /** the first row (incl). */
+  protected int m_Start;
+
+  /** the last row (excl). */
+  protected int m_End;
+
+  /**
+   * Initializes the task.
+   *
+   * @param processor	the processor to apply
+   * @param start	the first row (incl)
+   * @param end		the last row (excl)
+   */
+  public HeatmapRowTask(RowBlockProcessor processor, int start, int end) {
+    m_Processor = processor;
+    m_Start     = start;
+    m_End       = end;
+  }
+
+  /**
+   * Processes the rows, splitting them in half if too many.
+   */
+  @Override
+  protected void compute() {
+    int		mid;
+
+    if (m_End - m_Start <= BLOCK_ROWS) {
+      m_Processor.process(m_Start, m_End);
+    }
+    else {
+      mid = (m_Start + m_End) >>> 1;
+      invokeAll(
+	new HeatmapRowTask(m_Processor, m_Start, mid),
+	new HeatmapRowTask(m_Processor, mid, m_End));
+    }
+  }
+
+  /**
+   * Returns the shared pool for the specified number of threads, creating
+   * it if necessary.
+   *
+   * @param numThreads	the number of threads
+   * @return		the pool
+   */
+  public static ForkJoinPool getPool(int numThreads) {
+    return POOLS.computeIfAbsent(numThreads, ForkJoinPool::new);
+  }
+
+  /**
+   * Processes the rows, using the specified number of threads.
+   *
+   * @param height	the number of rows
+   * @param numThreads	the number of threads to use, &lt;= 1 for processing
+   * 			the rows in the calling thread
+   * @param processor	the processor to apply
+   */
+  public static void run(int height, int numThreads, RowBlockProcessor processor) {
+    if ((numThreads <= 1) || (height <= BLOCK_ROWS))
+      processor.process(0, height);
+    else
+      getPool(numThreads).invoke(new HeatmapRowTask(processor, 0, height));
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapRowVisitor.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.data.heatmap;
+
+/**
+ * Interface for visiting the rows of a heatmap as spans of an array. The
+ * array may be the heatmap's backing array and must therefore be treated
+ * as read-only and not be retained beyond the call.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ * @see Heatmap#forEachRow(HeatmapRowVisitor)
+ */
+public interface HeatmapRowVisitor {
+
+  /**
+   * Visits the row.
+   *
+   * @param row		the row index
+   * @param values	the array containing the values of the row
+   * @param offset	the position of the first value of the row in the array
+   * @param length	the number of values in the row
+   */
+  public void visit(int row, double[] values, int offset, int length);
+}
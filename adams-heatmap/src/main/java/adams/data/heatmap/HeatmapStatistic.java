@@ -15,7 +15,7 @@
 
 /**
  * HeatmapStatistic.java
- * Copyright (C) 2011-2016 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.data.heatmap;
 
@@ -60,6 +60,12 @@ public class HeatmapStatistic
   /** the missing value count. */
   public static String COUNT_MISSING = "Missing values count";
 
+  /** the mean of the non-missing values. */
+  public static String MEAN = "Mean";
+
+  /** the standard deviation of the non-missing values. */
+  public static String STDEV = "Standard deviation";
+
   /** the statistics. */
   protected Hashtable<String,Double> m_Statistics;
 
@@ -109,10 +115,7 @@ public class HeatmapStatistic
    * Generates the statistics.
    */
   protected void calculate() {
-    double	zeroes;
-    double	nonZeroes;
-    double	missing;
-    int		i;
+    HeatmapStatisticsCache	stats;
 
     m_Statistics.clear();
     m_Statistics.put(HEIGHT, 0.0);
@@ -122,29 +125,22 @@ public class HeatmapStatistic
     m_Statistics.put(COUNT_ZEROES, 0.0);
     m_Statistics.put(COUNT_NONZEROES, 0.0);
     m_Statistics.put(COUNT_MISSING, 0.0);
+    m_Statistics.put(MEAN, Double.NaN);
+    m_Statistics.put(STDEV, Double.NaN);
 
     if (m_Heatmap == null)
       return;
 
-    zeroes    = 0.0;
-    nonZeroes = 0.0;
-    missing   = 0.0;
-    for (i = 0; i < m_Heatmap.size(); i++) {
-      if (m_Heatmap.isMissing(i))
-	missing++;
-      else if (m_Heatmap.get(i) == 0.0)
-	zeroes++;
-      else
-	nonZeroes++;
-    }
-
+    stats = m_Heatmap.getStatisticsCache();
     m_Statistics.put(HEIGHT, (double) m_Heatmap.getHeight());
     m_Statistics.put(WIDTH, (double) m_Heatmap.getWidth());
-    m_Statistics.put(MINIMUM, m_Heatmap.getMin());
-    m_Statistics.put(MAXIMUM, m_Heatmap.getMax());
-    m_Statistics.put(COUNT_ZEROES, zeroes);
-    m_Statistics.put(COUNT_NONZEROES, nonZeroes);
-    m_Statistics.put(COUNT_MISSING, missing);
+    m_Statistics.put(MINIMUM, stats.getMin());
+    m_Statistics.put(MAXIMUM, stats.getMax());
+    m_Statistics.put(COUNT_ZEROES, (double) stats.getZeroCount());
+    m_Statistics.put(COUNT_NONZEROES, (double) (stats.getCount() - stats.getZeroCount()));
+    m_Statistics.put(COUNT_MISSING, (double) stats.getMissingCount());
+    m_Statistics.put(MEAN, stats.getMean());
+    m_Statistics.put(STDEV, stats.getStdDev(true));
   }
 
   /**
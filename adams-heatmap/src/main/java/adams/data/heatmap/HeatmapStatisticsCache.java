@@ -0,0 +1,536 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapStatisticsCache.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.data.heatmap;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Summary statistics of the values of a heatmap, computed in a single
+ * pass over the storage (the variance with Welford's algorithm). Instances are immutable snapshots; the heatmap
+ * discards its cache whenever it gets modified. The histogram and the
+ * primitive buffer of values used for quantiles are calculated lazily with
+ * an additional pass, allowing all feature generators applied to the same
+ * heatmap to share them.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class HeatmapStatisticsCache
+  implements Serializable {
+
+  private static final long serialVersionUID = 5584946710853937516L;
+
+  /** the storage the statistics were computed from. */
+  protected AbstractHeatmapStorage m_Storage;
+
+  /** the row of the minimum, -1 if none. */
+  protected int m_MinRow;
+
+  /** the column of the minimum, -1 if none. */
+  protected int m_MinColumn;
+
+  /** the row of the maximum, -1 if none. */
+  protected int m_MaxRow;
+
+  /** the column of the maximum, -1 if none. */
+  protected int m_MaxColumn;
+
+  /** the minimum. */
+  protected double m_Min;
+
+  /** the maximum. */
+  protected double m_Max;
+
+  /** the number of non-missing values. */
+  protected long m_Count;
+
+  /** the number of missing values. */
+  protected long m_MissingCount;
+
+  /** the number of zeroes. */
+  protected long m_ZeroCount;
+
+  /** the sum of the non-missing values. */
+  protected double m_Sum;
+
+  /** the sum of squares of the non-missing values. */
+  protected double m_SumSq;
+
+  /** the sum of squared differences from the mean of the non-missing values. */
+  protected double m_M2;
+
+  /** the number of bins of the cached histogram. */
+  protected int m_NumBins;
+
+  /** the cached histogram. */
+  protected int[] m_Histogram;
+
+  /** the non-missing values (in no particular order), null if not yet collected. */
+  protected double[] m_Values;
+
+  /**
+   * Computes the statistics for the storage.
+   *
+   * @param storage	the storage to compute the statistics for
+   */
+  public HeatmapStatisticsCache(AbstractHeatmapStorage storage) {
+    m_Storage = storage;
+    calculate();
+  }
+
+  /**
+   * Computes the statistics in one pass.
+   */
+  protected void calculate() {
+    int		row;
+    int		col;
+    int		width;
+    double[]	values;
+    double	value;
+    double	min;
+    double	max;
+    double	sum;
+    double	sumSq;
+    double	mean;
+    double	m2;
+    double	delta;
+    int		minRow;
+    int		minCol;
+    int		maxRow;
+    int		maxCol;
+    long	count;
+    long	zeroes;
+
+    width  = m_Storage.getWidth();
+    values = new double[width];
+    min    = Double.MAX_VALUE;
+    max    = -Double.MAX_VALUE;
+    minRow = -1;
+    minCol = -1;
+    maxRow = -1;
+    maxCol = -1;
+    sum    = 0.0;
+    sumSq  = 0.0;
+    mean   = 0.0;
+    m2     = 0.0;
+    count  = 0;
+    zeroes = 0;
+    for (row = 0; row < m_Storage.getHeight(); row++) {
+      m_Storage.getRow(row, values, 0);
+      for (col = 0; col < width; col++) {
+	value = values[col];
+	if (Double.isNaN(value))
+	  continue;
+	count++;
+	sum   += value;
+	sumSq += value * value;
+	delta  = value - mean;
+	mean  += delta / count;
+	m2    += delta * (value - mean);
+	if (value == 0.0)
+	  zeroes++;
+	if (value < min) {
+	  min    = value;
+	  minRow = row;
+	  minCol = col;
+	}
+	if (value > max) {
+	  max    = value;
+	  maxRow = row;
+	  maxCol = col;
+	}
+      }
+    }
+
+    m_Count        = count;
+    m_MissingCount = m_Storage.getNumCells() - count;
+    m_ZeroCount    = zeroes;
+    m_Sum          = sum;
+    m_SumSq        = sumSq;
+    m_M2           = m2;
+    m_MinRow       = minRow;
+    m_MinColumn    = minCol;
+    m_MaxRow       = maxRow;
+    m_MaxColumn    = maxCol;
+    m_Min          = (minRow == -1) ? Double.MAX_VALUE : min;
+    m_Max          = (maxRow == -1) ? Double.MIN_VALUE : max;
+  }
+
+  /**
+   * Returns the smallest value.
+   *
+   * @return		the minimum, {@link Double#MAX_VALUE} if no values
+   */
+  public double getMin() {
+    return m_Min;
+  }
+
+  /**
+   * Returns the row of the smallest value.
+   *
+   * @return		the row, -1 if no values
+   */
+  public int getMinRow() {
+    return m_MinRow;
+  }
+
+  /**
+   * Returns the column of the smallest value.
+   *
+   * @return		the column, -1 if no values
+   */
+  public int getMinColumn() {
+    return m_MinColumn;
+  }
+
+  /**
+   * Returns the largest value.
+   *
+   * @return		the maximum, {@link Double#MIN_VALUE} if no values
+   */
+  public double getMax() {
+    return m_Max;
+  }
+
+  /**
+   * Returns the row of the largest value.
+   *
+   * @return		the row, -1 if no values
+   */
+  public int getMaxRow() {
+    return m_MaxRow;
+  }
+
+  /**
+   * Returns the column of the largest value.
+   *
+   * @return		the column, -1 if no values
+   */
+  public int getMaxColumn() {
+    return m_MaxColumn;
+  }
+
+  /**
+   * Returns the number of non-missing values.
+   *
+   * @return		the count
+   */
+  public long getCount() {
+    return m_Count;
+  }
+
+  /**
+   * Returns the number of missing values.
+   *
+   * @return		the count
+   */
+  public long getMissingCount() {
+    return m_MissingCount;
+  }
+
+  /**
+   * Returns the number of zeroes.
+   *
+   * @return		the count
+   */
+  public long getZeroCount() {
+    return m_ZeroCount;
+  }
+
+  /**
+   * Returns the sum of the non-missing values.
+   *
+   * @return		the sum
+   */
+  public double getSum() {
+    return m_Sum;
+  }
+
+  /**
+   * Returns the sum of squares of the non-missing values.
+   *
+   * @return		the sum of squares
+   */
+  public double getSumSq() {
+    return m_SumSq;
+  }
+
+  /**
+   * Returns the mean of the non-missing values.
+   *
+   * @return		the mean, NaN if no values
+   */
+  public double getMean() {
+    if (m_Count == 0)
+      return Double.NaN;
+    return m_Sum / m_Count;
+  }
+
+  /**
+   * Returns the variance of the non-missing values.
+   *
+   * @param isSample	whether the values are a sample rather than the population
+   * @return		the variance, NaN if not enough values
+   */
+  public double getVariance(boolean isSample) {
+    double	n;
+
+    n = isSample ? m_Count - 1 : m_Count;
+    if (n <= 0)
+      return Double.NaN;
+    return m_M2 / n;
+  }
+
+  /**
+   * Returns the standard deviation of the non-missing values.
+   *
+   * @param isSample	whether the values are a sample rather than the population
+   * @return		the standard deviation, NaN if not enough values
+   */
+  public double getStdDev(boolean isSample) {
+    return Math.sqrt(getVariance(isSample));
+  }
+
+  /**
+   * Returns the bin index for the value in a histogram with fixed-width
+   * bins between minimum and maximum.
+   *
+   * @param value	the value to get the bin for
+   * @param numBins	the number of bins
+   * @return		the bin index
+   */
+  public int getBin(double value, int numBins) {
+    int		result;
+
+    if (m_Max <= m_Min)
+      return 0;
+    result = (int) ((value - m_Min) / (m_Max - m_Min) * numBins);
+    if (result >= numBins)
+      result = numBins - 1;
+    else if (result < 0)
+      result = 0;
+
+    return result;
+  }
+
+  /**
+   * Returns a histogram of the non-missing values, using fixed-width bins
+   * between minimum and maximum. The histogram of the last requested number
+   * of bins gets cached.
+   *
+   * @param numBins	the number of bins
+   * @return		the counts per bin (do not modify)
+   */
+  public synchronized int[] getHistogram(int numBins) {
+    int[]	result;
+    int		row;
+    int		col;
+    double[]	values;
+
+    if (numBins < 1)
+      throw new IllegalArgumentException("Number of bins must be at least 1: " + numBins);
+
+    if ((m_Histogram != null) && (m_NumBins == numBins))
+      return m_Histogram;
+
+    result = new int[numBins];
+    if ((m_Values != null) && (m_Count > 0)) {
+      for (col = 0; col < m_Values.length; col++)
+	result[getBin(m_Values[col], numBins)]++;
+    }
+    else if (m_Count > 0) {
+      values = new double[m_Storage.getWidth()];
+      for (row = 0; row < m_Storage.getHeight(); row++) {
+	m_Storage.getRow(row, values, 0);
+	for (col = 0; col < values.length; col++) {
+	  if (!Double.isNaN(values[col]))
+	    result[getBin(values[col], numBins)]++;
+	}
+      }
+    }
+    m_NumBins   = numBins;
+    m_Histogram = result;
+
+    return result;
+  }
+
+  /**
+   * Returns the non-missing values as a primitive array, collecting them
+   * on first access. The array is shared with the quantile calculations,
+   * which reorder it, i.e., for internal use only.
+   *
+   * @return		the values (in no particular order)
+   * @see		#getValues()
+   */
+  protected synchronized double[] collectValues() {
+    double[]	row;
+    int		r;
+    int		c;
+    int		i;
+
+    if (m_Values != null)
+      return m_Values;
+
+    if (m_Count > Integer.MAX_VALUE - 8)
+      throw new IllegalStateException("Too many values to collect: " + m_Count);
+
+    m_Values = new double[(int) m_Count];
+    row      = new double[m_Storage.getWidth()];
+    i        = 0;
+    for (r = 0; r < m_Storage.getHeight(); r++) {
+      m_Storage.getRow(r, row, 0);
+      for (c = 0; c < row.length; c++) {
+	if (!Double.isNaN(row[c])) {
+	  // storage modified since the statistics were calculated
+	  if (i == m_Values.length)
+	    m_Values = Arrays.copyOf(m_Values, Math.max(16, m_Values.length * 2));
+	  m_Values[i++] = row[c];
+	}
+      }
+    }
+    if (i != m_Values.length)
+      m_Values = Arrays.copyOf(m_Values, i);
+
+    return m_Values;
+  }
+
+  /**
+   * Returns a copy of the non-missing values as a primitive array.
+   *
+   * @return		the values (in no particular order)
+   */
+  public synchronized double[] getValues() {
+    return collectValues().clone();
+  }
+
+  /**
+   * Swaps two values.
+   *
+   * @param values	the array to modify
+   * @param i		the first index
+   * @param j		the second index
+   */
+  protected static void swap(double[] values, int i, int j) {
+    double	tmp;
+
+    tmp       = values[i];
+    values[i] = values[j];
+    values[j] = tmp;
+  }
+
+  /**
+   * Determines the k-th smallest value (0-based) using quickselect with a
+   * three-way partition (robust against many identical values), partially
+   * reordering the array in the process.
+   *
+   * @param values	the values to select from
+   * @param k		the 0-based rank of the value
+   * @return		the value
+   */
+  public static double select(double[] values, int k) {
+    int		left;
+    int		right;
+    int		lt;
+    int		gt;
+    int		i;
+    double	a;
+    double	b;
+    double	c;
+    double	pivot;
+
+    left  = 0;
+    right = values.length - 1;
+    while (left < right) {
+      // median-of-three pivot
+      a     = values[left];
+      b     = values[(left + right) >>> 1];
+      c     = values[right];
+      pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+
+      // [left,lt) < pivot, [lt,gt] == pivot, (gt,right] > pivot
+      lt = left;
+      gt = right;
+      i  = left;
+      while (i <= gt) {
+	if (values[i] < pivot)
+	  swap(values, lt++, i++);
+	else if (values[i] > pivot)
+	  swap(values, i, gt--);
+	else
+	  i++;
+      }
+
+      if (k < lt)
+	right = lt - 1;
+      else if (k > gt)
+	left = gt + 1;
+      else
+	return pivot;
+    }
+
+    return values[k];
+  }
+
+  /**
+   * Returns the quantile of the non-missing values, interpolating linearly
+   * between the closest ranks. Uses selection rather than sorting.
+   *
+   * @param p		the probability, between 0 and 1
+   * @return		the quantile, NaN if no values
+   */
+  public synchronized double getQuantile(double p) {
+    double[]	values;
+    double	h;
+    int		lower;
+    double	lowerValue;
+    double	upperValue;
+    int		i;
+
+    if ((p < 0) || (p > 1))
+      throw new IllegalArgumentException("Probability must be between 0 and 1: " + p);
+    values = collectValues();
+    if (values.length == 0)
+      return Double.NaN;
+
+    h          = (values.length - 1) * p;
+    lower      = (int) Math.floor(h);
+    lowerValue = select(values, lower);
+    if (lower == h)
+      return lowerValue;
+
+    // after selection, the next rank is the minimum of the upper partition
+    upperValue = values[lower + 1];
+    for (i = lower + 2; i < values.length; i++) {
+      if (values[i] < upperValue)
+	upperValue = values[i];
+    }
+
+    return lowerValue + (h - lower) * (upperValue - lowerValue);
+  }
+
+  /**
+   * Returns the median of the non-missing values.
+   *
+   * @return		the median, NaN if no values
+   */
+  public double getMedian() {
+    return getQuantile(0.5);
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapValueSpliterator.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.data.heatmap;
+
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Spliterator over the values of a heatmap storage (row-wise), without
+ * boxing. Splits into halves as long as the ranges are large enough, which
+ * makes it suitable for parallel streams.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ * @see Heatmap#values(boolean)
+ */
+public class HeatmapValueSpliterator
+  implements Spliterator.OfDouble {
+
+  /** the minimum number of cells for splitting. */
+  public final static int MIN_SPLIT = 4096;
+
+  /** the storage to iterate. */
+  protected AbstractHeatmapStorage m_Storage;
+
+  /** the current position (row-wise, incl). */
+  protected int m_Position;
+
+  /** the end position (row-wise, excl). */
+  protected int m_End;
+
+  /**
+   * Initializes the spliterator for all the cells of the storage.
+   *
+   * @param storage	the storage to iterate
+   */
+  public HeatmapValueSpliterator(AbstractHeatmapStorage storage) {
+    this(storage, 0, storage.size());
+  }
+
+  /**
+   * Initializes the spliterator for a range of cells.
+   *
+   * @param storage	the storage to iterate
+   * @param start	the first position (row-wise, incl)
+   * @param end		the last position (row-wise, excl)
+   */
+  public HeatmapValueSpliterator(AbstractHeatmapStorage storage, int start, int end) {
+    m_Storage  = storage;
+    m_Position = start;
+    m_End      = end;
+  }
+
+  /**
+   * Returns the value at the row-wise position.
+   *
+   * @param pos		the position
+   * @return		the value
+   */
+  protected double get(int pos) {
+    int		width;
+
+    width = m_Storage.getWidth();
+    return m_Storage.get(m_Storage.getOffset(pos / width, pos % width));
+  }
+
+  /**
+   * Processes the next value, if any.
+   *
+   * @param action	the action to apply
+   * @return		true if a value was processed
+   */
+  @Override
+  public boolean tryAdvance(DoubleConsumer action) {
+    if (m_Position >= m_End)
+      return false;
+    action.accept(get(m_Position));
+    m_Position++;
+    return true;
+  }
+
+  /**
+   * Processes all remaining values.
+   *
+   * @param action	the action to apply
+   */
+  @Override
+  public void forEachRemaining(DoubleConsumer action) {
+    int		width;
+    int		row;
+    int		col;
+    int		offset;
+
+    width = m_Storage.getWidth();
+    while (m_Position < m_End) {
+      row    = m_Position / width;
+      col    = m_Position % width;
+      offset = m_Storage.getOffset(row, 0);
+      for (; (col < width) && (m_Position < m_End); col++, m_Position++)
+	action.accept(m_Storage.get(offset + col));
+    }
+  }
+
+  /**
+   * Splits off the first half of the remaining values.
+   *
+   * @return		the spliterator for the first half, null if too small
+   */
+  @Override
+  public Spliterator.OfDouble trySplit() {
+    int		mid;
+    int		start;
+
+    if (m_End - m_Position < 2 * MIN_SPLIT)
+      return null;
+
+    start      = m_Position;
+    mid        = (m_Position + m_End) >>> 1;
+    m_Position = mid;
+
+    return new HeatmapValueSpliterator(m_Storage, start, mid);
+  }
+
+  /**
+   * Returns the number of remaining values.
+   *
+   * @return		the number of values
+   */
+  @Override
+  public long estimateSize() {
+    return m_End - m_Position;
+  }
+
+  /**
+   * Returns the characteristics.
+   *
+   * @return		ordered, sized, subsized and non-null
+   */
+  @Override
+  public int characteristics() {
+    return ORDERED | SIZED | SUBSIZED | NONNULL;
+  }
+}
@@ -0,0 +1,661 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * MappedHeatmapStorage.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.heatmap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Cleaner.Cleanable;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores the heatmap values in a file that gets memory-mapped, allowing
+ * heatmaps that exceed the available heap. The file is mapped in segments
+ * of whole rows, each segment being at most {@link #SEGMENT_SIZE} bytes.
+ * The values are stored row-major without any header, i.e., the same
+ * layout as used by {@link adams.data.io.input.FloatMatrixHeatmapReader}.
+ * <br><br>
+ * Storages created without a file use a temporary file. The file gets
+ * deleted by {@link #cleanUp()}, once the storage is no longer reachable
+ * or, at the latest, when the JVM exits. The mapping itself only gets
+ * released by the garbage collector, as views and statistics may still be
+ * reading from it. When serialized, the
+ * values of temporary storages get written as well, whereas persistent
+ * storages only store the file and map it again when deserialized.
+ * <br><br>
+ * Files that are not written through get mapped read-only. The first
+ * modification copies the values into a temporary file, which is used
+ * from then on. The segments are published as a whole, so that concurrent
+ * readers see either the old or the new mapping.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class MappedHeatmapStorage
+  extends AbstractHeatmapStorage {
+
+  private static final long serialVersionUID = -4870436190436129655L;
+
+  /** the maximum number of bytes per mapped segment. */
+  public final static int SEGMENT_SIZE = 1 << 30;
+
+  /** the temporary files that haven't been deleted yet. */
+  protected final static Set<File> TEMP_FILES = ConcurrentHashMap.newKeySet();
+
+  /** for deleting the temporary files of unreachable storages. */
+  protected final static Cleaner CLEANER = Cleaner.create();
+
+  static {
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      for (File file: TEMP_FILES)
+	file.delete();
+    }));
+  }
+
+  /** the file backing the storage. */
+  protected File m_File;
+
+  /** whether the file is a temporary one. */
+  protected boolean m_Temporary;
+
+  /** whether to store floats rather than doubles. */
+  protected boolean m_FloatPrecision;
+
+  /** whether the values are stored little endian. */
+  protected boolean m_LittleEndian;
+
+  /** whether modifications are written back to the file. */
+  protected boolean m_WriteThrough;
+
+  /** the number of rows per segment. */
+  protected int m_RowsPerSegment;
+
+  /** for removing the temporary file. */
+  protected transient Cleanable m_Cleanable;
+
+  /** the current mapping of the file. */
+  protected transient volatile Mapping m_Mapping;
+
+  /**
+   * Initializes the storage with zeroes, using a temporary file.
+   *
+   * @param height	the number of rows
+   * @param width	the number of columns
+   * @param floatPrecision	whether to store floats rather than doubles
+   */
+  public MappedHeatmapStorage(int height, int width, boolean floatPrecision) {
+    super(height, width);
+
+    m_File           = createTempFile();
+    m_Temporary      = true;
+    m_FloatPrecision = floatPrecision;
+    m_LittleEndian   = (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN);
+    m_WriteThrough   = true;
+    m_Cleanable      = CLEANER.register(this, new TempFileRemover(m_File));
+    m_Mapping        = map(m_File, true);
+  }
+
+  /**
+   * Initializes the storage with the specified file. The file gets created
+   * or extended if necessary when writing through.
+   *
+   * @param file	the file to map
+   * @param height	the number of rows
+   * @param width	the number of columns
+   * @param floatPrecision	whether the file stores floats rather than doubles
+   * @param order	the byte order of the values in the file
+   * @param writeThrough	whether modifications are written back to the file,
+   * 			otherwise the file is mapped read-only and gets copied
+   * 			to a temporary file with the first modification
+   */
+  public MappedHeatmapStorage(File file, int height, int width, boolean floatPrecision, ByteOrder order, boolean writeThrough) {
+    super(height, width);
+
+    m_File           = file.getAbsoluteFile();
+    m_Temporary      = false;
+    m_FloatPrecision = floatPrecision;
+    m_LittleEndian   = (order == ByteOrder.LITTLE_ENDIAN);
+    m_WriteThrough   = writeThrough;
+
+    if (!m_WriteThrough && !m_File.exists())
+      throw new IllegalArgumentException("File does not exist: " + m_File);
+    if (!m_WriteThrough && (m_File.length() < getNumCells() * getBytesPerValue()))
+      throw new IllegalArgumentException(
+	"File is too small for " + height + " x " + width + " heatmap: " + m_File);
+
+    m_Mapping = map(m_File, m_WriteThrough);
+  }
+
+  /**
+   * Creates a new temporary file, which gets deleted when the JVM exits
+   * unless deleted beforehand.
+   *
+   * @return		the file
+   */
+  protected static File createTempFile() {
+    File	result;
+
+    try {
+      result = File.createTempFile("heatmap-", ".bin");
+    }
+    catch (IOException e) {
+      throw new IllegalStateException("Failed to create temporary file for heatmap!", e);
+    }
+    TEMP_FILES.add(result);
+
+    return result;
+  }
+
+  /**
+   * Returns the number of bytes used per value.
+   *
+   * @return		the number of bytes
+   */
+  protected int getBytesPerValue() {
+    return m_FloatPrecision ? 4 : 8;
+  }
+
+  /**
+   * Maps the file into memory.
+   *
+   * @param file	the file to map
+   * @param writable	whether to map the file for writing
+   * @return		the mapping
+   */
+  protected Mapping map(File file, boolean writable) {
+    RandomAccessFile	raf;
+    FileChannel		channel;
+    MappedByteBuffer[]	segments;
+    DoubleBuffer[]	doubles;
+    FloatBuffer[]	floats;
+    long		rowBytes;
+    long		required;
+    int			numSegments;
+    int			i;
+    int			rows;
+    ByteOrder		order;
+
+    rowBytes         = Math.max(1L, (long) m_Width * getBytesPerValue());
+    if (rowBytes > SEGMENT_SIZE)
+      throw new IllegalArgumentException("Rows too wide for mapping: " + m_Width);
+    m_RowsPerSegment = (int) Math.max(1, SEGMENT_SIZE / rowBytes);
+    numSegments      = (m_Height + m_RowsPerSegment - 1) / m_RowsPerSegment;
+    required         = getNumCells() * getBytesPerValue();
+    order            = m_LittleEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+
+    segments = new MappedByteBuffer[numSegments];
+    doubles  = new DoubleBuffer[numSegments];
+    floats   = new FloatBuffer[numSegments];
+
+    raf = null;
+    try {
+      raf     = new RandomAccessFile(file, writable ? "rw" : "r");
+      channel = raf.getChannel();
+      if (writable && (raf.length() < required))
+	raf.setLength(required);
+      for (i = 0; i < numSegments; i++) {
+	rows        = Math.min(m_RowsPerSegment, m_Height - i * m_RowsPerSegment);
+	segments[i] = channel.map(
+	  writable ? MapMode.READ_WRITE : MapMode.READ_ONLY,
+	  (long) i * m_RowsPerSegment * rowBytes,
+	  rows * rowBytes);
+	segments[i].order(order);
+	if (m_FloatPrecision)
+	  floats[i] = segments[i].asFloatBuffer();
+	else
+	  doubles[i] = segments[i].asDoubleBuffer();
+      }
+    }
+    catch (IOException e) {
+      throw new IllegalStateException("Failed to map heatmap file: " + file, e);
+    }
+    finally {
+      // the mappings remain valid after closing the file
+      if (raf != null) {
+	try {
+	  raf.close();
+	}
+	catch (Exception e) {
+	  // ignored
+	}
+      }
+    }
+
+    return new Mapping(writable, segments, doubles, floats);
+  }
+
+  /**
+   * Copies the values of the read-only mapped file into a temporary file
+   * and maps that one instead. The new mapping only gets published once
+   * all values have been copied.
+   *
+   * @return		the writable mapping
+   */
+  protected synchronized Mapping copyOnWrite() {
+    Mapping	current;
+    Mapping	copy;
+    File	file;
+    int		i;
+
+    // another thread may have copied the values already
+    current = m_Mapping;
+    if (current.writable)
+      return current;
+
+    // the read-only segments are left to the garbage collector, as other
+    // threads may still be reading from them
+    file = createTempFile();
+    copy = map(file, true);
+    for (i = 0; i < current.segments.length; i++)
+      copy.segments[i].duplicate().put(current.segments[i].duplicate());
+
+    m_File      = file;
+    m_Temporary = true;
+    m_Cleanable = CLEANER.register(this, new TempFileRemover(file));
+    m_Mapping   = copy;
+
+    return copy;
+  }
+
+  /**
+   * Returns the mapping to write to, copying the values first if the file
+   * is mapped read-only.
+   *
+   * @return		the writable mapping
+   */
+  protected Mapping getWritableMapping() {
+    Mapping	result;
+
+    result = m_Mapping;
+    if (!result.writable)
+      result = copyOnWrite();
+
+    return result;
+  }
+
+  /**
+   * Returns the file backing the storage.
+   *
+   * @return		the file
+   */
+  public File getFile() {
+    return m_File;
+  }
+
+  /**
+   * Returns whether the file is a temporary one, i.e., created by this
+   * storage or a copy of a read-only mapped file after modification.
+   *
+   * @return		true if temporary
+   */
+  public boolean isTemporary() {
+    return m_Temporary;
+  }
+
+  /**
+   * Returns whether modifications are written back to the file.
+   *
+   * @return		true if written back
+   */
+  public boolean isWriteThrough() {
+    return m_WriteThrough;
+  }
+
+  /**
+   * Returns whether the values are stored as single precision floats.
+   *
+   * @return		true if float precision
+   */
+  @Override
+  public boolean isFloatPrecision() {
+    return m_FloatPrecision;
+  }
+
+  /**
+   * Returns the index of the cell within its segment.
+   *
+   * @param row		the row of the cell
+   * @param col		the column of the cell
+   * @return		the index
+   * @throws ArrayIndexOutOfBoundsException	if the column is invalid
+   */
+  protected int getIndex(int row, int col) {
+    if ((col < 0) || (col >= m_Width))
+      throw new ArrayIndexOutOfBoundsException("Invalid column: " + col + " (width: " + m_Width + ")");
+    return (row % m_RowsPerSegment) * m_Width + col;
+  }
+
+  /**
+   * Returns the value of the cell.
+   *
+   * @param row		the row of the cell
+   * @param col		the column of the cell
+   * @return		the value
+   */
+  @Override
+  public double get(int row, int col) {
+    Mapping	mapping;
+
+    mapping = m_Mapping;
+    if (m_FloatPrecision)
+      return mapping.floats[row / m_RowsPerSegment].get(getIndex(row, col));
+    else
+      return mapping.doubles[row / m_RowsPerSegment].get(getIndex(row, col));
+  }
+
+  /**
+   * Sets the value of the cell.
+   *
+   * @param row		the row of the cell
+   * @param col		the column of the cell
+   * @param value	the value
+   */
+  @Override
+  public void set(int row, int col, double value) {
+    Mapping	mapping;
+
+    mapping = getWritableMapping();
+    if (m_FloatPrecision)
+      mapping.floats[row / m_RowsPerSegment].put(getIndex(row, col), (float) value);
+    else
+      mapping.doubles[row / m_RowsPerSegment].put(getIndex(row, col), value);
+  }
+
+  /**
+   * Returns the value at the specified offset.
+   *
+   * @param pos		the offset
+   * @return		the value
+   */
+  @Override
+  public double get(int pos) {
+    if (m_Width == 0)
+      throw new ArrayIndexOutOfBoundsException(pos);
+    return get(pos / m_Width, pos % m_Width);
+  }
+
+  /**
+   * Sets the value at the specified offset.
+   *
+   * @param pos		the offset
+   * @param value	the value
+   */
+  @Override
+  public void set(int pos, double value) {
+    if (m_Width == 0)
+      throw new ArrayIndexOutOfBoundsException(pos);
+    set(pos / m_Width, pos % m_Width, value);
+  }
+
+  /**
+   * Copies the values of the row into the array.
+   *
+   * @param row		the row to copy
+   * @param dest	the array to copy to
+   * @param offset	the offset in the array
+   */
+  @Override
+  public void getRow(int row, double[] dest, int offset) {
+    Mapping		mapping;
+    FloatBuffer		floats;
+    int			start;
+    int			i;
+
+    if (m_Width == 0)
+      return;
+    mapping = m_Mapping;
+    start   = getIndex(row, 0);
+    if (m_FloatPrecision) {
+      floats = mapping.floats[row / m_RowsPerSegment];
+      for (i = 0; i < m_Width; i++)
+	dest[offset + i] = floats.get(start + i);
+    }
+    else {
+      mapping.doubles[row / m_RowsPerSegment].duplicate().position(start).get(dest, offset, m_Width);
+    }
+  }
+
+  /**
+   * Sets the values of the row from the array.
+   *
+   * @param row		the row to set
+   * @param src		the array to copy from
+   * @param offset	the offset in the array
+   */
+  @Override
+  public void setRow(int row, double[] src, int offset) {
+    Mapping		mapping;
+    FloatBuffer		floats;
+    int			start;
+    int			i;
+
+    if (m_Width == 0)
+      return;
+    mapping = getWritableMapping();
+    start   = getIndex(row, 0);
+    if (m_FloatPrecision) {
+      floats = mapping.floats[row / m_RowsPerSegment];
+      for (i = 0; i < m_Width; i++)
+	floats.put(start + i, (float) src[offset + i]);
+    }
+    else {
+      mapping.doubles[row / m_RowsPerSegment].duplicate().position(start).put(src, offset, m_Width);
+    }
+  }
+
+  /**
+   * Writes any modifications back to the file.
+   */
+  public void flush() {
+    Mapping	mapping;
+
+    mapping = m_Mapping;
+    if (!m_WriteThrough || !mapping.writable)
+      return;
+    for (MappedByteBuffer segment: mapping.segments)
+      segment.force();
+  }
+
+  /**
+   * Deletes the file if temporary. Persistent files that are written
+   * through get flushed. The mapping is left to the garbage collector, as
+   * views of the storage or statistics may still be reading from it;
+   * modifications after deleting a temporary file are no longer persisted.
+   */
+  @Override
+  public synchronized void cleanUp() {
+    if (m_WriteThrough && !m_Temporary)
+      flush();
+    if (m_Cleanable != null) {
+      m_Cleanable.clean();
+      m_Cleanable = null;
+    }
+  }
+
+  /**
+   * Returns a new, empty storage of the same type, using a temporary file.
+   *
+   * @param height	the number of rows
+   * @param width	the number of columns
+   * @return		the new storage
+   */
+  @Override
+  public AbstractHeatmapStorage newInstance(int height, int width) {
+    return new MappedHeatmapStorage(height, width, m_FloatPrecision);
+  }
+
+  /**
+   * Returns a copy of the storage, using a temporary file.
+   *
+   * @return		the copy
+   */
+  @Override
+  public MappedHeatmapStorage getClone() {
+    MappedHeatmapStorage	result;
+    double[]			values;
+    int				row;
+
+    result = new MappedHeatmapStorage(m_Height, m_Width, m_FloatPrecision);
+    values = new double[m_Width];
+    for (row = 0; row < m_Height; row++) {
+      getRow(row, values, 0);
+      result.setRow(row, values, 0);
+    }
+
+    return result;
+  }
+
+  /**
+   * Writes the storage. Temporary storages also write their values.
+   *
+   * @param out		the stream to write to
+   * @throws IOException	if writing fails
+   */
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    double[]	values;
+    int		row;
+    int		col;
+
+    out.defaultWriteObject();
+    if (m_Temporary) {
+      values = new double[m_Width];
+      for (row = 0; row < m_Height; row++) {
+	getRow(row, values, 0);
+	for (col = 0; col < m_Width; col++)
+	  out.writeDouble(values[col]);
+      }
+    }
+    else {
+      flush();
+    }
+  }
+
+  /**
+   * Reads the storage and maps the file again. Temporary storages get
+   * a new temporary file, which is filled with the stored values.
+   *
+   * @param in		the stream to read from
+   * @throws IOException	if reading fails
+   * @throws ClassNotFoundException	if a class cannot be found
+   */
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    double[]	values;
+    int		row;
+    int		col;
+
+    in.defaultReadObject();
+    if (m_Temporary) {
+      m_File      = createTempFile();
+      m_Cleanable = CLEANER.register(this, new TempFileRemover(m_File));
+      m_Mapping   = map(m_File, true);
+      values = new double[m_Width];
+      for (row = 0; row < m_Height; row++) {
+	for (col = 0; col < m_Width; col++)
+	  values[col] = in.readDouble();
+	setRow(row, values, 0);
+      }
+    }
+    else {
+      m_Mapping = map(m_File, m_WriteThrough);
+    }
+  }
+
+  /**
+   * The mapped segments of the file, published as a whole.
+   */
+  protected static class Mapping {
+
+    /** whether the segments can be written to. */
+    public final boolean writable;
+
+    /** the mapped segments. */
+    public final MappedByteBuffer[] segments;
+
+    /** the segments as doubles (double precision only). */
+    public final DoubleBuffer[] doubles;
+
+    /** the segments as floats (float precision only). */
+    public final FloatBuffer[] floats;
+
+    /**
+     * Initializes the mapping.
+     *
+     * @param writable	whether the segments can be written to
+     * @param segments	the mapped segments
+     * @param doubles	the segments as doubles
+     * @param floats	the segments as floats
+     */
+    public Mapping(boolean writable, MappedByteBuffer[] segments, DoubleBuffer[] doubles, FloatBuffer[] floats) {
+      this.writable = writable;
+      this.segments = segments;
+      this.doubles  = doubles;
+      this.floats   = floats;
+    }
+  }
+
+  /**
+   * Deletes a temporary file, once the storage is cleaned up or no longer
+   * reachable. Must not reference the storage itself.
+   */
+  protected static class TempFileRemover
+    implements Runnable {
+
+    /** the file to delete. */
+    protected final File m_File;
+
+    /**
+     * Initializes the remover.
+     *
+     * @param file	the file to delete
+     */
+    public TempFileRemover(File file) {
+      m_File = file;
+    }
+
+    /**
+     * Deletes the file.
+     */
+    @Override
+    public void run() {
+      m_File.delete();
+      TEMP_FILES.remove(m_File);
+    }
+  }
+
+  /**
+   * Returns a short description of the storage.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return super.toString() + ", file=" + m_File + ", temporary=" + m_Temporary;
+  }
+}
@@ -0,0 +1,417 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ViewHeatmapStorage.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.heatmap;
+
+import java.io.ObjectStreamException;
+
+/**
+ * Storage that maps its cells onto the cells of another storage, without
+ * copying any values: offset windows, rotations and transposes. The parent
+ * coordinates of a cell are obtained via an integer affine transformation:
+ * <pre>
+ * parentRow = row0 + row * rowRow + col * rowCol
+ * parentCol = col0 + row * colRow + col * colCol
+ * </pre>
+ * Views of views are collapsed into a single transformation on the
+ * underlying storage.
+ * <br><br>
+ * The view gets turned into a copy of its values on the first write,
+ * i.e., writes never affect the parent. Changes to the parent, on the other
+ * hand, are visible in the view as long as it hasn't been written to.
+ * Therefore, {@link Heatmap} does not cache the statistics of views.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class ViewHeatmapStorage
+  extends AbstractHeatmapStorage {
+
+  private static final long serialVersionUID = 6392475129044861085L;
+
+  /** the underlying storage, null once copied. */
+  protected volatile AbstractHeatmapStorage m_Parent;
+
+  /** the copy of the values, null as long as not written to. */
+  protected volatile AbstractHeatmapStorage m_Copy;
+
+  /** the parent row of cell (0,0). */
+  protected int m_Row0;
+
+  /** the parent column of cell (0,0). */
+  protected int m_Col0;
+
+  /** the parent row increment per row. */
+  protected int m_RowRow;
+
+  /** the parent row increment per column. */
+  protected int m_RowCol;
+
+  /** the parent column increment per row. */
+  protected int m_ColRow;
+
+  /** the parent column increment per column. */
+  protected int m_ColCol;
+
+  /**
+   * Initializes the view.
+   *
+   * @param parent	the storage to map onto
+   * @param height	the number of rows of the view
+   * @param width	the number of columns of the view
+   * @param row0	the parent row of cell (0,0)
+   * @param col0	the parent column of cell (0,0)
+   * @param rowRow	the parent row increment per row
+   * @param rowCol	the parent row increment per column
+   * @param colRow	the parent column increment per row
+   * @param colCol	the parent column increment per column
+   */
+  protected ViewHeatmapStorage(AbstractHeatmapStorage parent, int height, int width, int row0, int col0, int rowRow, int rowCol, int colRow, int colCol) {
+    super(height, width);
+
+    ViewHeatmapStorage	view;
+    boolean		collapsed;
+
+    // collapse views of views, the parent view must not get copied meanwhile
+    collapsed = false;
+    if (parent instanceof ViewHeatmapStorage) {
+      view = (ViewHeatmapStorage) parent;
+      synchronized(view) {
+	if (view.m_Copy == null) {
+	  m_Parent  = view.m_Parent;
+	  m_Row0    = view.m_Row0 + view.m_RowRow * row0   + view.m_RowCol * col0;
+	  m_RowRow  =               view.m_RowRow * rowRow + view.m_RowCol * colRow;
+	  m_RowCol  =               view.m_RowRow * rowCol + view.m_RowCol * colCol;
+	  m_Col0    = view.m_Col0 + view.m_ColRow * row0   + view.m_ColCol * col0;
+	  m_ColRow  =               view.m_ColRow * rowRow + view.m_ColCol * colRow;
+	  m_ColCol  =               view.m_ColRow * rowCol + view.m_ColCol * colCol;
+	  collapsed = true;
+	}
+      }
+    }
+    if (!collapsed) {
+      m_Parent = parent;
+      m_Row0   = row0;
+      m_RowRow = rowRow;
+      m_RowCol = rowCol;
+      m_Col0   = col0;
+      m_ColRow = colRow;
+      m_ColCol = colCol;
+    }
+    m_Copy = null;
+  }
+
+  /**
+   * Returns whether the storage is still a view, i.e., hasn't been copied yet.
+   *
+   * @return		true if still a view
+   */
+  public synchronized boolean isView() {
+    return (m_Copy == null);
+  }
+
+  /**
+   * Returns whether the view is a plain window, i.e., neither rotated nor
+   * transposed.
+   *
+   * @return		true if a window
+   */
+  protected boolean isWindow() {
+    return (m_RowRow == 1) && (m_RowCol == 0) && (m_ColRow == 0) && (m_ColCol == 1);
+  }
+
+  /**
+   * Checks the row and column.
+   *
+   * @param row		the row to check
+   * @param col		the column to check
+   * @throws ArrayIndexOutOfBoundsException	if invalid coordinates
+   */
+  protected void checkCell(int row, int col) {
+    if ((row < 0) || (row >= m_Height))
+      throw new ArrayIndexOutOfBoundsException("Invalid row: " + row + " (height: " + m_Height + ")");
+    if ((col < 0) || (col >= m_Width))
+      throw new ArrayIndexOutOfBoundsException("Invalid column: " + col + " (width: " + m_Width + ")");
+  }
+
+  /**
+   * Returns whether the values are stored as single precision floats.
+   *
+   * @return		true if float precision
+   */
+  @Override
+  public synchronized boolean isFloatPrecision() {
+    if (m_Copy != null)
+      return m_Copy.isFloatPrecision();
+    else
+      return m_Parent.isFloatPrecision();
+  }
+
+  /**
+   * Replaces the view with a copy of its values, if not already done.
+   *
+   * @return		the copy
+   */
+  protected synchronized AbstractHeatmapStorage materialize() {
+    AbstractHeatmapStorage	copy;
+    double[]			values;
+    int				row;
+
+    if (m_Copy == null) {
+      copy   = m_Parent.newInstance(m_Height, m_Width);
+      values = new double[m_Width];
+      for (row = 0; row < m_Height; row++) {
+	getRow(row, values, 0);
+	copy.setRow(row, values, 0);
+      }
+      m_Copy   = copy;
+      m_Parent = null;
+    }
+
+    return m_Copy;
+  }
+
+  /**
+   * Returns the value at the specified offset.
+   *
+   * @param pos		the offset
+   * @return		the value
+   */
+  @Override
+  public double get(int pos) {
+    return get(pos / m_Width, pos % m_Width);
+  }
+
+  /**
+   * Sets the value at the specified offset.
+   *
+   * @param pos		the offset
+   * @param value	the value
+   */
+  @Override
+  public void set(int pos, double value) {
+    materialize().set(pos, value);
+  }
+
+  /**
+   * Returns the value of the cell.
+   *
+   * @param row		the row of the cell
+   * @param col		the column of the cell
+   * @return		the value
+   */
+  @Override
+  public double get(int row, int col) {
+    AbstractHeatmapStorage	parent;
+    AbstractHeatmapStorage	copy;
+
+    // parent gets read first, as it only gets cleared after the copy got set
+    parent = m_Parent;
+    copy   = m_Copy;
+    if (copy != null)
+      return copy.get(row, col);
+    checkCell(row, col);
+    return parent.get(
+      m_Row0 + row * m_RowRow + col * m_RowCol,
+      m_Col0 + row * m_ColRow + col * m_ColCol);
+  }
+
+  /**
+   * Sets the value of the cell.
+   *
+   * @param row		the row of the cell
+   * @param col		the column of the cell
+   * @param value	the value
+   */
+  @Override
+  public void set(int row, int col, double value) {
+    materialize().set(row, col, value);
+  }
+
+  /**
+   * Copies the values of the row into the array.
+   *
+   * @param row		the row to copy
+   * @param dest	the array to copy to
+   * @param offset	the offset in the array
+   */
+  @Override
+  public void getRow(int row, double[] dest, int offset) {
+    AbstractHeatmapStorage	copy;
+    AbstractHeatmapStorage	parent;
+    int				prow;
+    int				pcol;
+    int				i;
+
+    // parent gets read first, as it only gets cleared after the copy got set
+    parent = m_Parent;
+    copy   = m_Copy;
+    if (copy != null) {
+      copy.getRow(row, dest, offset);
+      return;
+    }
+
+    if (m_Width == 0)
+      return;
+    checkCell(row, 0);
+    prow   = m_Row0 + row * m_RowRow;
+    pcol   = m_Col0 + row * m_ColRow;
+    if (isWindow() && (parent instanceof DoubleHeatmapStorage)) {
+      System.arraycopy(((DoubleHeatmapStorage) parent).getData(), parent.getOffset(prow, pcol), dest, offset, m_Width);
+    }
+    else {
+      for (i = 0; i < m_Width; i++) {
+	dest[offset + i] = parent.get(prow, pcol);
+	prow += m_RowCol;
+	pcol += m_ColCol;
+      }
+    }
+  }
+
+  /**
+   * Sets the values of the row from the array.
+   *
+   * @param row		the row to set
+   * @param src		the array to copy from
+   * @param offset	the offset in the array
+   */
+  @Override
+  public void setRow(int row, double[] src, int offset) {
+    materialize().setRow(row, src, offset);
+  }
+
+  /**
+   * Returns a new, empty storage of the same type as the underlying one.
+   *
+   * @param height	the number of rows
+   * @param width	the number of columns
+   * @return		the new storage
+   */
+  @Override
+  public synchronized AbstractHeatmapStorage newInstance(int height, int width) {
+    if (m_Copy != null)
+      return m_Copy.newInstance(height, width);
+    else
+      return m_Parent.newInstance(height, width);
+  }
+
+  /**
+   * Returns a copy of the storage. As long as this storage hasn't been
+   * written to, the copy is another view of the same parent.
+   *
+   * @return		the copy
+   */
+  @Override
+  public synchronized AbstractHeatmapStorage getClone() {
+    if (m_Copy != null)
+      return m_Copy.getClone();
+    else
+      return new ViewHeatmapStorage(m_Parent, m_Height, m_Width, m_Row0, m_Col0, m_RowRow, m_RowCol, m_ColRow, m_ColCol);
+  }
+
+  /**
+   * Serializes the values rather than the view and the parent.
+   *
+   * @return		the object to serialize instead
+   * @throws ObjectStreamException	never thrown
+   */
+  protected Object writeReplace() throws ObjectStreamException {
+    AbstractHeatmapStorage	result;
+    double[]			values;
+    int				row;
+
+    synchronized(this) {
+      if (m_Copy != null)
+	return m_Copy;
+      result = m_Parent.newInstance(m_Height, m_Width);
+    }
+    values = new double[m_Width];
+    for (row = 0; row < m_Height; row++) {
+      getRow(row, values, 0);
+      result.setRow(row, values, 0);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns a short description of the storage.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return super.toString() + ", view=" + isView();
+  }
+
+  /**
+   * Creates a window onto the storage.
+   *
+   * @param parent	the storage to map onto
+   * @param row		the row of the top-left corner
+   * @param col		the column of the top-left corner
+   * @param height	the height of the window
+   * @param width	the width of the window
+   * @return		the view
+   */
+  public static ViewHeatmapStorage window(AbstractHeatmapStorage parent, int row, int col, int height, int width) {
+    if ((row < 0) || (col < 0))
+      throw new IllegalArgumentException("Window cannot start at negative coordinates: row=" + row + ", col=" + col);
+    if (row + height > parent.getHeight())
+      throw new IllegalArgumentException("Window exceeds height: " + (row + height) + " > " + parent.getHeight());
+    if (col + width > parent.getWidth())
+      throw new IllegalArgumentException("Window exceeds width: " + (col + width) + " > " + parent.getWidth());
+    return new ViewHeatmapStorage(parent, height, width, row, col, 1, 0, 0, 1);
+  }
+
+  /**
+   * Creates a view of the storage rotated clockwise by 90, 180 or 270 degrees.
+   *
+   * @param parent	the storage to map onto
+   * @param degrees	the degrees to rotate by (90, 180, 270)
+   * @return		the view
+   */
+  public static ViewHeatmapStorage rotate(AbstractHeatmapStorage parent, int degrees) {
+    int		height;
+    int		width;
+
+    height = parent.getHeight();
+    width  = parent.getWidth();
+    switch (degrees) {
+      case 90:
+	return new ViewHeatmapStorage(parent, width, height, height - 1, 0, 0, -1, 1, 0);
+      case 180:
+	return new ViewHeatmapStorage(parent, height, width, height - 1, width - 1, -1, 0, 0, -1);
+      case 270:
+	return new ViewHeatmapStorage(parent, width, height, 0, width - 1, 0, 1, -1, 0);
+      default:
+	throw new IllegalArgumentException("Only 90, 180 and 270 degrees supported: " + degrees);
+    }
+  }
+
+  /**
+   * Creates a transposed view of the storage.
+   *
+   * @param parent	the storage to map onto
+   * @return		the view
+   */
+  public static ViewHeatmapStorage transpose(AbstractHeatmapStorage parent) {
+    return new ViewHeatmapStorage(parent, parent.getWidth(), parent.getHeight(), 0, 0, 0, 1, 1, 0);
+  }
+}
@@ -15,7 +15,7 @@
 
 /*
  * AbstractHeatmapFeatureGenerator.java
- * Copyright (C) 2015-2018 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2015-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.data.heatmapfeatures;
@@ -35,7 +35,13 @@ import adams.data.report.Field;
 import adams.data.report.Report;
 
 import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 
 /**
@@ -323,6 +329,24 @@ public abstract class AbstractHeatmapFeatureGenerator
     return result;
   }
   
+  /**
+   * Creates the header from the heatmap and initializes the converter with
+   * it, if not yet initialized.
+   *
+   * @param map		the heatmap to act as a template
+   */
+  protected void generateHeader(Heatmap map) {
+    HeaderDefinition	header;
+
+    if (!m_Converter.isInitialized()) {
+      header = createHeader(map);
+      if (header == null)
+	throw new IllegalStateException("Failed to create header!");
+      header = postProcessHeader(header);
+      m_Converter.generateHeader(header);
+    }
+  }
+
   /**
    * Process the given heatmap. This method will also create the header if
    * necessary.
@@ -333,20 +357,13 @@ public abstract class AbstractHeatmapFeatureGenerator
    */
   public Object[] generate(Heatmap map) {
     Object[]		result;
-    HeaderDefinition	header;
     List<Object>[]	data;
     int			i;
 
     checkData(map);
 
     // create header if necessary
-    if (!m_Converter.isInitialized()) {
-      header = createHeader(map);
-      if (header == null)
-	throw new IllegalStateException("Failed to create header!");
-      header = postProcessHeader(header);
-      m_Converter.generateHeader(header);
-    }
+    generateHeader(map);
 
     data   = generateRows(map);
     data   = postProcessRows(map, data);
@@ -357,6 +374,68 @@ public abstract class AbstractHeatmapFeatureGenerator
     return result;
   }
 
+  /**
+   * Processes the given heatmaps, generating the features of the heatmaps
+   * in parallel. The header gets created from the first heatmap if necessary.
+   * The generated rows are returned in the order of the heatmaps.
+   * <br><br>
+   * Only {@link #generateRows(Heatmap)} and {@link #postProcessRows(Heatmap, List[])}
+   * get executed in parallel, i.e., these methods must not modify the state
+   * of the generator.
+   *
+   * @param maps	the heatmaps to process
+   * @param numThreads	the number of threads to use, 0 or 1 for sequential
+   * @return		the generated array
+   * @see		#createHeader(Heatmap)
+   */
+  public Object[] generate(Heatmap[] maps, int numThreads) {
+    List<Object>		result;
+    ExecutorService		executor;
+    List<Future<List<Object>[]>>	jobs;
+    List<Object>[]		data;
+    int				i;
+
+    if (maps.length == 0)
+      return (Object[]) Array.newInstance(m_Converter.getRowFormat(), 0);
+    if ((numThreads <= 1) || (maps.length == 1)) {
+      result = new ArrayList<>();
+      for (Heatmap map: maps)
+	result.addAll(Arrays.asList(generate(map)));
+      return result.toArray((Object[]) Array.newInstance(m_Converter.getRowFormat(), result.size()));
+    }
+
+    for (Heatmap map: maps)
+      checkData(map);
+
+    // create header if necessary
+    generateHeader(maps[0]);
+
+    // generate the features
+    result   = new ArrayList<>();
+    executor = Executors.newFixedThreadPool(numThreads);
+    jobs     = new ArrayList<>();
+    try {
+      for (final Heatmap map: maps)
+	jobs.add(executor.submit(() -> postProcessRows(map, generateRows(map))));
+      for (Future<List<Object>[]> job: jobs) {
+	data = job.get();
+	for (i = 0; i < data.length; i++)
+	  result.add(m_Converter.generateRow(data[i]));
+      }
+    }
+    catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to generate features!", e.getCause());
+    }
+    catch (InterruptedException e) {
+      throw new IllegalStateException("Interrupted while generating features!", e);
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    return result.toArray((Object[]) Array.newInstance(m_Converter.getRowFormat(), result.size()));
+  }
+
   /**
    * Compares this object with the specified object for order.  Returns a
    * negative integer, zero, or a positive integer as this object is less
@@ -15,13 +15,14 @@
 
 /*
  * Histogram.java
- * Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2015-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.data.heatmapfeatures;
 
 import adams.data.featureconverter.HeaderDefinition;
 import adams.data.heatmap.Heatmap;
+import adams.data.heatmap.HeatmapStatisticsCache;
 import adams.data.report.DataType;
 import adams.data.statistics.AbstractArrayStatistic.StatisticContainer;
 import adams.data.statistics.ArrayHistogram;
@@ -299,14 +300,27 @@ public class Histogram
    */
   @Override
   public List<Object>[] generateRows(Heatmap map) {
-    List<Object>[]	result;
-    Double[]		values;
-    ArrayHistogram	histo;
-    StatisticContainer	cont;
-    int			i;
+    List<Object>[]		result;
+    HeatmapStatisticsCache	stats;
+    Double[]			values;
+    ArrayHistogram		histo;
+    StatisticContainer		cont;
+    int[]			counts;
+    int				i;
 
     result    = new List[1];
     result[0] = new ArrayList<Object>();
+
+    // use shared histogram of heatmap if possible
+    stats = map.getStatisticsCache();
+    if (!m_UseFixedMinMax && (stats.getCount() > 0) && (stats.getMax() > stats.getMin())
+      && (m_SkipMissing || (stats.getMissingCount() == 0))) {
+      counts = stats.getHistogram(m_NumBins);
+      for (i = 0; i < counts.length; i++)
+	result[0].add((double) counts[i]);
+      return result;
+    }
+
     values    = map.toDoubleArray(m_SkipMissing);
     histo     = new ArrayHistogram();
     histo.setBinCalculation(BinCalculation.MANUAL);
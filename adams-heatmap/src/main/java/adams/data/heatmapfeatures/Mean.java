@@ -15,13 +15,14 @@
 
 /*
  * Mean.java
- * Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2015-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.data.heatmapfeatures;
 
 import adams.data.featureconverter.HeaderDefinition;
 import adams.data.heatmap.Heatmap;
+import adams.data.heatmap.HeatmapStatisticsCache;
 import adams.data.report.DataType;
 import adams.data.statistics.StatUtils;
 
@@ -108,13 +109,16 @@ public class Mean
    */
   @Override
   public List<Object>[] generateRows(Heatmap map) {
-    List<Object>[]	result;
-    Double[]		values;
+    List<Object>[]		result;
+    HeatmapStatisticsCache	stats;
 
     result    = new List[1];
     result[0] = new ArrayList<Object>();
-    values    = map.toDoubleArray(m_SkipMissing);
-    result[0].add(StatUtils.mean(values));
+    stats     = map.getStatisticsCache();
+    if ((stats.getCount() == 0) || (!m_SkipMissing && (stats.getMissingCount() > 0)))
+      result[0].add(StatUtils.mean(map.toDoubleArray(m_SkipMissing)));
+    else
+      result[0].add(stats.getMean());
 
     return result;
   }
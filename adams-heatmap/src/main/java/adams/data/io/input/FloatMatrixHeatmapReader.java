@@ -15,18 +15,23 @@
 
 /*
  * FloatMatrixHeatmapReader.java
- * Copyright (C) 2011-2015 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.data.io.input;
 
 import adams.core.io.FileUtils;
+import adams.data.heatmap.AbstractHeatmapStorage;
 import adams.data.heatmap.Heatmap;
+import adams.data.heatmap.MappedHeatmapStorage;
 import adams.data.report.Report;
 
-import java.io.DataInputStream;
 import java.io.FileInputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.logging.Level;
 
 /**
@@ -66,6 +71,54 @@ import java.util.logging.Level;
  * &nbsp;&nbsp;&nbsp;minimum: 1
  * </pre>
  *
+ * <pre>-byte-order &lt;LITTLE_ENDIAN|BIG_ENDIAN&gt; (property: byteOrder)
+ * &nbsp;&nbsp;&nbsp;The byte order of the floats in the file.
+ * &nbsp;&nbsp;&nbsp;default: LITTLE_ENDIAN
+ * </pre>
+ *
+ * <pre>-memory-mapped &lt;boolean&gt; (property: memoryMapped)
+ * &nbsp;&nbsp;&nbsp;If enabled, the file gets memory-mapped rather than read in blocks.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ *
+ * <pre>-window-row &lt;int&gt; (property: windowRow)
+ * &nbsp;&nbsp;&nbsp;The 0-based row of the top-left corner of the window to read.
+ * &nbsp;&nbsp;&nbsp;default: 0
+ * &nbsp;&nbsp;&nbsp;minimum: 0
+ * </pre>
+ *
+ * <pre>-window-column &lt;int&gt; (property: windowColumn)
+ * &nbsp;&nbsp;&nbsp;The 0-based column of the top-left corner of the window to read.
+ * &nbsp;&nbsp;&nbsp;default: 0
+ * &nbsp;&nbsp;&nbsp;minimum: 0
+ * </pre>
+ *
+ * <pre>-window-height &lt;int&gt; (property: windowHeight)
+ * &nbsp;&nbsp;&nbsp;The height of the window to read; -1 for all remaining rows.
+ * &nbsp;&nbsp;&nbsp;default: -1
+ * &nbsp;&nbsp;&nbsp;minimum: -1
+ * </pre>
+ *
+ * <pre>-window-width &lt;int&gt; (property: windowWidth)
+ * &nbsp;&nbsp;&nbsp;The width of the window to read; -1 for all remaining columns.
+ * &nbsp;&nbsp;&nbsp;default: -1
+ * &nbsp;&nbsp;&nbsp;minimum: -1
+ * </pre>
+ *
+ * <pre>-float-precision &lt;boolean&gt; (property: floatPrecision)
+ * &nbsp;&nbsp;&nbsp;If enabled, the heatmap stores its values as floats rather than doubles,
+ * &nbsp;&nbsp;&nbsp;halving the memory requirements.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ *
+ * <pre>-file-backed &lt;boolean&gt; (property: fileBacked)
+ * &nbsp;&nbsp;&nbsp;If enabled, the heatmap uses the memory-mapped file as storage rather
+ * &nbsp;&nbsp;&nbsp;than loading the values into the heap; the file is mapped read-only and
+ * &nbsp;&nbsp;&nbsp;the first modification copies the values into a temporary file; the window,
+ * &nbsp;&nbsp;&nbsp;memory-mapped and float precision options are ignored.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ *
  <!-- options-end -->
  *
  * @author  fracpete (fracpete at waikato dot ac dot nz)
@@ -77,12 +130,68 @@ public class FloatMatrixHeatmapReader
   /** for serialization. */
   private static final long serialVersionUID = -2903357410192470809L;
 
+  /**
+   * The byte order of the floats.
+   */
+  public enum Endianness {
+    LITTLE_ENDIAN(ByteOrder.LITTLE_ENDIAN),
+    BIG_ENDIAN(ByteOrder.BIG_ENDIAN);
+
+    /** the NIO byte order. */
+    private final ByteOrder m_ByteOrder;
+
+    /**
+     * Initializes the enum.
+     *
+     * @param order	the NIO byte order
+     */
+    Endianness(ByteOrder order) {
+      m_ByteOrder = order;
+    }
+
+    /**
+     * Returns the NIO byte order.
+     *
+     * @return		the byte order
+     */
+    public ByteOrder toByteOrder() {
+      return m_ByteOrder;
+    }
+  }
+
+  /** the size in bytes of the blocks to read. */
+  public final static int BLOCK_SIZE = 1024 * 1024;
+
   /** the height of the heatmap. */
   protected int m_Height;
 
   /** the width of the heatmap. */
   protected int m_Width;
 
+  /** the byte order. */
+  protected Endianness m_ByteOrder;
+
+  /** whether to memory-map the file. */
+  protected boolean m_MemoryMapped;
+
+  /** the row of the window. */
+  protected int m_WindowRow;
+
+  /** the column of the window. */
+  protected int m_WindowColumn;
+
+  /** the height of the window (-1 for all). */
+  protected int m_WindowHeight;
+
+  /** the width of the window (-1 for all). */
+  protected int m_WindowWidth;
+
+  /** whether to store the values as floats. */
+  protected boolean m_FloatPrecision;
+
+  /** whether to use the file as storage. */
+  protected boolean m_FileBacked;
+
   /**
    * Returns a string describing the object.
    *
@@ -108,6 +217,38 @@ public class FloatMatrixHeatmapReader
     m_OptionManager.add(
 	    "width", "width",
 	    getDefaultWidth(), 1, null);
+
+    m_OptionManager.add(
+	    "byte-order", "byteOrder",
+	    Endianness.LITTLE_ENDIAN);
+
+    m_OptionManager.add(
+	    "memory-mapped", "memoryMapped",
+	    false);
+
+    m_OptionManager.add(
+	    "window-row", "windowRow",
+	    0, 0, null);
+
+    m_OptionManager.add(
+	    "window-column", "windowColumn",
+	    0, 0, null);
+
+    m_OptionManager.add(
+	    "window-height", "windowHeight",
+	    -1, -1, null);
+
+    m_OptionManager.add(
+	    "window-width", "windowWidth",
+	    -1, -1, null);
+
+    m_OptionManager.add(
+	    "float-precision", "floatPrecision",
+	    false);
+
+    m_OptionManager.add(
+	    "file-backed", "fileBacked",
+	    false);
   }
 
   /**
@@ -186,6 +327,254 @@ public class FloatMatrixHeatmapReader
     return "The width of the heatmap.";
   }
 
+  /**
+   * Sets the byte order of the floats.
+   *
+   * @param value	the byte order
+   */
+  public void setByteOrder(Endianness value) {
+    m_ByteOrder = value;
+    reset();
+  }
+
+  /**
+   * Returns the byte order of the floats.
+   *
+   * @return		the byte order
+   */
+  public Endianness getByteOrder() {
+    return m_ByteOrder;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String byteOrderTipText() {
+    return "The byte order of the floats in the file.";
+  }
+
+  /**
+   * Sets whether to memory-map the file rather than reading it in blocks.
+   *
+   * @param value	true if to memory-map
+   */
+  public void setMemoryMapped(boolean value) {
+    m_MemoryMapped = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to memory-map the file rather than reading it in blocks.
+   *
+   * @return		true if to memory-map
+   */
+  public boolean getMemoryMapped() {
+    return m_MemoryMapped;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String memoryMappedTipText() {
+    return "If enabled, the file gets memory-mapped rather than read in blocks.";
+  }
+
+  /**
+   * Sets the 0-based row of the top-left corner of the window to read.
+   *
+   * @param value	the row
+   */
+  public void setWindowRow(int value) {
+    if (getOptionManager().isValid("windowRow", value)) {
+      m_WindowRow = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the 0-based row of the top-left corner of the window to read.
+   *
+   * @return		the row
+   */
+  public int getWindowRow() {
+    return m_WindowRow;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String windowRowTipText() {
+    return "The 0-based row of the top-left corner of the window to read.";
+  }
+
+  /**
+   * Sets the 0-based column of the top-left corner of the window to read.
+   *
+   * @param value	the column
+   */
+  public void setWindowColumn(int value) {
+    if (getOptionManager().isValid("windowColumn", value)) {
+      m_WindowColumn = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the 0-based column of the top-left corner of the window to read.
+   *
+   * @return		the column
+   */
+  public int getWindowColumn() {
+    return m_WindowColumn;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String windowColumnTipText() {
+    return "The 0-based column of the top-left corner of the window to read.";
+  }
+
+  /**
+   * Sets the height of the window to read.
+   *
+   * @param value	the height, -1 for all remaining rows
+   */
+  public void setWindowHeight(int value) {
+    if (getOptionManager().isValid("windowHeight", value)) {
+      m_WindowHeight = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the height of the window to read.
+   *
+   * @return		the height, -1 for all remaining rows
+   */
+  public int getWindowHeight() {
+    return m_WindowHeight;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String windowHeightTipText() {
+    return "The height of the window to read; -1 for all remaining rows.";
+  }
+
+  /**
+   * Sets the width of the window to read.
+   *
+   * @param value	the width, -1 for all remaining columns
+   */
+  public void setWindowWidth(int value) {
+    if (getOptionManager().isValid("windowWidth", value)) {
+      m_WindowWidth = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the width of the window to read.
+   *
+   * @return		the width, -1 for all remaining columns
+   */
+  public int getWindowWidth() {
+    return m_WindowWidth;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String windowWidthTipText() {
+    return "The width of the window to read; -1 for all remaining columns.";
+  }
+
+  /**
+   * Sets whether to store the values as floats rather than doubles.
+   *
+   * @param value	true if to use float precision
+   */
+  public void setFloatPrecision(boolean value) {
+    m_FloatPrecision = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to store the values as floats rather than doubles.
+   *
+   * @return		true if to use float precision
+   */
+  public boolean getFloatPrecision() {
+    return m_FloatPrecision;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String floatPrecisionTipText() {
+    return
+      "If enabled, the heatmap stores its values as floats rather than doubles, "
+	+ "halving the memory requirements.";
+  }
+
+  /**
+   * Sets whether to use the memory-mapped file as storage rather than
+   * loading the values into the heap.
+   *
+   * @param value	true if file-backed
+   */
+  public void setFileBacked(boolean value) {
+    m_FileBacked = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to use the memory-mapped file as storage rather than
+   * loading the values into the heap.
+   *
+   * @return		true if file-backed
+   */
+  public boolean getFileBacked() {
+    return m_FileBacked;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String fileBackedTipText() {
+    return
+      "If enabled, the heatmap uses the memory-mapped file as storage rather "
+	+ "than loading the values into the heap; the file is mapped read-only "
+	+ "and the first modification copies the values into a temporary file; "
+	+ "the window, memory-mapped and float precision options are ignored.";
+  }
+
   /**
    * Returns a string describing the format (used in the file chooser).
    *
@@ -207,6 +596,114 @@ public class FloatMatrixHeatmapReader
     return new String[]{"dat", "raw"};
   }
 
+  /**
+   * Copies the window columns of the full rows stored in the buffer into
+   * the storage, one row at a time.
+   *
+   * @param floats	the buffer with the full rows, starting at the first row
+   * @param firstRow	the index of the first row in the buffer (relative to window)
+   * @param numRows	the number of rows in the buffer
+   * @param width	the width of the window
+   * @param rowBuffer	the buffer for a single row of the window
+   * @param rowValues	the decoded values of a single row of the window
+   * @param storage	the storage of the window to fill
+   */
+  protected void copyRows(FloatBuffer floats, int firstRow, int numRows, int width, float[] rowBuffer, double[] rowValues, AbstractHeatmapStorage storage) {
+    int		y;
+    int		x;
+    int		pos;
+    int		count;
+
+    for (y = 0; y < numRows; y++) {
+      pos = y * m_Width + m_WindowColumn;
+      if (pos >= floats.limit())
+	break;
+      count = Math.min(width, floats.limit() - pos);
+      floats.position(pos);
+      floats.get(rowBuffer, 0, count);
+      for (x = 0; x < count; x++)
+	rowValues[x] = rowBuffer[x];
+      for (x = count; x < width; x++)
+	rowValues[x] = 0.0;
+      storage.setRow(firstRow + y, rowValues, 0);
+    }
+  }
+
+  /**
+   * Reads the window by memory-mapping the rows that it spans.
+   *
+   * @param channel	the channel to read from
+   * @param height	the height of the window
+   * @param width	the width of the window
+   * @param storage	the storage of the window to fill
+   * @throws Exception	if reading fails
+   */
+  protected void readMapped(FileChannel channel, int height, int width, AbstractHeatmapStorage storage) throws Exception {
+    int		rowsPerBand;
+    int		row;
+    int		numRows;
+    long	start;
+    long	length;
+    float[]	rowBuffer;
+    double[]	rowValues;
+    ByteBuffer	buffer;
+
+    rowsPerBand = (int) Math.max(1, Integer.MAX_VALUE / (m_Width * 4L));
+    rowBuffer   = new float[width];
+    rowValues   = new double[width];
+    for (row = 0; row < height; row += rowsPerBand) {
+      numRows = Math.min(rowsPerBand, height - row);
+      start   = ((long) (m_WindowRow + row)) * m_Width * 4L;
+      if (start >= channel.size())
+	break;
+      length  = Math.min(channel.size() - start, ((long) numRows) * m_Width * 4L);
+      buffer  = channel.map(MapMode.READ_ONLY, start, length);
+      buffer.order(m_ByteOrder.toByteOrder());
+      copyRows(buffer.asFloatBuffer(), row, numRows, width, rowBuffer, rowValues, storage);
+    }
+  }
+
+  /**
+   * Reads the window in blocks of rows.
+   *
+   * @param channel	the channel to read from
+   * @param height	the height of the window
+   * @param width	the width of the window
+   * @param storage	the storage of the window to fill
+   * @throws Exception	if reading fails
+   */
+  protected void readBlocks(FileChannel channel, int height, int width, AbstractHeatmapStorage storage) throws Exception {
+    int		rowsPerBlock;
+    int		row;
+    int		numRows;
+    long	start;
+    float[]	rowBuffer;
+    double[]	rowValues;
+    ByteBuffer	buffer;
+    int		read;
+
+    rowsPerBlock = (int) Math.max(1, BLOCK_SIZE / (m_Width * 4L));
+    rowBuffer    = new float[width];
+    rowValues    = new double[width];
+    buffer       = ByteBuffer.allocateDirect((int) (rowsPerBlock * m_Width * 4L));
+    buffer.order(m_ByteOrder.toByteOrder());
+    for (row = 0; row < height; row += rowsPerBlock) {
+      numRows = Math.min(rowsPerBlock, height - row);
+      start   = ((long) (m_WindowRow + row)) * m_Width * 4L;
+      buffer.clear();
+      buffer.limit(numRows * m_Width * 4);
+      while (buffer.hasRemaining()) {
+	read = channel.read(buffer, start + buffer.position());
+	if (read == -1)
+	  break;
+      }
+      buffer.flip();
+      copyRows(buffer.asFloatBuffer(), row, numRows, width, rowBuffer, rowValues, storage);
+      if (buffer.limit() < numRows * m_Width * 4)
+	break;
+    }
+  }
+
   /**
    * Performs the actual reading.
    */
@@ -214,52 +711,51 @@ public class FloatMatrixHeatmapReader
   protected void readData() {
     Heatmap		map;
     FileInputStream     fis;
-    DataInputStream	stream;
-    int			x;
-    int			y;
-    int			ivalue;
-    float		fvalue;
-    byte[]		bytes;
-    int			read;
+    FileChannel		channel;
+    int			height;
+    int			width;
     Report		report;
 
-    stream = null;
-    fis    = null;
+    fis = null;
     try {
+      if (m_FileBacked) {
+	map = new Heatmap(new MappedHeatmapStorage(
+	  m_Input.getAbsoluteFile(), m_Height, m_Width, true, m_ByteOrder.toByteOrder(), false));
+	map.setReport(Heatmap.createEmptyReport());
+	m_ReadData.add(map);
+	return;
+      }
+
+      if (m_WindowRow >= m_Height)
+	throw new IllegalArgumentException("Window row exceeds height: " + m_WindowRow + " >= " + m_Height);
+      if (m_WindowColumn >= m_Width)
+	throw new IllegalArgumentException("Window column exceeds width: " + m_WindowColumn + " >= " + m_Width);
+      height = m_Height - m_WindowRow;
+      if (m_WindowHeight > -1)
+	height = Math.min(height, m_WindowHeight);
+      width = m_Width - m_WindowColumn;
+      if (m_WindowWidth > -1)
+	width = Math.min(width, m_WindowWidth);
+
       // assemble meta-data
       report = Heatmap.createEmptyReport();
 
       // read heatmap data
-      map = new Heatmap(m_Height, m_Width);
+      map = new Heatmap(height, width, m_FloatPrecision);
       map.setReport(report);
-      fis    = new FileInputStream(m_Input.getAbsoluteFile());
-      stream = new DataInputStream(fis);
-      x      = 0;
-      y      = 0;
-      bytes  = new byte[4];
-      do {
-	read = stream.read(bytes);
-	if (read == 4) {
-	  ivalue = ByteBuffer.wrap(new byte[]{bytes[3], bytes[2], bytes[1], bytes[0]}).getInt();
-	  fvalue = Float.intBitsToFloat(ivalue);
-	  map.set(y, x, fvalue);
-	  x++;
-	  if (x == m_Width) {
-	    x = 0;
-	    y++;
-	    if (y == m_Height)
-	      break;
-	  }
-	}
-      }
-      while (read == 4);
+      fis     = new FileInputStream(m_Input.getAbsoluteFile());
+      channel = fis.getChannel();
+      if (m_MemoryMapped)
+	readMapped(channel, height, width, map.getStorage());
+      else
+	readBlocks(channel, height, width, map.getStorage());
+      map.invalidateStatistics();
     }
     catch (Exception e) {
       getLogger().log(Level.SEVERE, "Failed to read heatmap from '" + m_Input + "'!", e);
       map = null;
     }
     finally {
-      FileUtils.closeQuietly(stream);
       FileUtils.closeQuietly(fis);
     }
 
@@ -0,0 +1,426 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.io.input;
+
+import adams.core.io.PlaceholderFile;
+import adams.core.logging.LoggingHelper;
+import adams.data.heatmap.Heatmap;
+
+import java.io.File;
+import java.io.Serializable;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a batch of heatmap files on a bounded pool of worker threads.
+ * Each file gets read with its own shallow copy of the reader. At most
+ * the read-ahead number of files are being read or waiting to be
+ * retrieved at any time. The results are returned either in the order
+ * of the files or in the order in which they completed. Failed files
+ * result in a {@link Result} with an error message, they do not stop
+ * the batch. The batch can be stopped from another thread while a result
+ * is being waited for, in which case {@link #next()} throws a
+ * {@link CancellationException}.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class HeatmapBatchReader {
+
+  /**
+   * Container for the outcome of reading a single file.
+   */
+  public static class Result
+    implements Serializable {
+
+    private static final long serialVersionUID = 4917582366129930441L;
+
+    /** the file that was read. */
+    protected File m_File;
+
+    /** the heatmaps that were read. */
+    protected List<Heatmap> m_Heatmaps;
+
+    /** the error, null if successful. */
+    protected String m_Error;
+
+    /**
+     * Initializes the result.
+     *
+     * @param file	the file that was read
+     * @param heatmaps	the heatmaps, null if failed
+     * @param error	the error, null if successful
+     */
+    public Result(File file, List<Heatmap> heatmaps, String error) {
+      m_File     = file;
+      m_Heatmaps = (heatmaps == null) ? new ArrayList<>() : heatmaps;
+      m_Error    = error;
+    }
+
+    /**
+     * Returns the file.
+     *
+     * @return		the file
+     */
+    public File getFile() {
+      return m_File;
+    }
+
+    /**
+     * Returns the heatmaps that were read.
+     *
+     * @return		the heatmaps
+     */
+    public List<Heatmap> getHeatmaps() {
+      return m_Heatmaps;
+    }
+
+    /**
+     * Returns whether reading the file failed.
+     *
+     * @return		true if failed
+     */
+    public boolean hasError() {
+      return (m_Error != null);
+    }
+
+    /**
+     * Returns the error.
+     *
+     * @return		the error, null if successful
+     */
+    public String getError() {
+      return m_Error;
+    }
+
+    /**
+     * Returns a short description of the result.
+     *
+     * @return		the description
+     */
+    @Override
+    public String toString() {
+      if (hasError())
+	return m_File + ": " + m_Error;
+      else
+	return m_File + ": " + m_Heatmaps.size() + " heatmap(s)";
+    }
+  }
+
+  /** the reader to use as template. */
+  protected AbstractDataContainerReader<Heatmap> m_Reader;
+
+  /** the files to read. */
+  protected File[] m_Files;
+
+  /** the number of threads. */
+  protected int m_NumThreads;
+
+  /** the maximum number of files being read ahead. */
+  protected int m_ReadAhead;
+
+  /** whether to return the results in the order of the files. */
+  protected boolean m_Ordered;
+
+  /** the executor. */
+  protected ExecutorService m_Executor;
+
+  /** for completion order. */
+  protected CompletionService<Result> m_Completion;
+
+  /** the pending reads (in file order). */
+  protected LinkedList<Future<Result>> m_Pending;
+
+  /** the pending files, corresponding to m_Pending. */
+  protected LinkedList<File> m_PendingFiles;
+
+  /** the index of the next file to submit. */
+  protected int m_Next;
+
+  /** the number of results returned so far. */
+  protected int m_Returned;
+
+  /** whether the batch has been stopped. */
+  protected volatile boolean m_Stopped;
+
+  /**
+   * Initializes the batch.
+   *
+   * @param reader	the reader to use as template
+   * @param files	the files to read
+   * @param numThreads	the number of threads to use (&gt; 0)
+   * @param readAhead	the number of files to read ahead, &lt; 1 for twice the number of threads
+   * @param ordered	whether to return the results in the order of the files
+   *                    rather than the order of completion
+   */
+  public HeatmapBatchReader(AbstractDataContainerReader<Heatmap> reader, File[] files, int numThreads, int readAhead, boolean ordered) {
+    m_Reader       = reader;
+    m_Files        = files.clone();
+    m_NumThreads   = Math.max(1, numThreads);
+    m_ReadAhead    = (readAhead < 1) ? 2 * m_NumThreads : Math.max(readAhead, m_NumThreads);
+    m_Ordered      = ordered;
+    m_Pending      = new LinkedList<>();
+    m_PendingFiles = new LinkedList<>();
+    m_Next         = 0;
+    m_Returned     = 0;
+    m_Stopped      = false;
+  }
+
+  /**
+   * Returns the files of the batch.
+   *
+   * @return		the files
+   */
+  public File[] getFiles() {
+    return m_Files;
+  }
+
+  /**
+   * Returns the number of results returned so far.
+   *
+   * @return		the number of results
+   */
+  public int getNumReturned() {
+    return m_Returned;
+  }
+
+  /**
+   * Reads the file using the supplied reader.
+   *
+   * @param reader	the reader to use
+   * @param file	the file to read
+   * @return		the result
+   */
+  protected Result read(AbstractDataContainerReader<Heatmap> reader, File file) {
+    List<Heatmap>	maps;
+
+    try {
+      reader.setInput(new PlaceholderFile(file));
+      maps = reader.read();
+      if (maps.isEmpty())
+	return new Result(file, null, "No heatmap read");
+      return new Result(file, maps, null);
+    }
+    catch (Throwable t) {
+      return new Result(file, null, LoggingHelper.throwableToString(t));
+    }
+    finally {
+      reader.cleanUp();
+    }
+  }
+
+  /**
+   * Submits files until the read-ahead is exhausted. Does nothing once
+   * stopped. Must be called while holding the lock of the batch.
+   */
+  protected void fill() {
+    Future<Result>	future;
+
+    if (m_Stopped)
+      return;
+
+    if (m_Executor == null) {
+      m_Executor = Executors.newFixedThreadPool(m_NumThreads);
+      if (!m_Ordered)
+	m_Completion = new ExecutorCompletionService<>(m_Executor);
+    }
+
+    while ((m_Next < m_Files.length) && (m_Next - m_Returned < m_ReadAhead)) {
+      final File file = m_Files[m_Next];
+      final AbstractDataContainerReader<Heatmap> copy = (AbstractDataContainerReader<Heatmap>) m_Reader.shallowCopy(true);
+      if (m_Ordered)
+	future = m_Executor.submit(() -> read(copy, file));
+      else
+	future = m_Completion.submit(() -> read(copy, file));
+      m_Pending.add(future);
+      m_PendingFiles.add(file);
+      m_Next++;
+    }
+  }
+
+  /**
+   * Returns whether there are more results.
+   *
+   * @return		true if more results available, false if all returned or stopped
+   */
+  public boolean hasNext() {
+    return !m_Stopped && (m_Returned < m_Files.length);
+  }
+
+  /**
+   * Returns whether the batch has been stopped.
+   *
+   * @return		true if stopped
+   */
+  public boolean isStopped() {
+    return m_Stopped;
+  }
+
+  /**
+   * Returns the next result, blocks until available.
+   *
+   * @return		the result
+   * @throws InterruptedException	if interrupted while waiting
+   * @throws CancellationException	if the batch got stopped
+   */
+  public Result next() throws InterruptedException {
+    Future<Result>		future;
+    CompletionService<Result>	completion;
+    File			file;
+    int				index;
+
+    synchronized(this) {
+      if (m_Stopped)
+	throw new CancellationException("Batch has been stopped!");
+      if (!hasNext())
+	throw new NoSuchElementException("All " + m_Files.length + " file(s) returned!");
+      fill();
+      future     = m_Ordered ? m_Pending.getFirst() : null;
+      completion = m_Completion;
+    }
+
+    // wait outside the lock, so that stop() can cancel the pending reads
+    if (future == null)
+      future = completion.take();
+
+    synchronized(this) {
+      if (m_Stopped)
+	throw new CancellationException("Batch has been stopped!");
+      index = m_Pending.indexOf(future);
+      file  = m_PendingFiles.get(index);
+      m_Pending.remove(index);
+      m_PendingFiles.remove(index);
+      m_Returned++;
+    }
+
+    try {
+      return future.get();
+    }
+    catch (ExecutionException e) {
+      return new Result(file, null, LoggingHelper.throwableToString(e.getCause()));
+    }
+    finally {
+      synchronized(this) {
+	if (hasNext())
+	  fill();
+	else
+	  stop();
+      }
+    }
+  }
+
+  /**
+   * Reads all remaining files and returns the results.
+   *
+   * @return		the results
+   * @throws InterruptedException	if interrupted while waiting
+   */
+  public List<Result> readAll() throws InterruptedException {
+    List<Result>	result;
+
+    result = new ArrayList<>();
+    while (hasNext())
+      result.add(next());
+
+    return result;
+  }
+
+  /**
+   * Stops the batch, cancelling any pending reads. Can be called from
+   * another thread than the one retrieving the results.
+   */
+  public synchronized void stop() {
+    m_Stopped = true;
+    for (Future<Result> future: m_Pending)
+      future.cancel(true);
+    m_Pending.clear();
+    m_PendingFiles.clear();
+    if (m_Executor != null) {
+      m_Executor.shutdownNow();
+      m_Executor   = null;
+      m_Completion = null;
+    }
+  }
+
+  /**
+   * Turns the input into files: directories get expanded into the files they
+   * contain (sorted by name), names with glob wildcards ('*', '?', '[', '{')
+   * get matched against the files in their parent directory.
+   *
+   * @param input	the input, either a String/File or an array of these
+   * @return		the files
+   * @throws IllegalArgumentException	if unsupported input
+   */
+  public static File[] expand(Object input) {
+    List<File>		result;
+    Object[]		items;
+    File		file;
+    File		dir;
+    File[]		files;
+    PathMatcher		matcher;
+    String		name;
+
+    if (input instanceof Object[])
+      items = (Object[]) input;
+    else
+      items = new Object[]{input};
+
+    result = new ArrayList<>();
+    for (Object item: items) {
+      if (item instanceof File)
+	file = (File) item;
+      else if (item instanceof String)
+	file = new PlaceholderFile((String) item);
+      else
+	throw new IllegalArgumentException("Unsupported input: " + item.getClass().getName());
+
+      name = file.getName();
+      if (file.isDirectory()) {
+	files = file.listFiles(File::isFile);
+      }
+      else if (name.matches(".*[*?\\[{].*")) {
+	dir     = file.getAbsoluteFile().getParentFile();
+	matcher = FileSystems.getDefault().getPathMatcher("glob:" + name);
+	files   = (dir == null) ? null : dir.listFiles(f -> f.isFile() && matcher.matches(f.toPath().getFileName()));
+      }
+      else {
+	result.add(file);
+	continue;
+      }
+      if (files == null)
+	continue;
+      Arrays.sort(files);
+      result.addAll(Arrays.asList(files));
+    }
+
+    return result.toArray(new File[0]);
+  }
+}
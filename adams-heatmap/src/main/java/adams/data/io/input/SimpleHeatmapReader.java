@@ -15,11 +15,12 @@
 
 /*
  * SimpleHeatmapReader.java
- * Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2015-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.data.io.input;
 
+import adams.core.Performance;
 import adams.core.Properties;
 import adams.core.Utils;
 import adams.core.io.FileUtils;
@@ -28,6 +29,8 @@ import adams.data.heatmap.Heatmap;
 import adams.data.report.DataType;
 import adams.data.report.Field;
 import adams.data.report.Report;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
 
 import java.io.BufferedReader;
 import java.io.FileInputStream;
@@ -35,6 +38,10 @@ import java.io.FileReader;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.logging.Level;
 import java.util.zip.GZIPInputStream;
 
@@ -60,6 +67,14 @@ import java.util.zip.GZIPInputStream;
  * &nbsp;&nbsp;&nbsp;default: false
  * </pre>
  * 
+ * <pre>-num-threads &lt;int&gt; (property: numThreads)
+ * &nbsp;&nbsp;&nbsp;The number of threads to use for parsing the data points, only used if
+ * &nbsp;&nbsp;&nbsp;the report contains the dimensions of the heatmap; -1 = # of CPUs&#47;cores;
+ * &nbsp;&nbsp;&nbsp; 0 or 1 = sequential execution.
+ * &nbsp;&nbsp;&nbsp;default: 1
+ * &nbsp;&nbsp;&nbsp;minimum: -1
+ * </pre>
+ * 
  <!-- options-end -->
  *
  * @author  fracpete (fracpete at waikato dot ac dot nz)
@@ -71,6 +86,12 @@ public class SimpleHeatmapReader
   /** for serialization. */
   private static final long serialVersionUID = -2903357410192470809L;
 
+  /** the number of lines per block when parsing in parallel. */
+  public final static int BLOCK_SIZE = 65536;
+
+  /** the number of threads to use for parsing. */
+  protected int m_NumThreads;
+
   /**
    * Returns a string describing the object.
    *
@@ -103,40 +124,298 @@ public class SimpleHeatmapReader
   }
 
   /**
-   * Determines the dimensions of the heatmap and stores the Width and
-   * Height information in the report.
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+      "num-threads", "numThreads",
+      1, -1, null);
+  }
+
+  /**
+   * Sets the number of threads to use for parsing the data points.
+   *
+   * @param value 	the number of threads: -1 = # of CPUs/cores
+   */
+  public void setNumThreads(int value) {
+    if (getOptionManager().isValid("numThreads", value)) {
+      m_NumThreads = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the number of threads to use for parsing the data points.
+   *
+   * @return 		the number of threads: -1 = # of CPUs/cores
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Returns the tip text for this property.
    *
-   * @param content	the content to parse
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String numThreadsTipText() {
+    return
+      "The number of threads to use for parsing the data points, only used "
+	+ "if the report contains the dimensions of the heatmap; "
+	+ "-1 = # of CPUs/cores; 0 or 1 = sequential execution.";
+  }
+
+  /**
+   * Parses a "row,col,value" data point line without splitting it into
+   * an intermediate string array. Uses the same acceptance rules as
+   * {@link String#split(String)} with ",": trailing commas are ignored
+   * (eg "row,col,value,") and lines that don't have exactly three
+   * fields (eg "row,col,") are skipped.
+   *
+   * @param line	the line to parse
+   * @param cell	for storing row and column
+   * @param value	for storing the value
+   * @return		true if a data point, false if to be skipped
+   */
+  protected static boolean parseDataPoint(String line, int[] cell, double[] value) {
+    int		start;
+    int		end;
+    int		first;
+    int		second;
+    int		third;
+
+    start = 0;
+    end   = line.length();
+    while ((start < end) && (line.charAt(start) <= ' '))
+      start++;
+    while ((end > start) && (line.charAt(end - 1) <= ' '))
+      end--;
+    // trailing empty fields get dropped by split(",")
+    while ((end > start) && (line.charAt(end - 1) == ','))
+      end--;
+    if (start == end)
+      return false;
+
+    first = line.indexOf(',', start);
+    if ((first == -1) || (first >= end))
+      return false;
+    second = line.indexOf(',', first + 1);
+    if ((second == -1) || (second >= end))
+      return false;
+    third = line.indexOf(',', second + 1);
+    if ((third > -1) && (third < end))
+      return false;
+
+    cell[0]  = Integer.parseInt(line, start, first, 10);
+    cell[1]  = Integer.parseInt(line, first + 1, second, 10);
+    value[0] = Double.parseDouble(line.substring(second + 1, end));
+
+    return true;
+  }
+
+  /**
+   * Checks whether the parsed row and column lie within the dimensions.
+   *
+   * @param line	the line the data point was parsed from
+   * @param cell	the row and column
+   * @param height	the height of the heatmap
+   * @param width	the width of the heatmap
+   * @throws IllegalArgumentException	if row or column are out of range
+   */
+  protected static void checkCell(String line, int[] cell, int height, int width) {
+    if ((cell[0] < 0) || (cell[0] >= height))
+      throw new IllegalArgumentException("Row index out of range [0, " + height + "): " + cell[0] + " (line: " + line.trim() + ")");
+    if ((cell[1] < 0) || (cell[1] >= width))
+      throw new IllegalArgumentException("Column index out of range [0, " + width + "): " + cell[1] + " (line: " + line.trim() + ")");
+  }
+
+  /**
+   * Parses the block of data point lines and stores the values in the
+   * row-wise value array.
+   *
+   * @param lines	the lines to parse
+   * @param count	the number of lines in the block
+   * @param height	the height of the heatmap
+   * @param width	the width of the heatmap
+   * @param values	the row-wise values to fill
+   */
+  protected static void parseBlock(String[] lines, int count, int height, int width, double[] values) {
+    int		i;
+    int[]	cell;
+    double[]	value;
+
+    cell  = new int[2];
+    value = new double[1];
+    for (i = 0; i < count; i++) {
+      if (!parseDataPoint(lines[i], cell, value))
+	continue;
+      checkCell(lines[i], cell, height, width);
+      values[cell[0] * width + cell[1]] = value[0];
+    }
+  }
+
+  /**
+   * Reads the data points sequentially into the heatmap.
+   *
+   * @param reader	the reader to read the remaining lines from
+   * @param map		the heatmap to fill
+   * @throws Exception	if reading/parsing fails
+   */
+  protected void readSequential(BufferedReader reader, Heatmap map) throws Exception {
+    String	line;
+    int[]	cell;
+    double[]	value;
+
+    cell  = new int[2];
+    value = new double[1];
+    while ((line = reader.readLine()) != null) {
+      if (!parseDataPoint(line, cell, value))
+	continue;
+      checkCell(line, cell, map.getHeight(), map.getWidth());
+      map.set(cell[0], cell[1], value[0]);
+    }
+  }
+
+  /**
+   * Reads the data points in blocks of lines, which get parsed in parallel.
+   * The number of blocks in flight is limited to the number of threads,
+   * i.e., the reader waits for a parser to finish before reading further
+   * ahead.
+   *
+   * @param reader	the reader to read the remaining lines from
+   * @param map		the heatmap to fill
+   * @param numThreads	the number of threads to use
+   * @throws Exception	if reading/parsing fails
+   */
+  protected void readParallel(BufferedReader reader, Heatmap map, int numThreads) throws Exception {
+    ExecutorService		executor;
+    List<Future<?>>		jobs;
+    final Semaphore		inFlight;
+    final double[]		values;
+    final int			height;
+    final int			width;
+    String[]			block;
+    int				count;
+    String			line;
+
+    values   = new double[map.size()];
+    height   = map.getHeight();
+    width    = map.getWidth();
+    executor = Executors.newFixedThreadPool(numThreads);
+    inFlight = new Semaphore(numThreads);
+    jobs     = new ArrayList<>();
+    try {
+      block = new String[BLOCK_SIZE];
+      count = 0;
+      while ((line = reader.readLine()) != null) {
+	block[count] = line;
+	count++;
+	if (count == BLOCK_SIZE) {
+	  jobs.add(submitBlock(executor, inFlight, block, BLOCK_SIZE, height, width, values));
+	  block = new String[BLOCK_SIZE];
+	  count = 0;
+	}
+      }
+      if (count > 0)
+	jobs.add(submitBlock(executor, inFlight, block, count, height, width, values));
+      for (Future<?> job: jobs)
+	job.get();
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    map.set(values);
+  }
+
+  /**
+   * Submits the block for parsing, blocking while the maximum number of
+   * blocks is already in flight.
+   *
+   * @param executor	the executor to submit to
+   * @param inFlight	the semaphore limiting the blocks in flight
+   * @param lines	the lines to parse
+   * @param count	the number of lines in the block
+   * @param height	the height of the heatmap
+   * @param width	the width of the heatmap
+   * @param values	the row-wise values to fill
+   * @return		the job
+   * @throws InterruptedException	if interrupted while waiting
+   */
+  protected Future<?> submitBlock(ExecutorService executor, final Semaphore inFlight, final String[] lines, final int count, final int height, final int width, final double[] values) throws InterruptedException {
+    inFlight.acquire();
+    try {
+      return executor.submit(() -> {
+	try {
+	  parseBlock(lines, count, height, width, values);
+	}
+	finally {
+	  inFlight.release();
+	}
+      });
+    }
+    catch (RuntimeException e) {
+      inFlight.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the data points, determines the dimensions and then fills the
+   * heatmap. The parsed data points are buffered in primitive arrays.
+   *
+   * @param reader	the reader to read the remaining lines from
    * @param meta	the report to store the dimensions in
+   * @return		the heatmap
+   * @throws Exception	if reading/parsing fails
    */
-  protected void determineDimensions(List<String> content, Report meta) {
-    String[]		parts;
+  protected Heatmap readUnknownDimensions(BufferedReader reader, Report meta) throws Exception {
+    Heatmap		result;
+    TIntArrayList	rows;
+    TIntArrayList	cols;
+    TDoubleArrayList	values;
+    String		line;
+    int[]		cell;
+    double[]		value;
     int			height;
     int			width;
-    int			row;
-    int			col;
+    int			i;
 
+    rows   = new TIntArrayList();
+    cols   = new TIntArrayList();
+    values = new TDoubleArrayList();
+    cell   = new int[2];
+    value  = new double[1];
     height = 0;
     width  = 0;
-
-    for (String line: content) {
-      if (line.trim().length() == 0)
+    while ((line = reader.readLine()) != null) {
+      if (!parseDataPoint(line, cell, value))
 	continue;
-      parts = line.split(",");
-      if (parts.length == 3) {
-	row    = Integer.parseInt(parts[0]);
-	col    = Integer.parseInt(parts[1]);
-	height = Math.max(height, row + 1);
-	width  = Math.max(width,  col + 1);
-      }
+      checkCell(line, cell, Integer.MAX_VALUE, Integer.MAX_VALUE);
+      rows.add(cell[0]);
+      cols.add(cell[1]);
+      values.add(value[0]);
+      height = Math.max(height, cell[0] + 1);
+      width  = Math.max(width,  cell[1] + 1);
     }
 
     meta.setValue(new Field("Height", DataType.NUMERIC), height);
     meta.setValue(new Field("Width",  DataType.NUMERIC), width);
+
+    result = new Heatmap(height, width);
+    for (i = 0; i < values.size(); i++)
+      result.set(rows.get(i), cols.get(i), values.get(i));
+
+    return result;
   }
 
   /**
-   * Reads its content from the given reader.
+   * Reads its content from the given reader. Processes the content line
+   * by line, without loading the complete file into memory.
    *
    * @param reader	the reader to use
    * @return		true if successfully read
@@ -146,51 +425,43 @@ public class SimpleHeatmapReader
     Heatmap 		map;
     Report 		meta;
     String		line;
-    List<String>	content;
     List<String>	report;
-    String[]		parts;
+    int			numThreads;
 
     result = true;
 
     try {
-      // read from file
-      content = new ArrayList<String>();
-      while ((line = reader.readLine()) != null)
-	content.add(line);
-
       // report?
-      report = new ArrayList<String>();
-      while ((content.size() > 0) && content.get(0).startsWith(Properties.COMMENT)) {
-	report.add(content.get(0));
-	content.remove(0);
+      report = new ArrayList<>();
+      line   = reader.readLine();
+      while ((line != null) && line.startsWith(Properties.COMMENT)) {
+	report.add(line);
+	line = reader.readLine();
       }
       meta = null;
       if (report.size() > 0)
 	meta = Report.parseProperties(Properties.fromComment(Utils.flatten(report, "\n")));
       if (meta == null)
 	meta = new Report();
-      if (!meta.hasValue("Height") || !meta.hasValue("Width"))
-	determineDimensions(content, meta);
-      map = new Heatmap(meta.getDoubleValue("Height").intValue(), meta.getDoubleValue("Width").intValue());
-      if (meta.hasValue("ID"))
-	map.setID(meta.getStringValue("ID"));
-      map.setReport(meta);
-      m_ReadData.add(map);
 
-      // header - ignored
-      if (content.size() > 0)
-	content.remove(0);
+      // the current line is the header - ignored
 
       // data points
-      while ((content.size() > 0) && result) {
-	line = content.get(0).trim();
-	content.remove(0);
-	if (line.length() == 0)
-	  continue;
-	parts = line.split(",");
-	if (parts.length == 3)
-	  map.set(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Double.parseDouble(parts[2]));
+      if (!meta.hasValue("Height") || !meta.hasValue("Width")) {
+	map = readUnknownDimensions(reader, meta);
       }
+      else {
+	map        = new Heatmap(meta.getDoubleValue("Height").intValue(), meta.getDoubleValue("Width").intValue());
+	numThreads = Performance.determineNumThreads(m_NumThreads);
+	if (numThreads > 1)
+	  readParallel(reader, map, numThreads);
+	else
+	  readSequential(reader, map);
+      }
+      if (meta.hasValue("ID"))
+	map.setID(meta.getStringValue("ID"));
+      map.setReport(meta);
+      m_ReadData.add(map);
     }
     catch (Exception e) {
       result = false;
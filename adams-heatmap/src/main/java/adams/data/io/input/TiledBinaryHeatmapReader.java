@@ -0,0 +1,548 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TiledBinaryHeatmapReader.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.io.input;
+
+import adams.core.Properties;
+import adams.data.Notes;
+import adams.data.heatmap.AbstractHeatmapStorage;
+import adams.data.heatmap.Heatmap;
+import adams.data.report.Report;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.zip.Inflater;
+
+/**
+ <!-- globalinfo-start -->
+ * Reads heatmaps in the tiled binary format.<br>
+ * The values are stored in fixed-size, optionally deflate-compressed tiles, which can be accessed via a tile index. When reading a window, only the tiles that intersect with it get read.
+ * <br><br>
+ <!-- globalinfo-end -->
+ *
+ <!-- options-start -->
+ * <pre>-logging-level &lt;OFF|SEVERE|WARNING|INFO|CONFIG|FINE|FINER|FINEST&gt; (property: loggingLevel)
+ * &nbsp;&nbsp;&nbsp;The logging level for outputting errors and debugging output.
+ * &nbsp;&nbsp;&nbsp;default: WARNING
+ * </pre>
+ * 
+ * <pre>-input &lt;adams.core.io.PlaceholderFile&gt; (property: input)
+ * &nbsp;&nbsp;&nbsp;The file to read and turn into a container.
+ * &nbsp;&nbsp;&nbsp;default: ${CWD}
+ * </pre>
+ * 
+ * <pre>-create-dummy-report &lt;boolean&gt; (property: createDummyReport)
+ * &nbsp;&nbsp;&nbsp;If true, then a dummy report is created if none present.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ * 
+ * <pre>-window-row &lt;int&gt; (property: windowRow)
+ * &nbsp;&nbsp;&nbsp;The 0-based row of the top-left corner of the window to read.
+ * &nbsp;&nbsp;&nbsp;default: 0
+ * &nbsp;&nbsp;&nbsp;minimum: 0
+ * </pre>
+ * 
+ * <pre>-window-column &lt;int&gt; (property: windowColumn)
+ * &nbsp;&nbsp;&nbsp;The 0-based column of the top-left corner of the window to read.
+ * &nbsp;&nbsp;&nbsp;default: 0
+ * &nbsp;&nbsp;&nbsp;minimum: 0
+ * </pre>
+ * 
+ * <pre>-window-height &lt;int&gt; (property: windowHeight)
+ * &nbsp;&nbsp;&nbsp;The height of the window to read; -1 for all remaining rows.
+ * &nbsp;&nbsp;&nbsp;default: -1
+ * &nbsp;&nbsp;&nbsp;minimum: -1
+ * </pre>
+ * 
+ * <pre>-window-width &lt;int&gt; (property: windowWidth)
+ * &nbsp;&nbsp;&nbsp;The width of the window to read; -1 for all remaining columns.
+ * &nbsp;&nbsp;&nbsp;default: -1
+ * &nbsp;&nbsp;&nbsp;minimum: -1
+ * </pre>
+ * 
+ <!-- options-end -->
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class TiledBinaryHeatmapReader
+  extends AbstractHeatmapReader {
+
+  /** for serialization. */
+  private static final long serialVersionUID = 7143604856512035046L;
+
+  /** the magic number ("AHMT"). */
+  public final static int MAGIC = 0x41484D54;
+
+  /** the format version. */
+  public final static int VERSION = 1;
+
+  /** the number of bytes per tile index entry (offset + length). */
+  public final static int INDEX_ENTRY_SIZE = 12;
+
+  /** the row of the window. */
+  protected int m_WindowRow;
+
+  /** the column of the window. */
+  protected int m_WindowColumn;
+
+  /** the height of the window (-1 for all). */
+  protected int m_WindowHeight;
+
+  /** the width of the window (-1 for all). */
+  protected int m_WindowWidth;
+
+  /**
+   * Returns a string describing the object.
+   *
+   * @return 			a description suitable for displaying in the gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+      "Reads heatmaps in the tiled binary format.\n"
+	+ "The values are stored in fixed-size, optionally deflate-compressed "
+	+ "tiles, which can be accessed via a tile index. When reading a window, "
+	+ "only the tiles that intersect with it get read.";
+  }
+
+  /**
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+	    "window-row", "windowRow",
+	    0, 0, null);
+
+    m_OptionManager.add(
+	    "window-column", "windowColumn",
+	    0, 0, null);
+
+    m_OptionManager.add(
+	    "window-height", "windowHeight",
+	    -1, -1, null);
+
+    m_OptionManager.add(
+	    "window-width", "windowWidth",
+	    -1, -1, null);
+  }
+
+  /**
+   * Sets the 0-based row of the top-left corner of the window to read.
+   *
+   * @param value	the row
+   */
+  public void setWindowRow(int value) {
+    if (getOptionManager().isValid("windowRow", value)) {
+      m_WindowRow = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the 0-based row of the top-left corner of the window to read.
+   *
+   * @return		the row
+   */
+  public int getWindowRow() {
+    return m_WindowRow;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String windowRowTipText() {
+    return "The 0-based row of the top-left corner of the window to read.";
+  }
+
+  /**
+   * Sets the 0-based column of the top-left corner of the window to read.
+   *
+   * @param value	the column
+   */
+  public void setWindowColumn(int value) {
+    if (getOptionManager().isValid("windowColumn", value)) {
+      m_WindowColumn = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the 0-based column of the top-left corner of the window to read.
+   *
+   * @return		the column
+   */
+  public int getWindowColumn() {
+    return m_WindowColumn;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String windowColumnTipText() {
+    return "The 0-based column of the top-left corner of the window to read.";
+  }
+
+  /**
+   * Sets the height of the window to read.
+   *
+   * @param value	the height, -1 for all remaining rows
+   */
+  public void setWindowHeight(int value) {
+    if (getOptionManager().isValid("windowHeight", value)) {
+      m_WindowHeight = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the height of the window to read.
+   *
+   * @return		the height, -1 for all remaining rows
+   */
+  public int getWindowHeight() {
+    return m_WindowHeight;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String windowHeightTipText() {
+    return "The height of the window to read; -1 for all remaining rows.";
+  }
+
+  /**
+   * Sets the width of the window to read.
+   *
+   * @param value	the width, -1 for all remaining columns
+   */
+  public void setWindowWidth(int value) {
+    if (getOptionManager().isValid("windowWidth", value)) {
+      m_WindowWidth = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the width of the window to read.
+   *
+   * @return		the width, -1 for all remaining columns
+   */
+  public int getWindowWidth() {
+    return m_WindowWidth;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String windowWidthTipText() {
+    return "The width of the window to read; -1 for all remaining columns.";
+  }
+
+  /**
+   * Returns a string describing the format (used in the file chooser).
+   *
+   * @return 			a description suitable for displaying in the
+   * 				file chooser
+   */
+  @Override
+  public String getFormatDescription() {
+    return "Tiled binary heatmap";
+  }
+
+  /**
+   * Returns the extension(s) of the format.
+   *
+   * @return 			the extension(s) (without the dot!)
+   */
+  @Override
+  public String[] getFormatExtensions() {
+    return new String[]{"hmt"};
+  }
+
+  /**
+   * Reads a length-prefixed block of bytes.
+   *
+   * @param file	the file to read from
+   * @return		the bytes
+   * @throws Exception	if reading fails
+   */
+  protected byte[] readBlock(RandomAccessFile file) throws Exception {
+    byte[]	result;
+    int		len;
+
+    len = file.readInt();
+    if ((len < 0) || (len > file.length() - file.getFilePointer()))
+      throw new IOException("Invalid block length: " + len);
+    result = new byte[len];
+    file.readFully(result);
+
+    return result;
+  }
+
+  /**
+   * Reads a string that was written as length-prefixed UTF-8 bytes.
+   *
+   * @param in		the input to read from
+   * @param maxLen	the maximum number of bytes the string can have
+   * @return		the string
+   * @throws Exception	if reading fails
+   */
+  protected static String readString(DataInput in, long maxLen) throws Exception {
+    byte[]	bytes;
+    int		len;
+
+    len = in.readInt();
+    if ((len < 0) || (len > maxLen))
+      throw new IOException("Invalid string length: " + len);
+    bytes = new byte[len];
+    in.readFully(bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Decodes the notes, stored as number of notes followed by the
+   * length-prefixed UTF-8 key/value pairs.
+   *
+   * @param bytes	the encoded notes
+   * @return		the notes
+   * @throws Exception	if decoding fails
+   */
+  protected Notes readNotes(byte[] bytes) throws Exception {
+    Notes		result;
+    DataInputStream	in;
+    int			count;
+    int			i;
+    String		key;
+
+    result = new Notes();
+    in     = new DataInputStream(new ByteArrayInputStream(bytes));
+    count  = in.readInt();
+    if ((count < 0) || (count > bytes.length / 8))
+      throw new IOException("Invalid number of notes: " + count);
+    for (i = 0; i < count; i++) {
+      key = readString(in, bytes.length);
+      result.addNote(key, readString(in, bytes.length));
+    }
+
+    return result;
+  }
+
+  /**
+   * Decodes the tile and copies the part that intersects with the window
+   * into the storage.
+   *
+   * @param bytes	the raw (uncompressed) tile bytes
+   * @param floatPrecision	whether the values are floats
+   * @param tileRow	the row of the tile's top-left corner
+   * @param tileCol	the column of the tile's top-left corner
+   * @param tileHeight	the height of the tile
+   * @param tileWidth	the width of the tile
+   * @param storage	the storage of the window
+   */
+  protected void copyTile(byte[] bytes, boolean floatPrecision, int tileRow, int tileCol, int tileHeight, int tileWidth, AbstractHeatmapStorage storage) {
+    ByteBuffer	buffer;
+    int		y;
+    int		x;
+    int		fromY;
+    int		toY;
+    int		fromX;
+    int		toX;
+    int		pos;
+    double	value;
+
+    buffer = ByteBuffer.wrap(bytes);
+    fromY  = Math.max(tileRow, m_WindowRow);
+    toY    = Math.min(tileRow + tileHeight, m_WindowRow + storage.getHeight());
+    fromX  = Math.max(tileCol, m_WindowColumn);
+    toX    = Math.min(tileCol + tileWidth, m_WindowColumn + storage.getWidth());
+    for (y = fromY; y < toY; y++) {
+      for (x = fromX; x < toX; x++) {
+	pos = (y - tileRow) * tileWidth + (x - tileCol);
+	if (floatPrecision)
+	  value = buffer.getFloat(pos * 4);
+	else
+	  value = buffer.getDouble(pos * 8);
+	storage.set(y - m_WindowRow, x - m_WindowColumn, value);
+      }
+    }
+  }
+
+  /**
+   * Performs the actual reading.
+   */
+  @Override
+  protected void readData() {
+    Heatmap		map;
+    RandomAccessFile	file;
+    int			height;
+    int			width;
+    int			tileSize;
+    boolean		floatPrecision;
+    boolean		compressed;
+    String		id;
+    byte[]		bytes;
+    Properties		props;
+    Report		report;
+    Notes		notes;
+    int			tilesX;
+    int			tilesY;
+    ByteBuffer		index;
+    int			winHeight;
+    int			winWidth;
+    int			ty;
+    int			tx;
+    int			tileHeight;
+    int			tileWidth;
+    int			bytesPerValue;
+    int			entry;
+    byte[]		raw;
+    Inflater		inflater;
+
+    map  = null;
+    file = null;
+    try {
+      file = new RandomAccessFile(m_Input.getAbsoluteFile(), "r");
+
+      // header
+      if (file.readInt() != MAGIC)
+	throw new IllegalStateException("Not a tiled binary heatmap: " + m_Input);
+      if (file.readInt() > VERSION)
+	throw new IllegalStateException("Unsupported format version: " + m_Input);
+      height         = file.readInt();
+      width          = file.readInt();
+      tileSize       = file.readInt();
+      floatPrecision = file.readBoolean();
+      compressed     = file.readBoolean();
+      id             = readString(file, file.length() - file.getFilePointer());
+
+      // report
+      bytes = readBlock(file);
+      if (bytes.length > 0) {
+	props  = Properties.fromComment(new String(bytes, StandardCharsets.UTF_8));
+	report = Report.parseProperties(props);
+      }
+      else {
+	report = Heatmap.createEmptyReport();
+      }
+
+      // notes
+      bytes = readBlock(file);
+      notes = null;
+      if (bytes.length > 0)
+	notes = readNotes(bytes);
+
+      // window
+      if (m_WindowRow >= height)
+	throw new IllegalArgumentException("Window row exceeds height: " + m_WindowRow + " >= " + height);
+      if (m_WindowColumn >= width)
+	throw new IllegalArgumentException("Window column exceeds width: " + m_WindowColumn + " >= " + width);
+      winHeight = height - m_WindowRow;
+      if (m_WindowHeight > -1)
+	winHeight = Math.min(winHeight, m_WindowHeight);
+      winWidth = width - m_WindowColumn;
+      if (m_WindowWidth > -1)
+	winWidth = Math.min(winWidth, m_WindowWidth);
+
+      // tile index
+      tilesY = (height + tileSize - 1) / tileSize;
+      tilesX = (width + tileSize - 1) / tileSize;
+      bytes  = new byte[tilesY * tilesX * INDEX_ENTRY_SIZE];
+      file.readFully(bytes);
+      index  = ByteBuffer.wrap(bytes);
+
+      // tiles
+      map           = new Heatmap(winHeight, winWidth, floatPrecision);
+      bytesPerValue = floatPrecision ? 4 : 8;
+      inflater      = compressed ? new Inflater() : null;
+      try {
+	for (ty = m_WindowRow / tileSize; ty <= (m_WindowRow + winHeight - 1) / tileSize; ty++) {
+	  tileHeight = Math.min(tileSize, height - ty * tileSize);
+	  for (tx = m_WindowColumn / tileSize; tx <= (m_WindowColumn + winWidth - 1) / tileSize; tx++) {
+	    tileWidth = Math.min(tileSize, width - tx * tileSize);
+	    entry     = (ty * tilesX + tx) * INDEX_ENTRY_SIZE;
+	    bytes     = new byte[index.getInt(entry + 8)];
+	    file.seek(index.getLong(entry));
+	    file.readFully(bytes);
+	    if (compressed) {
+	      raw = new byte[tileHeight * tileWidth * bytesPerValue];
+	      inflater.reset();
+	      inflater.setInput(bytes);
+	      if (inflater.inflate(raw) != raw.length)
+		throw new IllegalStateException("Failed to decompress tile " + ty + "/" + tx + "!");
+	    }
+	    else {
+	      raw = bytes;
+	    }
+	    copyTile(raw, floatPrecision, ty * tileSize, tx * tileSize, tileHeight, tileWidth, map.getStorage());
+	  }
+	}
+      }
+      finally {
+	if (inflater != null)
+	  inflater.end();
+      }
+      map.invalidateStatistics();
+
+      map.setID(id);
+      map.setReport(report);
+      if (notes != null)
+	map.getNotes().mergeWith(notes);
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to read heatmap from '" + m_Input + "'!", e);
+      map = null;
+    }
+    finally {
+      if (file != null) {
+	try {
+	  file.close();
+	}
+	catch (Exception e) {
+	  // ignored
+	}
+      }
+    }
+
+    if (map != null)
+      m_ReadData.add(map);
+  }
+}
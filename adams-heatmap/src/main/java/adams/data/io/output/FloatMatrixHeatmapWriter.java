@@ -15,16 +15,19 @@
 
 /**
  * FloatMatrixHeatmapWriter.java
- * Copyright (C) 2011-2015 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.data.io.output;
 
 import adams.core.io.FileUtils;
 import adams.data.heatmap.Heatmap;
 import adams.data.io.input.FloatMatrixHeatmapReader;
+import adams.data.io.input.FloatMatrixHeatmapReader.Endianness;
 
-import java.io.DataOutputStream;
 import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
 import java.util.List;
 import java.util.logging.Level;
 
@@ -49,6 +52,11 @@ import java.util.logging.Level;
  * &nbsp;&nbsp;&nbsp;default: ${TMP}&#47;out.tmp
  * </pre>
  *
+ * <pre>-byte-order &lt;LITTLE_ENDIAN|BIG_ENDIAN&gt; (property: byteOrder)
+ * &nbsp;&nbsp;&nbsp;The byte order of the floats in the file.
+ * &nbsp;&nbsp;&nbsp;default: LITTLE_ENDIAN
+ * </pre>
+ *
  <!-- options-end -->
  *
  * @author  fracpete (fracpete at waikato dot ac dot nz)
@@ -60,6 +68,9 @@ public class FloatMatrixHeatmapWriter
   /** for serialization. */
   private static final long serialVersionUID = -7828811375813385465L;
 
+  /** the byte order. */
+  protected Endianness m_ByteOrder;
+
   /**
    * Returns a string describing the object.
    *
@@ -71,6 +82,18 @@ public class FloatMatrixHeatmapWriter
         "Writes heat map files (2-D array of single precision floating point numbers).";
   }
 
+  /**
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+	    "byte-order", "byteOrder",
+	    Endianness.LITTLE_ENDIAN);
+  }
+
   /**
    * Initializes the members.
    */
@@ -81,6 +104,35 @@ public class FloatMatrixHeatmapWriter
     m_OutputIsFile = true;
   }
 
+  /**
+   * Sets the byte order of the floats.
+   *
+   * @param value	the byte order
+   */
+  public void setByteOrder(Endianness value) {
+    m_ByteOrder = value;
+    reset();
+  }
+
+  /**
+   * Returns the byte order of the floats.
+   *
+   * @return		the byte order
+   */
+  public Endianness getByteOrder() {
+    return m_ByteOrder;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String byteOrderTipText() {
+    return "The byte order of the floats in the file.";
+  }
+
   /**
    * Returns a string describing the format (used in the file chooser).
    *
@@ -110,34 +162,41 @@ public class FloatMatrixHeatmapWriter
   @Override
   protected boolean writeData(List<Heatmap> data) {
     boolean		result;
-    DataOutputStream	stream;
     FileOutputStream	fos;
+    FileChannel		channel;
     Heatmap		map;
     int			x;
     int			y;
-    float		fvalue;
-    int			ivalue;
-    byte[]		bytes;
+    int			row;
+    int			rowsPerBlock;
+    int			numRows;
+    ByteBuffer		buffer;
+    FloatBuffer		floats;
+    double[]		values;
 
     result = false;
 
-    stream = null;
-    fos    = null;
+    fos = null;
     try {
-      fos    = new FileOutputStream(m_Output.getAbsoluteFile());
-      stream = new DataOutputStream(fos);
-      map    = data.get(0);
-      bytes  = new byte[4];
-      for (y = 0; y < map.getHeight(); y++) {
-	for (x = 0; x < map.getWidth(); x++) {
-	  fvalue   = (float) map.get(y, x);
-	  ivalue   = Float.floatToIntBits(fvalue);
-	  bytes[3] = (byte) (ivalue >>> 24);
-	  bytes[2] = (byte) (ivalue >>> 16);
-	  bytes[1] = (byte) (ivalue >>>  8);
-	  bytes[0] = (byte) (ivalue);
-	  stream.write(bytes);
+      fos          = new FileOutputStream(m_Output.getAbsoluteFile());
+      channel      = fos.getChannel();
+      map          = data.get(0);
+      rowsPerBlock = (int) Math.max(1, FloatMatrixHeatmapReader.BLOCK_SIZE / (Math.max(1, map.getWidth()) * 4L));
+      buffer       = ByteBuffer.allocateDirect(rowsPerBlock * map.getWidth() * 4);
+      buffer.order(m_ByteOrder.toByteOrder());
+      values       = new double[map.getWidth()];
+      for (y = 0; y < map.getHeight(); y += rowsPerBlock) {
+	numRows = Math.min(rowsPerBlock, map.getHeight() - y);
+	buffer.clear();
+	floats = buffer.asFloatBuffer();
+	for (row = y; row < y + numRows; row++) {
+	  map.getRow(row, values);
+	  for (x = 0; x < values.length; x++)
+	    floats.put((float) values[x]);
 	}
+	buffer.limit(numRows * map.getWidth() * 4);
+	while (buffer.hasRemaining())
+	  channel.write(buffer);
       }
       result = true;
     }
@@ -145,7 +204,6 @@ public class FloatMatrixHeatmapWriter
       getLogger().log(Level.SEVERE, "Failed to write heatmap to '" + m_Output + "':", e);
     }
     finally {
-      FileUtils.closeQuietly(stream);
       FileUtils.closeQuietly(fos);
     }
 
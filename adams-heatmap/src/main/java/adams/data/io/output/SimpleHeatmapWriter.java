@@ -15,7 +15,7 @@
 
 /*
  * SimpleHeatmapWriter.java
- * Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2015-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.data.io.output;
@@ -25,7 +25,6 @@ import adams.core.io.FileUtils;
 import adams.core.io.PlaceholderFile;
 import adams.data.CompressionSupporter;
 import adams.data.heatmap.Heatmap;
-import adams.data.heatmap.HeatmapValue;
 import adams.data.io.input.SimpleHeatmapReader;
 
 import java.io.BufferedWriter;
@@ -252,6 +251,9 @@ public class SimpleHeatmapWriter
     boolean		result;
     Heatmap		map;
     String[]		lines;
+    double[]		values;
+    int			y;
+    int			x;
 
     result = true;
     
@@ -271,13 +273,17 @@ public class SimpleHeatmapWriter
       writer.write("\n");
 
       // points
-      for (HeatmapValue value: map) {
-	writer.write("" + value.getY());
-	writer.write(",");
-	writer.write("" + value.getX());
-	writer.write(",");
-	writer.write(Utils.doubleToString(value.getValue(), m_NumDecimals));
-	writer.write("\n");
+      values = null;
+      for (y = 0; y < map.getHeight(); y++) {
+	values = map.getRow(y, values);
+	for (x = 0; x < map.getWidth(); x++) {
+	  writer.write("" + y);
+	  writer.write(",");
+	  writer.write("" + x);
+	  writer.write(",");
+	  writer.write(Utils.doubleToString(values[x], m_NumDecimals));
+	  writer.write("\n");
+	}
       }
 
       writer.flush();
@@ -0,0 +1,452 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TiledBinaryHeatmapWriter.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.io.output;
+
+import adams.data.Notes;
+import adams.data.heatmap.Heatmap;
+import adams.data.io.input.TiledBinaryHeatmapReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.zip.Deflater;
+
+/**
+ <!-- globalinfo-start -->
+ * Writes heatmaps in the tiled binary format.<br>
+ * The values are split into square tiles, which can be compressed individually (deflate). A tile index allows readers to only load the tiles that they require.
+ * <br><br>
+ <!-- globalinfo-end -->
+ *
+ <!-- options-start -->
+ * <pre>-logging-level &lt;OFF|SEVERE|WARNING|INFO|CONFIG|FINE|FINER|FINEST&gt; (property: loggingLevel)
+ * &nbsp;&nbsp;&nbsp;The logging level for outputting errors and debugging output.
+ * &nbsp;&nbsp;&nbsp;default: WARNING
+ * </pre>
+ * 
+ * <pre>-output &lt;adams.core.io.PlaceholderFile&gt; (property: output)
+ * &nbsp;&nbsp;&nbsp;The file to write the container to.
+ * &nbsp;&nbsp;&nbsp;default: ${TMP}&#47;out.tmp
+ * </pre>
+ * 
+ * <pre>-tile-size &lt;int&gt; (property: tileSize)
+ * &nbsp;&nbsp;&nbsp;The width and height of the tiles.
+ * &nbsp;&nbsp;&nbsp;default: 256
+ * &nbsp;&nbsp;&nbsp;minimum: 1
+ * </pre>
+ * 
+ * <pre>-float-precision &lt;boolean&gt; (property: floatPrecision)
+ * &nbsp;&nbsp;&nbsp;If enabled, the values are stored as floats rather than doubles.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ * 
+ * <pre>-compress-tiles &lt;boolean&gt; (property: compressTiles)
+ * &nbsp;&nbsp;&nbsp;If enabled, the tiles get compressed using deflate.
+ * &nbsp;&nbsp;&nbsp;default: true
+ * </pre>
+ * 
+ <!-- options-end -->
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class TiledBinaryHeatmapWriter
+  extends AbstractHeatmapWriter {
+
+  /** for serialization. */
+  private static final long serialVersionUID = -2964138155096834172L;
+
+  /** the tile size. */
+  protected int m_TileSize;
+
+  /** whether to store floats. */
+  protected boolean m_FloatPrecision;
+
+  /** whether to compress the tiles. */
+  protected boolean m_CompressTiles;
+
+  /**
+   * Returns a string describing the object.
+   *
+   * @return 			a description suitable for displaying in the gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+      "Writes heatmaps in the tiled binary format.\n"
+	+ "The values are split into square tiles, which can be compressed "
+	+ "individually (deflate). A tile index allows readers to only load "
+	+ "the tiles that they require.";
+  }
+
+  /**
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+	    "tile-size", "tileSize",
+	    256, 1, null);
+
+    m_OptionManager.add(
+	    "float-precision", "floatPrecision",
+	    false);
+
+    m_OptionManager.add(
+	    "compress-tiles", "compressTiles",
+	    true);
+  }
+
+  /**
+   * Initializes the members.
+   */
+  @Override
+  protected void initialize() {
+    super.initialize();
+
+    m_OutputIsFile = true;
+  }
+
+  /**
+   * Sets the width and height of the tiles.
+   *
+   * @param value	the size
+   */
+  public void setTileSize(int value) {
+    if (getOptionManager().isValid("tileSize", value)) {
+      m_TileSize = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the width and height of the tiles.
+   *
+   * @return		the size
+   */
+  public int getTileSize() {
+    return m_TileSize;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String tileSizeTipText() {
+    return "The width and height of the tiles.";
+  }
+
+  /**
+   * Sets whether to store the values as floats rather than doubles.
+   *
+   * @param value	true if to use floats
+   */
+  public void setFloatPrecision(boolean value) {
+    m_FloatPrecision = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to store the values as floats rather than doubles.
+   *
+   * @return		true if to use floats
+   */
+  public boolean getFloatPrecision() {
+    return m_FloatPrecision;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String floatPrecisionTipText() {
+    return "If enabled, the values are stored as floats rather than doubles.";
+  }
+
+  /**
+   * Sets whether to compress the tiles.
+   *
+   * @param value	true if to compress
+   */
+  public void setCompressTiles(boolean value) {
+    m_CompressTiles = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to compress the tiles.
+   *
+   * @return		true if to compress
+   */
+  public boolean getCompressTiles() {
+    return m_CompressTiles;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String compressTilesTipText() {
+    return "If enabled, the tiles get compressed using deflate.";
+  }
+
+  /**
+   * Returns a string describing the format (used in the file chooser).
+   *
+   * @return a description suitable for displaying in the file chooser
+   */
+  @Override
+  public String getFormatDescription() {
+    return new TiledBinaryHeatmapReader().getFormatDescription();
+  }
+
+  /**
+   * Returns the extension(s) of the format.
+   *
+   * @return the extension(s) (without the dot!)
+   */
+  @Override
+  public String[] getFormatExtensions() {
+    return new TiledBinaryHeatmapReader().getFormatExtensions();
+  }
+
+  /**
+   * Writes the bytes with their length as prefix.
+   *
+   * @param file	the file to write to
+   * @param bytes	the bytes to write
+   * @throws Exception	if writing fails
+   */
+  protected void writeBlock(RandomAccessFile file, byte[] bytes) throws Exception {
+    file.writeInt(bytes.length);
+    file.write(bytes);
+  }
+
+  /**
+   * Writes the string as length-prefixed UTF-8 bytes.
+   *
+   * @param out		the output to write to
+   * @param s		the string to write
+   * @throws Exception	if writing fails
+   */
+  protected static void writeString(DataOutput out, String s) throws Exception {
+    byte[]	bytes;
+
+    bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Encodes the notes as number of notes followed by the key/value pairs,
+   * stored as length-prefixed UTF-8 strings.
+   *
+   * @param notes	the notes to encode, can be null
+   * @return		the encoded notes, empty if no notes
+   * @throws Exception	if encoding fails
+   */
+  protected byte[] writeNotes(Notes notes) throws Exception {
+    ByteArrayOutputStream	bos;
+    DataOutputStream		out;
+    List<String>		pairs;
+    int				i;
+
+    if (notes == null)
+      return new byte[0];
+
+    pairs = new ArrayList<>();
+    for (String key: notes.getKeys()) {
+      for (String value: notes.getNotes(key)) {
+	pairs.add(key);
+	pairs.add(value);
+      }
+    }
+
+    bos = new ByteArrayOutputStream();
+    out = new DataOutputStream(bos);
+    out.writeInt(pairs.size() / 2);
+    for (i = 0; i < pairs.size(); i++)
+      writeString(out, pairs.get(i));
+    out.close();
+
+    return bos.toByteArray();
+  }
+
+  /**
+   * Serializes the tile, row by row.
+   *
+   * @param map		the heatmap to get the values from
+   * @param tileRow	the row of the tile's top-left corner
+   * @param tileCol	the column of the tile's top-left corner
+   * @param tileHeight	the height of the tile
+   * @param tileWidth	the width of the tile
+   * @param buffer	the buffer to fill
+   */
+  protected void fillTile(Heatmap map, int tileRow, int tileCol, int tileHeight, int tileWidth, ByteBuffer buffer) {
+    int		y;
+    int		x;
+
+    buffer.clear();
+    for (y = tileRow; y < tileRow + tileHeight; y++) {
+      for (x = tileCol; x < tileCol + tileWidth; x++) {
+	if (m_FloatPrecision)
+	  buffer.putFloat((float) map.get(y, x));
+	else
+	  buffer.putDouble(map.get(y, x));
+      }
+    }
+    buffer.flip();
+  }
+
+  /**
+   * Performs the actual writing.
+   *
+   * @param data	the data to write
+   * @return		true if successfully written
+   */
+  @Override
+  protected boolean writeData(List<Heatmap> data) {
+    boolean			result;
+    RandomAccessFile		file;
+    Heatmap			map;
+    int				tilesX;
+    int				tilesY;
+    int				ty;
+    int				tx;
+    int				tileHeight;
+    int				tileWidth;
+    int				bytesPerValue;
+    long			indexPos;
+    ByteBuffer			index;
+    ByteBuffer			tile;
+    byte[]			compressed;
+    Deflater			deflater;
+    int				len;
+
+    result = false;
+    map    = data.get(0);
+
+    file     = null;
+    deflater = null;
+    try {
+      file = new RandomAccessFile(m_Output.getAbsoluteFile(), "rw");
+      file.setLength(0);
+
+      // header
+      file.writeInt(TiledBinaryHeatmapReader.MAGIC);
+      file.writeInt(TiledBinaryHeatmapReader.VERSION);
+      file.writeInt(map.getHeight());
+      file.writeInt(map.getWidth());
+      file.writeInt(m_TileSize);
+      file.writeBoolean(m_FloatPrecision);
+      file.writeBoolean(m_CompressTiles);
+      writeString(file, (map.getID() == null) ? "" : map.getID());
+
+      // report
+      if (map.hasReport())
+	writeBlock(file, map.getReport().toProperties().toComment().getBytes(StandardCharsets.UTF_8));
+      else
+	writeBlock(file, new byte[0]);
+
+      // notes
+      writeBlock(file, writeNotes(map.getNotes()));
+
+      // reserve space for tile index
+      tilesY   = (map.getHeight() + m_TileSize - 1) / m_TileSize;
+      tilesX   = (map.getWidth() + m_TileSize - 1) / m_TileSize;
+      index    = ByteBuffer.allocate(tilesY * tilesX * TiledBinaryHeatmapReader.INDEX_ENTRY_SIZE);
+      indexPos = file.getFilePointer();
+      file.write(index.array());
+
+      // tiles
+      bytesPerValue = m_FloatPrecision ? 4 : 8;
+      tile          = ByteBuffer.allocate(m_TileSize * m_TileSize * bytesPerValue);
+      compressed    = null;
+      if (m_CompressTiles) {
+	deflater   = new Deflater();
+	compressed = new byte[tile.capacity() + tile.capacity() / 100 + 64];
+      }
+      for (ty = 0; ty < tilesY; ty++) {
+	tileHeight = Math.min(m_TileSize, map.getHeight() - ty * m_TileSize);
+	for (tx = 0; tx < tilesX; tx++) {
+	  tileWidth = Math.min(m_TileSize, map.getWidth() - tx * m_TileSize);
+	  fillTile(map, ty * m_TileSize, tx * m_TileSize, tileHeight, tileWidth, tile);
+	  index.putLong(file.getFilePointer());
+	  if (m_CompressTiles) {
+	    deflater.reset();
+	    deflater.setInput(tile.array(), 0, tile.limit());
+	    deflater.finish();
+	    len = 0;
+	    while (!deflater.finished()) {
+	      if (len == compressed.length) {
+		file.write(compressed, 0, len);
+		len = 0;
+	      }
+	      len += deflater.deflate(compressed, len, compressed.length - len);
+	    }
+	    file.write(compressed, 0, len);
+	    index.putInt((int) (file.getFilePointer() - index.getLong(index.position() - 8)));
+	  }
+	  else {
+	    file.write(tile.array(), 0, tile.limit());
+	    index.putInt(tile.limit());
+	  }
+	}
+      }
+
+      // back-fill tile index
+      file.seek(indexPos);
+      file.write(index.array());
+
+      result = true;
+    }
+    catch (Exception e) {
+      getLogger().log(Level.SEVERE, "Failed to write heatmap to '" + m_Output + "':", e);
+    }
+    finally {
+      if (deflater != null)
+	deflater.end();
+      if (file != null) {
+	try {
+	  file.close();
+	}
+	catch (Exception e) {
+	  // ignored
+	}
+      }
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,322 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * CovarianceMatrix.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.statistics;
+
+import adams.data.heatmap.HeatmapRowTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes covariance, correlation and cosine similarity matrices between
+ * columns of data. Each column gets centered and/or scaled only once,
+ * after which the matrix of dot products is computed in blocks of columns
+ * and rows, which keeps the data being combined in the CPU cache. The
+ * blocks of the upper triangle are distributed across the shared fork/join pool
+ * and each result is stored in both triangles.
+ * <br><br>
+ * Covariances use the population formula (i.e., divided by n), matching
+ * {@link StatUtils}. Correlations and similarities
+ * involving columns without any variance or length are 0.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class CovarianceMatrix {
+
+  /** the number of columns per block. */
+  public final static int BLOCK_COLUMNS = 32;
+
+  /** the number of rows per block. */
+  public final static int BLOCK_ROWS = 1024;
+
+  /**
+   * Computes the dot products for a block of columns of the upper triangle.
+   */
+  public static class BlockTask
+    extends RecursiveAction {
+
+    private static final long serialVersionUID = 2453786006932788155L;
+
+    /** the (centered) columns. */
+    protected double[][] m_Columns;
+
+    /** the first column of the row block. */
+    protected int m_Row;
+
+    /** the first column of the column block. */
+    protected int m_Column;
+
+    /** the matrix to store the results in. */
+    protected double[][] m_Result;
+
+    /**
+     * Initializes the task.
+     *
+     * @param columns	the centered columns
+     * @param row	the first column of the row block
+     * @param column	the first column of the column block
+     * @param result	the matrix to store the results in
+     */
+    public BlockTask(double[][] columns, int row, int column, double[][] result) {
+      m_Columns = columns;
+      m_Row     = row;
+      m_Column  = column;
+      m_Result  = result;
+    }
+
+    /**
+     * Computes the block.
+     */
+    @Override
+    protected void compute() {
+      double[][]	sums;
+      double[]		a;
+      double[]		b;
+      double		sum;
+      int		rowEnd;
+      int		colEnd;
+      int		n;
+      int		start;
+      int		end;
+      int		i;
+      int		j;
+      int		k;
+
+      rowEnd = Math.min(m_Row + BLOCK_COLUMNS, m_Columns.length);
+      colEnd = Math.min(m_Column + BLOCK_COLUMNS, m_Columns.length);
+      n      = m_Columns[0].length;
+      sums   = new double[rowEnd - m_Row][colEnd - m_Column];
+
+      for (start = 0; start < n; start += BLOCK_ROWS) {
+	end = Math.min(start + BLOCK_ROWS, n);
+	for (i = m_Row; i < rowEnd; i++) {
+	  a = m_Columns[i];
+	  for (j = Math.max(i, m_Column); j < colEnd; j++) {
+	    b   = m_Columns[j];
+	    sum = 0.0;
+	    for (k = start; k < end; k++)
+	      sum += a[k] * b[k];
+	    sums[i - m_Row][j - m_Column] += sum;
+	  }
+	}
+      }
+
+      for (i = m_Row; i < rowEnd; i++) {
+	for (j = Math.max(i, m_Column); j < colEnd; j++) {
+	  m_Result[i][j] = sums[i - m_Row][j - m_Column];
+	  m_Result[j][i] = m_Result[i][j];
+	}
+      }
+    }
+  }
+
+  /**
+   * Centers the columns in-place.
+   *
+   * @param columns	the columns to center
+   */
+  protected static void center(double[][] columns) {
+    double	mean;
+    int		i;
+    int		k;
+
+    for (i = 0; i < columns.length; i++) {
+      mean = 0.0;
+      for (k = 0; k < columns[i].length; k++)
+	mean += columns[i][k];
+      mean /= columns[i].length;
+      for (k = 0; k < columns[i].length; k++)
+	columns[i][k] -= mean;
+    }
+  }
+
+  /**
+   * Computes the dot products between all pairs of columns.
+   *
+   * @param columns	the columns
+   * @param numThreads	the number of threads to use
+   * @return		the matrix of dot products
+   */
+  protected static double[][] dotProducts(double[][] columns, int numThreads) {
+    double[][]		result;
+    List<BlockTask>	tasks;
+    int			i;
+    int			j;
+
+    result = new double[columns.length][columns.length];
+    tasks  = new ArrayList<>();
+    for (i = 0; i < columns.length; i += BLOCK_COLUMNS) {
+      for (j = i; j < columns.length; j += BLOCK_COLUMNS)
+	tasks.add(new BlockTask(columns, i, j, result));
+    }
+
+    if ((numThreads <= 1) || (tasks.size() == 1)) {
+      for (BlockTask task: tasks)
+	task.compute();
+    }
+    else {
+      HeatmapRowTask.getPool(numThreads).invoke(new RecursiveAction() {
+	private static final long serialVersionUID = -2019338627290346573L;
+	@Override
+	protected void compute() {
+	  invokeAll(tasks);
+	}
+      });
+    }
+
+    return result;
+  }
+
+  /**
+   * Checks the columns.
+   *
+   * @param columns	the columns to check
+   * @throws IllegalArgumentException	if the columns differ in length
+   */
+  protected static void check(double[][] columns) {
+    int		i;
+
+    for (i = 1; i < columns.length; i++) {
+      if (columns[i].length != columns[0].length)
+	throw new IllegalArgumentException(
+	  "Column #" + (i + 1) + " differs in length: " + columns[i].length + " != " + columns[0].length);
+    }
+  }
+
+  /**
+   * Computes the covariances between all pairs of columns. The columns get
+   * modified.
+   *
+   * @param columns	the columns, get centered in-place
+   * @param numThreads	the number of threads to use, 0 or 1 for sequential
+   * @return		the covariance matrix
+   */
+  public static double[][] covariance(double[][] columns, int numThreads) {
+    double[][]	result;
+    int		n;
+    int		i;
+    int		j;
+
+    check(columns);
+    if (columns.length == 0)
+      return new double[0][0];
+
+    n = columns[0].length;
+    center(columns);
+    result = dotProducts(columns, numThreads);
+    for (i = 0; i < result.length; i++) {
+      for (j = 0; j < result.length; j++)
+	result[i][j] /= n;
+    }
+
+    return result;
+  }
+
+  /**
+   * Scales the columns in-place to unit length, their dot products are then
+   * the cosines of the angles between them.
+   *
+   * @param columns	the columns to scale
+   * @return		flags for the columns that have zero length
+   */
+  protected static boolean[] scale(double[][] columns) {
+    boolean[]	result;
+    double	norm;
+    int		i;
+    int		k;
+
+    result = new boolean[columns.length];
+    for (i = 0; i < columns.length; i++) {
+      norm = 0.0;
+      for (k = 0; k < columns[i].length; k++)
+	norm += columns[i][k] * columns[i][k];
+      norm = Math.sqrt(norm);
+      if (norm == 0.0) {
+	result[i] = true;
+	continue;
+      }
+      for (k = 0; k < columns[i].length; k++)
+	columns[i][k] /= norm;
+    }
+
+    return result;
+  }
+
+  /**
+   * Computes the dot products of the scaled columns, using 0 for pairs
+   * that involve columns of zero length.
+   *
+   * @param columns	the columns to scale and compute the dot products for
+   * @param numThreads	the number of threads to use
+   * @return		the matrix
+   */
+  protected static double[][] scaledDotProducts(double[][] columns, int numThreads) {
+    double[][]	result;
+    boolean[]	zero;
+    int		i;
+    int		j;
+
+    zero   = scale(columns);
+    result = dotProducts(columns, numThreads);
+    for (i = 0; i < result.length; i++) {
+      for (j = 0; j < result.length; j++) {
+	if (zero[i] || zero[j])
+	  result[i][j] = 0.0;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Computes the correlation coefficients between all pairs of columns.
+   * The columns get modified.
+   *
+   * @param columns	the columns, get centered and scaled in-place
+   * @param numThreads	the number of threads to use, 0 or 1 for sequential
+   * @return		the correlation matrix
+   */
+  public static double[][] correlation(double[][] columns, int numThreads) {
+    check(columns);
+    if (columns.length == 0)
+      return new double[0][0];
+
+    center(columns);
+    return scaledDotProducts(columns, numThreads);
+  }
+
+  /**
+   * Computes the cosine similarities between all pairs of columns.
+   * The columns get modified.
+   *
+   * @param columns	the columns, get scaled in-place
+   * @param numThreads	the number of threads to use, 0 or 1 for sequential
+   * @return		the similarity matrix
+   */
+  public static double[][] cosineSimilarity(double[][] columns, int numThreads) {
+    check(columns);
+    if (columns.length == 0)
+      return new double[0][0];
+
+    return scaledDotProducts(columns, numThreads);
+  }
+}
@@ -0,0 +1,528 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapAccumulate.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.flow.transformer;
+
+import adams.core.Performance;
+import adams.core.QuickInfoHelper;
+import adams.core.VariableName;
+import adams.data.heatmap.Heatmap;
+import adams.data.heatmap.HeatmapAccumulator;
+import adams.event.VariableChangeEvent;
+import adams.event.VariableChangeEvent.Type;
+import adams.flow.core.Token;
+
+import java.util.Hashtable;
+
+/**
+ <!-- globalinfo-start -->
+ * Folds the incoming heatmaps into running per-cell aggregates, one heatmap at a time, and forwards the selected statistic every 'output-interval' heatmaps. Memory requirements do not depend on the number of heatmaps. Missing values are skipped.<br>
+ * All heatmaps must have the same dimensions; the meta-data of the generated heatmaps is taken from the first heatmap.<br>
+ * The aggregates get discarded whenever the monitored variable changes and when the flow finishes.
+ * <br><br>
+ <!-- globalinfo-end -->
+ *
+ <!-- flow-summary-start -->
+ * Input&#47;output:<br>
+ * - accepts:<br>
+ * &nbsp;&nbsp;&nbsp;adams.data.heatmap.Heatmap<br>
+ * - generates:<br>
+ * &nbsp;&nbsp;&nbsp;adams.data.heatmap.Heatmap<br>
+ * <br><br>
+ <!-- flow-summary-end -->
+ *
+ <!-- options-start -->
+ * <pre>-logging-level &lt;OFF|SEVERE|WARNING|INFO|CONFIG|FINE|FINER|FINEST&gt; (property: loggingLevel)
+ * &nbsp;&nbsp;&nbsp;The logging level for outputting errors and debugging output.
+ * &nbsp;&nbsp;&nbsp;default: WARNING
+ * </pre>
+ * 
+ * <pre>-name &lt;java.lang.String&gt; (property: name)
+ * &nbsp;&nbsp;&nbsp;The name of the actor.
+ * &nbsp;&nbsp;&nbsp;default: HeatmapAccumulate
+ * </pre>
+ * 
+ * <pre>-annotation &lt;adams.core.base.BaseAnnotation&gt; (property: annotations)
+ * &nbsp;&nbsp;&nbsp;The annotations to attach to this actor.
+ * &nbsp;&nbsp;&nbsp;default: 
+ * </pre>
+ * 
+ * <pre>-skip &lt;boolean&gt; (property: skip)
+ * &nbsp;&nbsp;&nbsp;If set to true, transformation is skipped and the input token is just forwarded 
+ * &nbsp;&nbsp;&nbsp;as it is.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ * 
+ * <pre>-stop-flow-on-error &lt;boolean&gt; (property: stopFlowOnError)
+ * &nbsp;&nbsp;&nbsp;If set to true, the flow gets stopped in case this actor encounters an error;
+ * &nbsp;&nbsp;&nbsp; useful for critical actors.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ * 
+ * <pre>-silent &lt;boolean&gt; (property: silent)
+ * &nbsp;&nbsp;&nbsp;If enabled, then no errors are output in the console.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ * 
+ * <pre>-statistic &lt;COUNT|SUM|MIN|MAX|MEAN|VARIANCE|STDEV&gt; (property: statistic)
+ * &nbsp;&nbsp;&nbsp;The statistic to output.
+ * &nbsp;&nbsp;&nbsp;default: MEAN
+ * </pre>
+ * 
+ * <pre>-sample &lt;boolean&gt; (property: sample)
+ * &nbsp;&nbsp;&nbsp;If enabled, the sample variance/standard deviation (n-1) is computed rather 
+ * &nbsp;&nbsp;&nbsp;than the population one (n).
+ * &nbsp;&nbsp;&nbsp;default: true
+ * </pre>
+ * 
+ * <pre>-output-interval &lt;int&gt; (property: outputInterval)
+ * &nbsp;&nbsp;&nbsp;The number of heatmaps to accumulate before forwarding the current aggregate.
+ * &nbsp;&nbsp;&nbsp;default: 1
+ * &nbsp;&nbsp;&nbsp;minimum: 1
+ * </pre>
+ * 
+ * <pre>-var-name &lt;adams.core.VariableName&gt; (property: variableName)
+ * &nbsp;&nbsp;&nbsp;The variable to monitor for resetting the aggregates.
+ * &nbsp;&nbsp;&nbsp;default: variable
+ * </pre>
+ * 
+ * <pre>-num-threads &lt;int&gt; (property: numThreads)
+ * &nbsp;&nbsp;&nbsp;The number of threads to use for processing the rows; -1 = number of CPUs/cores; 
+ * &nbsp;&nbsp;&nbsp;0 or 1 = sequential execution.
+ * &nbsp;&nbsp;&nbsp;default: -1
+ * &nbsp;&nbsp;&nbsp;minimum: -1
+ * </pre>
+ * 
+ <!-- options-end -->
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class HeatmapAccumulate
+  extends AbstractTransformer {
+
+  /** for serialization. */
+  private static final long serialVersionUID = 6093622806521743129L;
+
+  /** the key for storing the accumulator in the backup. */
+  public final static String BACKUP_ACCUMULATOR = "accumulator";
+
+  /**
+   * The statistics that can be output.
+   */
+  public enum Statistic {
+    /** number of values. */
+    COUNT,
+    /** sum. */
+    SUM,
+    /** minimum. */
+    MIN,
+    /** maximum. */
+    MAX,
+    /** mean. */
+    MEAN,
+    /** variance. */
+    VARIANCE,
+    /** standard deviation. */
+    STDEV
+  }
+
+  /** the statistic to output. */
+  protected Statistic m_Statistic;
+
+  /** whether to compute the sample variance. */
+  protected boolean m_Sample;
+
+  /** the output interval. */
+  protected int m_OutputInterval;
+
+  /** the number of threads to use. */
+  protected int m_NumThreads;
+
+  /** the variable to listen to. */
+  protected VariableName m_VariableName;
+
+  /** the accumulator. */
+  protected HeatmapAccumulator m_Accumulator;
+
+  /**
+   * Returns a string describing the object.
+   *
+   * @return 			a description suitable for displaying in the gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+      "Folds the incoming heatmaps into running per-cell aggregates, one "
+	+ "heatmap at a time, and forwards the selected statistic every "
+	+ "'output-interval' heatmaps. Memory requirements do not depend on "
+	+ "the number of heatmaps. Missing values are skipped.\n"
+	+ "All heatmaps must have the same dimensions; the meta-data of the "
+	+ "generated heatmaps is taken from the first heatmap.\n"
+	+ "The aggregates get discarded whenever the monitored variable changes "
+	+ "and when the flow finishes.";
+  }
+
+  /**
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+      "statistic", "statistic",
+      Statistic.MEAN);
+
+    m_OptionManager.add(
+      "sample", "sample",
+      true);
+
+    m_OptionManager.add(
+      "output-interval", "outputInterval",
+      1, 1, null);
+
+    m_OptionManager.add(
+      "var-name", "variableName",
+      new VariableName());
+
+    m_OptionManager.add(
+      "num-threads", "numThreads",
+      -1, -1, null);
+  }
+
+  /**
+   * Resets the scheme.
+   */
+  @Override
+  protected void reset() {
+    super.reset();
+
+    m_Accumulator = null;
+  }
+
+  /**
+   * Sets the statistic to output.
+   *
+   * @param value	the statistic
+   */
+  public void setStatistic(Statistic value) {
+    m_Statistic = value;
+    reset();
+  }
+
+  /**
+   * Returns the statistic to output.
+   *
+   * @return		the statistic
+   */
+  public Statistic getStatistic() {
+    return m_Statistic;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String statisticTipText() {
+    return "The statistic to output.";
+  }
+
+  /**
+   * Sets whether to compute the sample variance/stdev (n-1) or the population one (n).
+   *
+   * @param value	true if sample
+   */
+  public void setSample(boolean value) {
+    m_Sample = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to compute the sample variance/stdev (n-1) or the population one (n).
+   *
+   * @return		true if sample
+   */
+  public boolean getSample() {
+    return m_Sample;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String sampleTipText() {
+    return "If enabled, the sample variance/standard deviation (n-1) is computed rather than the population one (n).";
+  }
+
+  /**
+   * Sets the number of heatmaps to accumulate before forwarding the aggregate.
+   *
+   * @param value	the interval
+   */
+  public void setOutputInterval(int value) {
+    if (getOptionManager().isValid("outputInterval", value)) {
+      m_OutputInterval = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the number of heatmaps to accumulate before forwarding the aggregate.
+   *
+   * @return		the interval
+   */
+  public int getOutputInterval() {
+    return m_OutputInterval;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String outputIntervalTipText() {
+    return "The number of heatmaps to accumulate before forwarding the current aggregate.";
+  }
+
+  /**
+   * Sets the name of the variable to monitor.
+   *
+   * @param value	the name
+   */
+  public void setVariableName(VariableName value) {
+    m_VariableName = value;
+    reset();
+  }
+
+  /**
+   * Returns the name of the variable to monitor.
+   *
+   * @return		the name
+   */
+  public VariableName getVariableName() {
+    return m_VariableName;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String variableNameTipText() {
+    return "The variable to monitor for resetting the aggregates.";
+  }
+
+  /**
+   * Sets the number of threads to use.
+   *
+   * @param value	the number of threads: -1 = # of CPUs/cores; 0/1 = sequential execution
+   */
+  public void setNumThreads(int value) {
+    if (getOptionManager().isValid("numThreads", value)) {
+      m_NumThreads = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the number of threads to use.
+   *
+   * @return		the number of threads: -1 = # of CPUs/cores; 0/1 = sequential execution
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String numThreadsTipText() {
+    return "The number of threads to use for processing the rows; -1 = number of CPUs/cores; 0 or 1 = sequential execution.";
+  }
+
+  /**
+   * Returns a quick info about the actor, which will be displayed in the GUI.
+   *
+   * @return		null if no info available, otherwise short string
+   */
+  @Override
+  public String getQuickInfo() {
+    String	result;
+
+    result = QuickInfoHelper.toString(this, "statistic", m_Statistic, "statistic: ");
+    result += QuickInfoHelper.toString(this, "outputInterval", m_OutputInterval, ", interval: ");
+    result += QuickInfoHelper.toString(this, "variableName", m_VariableName.paddedValue(), ", monitor: ");
+
+    return result;
+  }
+
+  /**
+   * Returns the class that the consumer accepts.
+   *
+   * @return		the Class of objects that can be processed
+   */
+  @Override
+  public Class[] accepts() {
+    return new Class[]{Heatmap.class};
+  }
+
+  /**
+   * Returns the class of objects that it generates.
+   *
+   * @return		the Class of the generated tokens
+   */
+  @Override
+  public Class[] generates() {
+    return new Class[]{Heatmap.class};
+  }
+
+  /**
+   * Removes entries from the backup.
+   */
+  @Override
+  protected void pruneBackup() {
+    super.pruneBackup();
+
+    pruneBackup(BACKUP_ACCUMULATOR);
+  }
+
+  /**
+   * Backs up the current state of the actor before update the variables.
+   *
+   * @return		the backup
+   */
+  @Override
+  protected Hashtable<String,Object> backupState() {
+    Hashtable<String,Object>	result;
+
+    result = super.backupState();
+
+    if (m_Accumulator != null)
+      result.put(BACKUP_ACCUMULATOR, m_Accumulator);
+
+    return result;
+  }
+
+  /**
+   * Restores the state of the actor before the variables got updated.
+   *
+   * @param state	the backup of the state to restore from
+   */
+  @Override
+  protected void restoreState(Hashtable<String,Object> state) {
+    if (state.containsKey(BACKUP_ACCUMULATOR)) {
+      m_Accumulator = (HeatmapAccumulator) state.get(BACKUP_ACCUMULATOR);
+      state.remove(BACKUP_ACCUMULATOR);
+    }
+
+    super.restoreState(state);
+  }
+
+  /**
+   * Gets triggered when a variable changed (added, modified, removed).
+   *
+   * @param e		the event
+   */
+  @Override
+  public void variableChanged(VariableChangeEvent e) {
+    super.variableChanged(e);
+    if ((e.getType() == Type.MODIFIED) || (e.getType() == Type.ADDED)) {
+      if (e.getName().equals(m_VariableName.getValue())) {
+	m_Accumulator = null;
+	if (isLoggingEnabled())
+	  getLogger().info("Reset 'accumulator'");
+      }
+    }
+  }
+
+  /**
+   * Generates the heatmap for the selected statistic.
+   *
+   * @return		the heatmap
+   */
+  protected Heatmap generate() {
+    switch (m_Statistic) {
+      case COUNT:
+	return m_Accumulator.getCount();
+      case SUM:
+	return m_Accumulator.getSum();
+      case MIN:
+	return m_Accumulator.getMin();
+      case MAX:
+	return m_Accumulator.getMax();
+      case MEAN:
+	return m_Accumulator.getMean();
+      case VARIANCE:
+	return m_Accumulator.getVariance(m_Sample);
+      case STDEV:
+	return m_Accumulator.getStdDev(m_Sample);
+      default:
+	throw new IllegalStateException("Unhandled statistic: " + m_Statistic);
+    }
+  }
+
+  /**
+   * Executes the flow item.
+   *
+   * @return		null if everything is fine, otherwise error message
+   */
+  @Override
+  protected String doExecute() {
+    String	result;
+    Heatmap	map;
+
+    result = null;
+
+    map = m_InputToken.getPayload(Heatmap.class);
+    if (m_Accumulator == null)
+      m_Accumulator = new HeatmapAccumulator(Performance.determineNumThreads(m_NumThreads));
+
+    try {
+      m_Accumulator.add(map);
+      if (m_Accumulator.getNumHeatmaps() % m_OutputInterval == 0)
+	m_OutputToken = new Token(generate());
+    }
+    catch (Exception e) {
+      result = handleException("Failed to accumulate heatmap!", e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Cleans up after the execution has finished. Releases the per-cell
+   * aggregates.
+   */
+  @Override
+  public void wrapUp() {
+    m_Accumulator = null;
+
+    super.wrapUp();
+  }
+}
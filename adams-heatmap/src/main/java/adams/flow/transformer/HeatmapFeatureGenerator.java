@@ -15,12 +15,13 @@
 
 /*
  * HeatmapFeatureGenerator.java
- * Copyright (C) 2015-2018 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2015-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.flow.transformer;
 
 import adams.core.ObjectCopyHelper;
+import adams.core.Performance;
 import adams.core.QuickInfoHelper;
 import adams.core.VariableName;
 import adams.data.heatmap.Heatmap;
@@ -36,7 +37,8 @@ import java.util.Hashtable;
 
 /**
  <!-- globalinfo-start -->
- * Applies a heatmap feature generator to the incoming heatmap and outputs the generated features.
+ * Applies a heatmap feature generator to the incoming heatmap and outputs the generated features.<br>
+ * When receiving an array of heatmaps, the features can be generated in parallel.
  * <br><br>
  <!-- globalinfo-end -->
  *
@@ -44,6 +46,7 @@ import java.util.Hashtable;
  * Input&#47;output:<br>
  * - accepts:<br>
  * &nbsp;&nbsp;&nbsp;adams.data.heatmap.Heatmap<br>
+ * &nbsp;&nbsp;&nbsp;adams.data.heatmap.Heatmap[]<br>
  * - generates:<br>
  * &nbsp;&nbsp;&nbsp;adams.data.spreadsheet.Row<br>
  * <br><br>
@@ -87,6 +90,13 @@ import java.util.Hashtable;
  * &nbsp;&nbsp;&nbsp;default: adams.data.heatmapfeatures.Max -converter \"adams.data.featureconverter.SpreadSheet -data-row-type adams.data.spreadsheet.DenseDataRow -spreadsheet-type adams.data.spreadsheet.SpreadSheet\"
  * </pre>
  * 
+ * <pre>-num-threads &lt;int&gt; (property: numThreads)
+ * &nbsp;&nbsp;&nbsp;The number of threads to use for generating the features of an array
+ * &nbsp;&nbsp;&nbsp;of heatmaps; -1 = # of CPUs&#47;cores; 0 or 1 = sequential execution.
+ * &nbsp;&nbsp;&nbsp;default: 1
+ * &nbsp;&nbsp;&nbsp;minimum: -1
+ * </pre>
+ * 
  <!-- options-end -->
  *
  * @author  fracpete (fracpete at waikato dot ac dot nz)
@@ -110,6 +120,9 @@ public class HeatmapFeatureGenerator
   /** the actual algorithm to apply to the image. */
   protected transient AbstractHeatmapFeatureGenerator m_ActualAlgorithm;
 
+  /** the number of threads to use for arrays of heatmaps. */
+  protected int m_NumThreads;
+
   /** the variable to listen to. */
   protected VariableName m_VariableName;
 
@@ -125,7 +138,9 @@ public class HeatmapFeatureGenerator
   public String globalInfo() {
     return
         "Applies a heatmap feature generator to the incoming heatmap and outputs "
-      + "the generated features.";
+      + "the generated features.\n"
+      + "When receiving an array of heatmaps, the features can be generated "
+      + "in parallel.";
   }
 
   /**
@@ -142,6 +157,10 @@ public class HeatmapFeatureGenerator
     m_OptionManager.add(
       "var-name", "variableName",
       new VariableName());
+
+    m_OptionManager.add(
+      "num-threads", "numThreads",
+      1, -1, null);
   }
 
   /**
@@ -223,6 +242,39 @@ public class HeatmapFeatureGenerator
     return "The variable to monitor for resetting trainable batch filters.";
   }
 
+  /**
+   * Sets the number of threads to use for arrays of heatmaps.
+   *
+   * @param value	the number of threads: -1 = # of CPUs/cores
+   */
+  public void setNumThreads(int value) {
+    if (getOptionManager().isValid("numThreads", value)) {
+      m_NumThreads = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the number of threads to use for arrays of heatmaps.
+   *
+   * @return		the number of threads: -1 = # of CPUs/cores
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String numThreadsTipText() {
+    return
+      "The number of threads to use for generating the features of an array "
+	+ "of heatmaps; -1 = # of CPUs/cores; 0 or 1 = sequential execution.";
+  }
+
   /**
    * Returns a quick info about the actor, which will be displayed in the GUI.
    *
@@ -309,7 +361,7 @@ public class HeatmapFeatureGenerator
    * @return		the Class of objects that can be processed
    */
   public Class[] accepts() {
-    return new Class[]{Heatmap.class};
+    return new Class[]{Heatmap.class, Heatmap[].class};
   }
 
   /**
@@ -339,7 +391,11 @@ public class HeatmapFeatureGenerator
     try {
       if (m_ActualAlgorithm == null)
         m_ActualAlgorithm = ObjectCopyHelper.copyObject(m_Algorithm);
-      m_Queue.addAll(Arrays.asList(m_ActualAlgorithm.generate((Heatmap) m_InputToken.getPayload())));
+      if (m_InputToken.getPayload() instanceof Heatmap[])
+	m_Queue.addAll(Arrays.asList(m_ActualAlgorithm.generate(
+	  (Heatmap[]) m_InputToken.getPayload(), Performance.determineNumThreads(m_NumThreads))));
+      else
+	m_Queue.addAll(Arrays.asList(m_ActualAlgorithm.generate((Heatmap) m_InputToken.getPayload())));
     }
     catch (Exception e) {
       result = handleException("Failed to generate features: ", e);
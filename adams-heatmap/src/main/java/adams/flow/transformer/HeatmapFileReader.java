@@ -15,18 +15,28 @@
 
 /*
  * HeatmapFileReader.java
- * Copyright (C) 2011-2025 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.flow.transformer;
 
+import adams.core.Performance;
+import adams.core.QuickInfoHelper;
 import adams.data.heatmap.Heatmap;
+import adams.data.io.input.AbstractDataContainerReader;
 import adams.data.io.input.DataContainerReader;
+import adams.data.io.input.HeatmapBatchReader;
+import adams.data.io.input.HeatmapBatchReader.Result;
 import adams.data.io.input.SpreadSheetHeatmapReader;
+import adams.flow.core.Token;
+
+import java.io.File;
+import java.util.concurrent.CancellationException;
 
 /**
  <!-- globalinfo-start -->
- * Reads heat map files.
+ * Reads heat map files.<br>
+ * In batch mode, the input can be an array of files, a directory or a glob pattern (eg '&#47;some&#47;dir&#47;*.csv'). The files get read on a bounded pool of worker threads and the heatmaps are forwarded either in the order of the files or as soon as they have been read. Files that fail to load get reported without stopping the batch.
  * <br><br>
  <!-- globalinfo-end -->
  *
@@ -34,6 +44,9 @@ import adams.data.io.input.SpreadSheetHeatmapReader;
  * Input&#47;output:<br>
  * - accepts:<br>
  * &nbsp;&nbsp;&nbsp;java.lang.String<br>
+ * &nbsp;&nbsp;&nbsp;java.lang.String[]<br>
+ * &nbsp;&nbsp;&nbsp;java.io.File<br>
+ * &nbsp;&nbsp;&nbsp;java.io.File[]<br>
  * - generates:<br>
  * &nbsp;&nbsp;&nbsp;adams.data.heatmap.Heatmap<br>
  * <br><br>
@@ -72,6 +85,31 @@ import adams.data.io.input.SpreadSheetHeatmapReader;
  * &nbsp;&nbsp;&nbsp;default: adams.data.io.input.SpreadSheetHeatmapReader -reader \"adams.data.io.input.CsvSpreadSheetReader -spreadsheet-type adams.data.spreadsheet.SpreadSheet\"
  * </pre>
  * 
+ * <pre>-batch &lt;boolean&gt; (property: batch)
+ * &nbsp;&nbsp;&nbsp;If enabled, file arrays, directories and glob patterns get read in parallel.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ * 
+ * <pre>-num-threads &lt;int&gt; (property: numThreads)
+ * &nbsp;&nbsp;&nbsp;The number of threads to use for reading the files in batch mode; -1 
+ * &nbsp;&nbsp;&nbsp;= number of CPUs&#47;cores; 0 or 1 = sequential execution.
+ * &nbsp;&nbsp;&nbsp;default: -1
+ * &nbsp;&nbsp;&nbsp;minimum: -1
+ * </pre>
+ * 
+ * <pre>-read-ahead &lt;int&gt; (property: readAhead)
+ * &nbsp;&nbsp;&nbsp;The maximum number of files that are being read or waiting to be forwarded 
+ * &nbsp;&nbsp;&nbsp;in batch mode; 0 = twice the number of threads.
+ * &nbsp;&nbsp;&nbsp;default: 0
+ * &nbsp;&nbsp;&nbsp;minimum: 0
+ * </pre>
+ * 
+ * <pre>-completion-order &lt;boolean&gt; (property: completionOrder)
+ * &nbsp;&nbsp;&nbsp;If enabled, heatmaps get forwarded in the order they finished loading rather 
+ * &nbsp;&nbsp;&nbsp;than in the order of the files (batch mode only).
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ * 
  <!-- options-end -->
  *
  * @author  fracpete (fracpete at waikato dot ac dot nz)
@@ -82,6 +120,21 @@ public class HeatmapFileReader
   /** for serialization. */
   private static final long serialVersionUID = -950247484890285334L;
 
+  /** whether to use batch mode. */
+  protected boolean m_Batch;
+
+  /** the number of threads to use in batch mode. */
+  protected int m_NumThreads;
+
+  /** the number of files to read ahead. */
+  protected int m_ReadAhead;
+
+  /** whether to forward the heatmaps in completion order. */
+  protected boolean m_CompletionOrder;
+
+  /** the current batch. */
+  protected transient volatile HeatmapBatchReader m_BatchReader;
+
   /**
    * Returns a string describing the object.
    *
@@ -89,7 +142,37 @@ public class HeatmapFileReader
    */
   @Override
   public String globalInfo() {
-    return "Reads heat map files.";
+    return
+      "Reads heat map files.\n"
+	+ "In batch mode, the input can be an array of files, a directory or a "
+	+ "glob pattern (eg '/some/dir/*.csv'). The files get read on a bounded "
+	+ "pool of worker threads and the heatmaps are forwarded either in the "
+	+ "order of the files or as soon as they have been read. Files that fail "
+	+ "to load get reported without stopping the batch.";
+  }
+
+  /**
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+      "batch", "batch",
+      false);
+
+    m_OptionManager.add(
+      "num-threads", "numThreads",
+      -1, -1, null);
+
+    m_OptionManager.add(
+      "read-ahead", "readAhead",
+      0, 0, null);
+
+    m_OptionManager.add(
+      "completion-order", "completionOrder",
+      false);
   }
 
   /**
@@ -110,4 +193,286 @@ public class HeatmapFileReader
   protected Class getItemClass() {
     return Heatmap.class;
   }
+
+  /**
+   * Sets whether to use batch mode.
+   *
+   * @param value	true if batch mode
+   */
+  public void setBatch(boolean value) {
+    m_Batch = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to use batch mode.
+   *
+   * @return		true if batch mode
+   */
+  public boolean getBatch() {
+    return m_Batch;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String batchTipText() {
+    return "If enabled, file arrays, directories and glob patterns get read in parallel.";
+  }
+
+  /**
+   * Sets the number of threads to use in batch mode.
+   *
+   * @param value	the number of threads: -1 = # of CPUs/cores
+   */
+  public void setNumThreads(int value) {
+    if (getOptionManager().isValid("numThreads", value)) {
+      m_NumThreads = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the number of threads to use in batch mode.
+   *
+   * @return		the number of threads: -1 = # of CPUs/cores
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String numThreadsTipText() {
+    return
+      "The number of threads to use for reading the files in batch mode; "
+	+ "-1 = number of CPUs/cores; 0 or 1 = sequential execution.";
+  }
+
+  /**
+   * Sets the maximum number of files being read or waiting to be forwarded.
+   *
+   * @param value	the number of files, 0 = twice the number of threads
+   */
+  public void setReadAhead(int value) {
+    if (getOptionManager().isValid("readAhead", value)) {
+      m_ReadAhead = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the maximum number of files being read or waiting to be forwarded.
+   *
+   * @return		the number of files, 0 = twice the number of threads
+   */
+  public int getReadAhead() {
+    return m_ReadAhead;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String readAheadTipText() {
+    return
+      "The maximum number of files that are being read or waiting to be "
+	+ "forwarded in batch mode; 0 = twice the number of threads.";
+  }
+
+  /**
+   * Sets whether to forward the heatmaps in completion order.
+   *
+   * @param value	true if completion order
+   */
+  public void setCompletionOrder(boolean value) {
+    m_CompletionOrder = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to forward the heatmaps in completion order.
+   *
+   * @return		true if completion order
+   */
+  public boolean getCompletionOrder() {
+    return m_CompletionOrder;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String completionOrderTipText() {
+    return
+      "If enabled, heatmaps get forwarded in the order they finished loading "
+	+ "rather than in the order of the files (batch mode only).";
+  }
+
+  /**
+   * Returns a quick info about the actor, which will be displayed in the GUI.
+   *
+   * @return		null if no info available, otherwise short string
+   */
+  @Override
+  public String getQuickInfo() {
+    String	result;
+
+    result = super.getQuickInfo();
+    if (m_Batch) {
+      result += QuickInfoHelper.toString(this, "numThreads", m_NumThreads, ", threads: ");
+      result += QuickInfoHelper.toString(this, "completionOrder", m_CompletionOrder, "completion order", ", ");
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the class that the consumer accepts.
+   *
+   * @return		the Class of objects that can be processed
+   */
+  @Override
+  public Class[] accepts() {
+    if (m_Batch)
+      return new Class[]{String.class, String[].class, File.class, File[].class};
+    else
+      return super.accepts();
+  }
+
+  /**
+   * Executes the flow item.
+   *
+   * @return		null if everything is fine, otherwise error message
+   */
+  @Override
+  protected String doExecute() {
+    String	result;
+    File[]	files;
+
+    if (!m_Batch)
+      return super.doExecute();
+
+    result = null;
+    stopBatch();
+    m_Queue.clear();
+
+    if (!(getReader() instanceof AbstractDataContainerReader))
+      return "Batch mode requires a reader derived from " + AbstractDataContainerReader.class.getName() + "!";
+
+    try {
+      files = HeatmapBatchReader.expand(m_InputToken.getPayload());
+    }
+    catch (Exception e) {
+      return handleException("Failed to determine files to read!", e);
+    }
+    if (isLoggingEnabled())
+      getLogger().info("Batch of " + files.length + " file(s)");
+
+    m_BatchReader = new HeatmapBatchReader(
+      (AbstractDataContainerReader<Heatmap>) getReader(), files,
+      Performance.determineNumThreads(m_NumThreads), m_ReadAhead, !m_CompletionOrder);
+
+    // an array requires all the heatmaps
+    if (m_OutputArray)
+      fillQueue(true);
+
+    return result;
+  }
+
+  /**
+   * Retrieves results from the batch, until at least one heatmap is available
+   * or, if all is true, all files have been read. Failed files get logged.
+   *
+   * @param all		whether to read all files
+   */
+  protected void fillQueue(boolean all) {
+    HeatmapBatchReader	reader;
+    Result		result;
+
+    // stopExecution() may reset the batch from another thread
+    reader = m_BatchReader;
+    if (reader == null)
+      return;
+
+    try {
+      while (reader.hasNext() && (all || m_Queue.isEmpty()) && !isStopped()) {
+	result = reader.next();
+	if (result.hasError())
+	  getLogger().severe("Failed to read heatmap from: " + result.getFile() + "\n" + result.getError());
+	else
+	  m_Queue.addAll(result.getHeatmaps());
+      }
+    }
+    catch (InterruptedException | CancellationException e) {
+      // stopped
+    }
+
+    if (!reader.hasNext() || isStopped())
+      stopBatch();
+  }
+
+  /**
+   * Checks whether there is pending output to be collected after
+   * executing the flow item.
+   *
+   * @return		true if there is pending output
+   */
+  @Override
+  public boolean hasPendingOutput() {
+    fillQueue(false);
+    return super.hasPendingOutput();
+  }
+
+  /**
+   * Returns the generated token.
+   *
+   * @return		the generated token
+   */
+  @Override
+  public Token output() {
+    fillQueue(false);
+    return super.output();
+  }
+
+  /**
+   * Stops the current batch, if any.
+   */
+  protected void stopBatch() {
+    HeatmapBatchReader	reader;
+
+    reader        = m_BatchReader;
+    m_BatchReader = null;
+    if (reader != null)
+      reader.stop();
+  }
+
+  /**
+   * Stops the execution. No message set.
+   */
+  @Override
+  public void stopExecution() {
+    stopBatch();
+    super.stopExecution();
+  }
+
+  /**
+   * Cleans up after the execution has finished.
+   */
+  @Override
+  public void wrapUp() {
+    stopBatch();
+    super.wrapUp();
+  }
 }
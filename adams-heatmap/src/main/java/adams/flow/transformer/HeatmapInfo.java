@@ -15,7 +15,7 @@
 
 /*
  * HeatmapInfo.java
- * Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2015-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.flow.transformer;
@@ -26,9 +26,6 @@ import adams.data.heatmap.HeatmapStatistic;
 import adams.flow.core.DataInfoActor;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
 
 /**
  <!-- globalinfo-start -->
@@ -243,7 +240,6 @@ public class HeatmapInfo
   protected String doExecute() {
     String		result;
     Heatmap		map;
-    HashSet<Double> 	values;
     HeatmapStatistic	stats;
 
     result = null;
@@ -284,9 +280,7 @@ public class HeatmapInfo
 	break;
 
       case VALUES:
-	values = new HashSet<>(Arrays.asList(map.toDoubleArray()));
-	m_Queue.addAll(values);
-	Collections.sort(m_Queue);
+	map.values().distinct().sorted().forEach(m_Queue::add);
 	break;
 
       default:
@@ -15,7 +15,7 @@
 
 /*
  * HeatmapLocateObjects.java
- * Copyright (C) 2015-2023 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2015-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.flow.transformer;
 
@@ -25,6 +25,8 @@ import adams.data.heatmap.Heatmap;
 import adams.data.image.AbstractImageContainer;
 import adams.data.report.Report;
 import adams.flow.core.Token;
+import adams.flow.transformer.heatmaplocateobjects.AbstractHeatmapObjectLocator;
+import adams.flow.transformer.heatmaplocateobjects.ConnectedComponents;
 import adams.flow.transformer.locateobjects.AbstractObjectLocator;
 import adams.flow.transformer.locateobjects.LocatedObject;
 import adams.flow.transformer.locateobjects.LocatedObjects;
@@ -34,7 +36,8 @@ import java.awt.image.BufferedImage;
 /**
  <!-- globalinfo-start -->
  * Locates objects in a heatmap and forwards a sub-heatmap per located object, cropped around the object.<br>
- * It is also possible to simply annotate the heatmap by storing the locations of the located objects in the report.
+ * It is also possible to simply annotate the heatmap by storing the locations of the located objects in the report.<br>
+ * Instead of turning the heatmap into an image and applying an image-based locator, a heatmap locator can be used that operates directly on the values of the heatmap. The heatmap locator also works in headless mode.
  * <br><br>
  <!-- globalinfo-end -->
  *
@@ -96,6 +99,17 @@ import java.awt.image.BufferedImage;
  * &nbsp;&nbsp;&nbsp;default: adams.flow.transformer.locateobjects.PassThrough
  * </pre>
  *
+ * <pre>-use-heatmap-locator &lt;boolean&gt; (property: useHeatmapLocator)
+ * &nbsp;&nbsp;&nbsp;If enabled, the heatmap locator is applied directly to the heatmap values 
+ * &nbsp;&nbsp;&nbsp;instead of converting the heatmap into an image and using the image locator.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ *
+ * <pre>-heatmap-locator &lt;adams.flow.transformer.heatmaplocateobjects.AbstractHeatmapObjectLocator&gt; (property: heatmapLocator)
+ * &nbsp;&nbsp;&nbsp;The algorithm for locating the objects directly in the heatmap.
+ * &nbsp;&nbsp;&nbsp;default: adams.flow.transformer.heatmaplocateobjects.ConnectedComponents -threshold adams.data.filter.heatmapthreshold.Manual
+ * </pre>
+ *
  * <pre>-generate-report &lt;boolean&gt; (property: generateReport)
  * &nbsp;&nbsp;&nbsp;If enabled, an annotated heatmap containing a report with all the locations 
  * &nbsp;&nbsp;&nbsp;is generated instead of separate heatmap objects.
@@ -139,6 +153,12 @@ public class HeatmapLocateObjects
   /** the algorithm to use. */
   protected AbstractObjectLocator m_Locator;
 
+  /** whether to use the heatmap locator rather than the image one. */
+  protected boolean m_UseHeatmapLocator;
+
+  /** the heatmap algorithm to use. */
+  protected AbstractHeatmapObjectLocator m_HeatmapLocator;
+
   /** whether to generate an annotated image rather than single heatmap objects. */
   protected boolean m_GenerateReport;
 
@@ -156,7 +176,11 @@ public class HeatmapLocateObjects
       "Locates objects in a heatmap and forwards a sub-heatmap per located object, "
         + "cropped around the object.\n"
         + "It is also possible to simply annotate the heatmap by storing the "
-        + "locations of the located objects in the report.";
+        + "locations of the located objects in the report.\n"
+        + "Instead of turning the heatmap into an image and applying an "
+        + "image-based locator, a heatmap locator can be used that operates "
+        + "directly on the values of the heatmap. The heatmap locator also "
+        + "works in headless mode.";
   }
 
   /**
@@ -174,6 +198,14 @@ public class HeatmapLocateObjects
       "locator", "locator",
       new adams.flow.transformer.locateobjects.PassThrough());
 
+    m_OptionManager.add(
+      "use-heatmap-locator", "useHeatmapLocator",
+      false);
+
+    m_OptionManager.add(
+      "heatmap-locator", "heatmapLocator",
+      new ConnectedComponents());
+
     m_OptionManager.add(
       "generate-report", "generateReport",
       false);
@@ -254,6 +286,66 @@ public class HeatmapLocateObjects
     return "The algorithm for locating the objects.";
   }
 
+  /**
+   * Sets whether to apply the heatmap locator directly to the heatmap
+   * instead of the image locator.
+   *
+   * @param value 	true if to use the heatmap locator
+   */
+  public void setUseHeatmapLocator(boolean value) {
+    m_UseHeatmapLocator = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to apply the heatmap locator directly to the heatmap
+   * instead of the image locator.
+   *
+   * @return 		true if to use the heatmap locator
+   */
+  public boolean getUseHeatmapLocator() {
+    return m_UseHeatmapLocator;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String useHeatmapLocatorTipText() {
+    return "If enabled, the heatmap locator is applied directly to the heatmap values instead of converting the heatmap into an image and using the image locator.";
+  }
+
+  /**
+   * Sets the scheme for locating the objects directly in the heatmap.
+   *
+   * @param value 	the scheme
+   */
+  public void setHeatmapLocator(AbstractHeatmapObjectLocator value) {
+    m_HeatmapLocator = value;
+    reset();
+  }
+
+  /**
+   * Returns the scheme for locating the objects directly in the heatmap.
+   *
+   * @return 		the scheme
+   */
+  public AbstractHeatmapObjectLocator getHeatmapLocator() {
+    return m_HeatmapLocator;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String heatmapLocatorTipText() {
+    return "The algorithm for locating the objects directly in the heatmap.";
+  }
+
   /**
    * Sets whether to generate an annotated heatmap with a report of all positions
    * instead of separate heatmap objects.
@@ -325,11 +417,20 @@ public class HeatmapLocateObjects
     String	variable;
 
     result = "locator: ";
-    variable = getOptionManager().getVariableForProperty("locator");
-    if (variable != null)
-      result += variable;
-    else
-      result += m_Locator.getClass().getSimpleName();
+    if (m_UseHeatmapLocator) {
+      variable = getOptionManager().getVariableForProperty("heatmapLocator");
+      if (variable != null)
+        result += variable;
+      else
+        result += m_HeatmapLocator.getClass().getSimpleName();
+    }
+    else {
+      variable = getOptionManager().getVariableForProperty("locator");
+      if (variable != null)
+        result += variable;
+      else
+        result += m_Locator.getClass().getSimpleName();
+    }
 
     return result;
   }
@@ -355,26 +456,77 @@ public class HeatmapLocateObjects
   }
 
   /**
-   * Executes the flow item.
+   * Turns the located objects into heatmaps and adds them to the queue.
    *
+   * @param heatmap	the heatmap the objects were located in
+   * @param objects	the located objects
+   * @param notes	the notes to attach
+   * @param report	the report to attach
+   */
+  protected void fillQueue(Heatmap heatmap, LocatedObjects objects, Notes notes, Report report) {
+    Heatmap	submap;
+    Report	reportNew;
+
+    m_Queue.clear();
+    if (m_GenerateReport) {
+      heatmap = heatmap.getClone();
+      heatmap.getReport().mergeWith(objects.toReport(m_Prefix));
+      m_Queue.add(heatmap);
+    }
+    else {
+      for (LocatedObject object: objects) {
+        submap = heatmap.submap(object.getY(), object.getX(), object.getHeight(), object.getWidth());
+        submap.getNotes().mergeWith(notes);
+        reportNew = new Report();
+        reportNew.setNumericValue(FIELD_X, object.getX());
+        reportNew.setNumericValue(FIELD_Y, object.getY());
+        reportNew.setNumericValue(FIELD_WIDTH, object.getWidth());
+        reportNew.setNumericValue(FIELD_HEIGHT, object.getHeight());
+        submap.setReport(reportNew);
+        submap.getReport().mergeWith(report);
+        m_Queue.add(submap);
+      }
+    }
+  }
+
+  /**
+   * Locates the objects directly in the heatmap values.
+   *
+   * @param heatmap	the heatmap to process
    * @return		null if everything is fine, otherwise error message
    */
-  @Override
-  protected String doExecute() {
+  protected String locateInHeatmap(Heatmap heatmap) {
+    String		result;
+    LocatedObjects	objects;
+
+    result = null;
+
+    try {
+      objects = m_HeatmapLocator.locate(heatmap);
+      fillQueue(heatmap, objects, heatmap.getNotes().getClone(), heatmap.getReport().getClone());
+    }
+    catch (Exception e) {
+      result = handleException("Failed to locate objects!", e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Converts the heatmap into an image and locates the objects in the image.
+   *
+   * @param heatmap	the heatmap to process
+   * @return		null if everything is fine, otherwise error message
+   */
+  protected String locateInImage(Heatmap heatmap) {
     String			result;
-    Heatmap			heatmap;
-    Heatmap			submap;
     BufferedImage		image;
     LocatedObjects		objects;
     AbstractImageContainer 	cont;
     Notes			notes;
     Report			report;
-    Report			reportNew;
-
-    result = null;
 
     image   = null;
-    heatmap = (Heatmap) m_InputToken.getPayload();
     notes   = heatmap.getNotes().getClone();
     report  = heatmap.getReport().getClone();
     m_Conversion.setInput(heatmap);
@@ -409,26 +561,7 @@ public class HeatmapLocateObjects
         for (String warning: m_Locator.getWarnings())
           notes.addWarning(this.getClass(), warning);
       }
-      m_Queue.clear();
-      if (m_GenerateReport) {
-        heatmap = heatmap.getClone();
-        heatmap.getReport().mergeWith(objects.toReport(m_Prefix));
-        m_Queue.add(heatmap);
-      }
-      else {
-        for (LocatedObject object: objects) {
-          submap = heatmap.submap(object.getY(), object.getX(), object.getHeight(), object.getWidth());
-          submap.getNotes().mergeWith(notes);
-          reportNew = new Report();
-          reportNew.setNumericValue(FIELD_X, object.getX());
-          reportNew.setNumericValue(FIELD_Y, object.getY());
-          reportNew.setNumericValue(FIELD_WIDTH, object.getWidth());
-          reportNew.setNumericValue(FIELD_HEIGHT, object.getHeight());
-          submap.setReport(reportNew);
-          submap.getReport().mergeWith(report);
-          m_Queue.add(submap);
-        }
-      }
+      fillQueue(heatmap, objects, notes, report);
       m_Locator.cleanUp();
     }
     catch (Exception e) {
@@ -438,6 +571,22 @@ public class HeatmapLocateObjects
     return result;
   }
 
+  /**
+   * Executes the flow item.
+   *
+   * @return		null if everything is fine, otherwise error message
+   */
+  @Override
+  protected String doExecute() {
+    Heatmap	heatmap;
+
+    heatmap = (Heatmap) m_InputToken.getPayload();
+    if (m_UseHeatmapLocator)
+      return locateInHeatmap(heatmap);
+    else
+      return locateInImage(heatmap);
+  }
+
   /**
    * Stops the execution. No message set.
    */
@@ -0,0 +1,81 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractHeatmapObjectLocator.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.flow.transformer.heatmaplocateobjects;
+
+import adams.core.QuickInfoSupporter;
+import adams.core.option.AbstractOptionHandler;
+import adams.data.heatmap.Heatmap;
+import adams.flow.transformer.locateobjects.LocatedObjects;
+
+/**
+ * Ancestor for algorithms that locate objects directly in the values of a
+ * heatmap, i.e., without turning it into an image first.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractHeatmapObjectLocator
+  extends AbstractOptionHandler
+  implements QuickInfoSupporter {
+
+  private static final long serialVersionUID = 3904862147436516297L;
+
+  /**
+   * Returns a quick info about the object, which can be displayed in the GUI.
+   * <br>
+   * Default implementation returns null.
+   *
+   * @return		null if no info available, otherwise short string
+   */
+  public String getQuickInfo() {
+    return null;
+  }
+
+  /**
+   * Checks the heatmap.
+   * <br><br>
+   * Default implementation only ensures that a heatmap is present.
+   *
+   * @param map		the heatmap to check
+   */
+  protected void check(Heatmap map) {
+    if (map == null)
+      throw new IllegalStateException("No heatmap provided!");
+  }
+
+  /**
+   * Performs the actual locating of the objects.
+   *
+   * @param map		the heatmap to process
+   * @return		the located objects
+   */
+  protected abstract LocatedObjects doLocate(Heatmap map);
+
+  /**
+   * Locates the objects in the heatmap.
+   *
+   * @param map		the heatmap to process
+   * @return		the located objects
+   */
+  public LocatedObjects locate(Heatmap map) {
+    check(map);
+    return doLocate(map);
+  }
+}
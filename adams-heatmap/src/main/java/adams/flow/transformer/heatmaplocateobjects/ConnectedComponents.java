@@ -0,0 +1,556 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ConnectedComponents.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.flow.transformer.heatmaplocateobjects;
+
+import adams.core.QuickInfoHelper;
+import adams.data.filter.HeatmapThreshold.Type;
+import adams.data.filter.heatmapthreshold.AbstractHeatmapThreshold;
+import adams.data.filter.heatmapthreshold.Manual;
+import adams.data.heatmap.Heatmap;
+import adams.flow.transformer.locateobjects.LocatedObject;
+import adams.flow.transformer.locateobjects.LocatedObjects;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ <!-- globalinfo-start -->
+ * Thresholds the heatmap and locates the connected components of the cells that pass the threshold, using a single-pass union-find labelling. Missing values are treated as background.<br>
+ * The meta-data of each object contains the number of cells, the mean and the maximum value.
+ * <br><br>
+ <!-- globalinfo-end -->
+ *
+ <!-- options-start -->
+ * <pre>-logging-level &lt;OFF|SEVERE|WARNING|INFO|CONFIG|FINE|FINER|FINEST&gt; (property: loggingLevel)
+ * &nbsp;&nbsp;&nbsp;The logging level for outputting errors and debugging output.
+ * &nbsp;&nbsp;&nbsp;default: WARNING
+ * </pre>
+ * 
+ * <pre>-threshold &lt;adams.data.filter.heatmapthreshold.AbstractHeatmapThreshold&gt; (property: threshold)
+ * &nbsp;&nbsp;&nbsp;The threshold algorithm to use.
+ * &nbsp;&nbsp;&nbsp;default: adams.data.filter.heatmapthreshold.Manual
+ * </pre>
+ * 
+ * <pre>-type &lt;ABOVE|BELOW&gt; (property: type)
+ * &nbsp;&nbsp;&nbsp;Whether the cells above or below the threshold make up the objects.
+ * &nbsp;&nbsp;&nbsp;default: ABOVE
+ * </pre>
+ * 
+ * <pre>-connectivity &lt;FOUR|EIGHT&gt; (property: connectivity)
+ * &nbsp;&nbsp;&nbsp;The neighborhood to use for connecting cells.
+ * &nbsp;&nbsp;&nbsp;default: EIGHT
+ * </pre>
+ * 
+ * <pre>-min-size &lt;int&gt; (property: minSize)
+ * &nbsp;&nbsp;&nbsp;The minimum number of cells an object must have.
+ * &nbsp;&nbsp;&nbsp;default: 1
+ * &nbsp;&nbsp;&nbsp;minimum: 1
+ * </pre>
+ * 
+ * <pre>-max-size &lt;int&gt; (property: maxSize)
+ * &nbsp;&nbsp;&nbsp;The maximum number of cells an object can have; -1 for unlimited.
+ * &nbsp;&nbsp;&nbsp;default: -1
+ * &nbsp;&nbsp;&nbsp;minimum: -1
+ * </pre>
+ * 
+ <!-- options-end -->
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class ConnectedComponents
+  extends AbstractHeatmapObjectLocator {
+
+  private static final long serialVersionUID = -6001420378386208237L;
+
+  /** the meta-data key for the number of cells. */
+  public final static String KEY_COUNT = "count";
+
+  /** the meta-data key for the mean value. */
+  public final static String KEY_MEAN = "mean";
+
+  /** the meta-data key for the maximum value. */
+  public final static String KEY_MAX = "max";
+
+  /**
+   * The neighborhood for connecting cells.
+   */
+  public enum Connectivity {
+    /** left, right, top, bottom. */
+    FOUR,
+    /** including the diagonals. */
+    EIGHT
+  }
+
+  /** the threshold algorithm. */
+  protected AbstractHeatmapThreshold m_Threshold;
+
+  /** which cells make up the objects. */
+  protected Type m_Type;
+
+  /** the connectivity. */
+  protected Connectivity m_Connectivity;
+
+  /** the minimum size. */
+  protected int m_MinSize;
+
+  /** the maximum size. */
+  protected int m_MaxSize;
+
+  /** the union-find parents of the provisional labels. */
+  protected transient TIntArrayList m_Parent;
+
+  /** the smallest column per label. */
+  protected transient TIntArrayList m_Left;
+
+  /** the smallest row per label. */
+  protected transient TIntArrayList m_Top;
+
+  /** the largest column per label. */
+  protected transient TIntArrayList m_Right;
+
+  /** the largest row per label. */
+  protected transient TIntArrayList m_Bottom;
+
+  /** the number of cells per label. */
+  protected transient TIntArrayList m_Count;
+
+  /** the sum of values per label. */
+  protected transient TDoubleArrayList m_Sum;
+
+  /** the maximum value per label. */
+  protected transient TDoubleArrayList m_Max;
+
+  /**
+   * Returns a string describing the object.
+   *
+   * @return 			a description suitable for displaying in the gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+      "Thresholds the heatmap and locates the connected components of the "
+	+ "cells that pass the threshold, using a single-pass union-find "
+	+ "labelling. Missing values are treated as background.\n"
+	+ "The meta-data of each object contains the number of cells, the mean "
+	+ "and the maximum value.";
+  }
+
+  /**
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+      "threshold", "threshold",
+      new Manual());
+
+    m_OptionManager.add(
+      "type", "type",
+      Type.ABOVE);
+
+    m_OptionManager.add(
+      "connectivity", "connectivity",
+      Connectivity.EIGHT);
+
+    m_OptionManager.add(
+      "min-size", "minSize",
+      1, 1, null);
+
+    m_OptionManager.add(
+      "max-size", "maxSize",
+      -1, -1, null);
+  }
+
+  /**
+   * Sets the threshold algorithm.
+   *
+   * @param value	the algorithm
+   */
+  public void setThreshold(AbstractHeatmapThreshold value) {
+    m_Threshold = value;
+    reset();
+  }
+
+  /**
+   * Returns the threshold algorithm.
+   *
+   * @return		the algorithm
+   */
+  public AbstractHeatmapThreshold getThreshold() {
+    return m_Threshold;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String thresholdTipText() {
+    return "The threshold algorithm to use.";
+  }
+
+  /**
+   * Sets whether the cells above or below the threshold make up the objects.
+   *
+   * @param value	the type
+   */
+  public void setType(Type value) {
+    m_Type = value;
+    reset();
+  }
+
+  /**
+   * Returns whether the cells above or below the threshold make up the objects.
+   *
+   * @return		the type
+   */
+  public Type getType() {
+    return m_Type;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String typeTipText() {
+    return "Whether the cells above or below the threshold make up the objects.";
+  }
+
+  /**
+   * Sets the neighborhood to use for connecting cells.
+   *
+   * @param value	the connectivity
+   */
+  public void setConnectivity(Connectivity value) {
+    m_Connectivity = value;
+    reset();
+  }
+
+  /**
+   * Returns the neighborhood to use for connecting cells.
+   *
+   * @return		the connectivity
+   */
+  public Connectivity getConnectivity() {
+    return m_Connectivity;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String connectivityTipText() {
+    return "The neighborhood to use for connecting cells.";
+  }
+
+  /**
+   * Sets the minimum number of cells an object must have.
+   *
+   * @param value	the minimum
+   */
+  public void setMinSize(int value) {
+    if (getOptionManager().isValid("minSize", value)) {
+      m_MinSize = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the minimum number of cells an object must have.
+   *
+   * @return		the minimum
+   */
+  public int getMinSize() {
+    return m_MinSize;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String minSizeTipText() {
+    return "The minimum number of cells an object must have.";
+  }
+
+  /**
+   * Sets the maximum number of cells an object can have.
+   *
+   * @param value	the maximum, -1 for unlimited
+   */
+  public void setMaxSize(int value) {
+    if (getOptionManager().isValid("maxSize", value)) {
+      m_MaxSize = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the maximum number of cells an object can have.
+   *
+   * @return		the maximum, -1 for unlimited
+   */
+  public int getMaxSize() {
+    return m_MaxSize;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String maxSizeTipText() {
+    return "The maximum number of cells an object can have; -1 for unlimited.";
+  }
+
+  /**
+   * Returns a quick info about the object, which can be displayed in the GUI.
+   *
+   * @return		null if no info available, otherwise short string
+   */
+  @Override
+  public String getQuickInfo() {
+    String	result;
+
+    result = QuickInfoHelper.toString(this, "threshold", m_Threshold, "threshold: ");
+    result += QuickInfoHelper.toString(this, "type", m_Type, ", type: ");
+    result += QuickInfoHelper.toString(this, "connectivity", m_Connectivity, ", connectivity: ");
+
+    return result;
+  }
+
+  /**
+   * Creates a new provisional label for the cell.
+   *
+   * @param row		the row of the cell
+   * @param col		the column of the cell
+   * @return		the label
+   */
+  protected int newLabel(int row, int col) {
+    int		result;
+
+    result = m_Parent.size();
+    m_Parent.add(result);
+    m_Left.add(col);
+    m_Top.add(row);
+    m_Right.add(col);
+    m_Bottom.add(row);
+    m_Count.add(0);
+    m_Sum.add(0.0);
+    m_Max.add(-Double.MAX_VALUE);
+
+    return result;
+  }
+
+  /**
+   * Determines the root of the label, halving the path on the way.
+   *
+   * @param label	the label to get the root for
+   * @return		the root label
+   */
+  protected int find(int label) {
+    int		parent;
+
+    while ((parent = m_Parent.getQuick(label)) != label) {
+      m_Parent.setQuick(label, m_Parent.getQuick(parent));
+      label = parent;
+    }
+
+    return label;
+  }
+
+  /**
+   * Merges the two labels, the smaller root becoming the root of the merged
+   * component and accumulating the statistics.
+   *
+   * @param a		the first label
+   * @param b		the second label
+   * @return		the root of the merged component
+   */
+  protected int union(int a, int b) {
+    int		rootA;
+    int		rootB;
+    int		root;
+    int		other;
+
+    rootA = find(a);
+    rootB = find(b);
+    if (rootA == rootB)
+      return rootA;
+
+    root  = Math.min(rootA, rootB);
+    other = Math.max(rootA, rootB);
+    m_Parent.setQuick(other, root);
+    m_Left.setQuick(root, Math.min(m_Left.getQuick(root), m_Left.getQuick(other)));
+    m_Top.setQuick(root, Math.min(m_Top.getQuick(root), m_Top.getQuick(other)));
+    m_Right.setQuick(root, Math.max(m_Right.getQuick(root), m_Right.getQuick(other)));
+    m_Bottom.setQuick(root, Math.max(m_Bottom.getQuick(root), m_Bottom.getQuick(other)));
+    m_Count.setQuick(root, m_Count.getQuick(root) + m_Count.getQuick(other));
+    m_Sum.setQuick(root, m_Sum.getQuick(root) + m_Sum.getQuick(other));
+    m_Max.setQuick(root, Math.max(m_Max.getQuick(root), m_Max.getQuick(other)));
+
+    return root;
+  }
+
+  /**
+   * Adds the cell to the component of the label.
+   *
+   * @param label	the label
+   * @param row		the row of the cell
+   * @param col		the column of the cell
+   * @param value	the value of the cell
+   */
+  protected void addCell(int label, int row, int col, double value) {
+    m_Left.setQuick(label, Math.min(m_Left.getQuick(label), col));
+    m_Top.setQuick(label, Math.min(m_Top.getQuick(label), row));
+    m_Right.setQuick(label, Math.max(m_Right.getQuick(label), col));
+    m_Bottom.setQuick(label, Math.max(m_Bottom.getQuick(label), row));
+    m_Count.setQuick(label, m_Count.getQuick(label) + 1);
+    m_Sum.setQuick(label, m_Sum.getQuick(label) + value);
+    m_Max.setQuick(label, Math.max(m_Max.getQuick(label), value));
+  }
+
+  /**
+   * Performs the actual locating of the objects.
+   *
+   * @param map		the heatmap to process
+   * @return		the located objects
+   */
+  @Override
+  protected LocatedObjects doLocate(Heatmap map) {
+    LocatedObjects	result;
+    LocatedObject	object;
+    double		threshold;
+    double[]		values;
+    int[]		prev;
+    int[]		curr;
+    int[]		swap;
+    int			width;
+    int			row;
+    int			col;
+    int			label;
+    boolean		eight;
+    double		value;
+    boolean		foreground;
+    int			i;
+    int			count;
+
+    threshold = m_Threshold.calcThreshold(map);
+    if (isLoggingEnabled())
+      getLogger().info("Threshold: " + threshold);
+
+    m_Parent = new TIntArrayList();
+    m_Left   = new TIntArrayList();
+    m_Top    = new TIntArrayList();
+    m_Right  = new TIntArrayList();
+    m_Bottom = new TIntArrayList();
+    m_Count  = new TIntArrayList();
+    m_Sum    = new TDoubleArrayList();
+    m_Max    = new TDoubleArrayList();
+
+    // single pass over the rows, only keeping the labels of the previous row
+    width  = map.getWidth();
+    values = new double[width];
+    prev   = new int[width];
+    curr   = new int[width];
+    eight  = (m_Connectivity == Connectivity.EIGHT);
+    for (col = 0; col < width; col++)
+      prev[col] = -1;
+    for (row = 0; row < map.getHeight(); row++) {
+      map.getStorage().getRow(row, values, 0);
+      for (col = 0; col < width; col++) {
+	value = values[col];
+	if (Heatmap.isMissingValue(value))
+	  foreground = false;
+	else if (m_Type == Type.ABOVE)
+	  foreground = (value > threshold);
+	else
+	  foreground = (value < threshold);
+	if (!foreground) {
+	  curr[col] = -1;
+	  continue;
+	}
+
+	label = -1;
+	if ((col > 0) && (curr[col - 1] > -1))
+	  label = curr[col - 1];
+	if (prev[col] > -1)
+	  label = (label == -1) ? prev[col] : union(label, prev[col]);
+	if (eight) {
+	  if ((col > 0) && (prev[col - 1] > -1))
+	    label = (label == -1) ? prev[col - 1] : union(label, prev[col - 1]);
+	  if ((col < width - 1) && (prev[col + 1] > -1))
+	    label = (label == -1) ? prev[col + 1] : union(label, prev[col + 1]);
+	}
+	if (label == -1)
+	  label = newLabel(row, col);
+	else
+	  label = find(label);
+	addCell(label, row, col, value);
+	curr[col] = label;
+      }
+      swap = prev;
+      prev = curr;
+      curr = swap;
+    }
+
+    // collect the components
+    result = new LocatedObjects();
+    for (i = 0; i < m_Parent.size(); i++) {
+      if (m_Parent.getQuick(i) != i)
+	continue;
+      count = m_Count.getQuick(i);
+      if (count < m_MinSize)
+	continue;
+      if ((m_MaxSize > -1) && (count > m_MaxSize))
+	continue;
+      object = new LocatedObject(
+	null,
+	m_Left.getQuick(i),
+	m_Top.getQuick(i),
+	m_Right.getQuick(i) - m_Left.getQuick(i) + 1,
+	m_Bottom.getQuick(i) - m_Top.getQuick(i) + 1);
+      object.getMetaData().put(KEY_COUNT, count);
+      object.getMetaData().put(KEY_MEAN, m_Sum.getQuick(i) / count);
+      object.getMetaData().put(KEY_MAX, m_Max.getQuick(i));
+      result.add(object);
+    }
+
+    m_Parent = null;
+    m_Left   = null;
+    m_Top    = null;
+    m_Right  = null;
+    m_Bottom = null;
+    m_Count  = null;
+    m_Sum    = null;
+    m_Max    = null;
+
+    return result;
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractCellWiseMultiHeatmapOperation.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.flow.transformer.multiheatmapoperation;
+
+import adams.core.Performance;
+import adams.data.heatmap.Heatmap;
+
+/**
+ * Ancestor for operations that combine the corresponding cells of heatmaps
+ * with the same dimensions into a single heatmap. Blocks of rows are
+ * processed in parallel.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractCellWiseMultiHeatmapOperation
+  extends AbstractMultiHeatmapOperation<Heatmap> {
+
+  private static final long serialVersionUID = -2750195419318917563L;
+
+  /** the number of threads to use. */
+  protected int m_NumThreads;
+
+  /**
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+      "num-threads", "numThreads",
+      -1, -1, null);
+  }
+
+  /**
+   * Sets the number of threads to use.
+   *
+   * @param value	the number of threads: -1 = # of CPUs/cores; 0/1 = sequential execution
+   */
+  public void setNumThreads(int value) {
+    if (getOptionManager().isValid("numThreads", value)) {
+      m_NumThreads = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the number of threads to use.
+   *
+   * @return		the number of threads: -1 = # of CPUs/cores; 0/1 = sequential execution
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String numThreadsTipText() {
+    return "The number of threads to use for processing the rows; -1 = number of CPUs/cores; 0 or 1 = sequential execution.";
+  }
+
+  /**
+   * Returns the minimum number of heatmaps that are required for the operation.
+   *
+   * @return the number of heatmaps that are required, <= 0 means no lower limit
+   */
+  @Override
+  public int minNumSheetsRequired() {
+    return 2;
+  }
+
+  /**
+   * Returns the maximum number of heatmaps that are required for the operation.
+   *
+   * @return the number of heatmaps that are required, <= 0 means no upper limit
+   */
+  @Override
+  public int maxNumSheetsRequired() {
+    return 0;
+  }
+
+  /**
+   * The type of data that is generated.
+   *
+   * @return the class
+   */
+  @Override
+  public Class generates() {
+    return Heatmap.class;
+  }
+
+  /**
+   * Checks the heatmaps.
+   *
+   * @param maps	the heatmaps to check
+   */
+  @Override
+  protected void check(Heatmap[] maps) {
+    int 	i;
+
+    super.check(maps);
+
+    for (i = 1; i < maps.length; i++) {
+      if (maps[0].getWidth() != maps[i].getWidth())
+        throw new IllegalStateException("Heatmap 1 and " + (i+1) + " differ in width: " + maps[0].getWidth() + " != " + maps[i].getWidth());
+      if (maps[0].getHeight() != maps[i].getHeight())
+        throw new IllegalStateException("Heatmap 1 and " + (i+1) + " differ in height: " + maps[0].getHeight() + " != " + maps[i].getHeight());
+    }
+  }
+
+  /**
+   * Returns the number of threads to actually use.
+   *
+   * @return		the number of threads
+   */
+  protected int determineNumThreads() {
+    return Performance.determineNumThreads(m_NumThreads);
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Min.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.flow.transformer.multiheatmapoperation;
+
+import adams.core.MessageCollection;
+import adams.data.heatmap.Heatmap;
+import adams.data.heatmap.HeatmapAccumulator;
+
+/**
+ * Determines the minimum per cell across the heatmaps, skipping missing values.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Min
+  extends AbstractCellWiseMultiHeatmapOperation {
+
+  private static final long serialVersionUID = 3517732703729432161L;
+
+  /**
+   * Returns a string describing the object.
+   *
+   * @return a description suitable for displaying in the gui
+   */
+  @Override
+  public String globalInfo() {
+    return "Determines the minimum per cell across the heatmaps, skipping missing values.";
+  }
+
+  /**
+   * Performs the actual processing of the heatmaps.
+   *
+   * @param maps   the heatmaps to process
+   * @param errors for collecting errors
+   * @return the generated data
+   */
+  @Override
+  protected Heatmap doProcess(Heatmap[] maps, MessageCollection errors) {
+    HeatmapAccumulator	acc;
+
+    acc = new HeatmapAccumulator(determineNumThreads());
+    for (Heatmap map: maps)
+      acc.add(map);
+
+    return acc.getMin();
+  }
+}
@@ -15,13 +15,14 @@
 
 /*
  * Subtract.java
- * Copyright (C) 2021 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2021-2026 University of Waikato, Hamilton, NZ
  */
 
 package adams.flow.transformer.multiheatmapoperation;
 
 import adams.core.MessageCollection;
 import adams.data.heatmap.Heatmap;
+import adams.data.heatmap.HeatmapRowTask;
 
 /**
  * Subtracts the values of the other heatmaps from the first one.
@@ -29,7 +30,7 @@ import adams.data.heatmap.Heatmap;
  * @author FracPete (fracpete at waikato dot ac dot nz)
  */
 public class Subtract
-  extends AbstractMultiHeatmapOperation<Heatmap>{
+  extends AbstractCellWiseMultiHeatmapOperation {
 
   private static final long serialVersionUID = 6124767252812041585L;
 
@@ -43,54 +44,6 @@ public class Subtract
     return "Subtracts the values of the other heatmaps from the first one.";
   }
 
-  /**
-   * Returns the minimum number of heatmaps that are required for the operation.
-   *
-   * @return the number of heatmaps that are required, <= 0 means no lower limit
-   */
-  @Override
-  public int minNumSheetsRequired() {
-    return 2;
-  }
-
-  /**
-   * Returns the maximum number of heatmaps that are required for the operation.
-   *
-   * @return the number of heatmaps that are required, <= 0 means no upper limit
-   */
-  @Override
-  public int maxNumSheetsRequired() {
-    return 0;
-  }
-
-  /**
-   * The type of data that is generated.
-   *
-   * @return the class
-   */
-  @Override
-  public Class generates() {
-    return Heatmap.class;
-  }
-
-  /**
-   * Checks the heatmaps.
-   *
-   * @param maps	the heatmaps to check
-   */
-  protected void check(Heatmap[] maps) {
-    int 	i;
-
-    super.check(maps);
-
-    for (i = 1; i < maps.length; i++) {
-      if (maps[0].getWidth() != maps[i].getWidth())
-        throw new IllegalStateException("Heatmap 1 and " + (i+1) + " differ in width: " + maps[0].getWidth() + " != " + maps[i].getWidth());
-      if (maps[0].getHeight() != maps[i].getHeight())
-        throw new IllegalStateException("Heatmap 1 and " + (i+1) + " differ in height: " + maps[0].getHeight() + " != " + maps[i].getHeight());
-    }
-  }
-
   /**
    * Performs the actual processing of the heatmaps.
    *
@@ -99,19 +52,24 @@ public class Subtract
    * @return the generated data
    */
   @Override
-  protected Heatmap doProcess(Heatmap[] maps, MessageCollection errors) {
-    Heatmap	result;
-    int		i;
-    int		x;
-    int		y;
+  protected Heatmap doProcess(final Heatmap[] maps, MessageCollection errors) {
+    final Heatmap	result;
 
-    result = maps[0].getClone();
-    for (i = 1; i < maps.length; i++) {
-      for (y = 0; y < result.getHeight(); y++) {
-	for (x = 0; x < result.getWidth(); x++)
-	  result.set(y, x, result.get(y, x) - maps[i].get(y, x));
+    result = maps[0].getHeader();
+    HeatmapRowTask.run(result.getHeight(), determineNumThreads(), (start, end) -> {
+      double[] values = new double[result.getWidth()];
+      double[] other  = new double[result.getWidth()];
+      for (int row = start; row < end; row++) {
+	maps[0].getStorage().getRow(row, values, 0);
+	for (int i = 1; i < maps.length; i++) {
+	  maps[i].getStorage().getRow(row, other, 0);
+	  for (int x = 0; x < values.length; x++)
+	    values[x] -= other[x];
+	}
+	result.getStorage().setRow(row, values, 0);
       }
-    }
+    });
+    result.invalidateStatistics();
 
     return result;
   }
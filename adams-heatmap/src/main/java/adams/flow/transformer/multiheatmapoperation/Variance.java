@@ -0,0 +1,108 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Variance.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package adams.flow.transformer.multiheatmapoperation;
+
+import adams.core.MessageCollection;
+import adams.data.heatmap.Heatmap;
+import adams.data.heatmap.HeatmapAccumulator;
+
+/**
+ * Computes the variance per cell across the heatmaps, skipping missing values.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Variance
+  extends AbstractCellWiseMultiHeatmapOperation {
+
+  private static final long serialVersionUID = 1975405312182504122L;
+
+  /** whether to compute the sample variance. */
+  protected boolean m_Sample;
+
+  /**
+   * Returns a string describing the object.
+   *
+   * @return a description suitable for displaying in the gui
+   */
+  @Override
+  public String globalInfo() {
+    return "Computes the variance per cell across the heatmaps, skipping missing values.";
+  }
+
+  /**
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+      "sample", "sample",
+      true);
+  }
+
+  /**
+   * Sets whether to compute the sample variance (n-1) or the population one (n).
+   *
+   * @param value	true if sample variance
+   */
+  public void setSample(boolean value) {
+    m_Sample = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to compute the sample variance (n-1) or the population one (n).
+   *
+   * @return		true if sample variance
+   */
+  public boolean getSample() {
+    return m_Sample;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String sampleTipText() {
+    return "If enabled, the sample variance (n-1) is computed rather than the population one (n).";
+  }
+
+  /**
+   * Performs the actual processing of the heatmaps.
+   *
+   * @param maps   the heatmaps to process
+   * @param errors for collecting errors
+   * @return the generated data
+   */
+  @Override
+  protected Heatmap doProcess(Heatmap[] maps, MessageCollection errors) {
+    HeatmapAccumulator	acc;
+
+    acc = new HeatmapAccumulator(determineNumThreads());
+    for (Heatmap map: maps)
+      acc.add(map);
+
+    return acc.getVariance(m_Sample);
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapImageCache.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.gui.visualization.heatmap;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache for rendered heatmap images, bounded by a memory budget.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class HeatmapImageCache {
+
+  /** the maximum number of bytes to use. */
+  protected long m_MaxBytes;
+
+  /** the images (access-ordered). */
+  protected LinkedHashMap<Object,BufferedImage> m_Images;
+
+  /** the bytes currently in use. */
+  protected long m_Bytes;
+
+  /**
+   * Initializes the cache.
+   *
+   * @param maxBytes		the memory budget in bytes
+   */
+  public HeatmapImageCache(long maxBytes) {
+    m_MaxBytes = Math.max(0, maxBytes);
+    m_Images   = new LinkedHashMap<>(16, 0.75f, true);
+    m_Bytes    = 0;
+  }
+
+  /**
+   * Returns the memory budget.
+   *
+   * @return		the maximum number of bytes
+   */
+  public long getMaxBytes() {
+    return m_MaxBytes;
+  }
+
+  /**
+   * Estimates the memory footprint of the image.
+   *
+   * @param img		the image to inspect
+   * @return		the number of bytes
+   */
+  public static long sizeOf(BufferedImage img) {
+    DataBuffer	buffer;
+
+    if (img == null)
+      return 0;
+
+    buffer = img.getRaster().getDataBuffer();
+    return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+  }
+
+  /**
+   * Stores the image under the given key, replacing any previous entry.
+   *
+   * @param key		the key to use
+   * @param img		the image
+   */
+  public synchronized void put(Object key, BufferedImage img) {
+    remove(key);
+    if (img == null)
+      return;
+
+    // an image larger than the whole budget is never cached
+    if (sizeOf(img) <= m_MaxBytes) {
+      m_Images.put(key, img);
+      m_Bytes += sizeOf(img);
+    }
+    evict();
+  }
+
+  /**
+   * Returns the image for the key.
+   *
+   * @param key		the key to look up
+   * @return		the image, null if not cached (anymore)
+   */
+  public synchronized BufferedImage get(Object key) {
+    return m_Images.get(key);
+  }
+
+  /**
+   * Removes the image associated with the key.
+   *
+   * @param key		the key to remove
+   */
+  public synchronized void remove(Object key) {
+    m_Bytes -= sizeOf(m_Images.remove(key));
+  }
+
+  /**
+   * Removes all images.
+   */
+  public synchronized void clear() {
+    m_Images.clear();
+    m_Bytes = 0;
+  }
+
+  /**
+   * Returns the number of bytes currently in use.
+   *
+   * @return		the bytes
+   */
+  public synchronized long getBytes() {
+    return m_Bytes;
+  }
+
+  /**
+   * Evicts least recently used images until the cache fits into the
+   * memory budget again.
+   */
+  protected void evict() {
+    Iterator<Map.Entry<Object,BufferedImage>>	iter;
+
+    iter = m_Images.entrySet().iterator();
+    while ((m_Bytes > m_MaxBytes) && iter.hasNext()) {
+      m_Bytes -= sizeOf(iter.next().getValue());
+      iter.remove();
+    }
+  }
+}
@@ -15,15 +15,18 @@
 
 /*
  * HeatmapPanel.java
- * Copyright (C) 2011-2022 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.gui.visualization.heatmap;
 
+import adams.core.Performance;
 import adams.core.Properties;
 import adams.core.io.PlaceholderFile;
 import adams.data.conversion.HeatmapToBufferedImage;
 import adams.data.conversion.HeatmapToSpreadSheet;
 import adams.data.heatmap.Heatmap;
+import adams.data.heatmap.HeatmapPyramid;
+import adams.data.heatmap.HeatmapPyramid.Statistic;
 import adams.data.image.AbstractImageContainer;
 import adams.data.io.input.AbstractHeatmapReader;
 import adams.data.report.Report;
@@ -57,11 +60,15 @@ import adams.gui.visualization.image.selectionshape.RectanglePainter;
 import adams.gui.visualization.report.ReportFactory;
 
 import javax.swing.JPanel;
+import javax.swing.SwingWorker;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Container;
+import java.awt.Point;
+import java.awt.Toolkit;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.HashSet;
 import java.util.List;
 
@@ -122,6 +129,27 @@ public class HeatmapPanel
   /** the selection listeners. */
   protected HashSet<HeatmapPanelSelectionListener> m_SelectionListeners;
 
+  /** the key for the owner's image cache. */
+  protected Object m_CacheKey;
+
+  /** whether the image has been released (e.g., page not visible). */
+  protected boolean m_ImageReleased;
+
+  /** the zoom (relative to the heatmap, -1 to fit). */
+  protected double m_Zoom;
+
+  /** the multi-resolution representation of the heatmap, built lazily. */
+  protected HeatmapPyramid m_Pyramid;
+
+  /** whether building the pyramid failed. */
+  protected boolean m_PyramidFailed;
+
+  /** the pyramid level of the image on display. */
+  protected int m_DisplayedLevel;
+
+  /** the worker for building pyramid levels in the background. */
+  protected transient SwingWorker m_PyramidWorker;
+
   /**
    * Initializes the panel.
    *
@@ -149,6 +177,13 @@ public class HeatmapPanel
     m_ColorGenerator     = AbstractColorGradientGenerator.forCommandLine(props.getProperty("Image.GradientColorGenerator", new BiColorGenerator().toCommandLine()));
     m_MissingValueColor  = props.getColor("Image.MissingValueColor", ColorHelper.valueOf("#88ff0000"));
     m_SelectionListeners = new HashSet<>();
+    m_CacheKey           = new Object();
+    m_ImageReleased      = false;
+    m_Zoom               = props.getDouble("Image.Scale", -1.0);
+    m_Pyramid            = null;
+    m_PyramidFailed      = false;
+    m_DisplayedLevel     = 0;
+    m_PyramidWorker      = null;
   }
 
   /**
@@ -238,28 +273,219 @@ public class HeatmapPanel
     return getOwner();
   }
 
+  /**
+   * Returns the owner's cache for rendered images.
+   *
+   * @return		the cache, null if not available
+   */
+  protected HeatmapImageCache getImageCache() {
+    if (m_Owner == null)
+      return null;
+    return m_Owner.getImageCache();
+  }
+
+  /**
+   * Returns the multi-resolution representation of the heatmap, creating
+   * it if necessary. Levels get built on demand.
+   *
+   * @return		the pyramid
+   */
+  public synchronized HeatmapPyramid getPyramid() {
+    if (m_Pyramid == null) {
+      m_Pyramid = new HeatmapPyramid(m_Heatmap);
+      m_Pyramid.setNumThreads(Performance.determineNumThreads(-1));
+    }
+    return m_Pyramid;
+  }
+
+  /**
+   * Returns whether the heatmap is large enough to be displayed using the
+   * pyramid levels rather than the full resolution image.
+   *
+   * @return		true if to use the pyramid
+   */
+  public boolean usePyramid() {
+    int		minSize;
+
+    if (m_PyramidFailed)
+      return false;
+    minSize = getProperties().getInteger("Image.PyramidMinSize", 2048);
+    return (minSize > 0) && (Math.max(m_Heatmap.getWidth(), m_Heatmap.getHeight()) >= minSize);
+  }
+
+  /**
+   * Determines the pyramid level that matches the current zoom.
+   *
+   * @return		the level, 0 for full resolution
+   */
+  protected int determineLevel() {
+    double	scale;
+    int		width;
+    int		height;
+
+    if (!usePyramid())
+      return 0;
+
+    if (m_Zoom > 0) {
+      scale = m_Zoom;
+    }
+    else {
+      width  = m_HeatmapImage.getWidth();
+      height = m_HeatmapImage.getHeight();
+      if ((width <= 0) || (height <= 0)) {
+	width  = Toolkit.getDefaultToolkit().getScreenSize().width;
+	height = Toolkit.getDefaultToolkit().getScreenSize().height;
+      }
+      scale = Math.min((double) width / m_Heatmap.getWidth(), (double) height / m_Heatmap.getHeight());
+    }
+
+    return getPyramid().getLevelForScale(scale);
+  }
+
+  /**
+   * Returns the factor between heatmap and image on display.
+   *
+   * @return		the factor, 1 for full resolution
+   */
+  public int getImageFactor() {
+    return HeatmapPyramid.getFactor(m_DisplayedLevel);
+  }
+
+  /**
+   * Returns the key for the image cache.
+   *
+   * @param level	the pyramid level
+   * @return		the key
+   */
+  protected Object getCacheKey(int level) {
+    if (level == 0)
+      return m_CacheKey;
+    else
+      return new SimpleImmutableEntry<>(m_CacheKey, level);
+  }
+
+  /**
+   * Removes all images of this panel from the image cache.
+   */
+  protected void invalidateImageCache() {
+    int		i;
+
+    if (getImageCache() == null)
+      return;
+
+    getImageCache().remove(getCacheKey(0));
+    if (m_Pyramid != null) {
+      for (i = 1; i < m_Pyramid.getNumLevels(); i++)
+	getImageCache().remove(getCacheKey(i));
+    }
+  }
+
+  /**
+   * Builds the pyramid level in the background and refreshes the display
+   * afterwards.
+   *
+   * @param level	the level to build
+   */
+  protected void buildLevel(final int level) {
+    final HeatmapPyramid	pyramid;
+
+    if (m_PyramidWorker != null)
+      return;
+
+    pyramid = getPyramid();
+    if (m_Owner != null)
+      m_Owner.showStatus("Building image pyramid...");
+    m_PyramidWorker = new SwingWorker() {
+      @Override
+      protected Object doInBackground() throws Exception {
+	pyramid.getLevel(level);
+	return null;
+      }
+
+      @Override
+      protected void done() {
+	m_PyramidWorker = null;
+	try {
+	  get();
+	}
+	catch (Exception e) {
+	  System.err.println("Failed to build pyramid level " + level + ", falling back to full resolution: " + e);
+	  m_PyramidFailed = true;
+	}
+	if (m_Owner != null)
+	  m_Owner.showStatus("");
+	if (pyramid == m_Pyramid)
+	  refresh();
+	super.done();
+      }
+    };
+    m_PyramidWorker.execute();
+  }
+
+  /**
+   * Applies the zoom to the image panel, taking the factor of the level on
+   * display into account.
+   */
+  protected void applyZoom() {
+    if (m_Zoom > 0)
+      m_HeatmapImage.setScale(m_Zoom * getImageFactor());
+    else
+      m_HeatmapImage.setScale(m_Zoom);
+  }
+
   /**
    * Regenerates the image of the current heatmap and redisplays it.
+   * If the image is currently released, only the cached images get
+   * invalidated and rendering happens once the image is restored.
+   * Large heatmaps get displayed using the pyramid level that matches the
+   * current zoom, building the level in the background if necessary.
    *
    * @return		null if everything OK, otherwiser error message
    */
   protected String refresh() {
     String			result;
-    Properties			props;
     StringBuilder		errors;
     String			error;
     HeatmapToBufferedImage	hm2bi;
+    BufferedImage		image;
+    int				level;
+    double			min;
+    double			max;
 
     if (m_Heatmap.getWidth() == 0)
       return null;
 
+    if (m_ImageReleased) {
+      invalidateImageCache();
+      return null;
+    }
+
+    level = determineLevel();
+    if ((level > 0) && !getPyramid().isBuilt(level)) {
+      m_HeatmapImage.setCurrentImage((BufferedImage) null);
+      buildLevel(level);
+      return null;
+    }
+
     errors = new StringBuilder();
-    props  = getProperties();
 
     hm2bi = new HeatmapToBufferedImage();
-    hm2bi.setInput(m_Heatmap);
     hm2bi.setGenerator(m_ColorGenerator);
     hm2bi.setMissingValueColor(m_MissingValueColor);
+    if (level == 0) {
+      hm2bi.setInput(m_Heatmap);
+    }
+    else {
+      // use the colors of the full resolution heatmap
+      min = m_Heatmap.getMin();
+      max = m_Heatmap.getMax();
+      if (max == min)
+	max = min + 1.0;
+      hm2bi.setUseFixedRange(true);
+      hm2bi.setMin(min);
+      hm2bi.setMax(max);
+      hm2bi.setInput(getPyramid().toHeatmap(level, Statistic.MEAN));
+    }
     result = hm2bi.convert();
     if (result != null) {
       error = "Failed to generate image: " + result;
@@ -270,8 +496,12 @@ public class HeatmapPanel
       m_HeatmapImage.setCurrentImage((BufferedImage) null);
     }
     else {
-      m_HeatmapImage.setCurrentImage(((AbstractImageContainer) hm2bi.getOutput()).toBufferedImage());
-      m_HeatmapImage.setScale(props.getDouble("Image.Scale", -1.0));
+      image = ((AbstractImageContainer) hm2bi.getOutput()).toBufferedImage();
+      if (getImageCache() != null)
+	getImageCache().put(getCacheKey(level), image);
+      m_DisplayedLevel = level;
+      m_HeatmapImage.setCurrentImage(image);
+      applyZoom();
     }
 
     if (errors.length() == 0)
@@ -281,11 +511,73 @@ public class HeatmapPanel
   }
 
   /**
-   * Sets the heatmap to display.
+   * Releases the rendered image, e.g., when the panel is no longer visible.
+   * The image remains in the owner's cache until evicted.
+   */
+  public void releaseImage() {
+    if (m_ImageReleased)
+      return;
+    if (m_HeatmapImage.getCurrentImage() != null)
+      m_Zoom = getZoom();
+    m_ImageReleased = true;
+    m_HeatmapImage.setCurrentImage((BufferedImage) null);
+  }
+
+  /**
+   * Displays the image again after it got released, using the cached image
+   * if still available or re-rendering it otherwise.
+   *
+   * @see		#releaseImage()
+   */
+  public void restoreImage() {
+    BufferedImage	image;
+    int			level;
+
+    if (!m_ImageReleased)
+      return;
+
+    m_ImageReleased = false;
+    image           = null;
+    level           = determineLevel();
+    if (getImageCache() != null)
+      image = getImageCache().get(getCacheKey(level));
+    if (image != null) {
+      m_DisplayedLevel = level;
+      m_HeatmapImage.setCurrentImage(image);
+      applyZoom();
+    }
+    else {
+      refresh();
+    }
+  }
+
+  /**
+   * Returns whether the image is currently released.
+   *
+   * @return		true if released
+   */
+  public boolean isImageReleased() {
+    return m_ImageReleased;
+  }
+
+  /**
+   * Sets the heatmap to display. Released images stay released.
    *
    * @param value	the heatmap to display
+   * @see		#releaseImage()
    */
   public void setHeatmap(Heatmap value) {
+    setHeatmap(value, !m_ImageReleased);
+  }
+
+  /**
+   * Sets the heatmap to display.
+   *
+   * @param value	the heatmap to display
+   * @param render	whether to render the image immediately, otherwise it
+   * 			gets rendered once {@link #restoreImage()} is called
+   */
+  public void setHeatmap(Heatmap value, boolean render) {
     String			result;
     Properties			props;
     HeatmapToSpreadSheet	hm2ss;
@@ -295,9 +587,18 @@ public class HeatmapPanel
     if (value == null)
       return;
 
-    m_Heatmap = value.getClone();
+    invalidateImageCache();
+    synchronized(this) {
+      m_Heatmap       = value.getClone();
+      m_Pyramid       = null;
+      m_PyramidFailed = false;
+    }
     props     = getProperties();
     errors    = new StringBuilder();
+    if (render)
+      m_ImageReleased = false;
+    else
+      releaseImage();
 
     // image
     error = refresh();
@@ -473,12 +774,12 @@ public class HeatmapPanel
     if ((getOwner() != null) && report.hasValue(Heatmap.FIELD_FILENAME) && (m_Reader != null)) {
       file   = new PlaceholderFile(report.getStringValue(Heatmap.FIELD_FILENAME));
       reader = (AbstractHeatmapReader) m_Reader.shallowCopy(true);
-      scale  = getImagePanel().getScale();
+      scale  = getZoom();
       reader.setInput(file);
       maps   = reader.read();
       if (maps.size() >= 1) {
 	setHeatmap(maps.get(0));
-	getImagePanel().setScale(scale);
+	setZoom(scale);
 	reader.cleanUp();
 	log("Reload: " + file);
 	return true;
@@ -544,7 +845,13 @@ public class HeatmapPanel
    * @param zoom	the zoom factor
    */
   public void setZoom(double zoom) {
-    m_HeatmapImage.setScale(zoom);
+    m_Zoom = zoom;
+    if (m_ImageReleased)
+      return;
+    if (determineLevel() != m_DisplayedLevel)
+      refresh();
+    else
+      applyZoom();
   }
   
   /**
@@ -553,7 +860,13 @@ public class HeatmapPanel
    * @return		the zoom factor
    */
   public double getZoom() {
-    return m_HeatmapImage.getScale();
+    double	result;
+
+    result = m_HeatmapImage.getScale();
+    if (result > 0)
+      result /= getImageFactor();
+
+    return result;
   }
 
   /**
@@ -654,8 +967,22 @@ public class HeatmapPanel
    */
   public void selected(ImagePanelSelectionEvent e) {
     HeatmapPanelSelectionEvent	he;
+    int				factor;
 
-    he = new HeatmapPanelSelectionEvent(this, e.getTopLeft(), e.getBottomRight(), e.getModifiersEx());
+    factor = getImageFactor();
+    if (factor == 1) {
+      he = new HeatmapPanelSelectionEvent(this, e.getTopLeft(), e.getBottomRight(), e.getModifiersEx());
+    }
+    else {
+      // translate into heatmap coordinates
+      he = new HeatmapPanelSelectionEvent(
+	this,
+	new Point(e.getTopLeft().x * factor, e.getTopLeft().y * factor),
+	new Point(
+	  Math.min(m_Heatmap.getWidth(), (e.getBottomRight().x + 1) * factor) - 1,
+	  Math.min(m_Heatmap.getHeight(), (e.getBottomRight().y + 1) * factor) - 1),
+	e.getModifiersEx());
+    }
 
     synchronized (m_SelectionListeners) {
       for (HeatmapPanelSelectionListener l : m_SelectionListeners)
@@ -15,13 +15,15 @@
 
 /*
  * HeatmapViewerPanel.java
- * Copyright (C) 2011-2025 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.gui.visualization.heatmap;
 
 import adams.core.CleanUpHandler;
+import adams.core.Performance;
 import adams.core.Properties;
 import adams.core.StatusMessageHandler;
+import adams.core.Utils;
 import adams.core.io.PlaceholderFile;
 import adams.data.filter.Filter;
 import adams.data.filter.HeatmapNormalize;
@@ -78,7 +80,12 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Panel for viewing/processing heatmaps.
@@ -199,6 +206,36 @@ public class HeatmapViewerPanel
   /** the recent files handler. */
   protected RecentFilesHandlerWithCommandline<JMenu> m_RecentFilesHandler;
 
+  /** the "stop loading" menu item. */
+  protected JMenuItem m_MenuItemFileStopLoading;
+
+  /** the cache for rendered images. */
+  protected HeatmapImageCache m_ImageCache;
+
+  /** the panel that was selected last. */
+  protected HeatmapPanel m_LastSelectedPanel;
+
+  /** the worker currently loading files. */
+  protected transient SwingWorker m_Loader;
+
+  /**
+   * Container for a heatmap loaded in the background.
+   */
+  protected static class LoadedHeatmap {
+
+    /** the file the heatmap was loaded from. */
+    public File file;
+
+    /** the reader instance used for loading. */
+    public AbstractHeatmapReader reader;
+
+    /** the heatmap, null if failed to load. */
+    public Heatmap heatmap;
+
+    /** the error message, null if successful. */
+    public String error;
+  }
+
   /**
    * Initializes the members.
    */
@@ -218,6 +255,10 @@ public class HeatmapViewerPanel
     m_DialogMissingValueColor  = null;
     m_RecentFilesHandler       = null;
     m_PluginManager            = new HeatmapViewerPluginManager(this);
+    m_ImageCache               = new HeatmapImageCache(
+      props.getInteger("Cache.MaxMemory", 256) * 1024L * 1024L);
+    m_LastSelectedPanel        = null;
+    m_Loader                   = null;
   }
 
   /**
@@ -240,6 +281,7 @@ public class HeatmapViewerPanel
     m_MultiPagePane.addChangeListener(new ChangeListener() {
       @Override
       public void stateChanged(ChangeEvent e) {
+	updateImages();
 	if ((m_MenuItemViewMissingValueColor != null) && (getCurrentPanel() != null))
 	  m_MenuItemViewMissingValueColor.setIcon(new CustomColorImageIcon(16, 16, getCurrentPanel().getMissingValueColor()));
       }
@@ -321,6 +363,19 @@ public class HeatmapViewerPanel
       });
       m_MenuItemFileOpenRecent = submenu;
 
+      // File/Stop loading
+      menuitem = new JMenuItem("Stop loading");
+      menu.add(menuitem);
+      menuitem.setMnemonic('p');
+      menuitem.setIcon(ImageManager.getIcon("stop_blue.gif"));
+      menuitem.addActionListener(new ActionListener() {
+	@Override
+	public void actionPerformed(ActionEvent e) {
+	  stopLoading();
+	}
+      });
+      m_MenuItemFileStopLoading = menuitem;
+
       // File/Save As
       menuitem = new JMenuItem("Save as...");
       menu.add(menuitem);
@@ -481,7 +536,7 @@ public class HeatmapViewerPanel
       menuitem.setAccelerator(GUIHelper.getKeyStroke("ctrl shift pressed I"));
       menuitem.addActionListener(new ActionListener() {
 	public void actionPerformed(ActionEvent e) {
-	  getCurrentPanel().getImagePanel().setScale(getCurrentPanel().getImagePanel().getScale() * 1.5);
+	  getCurrentPanel().setZoom(getCurrentPanel().getZoom() * 1.5);
 	}
       });
       m_MenuItemViewZoomIn = menuitem;
@@ -493,7 +548,7 @@ public class HeatmapViewerPanel
       menuitem.setAccelerator(GUIHelper.getKeyStroke("ctrl shift pressed O"));
       menuitem.addActionListener(new ActionListener() {
 	public void actionPerformed(ActionEvent e) {
-	  getCurrentPanel().getImagePanel().setScale(getCurrentPanel().getImagePanel().getScale() / 1.5);
+	  getCurrentPanel().setZoom(getCurrentPanel().getZoom() / 1.5);
 	}
       });
       m_MenuItemViewZoomOut = menuitem;
@@ -732,6 +787,7 @@ public class HeatmapViewerPanel
     dataLoaded = (m_MultiPagePane.getPageCount() > 0);
 
     // File
+    m_MenuItemFileStopLoading.setEnabled(isLoading());
     m_MenuItemFileSaveAs.setEnabled(getCurrentPanel() != null);
     m_MenuItemFileReloadCurrent.setEnabled(dataLoaded && getCurrentPanel().canReload());
     m_MenuItemFileReloadAll.setEnabled(dataLoaded);
@@ -790,15 +846,48 @@ public class HeatmapViewerPanel
    * Removes the current tab.
    */
   public void closeCurrent() {
-    if (m_MultiPagePane.getSelectedIndex() != -1)
+    if (m_MultiPagePane.getSelectedIndex() != -1) {
+      if (getCurrentPanel() == m_LastSelectedPanel)
+	m_LastSelectedPanel = null;
+      getCurrentPanel().invalidateImageCache();
       m_MultiPagePane.removePageAt(m_MultiPagePane.getSelectedIndex());
+    }
   }
 
   /**
    * Removes all the data.
    */
   public void closeAll() {
+    m_LastSelectedPanel = null;
     m_MultiPagePane.removeAllPages();
+    m_ImageCache.clear();
+  }
+
+  /**
+   * Returns the cache for the rendered images.
+   *
+   * @return		the cache
+   */
+  public HeatmapImageCache getImageCache() {
+    return m_ImageCache;
+  }
+
+  /**
+   * Releases the image of the previously selected panel and restores
+   * the one of the currently selected panel.
+   */
+  protected void updateImages() {
+    HeatmapPanel	current;
+
+    current = getCurrentPanel();
+    if (current == m_LastSelectedPanel)
+      return;
+
+    if (m_LastSelectedPanel != null)
+      m_LastSelectedPanel.releaseImage();
+    if (current != null)
+      current.restoreImage();
+    m_LastSelectedPanel = current;
   }
 
   /**
@@ -808,11 +897,23 @@ public class HeatmapViewerPanel
    * @return		the panel
    */
   protected HeatmapPanel newPanel(Heatmap map) {
+    return newPanel(map, true);
+  }
+
+  /**
+   * Creates a new panel and configures it.
+   *
+   * @param map		the map to create the panel for
+   * @param render	whether to render the image immediately or only
+   * 			once the panel gets selected
+   * @return		the panel
+   */
+  protected HeatmapPanel newPanel(Heatmap map, boolean render) {
     HeatmapPanel 	result;
 
     result = new HeatmapPanel(this);
     result.setSearchPanelVisible(false);
-    result.setHeatmap(map);
+    result.setHeatmap(map, render);
 
     return result;
   }
@@ -834,40 +935,156 @@ public class HeatmapViewerPanel
   }
 
   /**
-   * Loads heatmaps from disk, popping up a file chooser dialog.
+   * Returns whether files are currently being loaded.
+   *
+   * @return		true if loading
+   */
+  public boolean isLoading() {
+    return (m_Loader != null);
+  }
+
+  /**
+   * Stops the loading of files, if any.
+   */
+  public void stopLoading() {
+    if (m_Loader != null)
+      m_Loader.cancel(true);
+  }
+
+  /**
+   * Loads the heatmap from the file, using the specified reader instance.
+   *
+   * @param file	the file to load
+   * @param reader	the reader to use, exclusive to this call
+   * @return		the result
+   */
+  protected LoadedHeatmap loadHeatmap(File file, AbstractHeatmapReader reader) {
+    LoadedHeatmap	result;
+    List<Heatmap>	maps;
+
+    result        = new LoadedHeatmap();
+    result.file   = file;
+    result.reader = reader;
+    reader.setInput(new PlaceholderFile(file));
+    maps = reader.read();
+    if (maps.isEmpty())
+      result.error = "Failed to read heatmap from: " + file;
+    else
+      result.heatmap = maps.get(0);
+    reader.cleanUp();
+
+    return result;
+  }
+
+  /**
+   * Loads heatmaps from disk in parallel, using a separate reader instance
+   * per file. The number of threads is determined by the "Load.NumThreads"
+   * property and only a bounded number of files is read ahead. Pages get
+   * added in the order of the files, but only the first one gets rendered
+   * immediately; the others get rendered once selected.
+   *
+   * @param files	the files to load
+   * @param reader	the reader to use as template
+   * @see		#stopLoading()
    */
   public void load(final File[] files, final AbstractHeatmapReader reader) {
+    final int		numThreads;
     SwingWorker 	worker;
 
-    worker = new SwingWorker() {
+    if (files.length == 0)
+      return;
+
+    stopLoading();
+    numThreads = Performance.determineNumThreads(getProperties().getInteger("Load.NumThreads", -1));
+
+    worker = new SwingWorker<Object,LoadedHeatmap>() {
+      protected List<String> m_Errors = new ArrayList<>();
+      protected boolean m_Selected = false;
+      protected int m_Loaded = 0;
+
       @Override
       protected Object doInBackground() throws Exception {
-	for (final File file: files) {
-	  showStatus("Loading file: " + file);
-	  reader.setInput(new PlaceholderFile(file));
-	  List<Heatmap> maps = reader.read();
-	  if (maps.isEmpty()) {
-	    GUIHelper.showErrorMessage(HeatmapViewerPanel.this, "Failed to read heatmap from:\n" + reader.getInput());
-	    showStatus("");
-	    return null;
+	ExecutorService			executor;
+	LinkedList<Future<LoadedHeatmap>>	pending;
+	LoadedHeatmap			loaded;
+	int				next;
+	int				done;
+
+	executor = Executors.newFixedThreadPool(numThreads);
+	pending  = new LinkedList<>();
+	next     = 0;
+	done     = 0;
+	try {
+	  while ((done < files.length) && !isCancelled()) {
+	    // read ahead, but only a bounded number of files
+	    while ((next < files.length) && (pending.size() < 2 * numThreads)) {
+	      final File file = files[next];
+	      final AbstractHeatmapReader copy = (AbstractHeatmapReader) reader.shallowCopy(true);
+	      pending.add(executor.submit(() -> loadHeatmap(file, copy)));
+	      next++;
+	    }
+	    try {
+	      loaded = pending.removeFirst().get();
+	    }
+	    catch (ExecutionException e) {
+	      loaded       = new LoadedHeatmap();
+	      loaded.file  = files[done];
+	      loaded.error = "Failed to read heatmap from: " + files[done] + "\n" + e.getCause();
+	    }
+	    done++;
+	    publish(loaded);
+	    setProgress(done * 100 / files.length);
+	    showStatus("Loading files: " + done + "/" + files.length);
+	  }
+	}
+	catch (InterruptedException e) {
+	  // cancelled
+	}
+	finally {
+	  for (Future<LoadedHeatmap> future: pending)
+	    future.cancel(true);
+	  executor.shutdownNow();
+	}
+	return null;
+      }
+
+      @Override
+      protected void process(List<LoadedHeatmap> chunks) {
+	for (LoadedHeatmap loaded: chunks) {
+	  if (loaded.heatmap == null) {
+	    m_Errors.add(loaded.error);
+	    continue;
 	  }
-	  HeatmapPanel panel = newPanel(maps.get(0));
-	  panel.log("Load: " + file);
-	  panel.setReader(reader);
+	  HeatmapPanel panel = newPanel(loaded.heatmap, !m_Selected);
+	  panel.log("Load: " + loaded.file);
+	  panel.setReader(loaded.reader);
 	  m_MultiPagePane.addPage(panel.getTitle(), panel);
-	  m_MultiPagePane.setSelectedPage(panel);
+	  if (!m_Selected) {
+	    m_MultiPagePane.setSelectedPage(panel);
+	    m_Selected = true;
+	  }
+	  m_Loaded++;
 	  if (m_RecentFilesHandler != null)
-	    m_RecentFilesHandler.addRecentItem(new Setup(file, reader));
+	    m_RecentFilesHandler.addRecentItem(new Setup(loaded.file, reader));
 	}
-	return null;
       }
 
       @Override
       protected void done() {
-	showStatus("");
+	if (m_Loader == this)
+	  m_Loader = null;
+	if (isCancelled())
+	  showStatus("Loading stopped, loaded " + m_Loaded + "/" + files.length + " file(s)");
+	else
+	  showStatus("");
+	updateMenu();
+	if (!m_Errors.isEmpty())
+	  GUIHelper.showErrorMessage(HeatmapViewerPanel.this, Utils.flatten(m_Errors, "\n"));
 	super.done();
       }
     };
+    m_Loader = worker;
+    updateMenu();
     worker.execute();
   }
 
@@ -1202,6 +1419,8 @@ public class HeatmapViewerPanel
    * Cleans up data structures, frees up memory.
    */
   public void cleanUp() {
+    stopLoading();
+    m_ImageCache.clear();
     if (m_DialogColorGenerator != null) {
       m_DialogColorGenerator.dispose();
       m_DialogColorGenerator = null;
@@ -15,7 +15,7 @@
 
 /**
  * CentroidOverlay.java
- * Copyright (C) 2011-2015 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.gui.visualization.heatmap.overlay;
 
@@ -24,6 +24,7 @@ import adams.gui.visualization.image.AbstractImageOverlay;
 import adams.gui.visualization.image.ImagePanel.PaintPanel;
 
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 
 /**
  * Ancestor for heatmap image overlays.
@@ -59,6 +60,17 @@ public abstract class AbstractHeatmapOverlay
     return m_HeatmapPanel;
   }
 
+  /**
+   * Returns whether the overlay paints using heatmap coordinates, which
+   * need translating if the panel displays a lower resolution image.
+   *
+   * @return		true if heatmap coordinates
+   * @see		HeatmapPanel#getImageFactor()
+   */
+  public boolean usesHeatmapCoordinates() {
+    return false;
+  }
+
   /**
    * Paints the overlay over the image.
    *
@@ -67,9 +79,23 @@ public abstract class AbstractHeatmapOverlay
    */
   @Override
   public void paintOverlay(PaintPanel panel, Graphics g) {
-    if (m_HeatmapPanel != null)
-      super.paintOverlay(panel, g);
-    else
+    Graphics2D	g2d;
+    int		factor;
+
+    if (m_HeatmapPanel != null) {
+      factor = m_HeatmapPanel.getImageFactor();
+      if (usesHeatmapCoordinates() && (factor > 1)) {
+	g2d = (Graphics2D) g.create();
+	g2d.scale(1.0 / factor, 1.0 / factor);
+	super.paintOverlay(panel, g2d);
+	g2d.dispose();
+      }
+      else {
+	super.paintOverlay(panel, g);
+      }
+    }
+    else {
       getLogger().severe("Not heatmap panel set!");
+    }
   }
 }
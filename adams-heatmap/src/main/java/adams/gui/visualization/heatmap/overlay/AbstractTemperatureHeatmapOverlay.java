@@ -0,0 +1,184 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * AbstractTemperatureHeatmapOverlay.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.gui.visualization.heatmap.overlay;
+
+import adams.data.heatmap.Heatmap;
+import adams.data.heatmap.HeatmapPyramid;
+import adams.gui.visualization.image.ImagePanel.PaintPanel;
+
+import javax.swing.SwingWorker;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ancestor for overlays that paint the points whose temperature lies
+ * within a range.
+ * <br><br>
+ * Small heatmaps get scanned directly. Large heatmaps (i.e., ones displayed
+ * via the pyramid) get located in the background using the pyramid, as
+ * building the pyramid levels and the statistics takes too long for the
+ * EDT. Nothing gets painted until the points have been located.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractTemperatureHeatmapOverlay
+  extends AbstractSingleColorHeatmapOverlay {
+
+  private static final long serialVersionUID = 4271046498925880361L;
+
+  /** the list of points in the temperature range. */
+  protected List<Point> m_Points;
+
+  /** the worker locating the points in the background. */
+  protected transient SwingWorker m_Worker;
+
+  /**
+   * Resets the scheme.
+   */
+  @Override
+  protected void reset() {
+    super.reset();
+
+    m_Points = null;
+  }
+
+  /**
+   * Returns whether the overlay paints using heatmap coordinates, which
+   * need translating if the panel displays a lower resolution image.
+   *
+   * @return		always true
+   */
+  @Override
+  public boolean usesHeatmapCoordinates() {
+    return true;
+  }
+
+  /**
+   * Notifies the overlay that the image has changed.
+   *
+   * @param panel	the panel this overlay belongs to
+   */
+  @Override
+  protected synchronized void doImageChanged(PaintPanel panel) {
+    m_Points = null;
+  }
+
+  /**
+   * Determines the range of temperatures to locate.
+   *
+   * @param map		the heatmap to determine the range for
+   * @return		the lower and upper bound (both incl)
+   */
+  protected abstract double[] determineRange(Heatmap map);
+
+  /**
+   * Locates the points by scanning all the cells of the heatmap.
+   *
+   * @param map		the heatmap to scan
+   * @return		the points
+   */
+  protected List<Point> locate(Heatmap map) {
+    List<Point>	result;
+    double[]	range;
+    double	value;
+    int		x;
+    int		y;
+
+    range  = determineRange(map);
+    result = new ArrayList<>();
+    for (y = 0; y < map.getHeight(); y++) {
+      for (x = 0; x < map.getWidth(); x++) {
+	value = map.get(y, x);
+	if (!Double.isNaN(value) && (value >= range[0]) && (value <= range[1]))
+	  result.add(new Point(x, y));
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Locates the points in the background using the pyramid and repaints
+   * the panel afterwards. Does nothing if already locating.
+   *
+   * @param panel	the panel to repaint
+   * @param pyramid	the pyramid to use
+   */
+  protected void locateInBackground(final PaintPanel panel, final HeatmapPyramid pyramid) {
+    if (m_Worker != null)
+      return;
+
+    m_Worker = new SwingWorker<List<Point>,Object>() {
+      @Override
+      protected List<Point> doInBackground() throws Exception {
+	double[] range = determineRange(pyramid.getHeatmap());
+	return pyramid.locate(range[0], range[1]);
+      }
+
+      @Override
+      protected void done() {
+	m_Worker = null;
+	try {
+	  synchronized(AbstractTemperatureHeatmapOverlay.this) {
+	    // discard outdated results
+	    if ((m_HeatmapPanel != null) && (m_HeatmapPanel.getPyramid() == pyramid))
+	      m_Points = get();
+	  }
+	}
+	catch (Exception e) {
+	  getLogger().warning("Failed to locate points: " + e);
+	  m_Points = new ArrayList<>();
+	}
+	panel.repaint();
+	super.done();
+      }
+    };
+    m_Worker.execute();
+  }
+
+  /**
+   * Paints the overlay over the image.
+   *
+   * @param panel	the panel this overlay is for
+   * @param g		the graphics context
+   */
+  @Override
+  protected synchronized void doPaintOverlay(PaintPanel panel, Graphics g) {
+    int		x;
+    int		y;
+
+    if (m_Points == null) {
+      if (m_HeatmapPanel.usePyramid()) {
+	locateInBackground(panel, m_HeatmapPanel.getPyramid());
+	return;
+      }
+      m_Points = locate(m_HeatmapPanel.getHeatmap());
+    }
+
+    g.setColor(m_Color);
+    for (Point p: m_Points) {
+      x = (int) p.getX();
+      y = (int) p.getY();
+      g.drawLine(x, y, x, y);
+    }
+  }
+}
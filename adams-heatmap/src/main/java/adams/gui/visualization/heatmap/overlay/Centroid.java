@@ -15,7 +15,7 @@
 
 /**
  * Centroid.java
- * Copyright (C) 2011-2015 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.gui.visualization.heatmap.overlay;
 
@@ -99,6 +99,17 @@ public class Centroid
     m_Centroid[1] = map.getReport().getDoubleValue(new Field(HeatmapCentroid.CENTROID_Y, DataType.NUMERIC));
   }
 
+  /**
+   * Returns whether the overlay paints using heatmap coordinates, which
+   * need translating if the panel displays a lower resolution image.
+   *
+   * @return		always true
+   */
+  @Override
+  public boolean usesHeatmapCoordinates() {
+    return true;
+  }
+
   /**
    * Notifies the overlay that the image has changed.
    *
@@ -119,6 +130,8 @@ public class Centroid
   protected synchronized void doPaintOverlay(PaintPanel panel, Graphics g) {
     int		x;
     int		y;
+    int		width;
+    int		height;
 
     if (m_Centroid == null)
       calcCentroid();
@@ -131,8 +144,10 @@ public class Centroid
     x = (int) Math.round(m_Centroid[0]);
     y = (int) Math.round(m_Centroid[1]);
 
+    width  = Math.max(panel.getOwner().getWidth(), m_HeatmapPanel.getHeatmap().getWidth());
+    height = Math.max(panel.getOwner().getHeight(), m_HeatmapPanel.getHeatmap().getHeight());
     g.setColor(m_Color);
-    g.drawLine(x, 0, x, panel.getOwner().getHeight() - 1);
-    g.drawLine(0, y, panel.getOwner().getWidth() - 1, y);
+    g.drawLine(x, 0, x, height - 1);
+    g.drawLine(0, y, width - 1, y);
   }
 }
@@ -15,18 +15,12 @@
 
 /**
  * LowestTemperature.java
- * Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2015-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.gui.visualization.heatmap.overlay;
 
 import adams.data.filter.HeatmapCentroid;
 import adams.data.heatmap.Heatmap;
-import adams.gui.visualization.image.ImagePanel.PaintPanel;
-
-import java.awt.Graphics;
-import java.awt.Point;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  <!-- globalinfo-start -->
@@ -63,7 +57,7 @@ import java.util.List;
  * @see HeatmapCentroid
  */
 public class LowestTemperature
-  extends AbstractSingleColorHeatmapOverlay {
+  extends AbstractTemperatureHeatmapOverlay {
 
   /** for serialization. */
   private static final long serialVersionUID = -2945211815191636810L;
@@ -71,9 +65,6 @@ public class LowestTemperature
   /** the tolerance in temperature to consider still "highest" temperature. */
   protected double m_Tolerance;
 
-  /** the list of points with highest temperature. */
-  protected List<Point> m_Points;
-
   /**
    * Returns a string describing the object.
    *
@@ -96,16 +87,6 @@ public class LowestTemperature
       0.0, 0.0, null);
   }
 
-  /**
-   * Resets the scheme.
-   */
-  @Override
-  protected void reset() {
-    super.reset();
-
-    m_Points = null;
-  }
-
   /**
    * Sets the tolerance.
    *
@@ -141,54 +122,16 @@ public class LowestTemperature
   }
 
   /**
-   * Notifies the overlay that the image has changed.
+   * Determines the range of temperatures to locate.
    *
-   * @param panel	the panel this overlay belongs to
+   * @param map		the heatmap to determine the range for
+   * @return		the lower and upper bound (both incl)
    */
   @Override
-  protected synchronized void doImageChanged(PaintPanel panel) {
-    m_Points = null;
-  }
-
-  /**
-   * Locates the points with the highest temperature.
-   *
-   * @param map         the heatmap to use
-   */
-  protected void locate(Heatmap map) {
-    double lowest;
-    int		x;
-    int		y;
+  protected double[] determineRange(Heatmap map) {
+    double	lowest;
 
     lowest = map.getMin();
-    m_Points = new ArrayList<>();
-    for (y = 0; y < map.getHeight(); y++) {
-      for (x = 0; x < map.getWidth(); x++) {
-        if (map.get(y, x) <= lowest - m_Tolerance)
-          m_Points.add(new Point(x, y));
-      }
-    }
-  }
-
-  /**
-   * Paints the overlay over the image.
-   *
-   * @param panel	the panel this overlay is for
-   * @param g		the graphics context
-   */
-  @Override
-  protected synchronized void doPaintOverlay(PaintPanel panel, Graphics g) {
-    int		x;
-    int		y;
-
-    if (m_Points == null)
-      locate(m_HeatmapPanel.getHeatmap());
-
-    g.setColor(m_Color);
-    for (Point p: m_Points) {
-      x = (int) p.getX();
-      y = (int) p.getY();
-      g.drawLine(x, y, x, y);
-    }
+    return new double[]{Double.NEGATIVE_INFINITY, lowest + m_Tolerance};
   }
 }
@@ -0,0 +1,155 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * HeatmapFilterChainTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.data.filter;
+
+import adams.data.filter.heatmapthreshold.Manual;
+import adams.data.heatmap.Heatmap;
+import adams.env.Environment;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Test class for the HeatmapFilterChain filter. Run from the command line with: <br><br>
+ * java adams.data.filter.HeatmapFilterChainTest
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ * @version $Revision$
+ */
+public class HeatmapFilterChainTest
+  extends AbstractHeatmapFilterTestCase {
+
+  /**
+   * Constructs the test case. Called by subclasses.
+   *
+   * @param name 	the name of the test
+   */
+  public HeatmapFilterChainTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Returns the filenames (without path) of the input data files to use
+   * in the regression test.
+   *
+   * @return		the filenames
+   */
+  @Override
+  protected String[] getRegressionInputFiles() {
+    return new String[]{
+	"simple.csv",
+	"simple.csv",
+    };
+  }
+
+  /**
+   * Returns the setups to use in the regression test.
+   *
+   * @return		the setups
+   */
+  @Override
+  protected Filter[] getRegressionSetups() {
+    HeatmapFilterChain[]	result;
+    HeatmapThreshold		threshold;
+    Manual			manual;
+
+    result = new HeatmapFilterChain[2];
+
+    // fused
+    result[0] = new HeatmapFilterChain();
+    threshold = new HeatmapThreshold();
+    manual    = new Manual();
+    manual.setThreshold(0.1);
+    threshold.setThreshold(manual);
+    result[0].setFilters(new Filter[]{
+      new HeatmapNormalize(),
+      threshold,
+    });
+
+    // fused, followed by regular filter
+    result[1] = new HeatmapFilterChain();
+    threshold = new HeatmapThreshold();
+    manual    = new Manual();
+    manual.setThreshold(6.0);
+    threshold.setThreshold(manual);
+    result[1].setFilters(new Filter[]{
+      threshold,
+      new HeatmapRotate(),
+    });
+
+    return result;
+  }
+
+  /**
+   * Tests whether fused filters update ID and notes just like when applying
+   * them one after the other.
+   */
+  public void testBookkeeping() {
+    Heatmap		data;
+    Heatmap		fused;
+    Heatmap		sequential;
+    HeatmapFilterChain	chain;
+    HeatmapThreshold	threshold;
+    Manual		manual;
+
+    data = load("simple.csv");
+    assertNotNull("Failed to load data?", data);
+
+    threshold = new HeatmapThreshold();
+    manual    = new Manual();
+    manual.setThreshold(0.1);
+    threshold.setThreshold(manual);
+    chain = new HeatmapFilterChain();
+    chain.setDontUpdateID(true);
+    chain.setFilters(new Filter[]{
+      new HeatmapNormalize(),
+      threshold,
+      new HeatmapRotate(),
+    });
+    fused = (Heatmap) chain.filter(data);
+
+    sequential = data;
+    for (Filter filter: chain.getFilters())
+      sequential = (Heatmap) filter.filter(sequential);
+
+    assertEquals("IDs differ", sequential.getID(), fused.getID());
+    assertEquals("values differ", sequential.toIntensityString(), fused.toIntensityString());
+    for (String line: sequential.getNotes().toString().split("\n"))
+      assertTrue("note missing: " + line, fused.getNotes().toString().contains(line));
+  }
+
+  /**
+   * Returns the test suite.
+   *
+   * @return		the suite
+   */
+  public static Test suite() {
+    return new TestSuite(HeatmapFilterChainTest.class);
+  }
+
+  /**
+   * Runs the test from commandline.
+   *
+   * @param args	ignored
+   */
+  public static void main(String[] args) {
+    Environment.setEnvironmentClass(Environment.class);
+    runTest(suite());
+  }
+}
@@ -19,7 +19,10 @@
  */
 package adams.data.filter;
 
+import adams.data.filter.heatmapthreshold.HistogramOtsu;
+import adams.data.filter.heatmapthreshold.Li;
 import adams.data.filter.heatmapthreshold.Manual;
+import adams.data.filter.heatmapthreshold.Triangle;
 import adams.env.Environment;
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -54,6 +57,9 @@ public class HeatmapThresholdTest
     return new String[]{
 	"simple.csv",
 	"simple.csv",
+	"simple.csv",
+	"simple.csv",
+	"simple.csv",
     };
   }
 
@@ -66,12 +72,18 @@ public class HeatmapThresholdTest
   protected Filter[] getRegressionSetups() {
     HeatmapThreshold[]	result;
     
-    result    = new HeatmapThreshold[2];
+    result    = new HeatmapThreshold[5];
     result[0] = new HeatmapThreshold();
     result[1] = new HeatmapThreshold();
     Manual manual = new Manual();
     manual.setThreshold(30.0);
     result[1].setThreshold(manual);
+    result[2] = new HeatmapThreshold();
+    result[2].setThreshold(new HistogramOtsu());
+    result[3] = new HeatmapThreshold();
+    result[3].setThreshold(new Li());
+    result[4] = new HeatmapThreshold();
+    result[4].setThreshold(new Triangle());
     
     return result;
   }
@@ -0,0 +1,114 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapExpressionTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.heatmap;
+
+import adams.env.Environment;
+import adams.test.AdamsTestCase;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the adams.data.heatmap.HeatmapExpression class.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class HeatmapExpressionTest
+  extends AdamsTestCase {
+
+  /**
+   * Initializes the test.
+   *
+   * @param name	the name of the test
+   */
+  public HeatmapExpressionTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Compiles the expression and evaluates it.
+   *
+   * @param expr	the expression
+   * @param x		the value for X
+   * @return		the result
+   */
+  protected double evaluate(String expr, double x) {
+    HeatmapExpression	compiled;
+
+    compiled = HeatmapExpression.compile(expr);
+    assertNotNull("failed to compile: " + expr, compiled);
+    return compiled.evaluate(x);
+  }
+
+  /**
+   * Tests the arithmetic operators and their precedence.
+   */
+  public void testArithmetics() {
+    assertEquals(0.5, evaluate("(X - 273.15) / 50", 298.15), 1e-12);
+    assertEquals(7.0, evaluate("1 + 2 * 3", 0), 1e-12);
+    assertEquals(9.0, evaluate("(1 + 2) * 3", 0), 1e-12);
+    assertEquals(-4.0, evaluate("-X * 2", 2), 1e-12);
+    assertEquals(1.0, evaluate("X % 3", 7), 1e-12);
+    assertEquals(8.0, evaluate("2 ^ X", 3), 1e-12);
+    assertEquals(6.0, evaluate("[X] + X", 3), 1e-12);
+  }
+
+  /**
+   * Tests the constants and functions.
+   */
+  public void testFunctions() {
+    assertEquals(3.0, evaluate("sqrt(X)", 9), 1e-12);
+    assertEquals(2.0, evaluate("max(X; 2)", 1), 1e-12);
+    assertEquals(1.0, evaluate("min(X, 2)", 1), 1e-12);
+    assertEquals(Math.PI, evaluate("pi * abs(X)", -1), 1e-12);
+    assertEquals(1.0, evaluate("log(e)", 0), 1e-12);
+    assertEquals(5.0, evaluate("hypot(3, X)", 4), 1e-12);
+  }
+
+  /**
+   * Tests that unsupported expressions don't get compiled.
+   */
+  public void testUnsupported() {
+    assertNull(HeatmapExpression.compile("ifelse(X > 1, 1, 0)"));
+    assertNull(HeatmapExpression.compile("X + Y"));
+    assertNull(HeatmapExpression.compile("X +"));
+    assertNull(HeatmapExpression.compile("unknown(X)"));
+    assertNull(HeatmapExpression.compile("(X"));
+  }
+
+  /**
+   * Returns a test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(HeatmapExpressionTest.class);
+  }
+
+  /**
+   * Runs the test from commandline.
+   *
+   * @param args	ignored
+   */
+  public static void main(String[] args) {
+    Environment.setEnvironmentClass(Environment.class);
+    runTest(suite());
+  }
+}
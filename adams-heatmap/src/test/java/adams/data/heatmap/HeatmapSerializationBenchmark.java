@@ -0,0 +1,157 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ */
+
+package adams.data.heatmap;
+
+import adams.data.Notes;
+import adams.data.report.Report;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Compares the serialization round-trip of {@link Heatmap} against the
+ * default serialization of the 2-D array, report and notes (the previous
+ * encoding). Run from commandline with: <br><br>
+ * java adams.data.heatmap.HeatmapSerializationBenchmark [rows cols [iterations]]
+ * <br><br>
+ * Set the system property {@link Heatmap#PROPERTY_COMPRESS} to true to
+ * benchmark the compressed encoding.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class HeatmapSerializationBenchmark {
+
+  /**
+   * Container mimicking the default serialized form of the heatmap.
+   */
+  public static class LegacyHeatmap
+    implements Serializable {
+
+    private static final long serialVersionUID = -2051398541867102254L;
+
+    /** the values. */
+    public double[][] values;
+
+    /** the report. */
+    public Report report;
+
+    /** the notes. */
+    public Notes notes;
+  }
+
+  /**
+   * Serializes and deserializes the object.
+   *
+   * @param obj		the object to process
+   * @param size	for storing the number of serialized bytes
+   * @return		the deserialized object
+   * @throws Exception	if serialization fails
+   */
+  protected static Object roundTrip(Object obj, long[] size) throws Exception {
+    ByteArrayOutputStream	bos;
+    ObjectOutputStream		oos;
+    ObjectInputStream		ois;
+
+    bos = new ByteArrayOutputStream();
+    oos = new ObjectOutputStream(bos);
+    oos.writeObject(obj);
+    oos.close();
+    size[0] = bos.size();
+    ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+    try {
+      return ois.readObject();
+    }
+    finally {
+      ois.close();
+    }
+  }
+
+  /**
+   * Times the round-trip of the object.
+   *
+   * @param label	the label to output
+   * @param obj		the object to process
+   * @param iterations	the number of iterations
+   * @throws Exception	if serialization fails
+   */
+  protected static void time(String label, Object obj, int iterations) throws Exception {
+    long[]	size;
+    long	start;
+    long	best;
+    long	total;
+    long	time;
+    int		i;
+
+    size = new long[1];
+    // warm-up
+    for (i = 0; i < 3; i++)
+      roundTrip(obj, size);
+
+    best  = Long.MAX_VALUE;
+    total = 0;
+    for (i = 0; i < iterations; i++) {
+      start = System.nanoTime();
+      roundTrip(obj, size);
+      time  = System.nanoTime() - start;
+      best  = Math.min(best, time);
+      total += time;
+    }
+
+    System.out.println(label + ": bytes=" + size[0] + ", best=" + (best / 1000000.0) + "ms, mean=" + (total / iterations / 1000000.0) + "ms");
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args	optional: rows cols [iterations]
+   * @throws Exception	if serialization fails
+   */
+  public static void main(String[] args) throws Exception {
+    int			rows;
+    int			cols;
+    int			iterations;
+    int			i;
+    Heatmap		map;
+    LegacyHeatmap	legacy;
+
+    rows       = (args.length >= 2) ? Integer.parseInt(args[0]) : 2000;
+    cols       = (args.length >= 2) ? Integer.parseInt(args[1]) : 2000;
+    iterations = (args.length >= 3) ? Integer.parseInt(args[2]) : 10;
+
+    map = new Heatmap(rows, cols);
+    for (i = 0; i < map.size(); i++)
+      map.set(i, (i % cols) * 0.5 + (i / cols) % 100);
+    map.getReport().setNumericValue("Sample", 42);
+    map.getReport().setStringValue("Name", "benchmark");
+
+    legacy        = new LegacyHeatmap();
+    legacy.values = new double[rows][];
+    for (i = 0; i < rows; i++)
+      legacy.values[i] = map.getRow(i, null);
+    legacy.report = map.getReport();
+    legacy.notes  = map.getNotes();
+
+    System.out.println("Heatmap: " + rows + "x" + cols + ", iterations=" + iterations + ", compress=" + Heatmap.isSerializationCompressed());
+    time("default", legacy, iterations);
+    time("externalizable", map, iterations);
+  }
+}
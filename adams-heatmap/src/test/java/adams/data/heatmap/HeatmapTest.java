@@ -15,17 +15,26 @@
 
 /*
  * HeatmapTest.java
- * Copyright (C) 2011-2020 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2011-2026 University of Waikato, Hamilton, New Zealand
  */
 
 package adams.data.heatmap;
 
 import adams.core.classmanager.ClassManager;
+import adams.data.report.DataType;
+import adams.data.report.Field;
 import adams.env.Environment;
 import adams.test.AdamsTestCase;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
+import java.awt.Point;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteOrder;
+import java.util.List;
+
 /**
  * Tests the adams.data.heatmap.Heatmap class. Run from commandline with: <br><br>
  * java adams.data.heatmap.HeatmapTest
@@ -73,6 +82,372 @@ public class HeatmapTest
     assertEquals("value differs", 3.0, map.get(12));
   }
 
+  /**
+   * Tests the file-backed storage.
+   */
+  public void testMappedStorage() {
+    Heatmap	map;
+    Heatmap	clone;
+    Heatmap	view;
+    File	file;
+
+    map = new Heatmap(new MappedHeatmapStorage(10, 20, false));
+    map.set(3, 4, 2.0);
+    map.set(9, 19, 5.0);
+    map.set(42, 3.0);
+    assertEquals("value differs", 2.0, map.get(3, 4));
+    assertEquals("value differs", 3.0, map.get(2, 2));
+    assertEquals("max differs", 5.0, map.getMax());
+    assertEquals("row of max differs", 9, map.getMaxValue().getY());
+
+    clone = map.getClone();
+    clone.set(3, 4, 1.0);
+    assertEquals("original modified", 2.0, map.get(3, 4));
+    assertTrue("not file-backed", clone.getStorage() instanceof MappedHeatmapStorage);
+
+    clone = (Heatmap) ClassManager.getSingleton().deepCopy(map);
+    assertNotNull("Serialization failed", clone);
+    assertEquals("value differs", 5.0, clone.get(9, 19));
+
+    file = ((MappedHeatmapStorage) clone.getStorage()).getFile();
+    assertTrue("temporary file missing", file.exists());
+    view = clone.submapView(9, 19, 1, 1);
+    clone.cleanUp();
+    assertFalse("temporary file not deleted", file.exists());
+    assertEquals("storage not released", 0, clone.size());
+    assertEquals("view not readable after clean up", 5.0, view.get(0, 0));
+  }
+
+  /**
+   * Tests mapping a read-only file, which gets copied on the first write.
+   *
+   * @throws Exception	if test fails
+   */
+  public void testMappedStorageReadOnly() throws Exception {
+    MappedHeatmapStorage	storage;
+    File			file;
+    File			copy;
+
+    file = File.createTempFile("heatmap-test-", ".bin");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+	for (int i = 0; i < 6; i++)
+	  out.writeFloat(i);
+      }
+      assertTrue("failed to make read-only", file.setWritable(false));
+
+      storage = new MappedHeatmapStorage(file, 2, 3, true, ByteOrder.BIG_ENDIAN, false);
+      assertFalse("already temporary", storage.isTemporary());
+      assertEquals("value differs", 4.0, storage.get(1, 1));
+      storage.set(1, 1, 42.0);
+      assertTrue("not copied", storage.isTemporary());
+      assertEquals("value differs", 42.0, storage.get(1, 1));
+      assertEquals("value differs", 5.0, storage.get(1, 2));
+      assertEquals("file modified", 6 * 4, file.length());
+
+      copy = storage.getFile();
+      storage.cleanUp();
+      assertFalse("copy not deleted", copy.exists());
+      assertTrue("input deleted", file.exists());
+    }
+    finally {
+      file.setWritable(true);
+      file.delete();
+    }
+
+    try {
+      new MappedHeatmapStorage(new File(file.getAbsolutePath()), 2, 3, true, ByteOrder.BIG_ENDIAN, false);
+      fail("missing file accepted");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertFalse("missing file created", file.exists());
+  }
+
+  /**
+   * Tests the copy-on-write views.
+   */
+  public void testViews() {
+    Heatmap	map;
+    Heatmap	view;
+    Heatmap	back;
+    int		i;
+
+    map = new Heatmap(3, 4);
+    for (i = 0; i < map.size(); i++)
+      map.set(i, i);
+
+    view = map.submapView(1, 1, 2, 2);
+    assertEquals("value differs", 5.0, view.get(0, 0));
+    assertEquals("value differs", 10.0, view.get(1, 1));
+    assertEquals("max differs", 10.0, view.getMax());
+    map.set(2, 2, 42.0);
+    assertEquals("parent change not visible", 42.0, view.get(1, 1));
+    assertEquals("stale max", 42.0, view.getMax());
+    map.set(2, 2, 10.0);
+
+    view = map.rotatedView(90);
+    assertEquals("height differs", 4, view.getHeight());
+    assertEquals("width differs", 3, view.getWidth());
+    assertEquals("value differs", 8.0, view.get(0, 0));
+    assertEquals("value differs", 3.0, view.get(3, 2));
+
+    back = view.rotatedView(270);
+    assertEquals("value differs", 6.0, back.get(1, 2));
+    assertEquals("value differs", 11.0, back.get(11));
+
+    view = map.transposedView();
+    assertEquals("value differs", 9.0, view.get(1, 2));
+
+    view = map.submapView(1, 1, 2, 2);
+    view.set(0, 0, -1.0);
+    assertEquals("value differs", -1.0, view.get(0, 0));
+    assertEquals("original modified", 5.0, map.get(1, 1));
+    assertFalse("still a view", ((ViewHeatmapStorage) view.getStorage()).isView());
+  }
+
+  /**
+   * Tests the streaming accumulation of heatmaps.
+   */
+  public void testAccumulator() {
+    HeatmapAccumulator	acc;
+    Heatmap		map;
+    int			n;
+    int			i;
+
+    acc = new HeatmapAccumulator(1);
+    for (n = 1; n <= 3; n++) {
+      map = new Heatmap(40, 3);
+      for (i = 0; i < map.size(); i++)
+	map.set(i, i * n);
+      if (n == 2)
+	map.setMissing(0, 1);
+      acc.add(map);
+    }
+    assertEquals("number of heatmaps differs", 3, acc.getNumHeatmaps());
+    assertEquals("sum differs", 24.0, acc.getSum().get(1, 1));
+    assertEquals("mean differs", 8.0, acc.getMean().get(1, 1));
+    assertEquals("min differs", 4.0, acc.getMin().get(1, 1));
+    assertEquals("max differs", 12.0, acc.getMax().get(1, 1));
+    assertEquals("variance differs", 16.0, acc.getVariance(true).get(1, 1), 1e-10);
+    assertEquals("count differs", 2.0, acc.getCount().get(0, 1));
+    assertEquals("mean differs", 2.0, acc.getMean().get(0, 1));
+    assertEquals("variance differs", 0.0, acc.getVariance(true).get(0, 0));
+  }
+
+  /**
+   * Tests the multi-resolution pyramid.
+   */
+  public void testPyramid() {
+    HeatmapPyramid		pyramid;
+    HeatmapPyramid.Level	level;
+    Heatmap			map;
+    List<Point>			points;
+    int				i;
+
+    map = new Heatmap(5, 7);
+    for (i = 0; i < map.size(); i++)
+      map.set(i, i % 9 + 0.1);
+    map.setMissing(0, 0);
+    pyramid = new HeatmapPyramid(map);
+    assertEquals("number of levels differs", 4, pyramid.getNumLevels());
+    assertEquals("width differs", 4, pyramid.getWidth(1));
+    assertEquals("height differs", 3, pyramid.getHeight(1));
+    assertEquals("level differs", 2, pyramid.getLevelForScale(0.25));
+    assertFalse("level should not be built", pyramid.isBuilt(1));
+
+    level = pyramid.getLevel(1);
+    assertEquals("count differs", 3, level.getCount(0, 0));
+    assertTrue("min not a lower bound", level.getMin(0, 0) <= 1.1);
+    assertTrue("max not an upper bound", level.getMax(0, 0) >= 8.1);
+    assertEquals("mean differs", 16.3 / 3, level.getMean(0, 0), 1e-5);
+    assertEquals("count differs", 34, pyramid.getLevel(3).getCount(0, 0));
+
+    points = pyramid.locate(8.0, 9.0);
+    assertEquals("number of points differs", 3, points.size());
+    assertTrue("point missing", points.contains(new Point(1, 1)));
+  }
+
+  /**
+   * Sums up the non-missing values using a cell visitor.
+   *
+   * @param map		the map to process
+   * @return		the sum and the number of cells
+   */
+  protected double[] visitCells(Heatmap map) {
+    final double[]	result;
+
+    result = new double[2];
+    map.forEachCell((row, col, value) -> {
+      result[0] += value;
+      result[1]++;
+    }, true);
+
+    return result;
+  }
+
+  /**
+   * Sums up the values of the row using a row visitor.
+   *
+   * @param map		the map to process
+   * @param rowIndex	the row to sum up
+   * @return		the sum
+   */
+  protected double sumRow(Heatmap map, final int rowIndex) {
+    final double[]	result;
+
+    result = new double[1];
+    map.forEachRow((row, values, offset, length) -> {
+      int	x;
+
+      if (row != rowIndex)
+	return;
+      for (x = 0; x < length; x++)
+	result[0] += values[offset + x];
+    });
+
+    return result[0];
+  }
+
+  /**
+   * Tests the primitive cell/row visitors and value streams.
+   */
+  public void testVisitors() {
+    Heatmap	map;
+    double[]	sum;
+    int		i;
+
+    for (boolean floatPrecision: new boolean[]{false, true}) {
+      map = new Heatmap(300, 40, floatPrecision);
+      for (i = 0; i < map.size(); i++)
+	map.set(i, i % 10);
+      map.setMissing(2, 3);
+
+      sum = visitCells(map);
+      assertEquals("number of cells differs", map.size() - 1, (int) sum[1]);
+      assertEquals("sum differs", 53997.0, sum[0]);
+      assertEquals("row sum differs", 180.0, sumRow(map, 1));
+
+      assertEquals("number of values differs", map.size(), map.values(true).count());
+      assertEquals("sum differs", 53997.0, map.values(true).filter(v -> !Double.isNaN(v)).sum());
+      assertEquals("number of values differs", map.size() - 1, map.toPrimitiveArray(true).length);
+      assertEquals("value differs", 3.0, map.getRow(1, null)[3]);
+    }
+  }
+
+  /**
+   * Tests the serialization round-trip (raw and compressed values).
+   */
+  public void testSerialization() {
+    Heatmap	map;
+    Heatmap	copy;
+    Field	field;
+    int		i;
+
+    field = new Field("sample", DataType.STRING);
+    try {
+      for (boolean compress: new boolean[]{false, true}) {
+	System.setProperty(Heatmap.PROPERTY_COMPRESS, "" + compress);
+	for (boolean floatPrecision: new boolean[]{false, true}) {
+	  map = new Heatmap(500, 70, floatPrecision);
+	  for (i = 0; i < map.size(); i++)
+	    map.set(i, i % 17 + 0.25);
+	  map.setMissing(4, 5);
+	  map.setID("map-" + compress + "-" + floatPrecision);
+	  map.getReport().addField(field);
+	  map.getReport().setValue(field, "abc");
+	  map.getReport().setNumericValue("value", 1.5);
+	  map.getNotes().addError(HeatmapTest.class, "note");
+
+	  copy = (Heatmap) ClassManager.getSingleton().deepCopy(map);
+	  assertNotNull("Serialization failed", copy);
+	  assertEquals("ID differs", map.getID(), copy.getID());
+	  assertEquals("precision differs", floatPrecision, copy.isFloatPrecision());
+	  assertEquals("height differs", map.getHeight(), copy.getHeight());
+	  assertEquals("width differs", map.getWidth(), copy.getWidth());
+	  assertEquals("values differ", 0, map.compareToData(copy));
+	  assertTrue("missing value lost", copy.isMissing(4, 5));
+	  assertEquals("string field differs", "abc", copy.getReport().getStringValue(field));
+	  assertEquals("numeric field differs", 1.5, copy.getReport().getDoubleValue(new Field("value", DataType.NUMERIC)));
+	  assertEquals("notes differ", map.getNotes().toString(), copy.getNotes().toString());
+	}
+      }
+    }
+    finally {
+      System.clearProperty(Heatmap.PROPERTY_COMPRESS);
+    }
+  }
+
+  /**
+   * Tests the serialization of report values longer than 64KB and of
+   * fields with unknown type.
+   */
+  public void testSerializationReport() {
+    Heatmap		map;
+    Heatmap		copy;
+    Field		large;
+    Field		unknown;
+    StringBuilder	value;
+
+    value = new StringBuilder();
+    while (value.length() < 100000)
+      value.append("\u00e4bc-");
+    large   = new Field("large", DataType.STRING);
+    unknown = new Field("unknown", DataType.UNKNOWN);
+
+    map = new Heatmap(5, 5);
+    map.getReport().addField(large);
+    map.getReport().setValue(large, value.toString());
+    copy = (Heatmap) ClassManager.getSingleton().deepCopy(map);
+    assertNotNull("Serialization failed", copy);
+    assertEquals("large string differs", value.toString(), copy.getReport().getStringValue(large));
+
+    map.getReport().addField(unknown);
+    map.getReport().setValue(unknown, 42);
+    copy = (Heatmap) ClassManager.getSingleton().deepCopy(map);
+    assertNotNull("Serialization failed", copy);
+    assertEquals("unknown field value differs", map.getReport().getValue(unknown), copy.getReport().getValue(unknown));
+  }
+
+  /**
+   * Tests the selection-based quantiles of the statistics cache.
+   */
+  public void testQuantiles() {
+    Heatmap	map;
+    int		i;
+
+    map = new Heatmap(3, 4);
+    for (i = 0; i < map.size(); i++)
+      map.set(i, map.size() - i);
+    map.setMissing(0, 0);
+    assertEquals("median differs", 6.0, map.getStatisticsCache().getMedian());
+    assertEquals("min differs", 1.0, map.getStatisticsCache().getQuantile(0.0));
+    assertEquals("max differs", 11.0, map.getStatisticsCache().getQuantile(1.0));
+    assertEquals("quartile differs", 3.5, map.getStatisticsCache().getQuantile(0.25));
+  }
+
+  /**
+   * Tests that the variance is accurate for values with a large offset and
+   * that the values handed out are not affected by the quantiles.
+   */
+  public void testVariance() {
+    Heatmap	map;
+    double[]	values;
+
+    map = new Heatmap(2, 2);
+    map.set(0, 1e9 + 4);
+    map.set(1, 1e9 + 7);
+    map.set(2, 1e9 + 13);
+    map.set(3, 1e9 + 16);
+    assertEquals("variance differs", 22.5, map.getStatisticsCache().getVariance(false), 1e-6);
+    assertEquals("sample variance differs", 30.0, map.getStatisticsCache().getVariance(true), 1e-6);
+
+    values = map.getStatisticsCache().getValues();
+    values[0] = -1;
+    assertEquals("min differs", 1e9 + 4, map.getStatisticsCache().getQuantile(0.0));
+  }
+
   /**
    * Returns a test suite.
    *
@@ -53,6 +53,10 @@ public class FloatMatrixHeatmapReaderTest
   protected String[] getRegressionInputFiles() {
     return new String[]{
 	"simple.dat",
+	"simple_be.dat",
+	"simple.dat",
+	"simple.dat",
+	"simple.dat",
     };
   }
 
@@ -65,10 +69,33 @@ public class FloatMatrixHeatmapReaderTest
   protected AbstractHeatmapReader[] getRegressionSetups() {
     FloatMatrixHeatmapReader[]	result;
     
-    result    = new FloatMatrixHeatmapReader[1];
+    result    = new FloatMatrixHeatmapReader[5];
     result[0] = new FloatMatrixHeatmapReader();
     result[0].setWidth(4);
     result[0].setHeight(3);
+    result[1] = new FloatMatrixHeatmapReader();
+    result[1].setWidth(4);
+    result[1].setHeight(3);
+    result[1].setByteOrder(FloatMatrixHeatmapReader.Endianness.BIG_ENDIAN);
+    result[2] = new FloatMatrixHeatmapReader();
+    result[2].setWidth(4);
+    result[2].setHeight(3);
+    result[2].setWindowRow(1);
+    result[2].setWindowColumn(1);
+    result[2].setWindowHeight(2);
+    result[2].setWindowWidth(2);
+    result[3] = new FloatMatrixHeatmapReader();
+    result[3].setWidth(4);
+    result[3].setHeight(3);
+    result[3].setMemoryMapped(true);
+    result[3].setWindowRow(1);
+    result[3].setWindowColumn(1);
+    result[3].setWindowHeight(2);
+    result[3].setWindowWidth(2);
+    result[4] = new FloatMatrixHeatmapReader();
+    result[4].setWidth(4);
+    result[4].setHeight(3);
+    result[4].setFileBacked(true);
     
     return result;
   }
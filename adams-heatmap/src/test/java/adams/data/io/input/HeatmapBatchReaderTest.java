@@ -0,0 +1,217 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HeatmapBatchReaderTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.io.input;
+
+import adams.data.io.input.HeatmapBatchReader.Result;
+import adams.env.Environment;
+import adams.test.AbstractTestHelper;
+import adams.test.AdamsTestCase;
+import adams.test.TestHelper;
+import adams.test.TmpFile;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Tests the adams.data.io.input.HeatmapBatchReader class.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class HeatmapBatchReaderTest
+  extends AdamsTestCase {
+
+  /** the files to read. */
+  public final static String[] FILES = new String[]{
+    "simple.hm",
+    "lenient.hm",
+    "missing.hm",
+    "lenient_dims.hm",
+    "simple.hm.gz",
+  };
+
+  /** the index of the file that does not exist. */
+  public final static int MISSING = 2;
+
+  /**
+   * Initializes the test.
+   *
+   * @param name	the name of the test
+   */
+  public HeatmapBatchReaderTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Returns the test helper class to use.
+   *
+   * @return		the helper class instance
+   */
+  @Override
+  protected AbstractTestHelper newTestHelper() {
+    return new TestHelper(this, "adams/data/io/input/data");
+  }
+
+  /**
+   * Called by JUnit before each test method.
+   *
+   * @throws Exception if an error occurs
+   */
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    for (int i = 0; i < FILES.length; i++) {
+      if (i != MISSING)
+	m_TestHelper.copyResourceToTmp(FILES[i]);
+    }
+  }
+
+  /**
+   * Called by JUnit after each test method.
+   *
+   * @throws Exception if tear-down fails
+   */
+  @Override
+  protected void tearDown() throws Exception {
+    for (String file: FILES)
+      m_TestHelper.deleteFileFromTmp(file);
+
+    super.tearDown();
+  }
+
+  /**
+   * Returns the files to read.
+   *
+   * @return		the files
+   */
+  protected File[] getFiles() {
+    File[]	result;
+    int		i;
+
+    result = new File[FILES.length];
+    for (i = 0; i < FILES.length; i++)
+      result[i] = new TmpFile(FILES[i]);
+
+    return result;
+  }
+
+  /**
+   * Tests that the results get returned in the order of the files and that
+   * a failed file does not stop the batch.
+   *
+   * @throws Exception	if reading fails
+   */
+  public void testOrdered() throws Exception {
+    HeatmapBatchReader	batch;
+    List<Result>	results;
+    File[]		files;
+    int			i;
+
+    files   = getFiles();
+    batch   = new HeatmapBatchReader(new SimpleHeatmapReader(), files, 2, 1, true);
+    results = batch.readAll();
+    assertEquals("number of results differs", files.length, results.size());
+    assertFalse("more results", batch.hasNext());
+    for (i = 0; i < files.length; i++) {
+      assertEquals("file differs", files[i], results.get(i).getFile());
+      assertEquals("error status differs for " + files[i], i == MISSING, results.get(i).hasError());
+      if (i != MISSING)
+	assertEquals("number of heatmaps differs for " + files[i], 1, results.get(i).getHeatmaps().size());
+    }
+  }
+
+  /**
+   * Tests that all the files get returned in completion order, including
+   * the failed one.
+   *
+   * @throws Exception	if reading fails
+   */
+  public void testCompletionOrder() throws Exception {
+    HeatmapBatchReader	batch;
+    List<Result>	results;
+    File[]		files;
+    Set<File>		returned;
+    int			errors;
+
+    files    = getFiles();
+    batch    = new HeatmapBatchReader(new SimpleHeatmapReader(), files, 3, 0, false);
+    results  = batch.readAll();
+    returned = new HashSet<>();
+    errors   = 0;
+    for (Result result: results) {
+      returned.add(result.getFile());
+      if (result.hasError()) {
+	errors++;
+	assertEquals("failed file differs", files[MISSING], result.getFile());
+      }
+    }
+    assertEquals("number of results differs", files.length, results.size());
+    assertEquals("files differ", files.length, returned.size());
+    assertEquals("number of errors differs", 1, errors);
+  }
+
+  /**
+   * Tests stopping the batch before all files have been returned.
+   *
+   * @throws Exception	if reading fails
+   */
+  public void testStop() throws Exception {
+    HeatmapBatchReader	batch;
+
+    batch = new HeatmapBatchReader(new SimpleHeatmapReader(), getFiles(), 2, 1, true);
+    assertNotNull("no result", batch.next());
+    batch.stop();
+    assertTrue("not stopped", batch.isStopped());
+    assertFalse("more results after stop", batch.hasNext());
+    try {
+      batch.next();
+      fail("no exception after stop");
+    }
+    catch (CancellationException e) {
+      // expected
+    }
+    batch.stop();
+  }
+
+  /**
+   * Returns a test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(HeatmapBatchReaderTest.class);
+  }
+
+  /**
+   * Runs the test from commandline.
+   *
+   * @param args	ignored
+   */
+  public static void main(String[] args) {
+    Environment.setEnvironmentClass(Environment.class);
+    runTest(suite());
+  }
+}
@@ -54,6 +54,8 @@ public class SimpleHeatmapReaderTest
     return new String[]{
 	"simple.hm",
 	"simple.hm.gz",
+	"lenient.hm",
+	"lenient_dims.hm",
     };
   }
 
@@ -66,9 +68,12 @@ public class SimpleHeatmapReaderTest
   protected AbstractHeatmapReader[] getRegressionSetups() {
     SimpleHeatmapReader[]	result;
     
-    result    = new SimpleHeatmapReader[2];
+    result    = new SimpleHeatmapReader[4];
     result[0] = new SimpleHeatmapReader();
     result[1] = new SimpleHeatmapReader();
+    result[2] = new SimpleHeatmapReader();
+    result[3] = new SimpleHeatmapReader();
+    result[3].setNumThreads(2);
 
     return result;
   }
@@ -0,0 +1,110 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TiledBinaryHeatmapWriterTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.data.io.output;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import adams.env.Environment;
+
+/**
+ * Tests the adams.data.io.output.TiledBinaryHeatmapWriter class. Run from commandline with: <br><br>
+ * java adams.data.io.output.TiledBinaryHeatmapWriter
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class TiledBinaryHeatmapWriterTest
+  extends AbstractHeatmapWriterTestCase {
+
+  /**
+   * Initializes the test.
+   *
+   * @param name	the name of the test
+   */
+  public TiledBinaryHeatmapWriterTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Returns the filenames (without path) of the input data files to use
+   * in the setup tests.
+   *
+   * @return		the filenames
+   */
+  @Override
+  protected String[] getInputFiles() {
+    return new String[]{
+	"simple.csv",
+	"simple.csv",
+    };
+  }
+
+  /**
+   * Returns the filenames (without path) of the output data files to use
+   * in the setup tests.
+   *
+   * @return		the filenames
+   */
+  @Override
+  protected String[] getOutputFiles() {
+    return new String[]{
+	"simple-out.hmt",
+	"simple-out2.hmt",
+    };
+  }
+
+  /**
+   * Returns the setups to use in the setup tests.
+   *
+   * @return		the setups
+   */
+  @Override
+  protected AbstractHeatmapWriter[] getSetups() {
+    TiledBinaryHeatmapWriter[]	result;
+    
+    result = new TiledBinaryHeatmapWriter[2];
+    result[0] = new TiledBinaryHeatmapWriter();
+    result[1] = new TiledBinaryHeatmapWriter();
+    result[1].setTileSize(2);
+    result[1].setFloatPrecision(true);
+    result[1].setCompressTiles(false);
+    
+    return result;
+  }
+
+  /**
+   * Returns a test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(TiledBinaryHeatmapWriterTest.class);
+  }
+
+  /**
+   * Runs the test from commandline.
+   *
+   * @param args	ignored
+   */
+  public static void main(String[] args) {
+    Environment.setEnvironmentClass(Environment.class);
+    runTest(suite());
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractHeatmapObjectLocatorTestCase.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.flow.transformer.heatmaplocateobjects;
+
+import adams.core.Destroyable;
+import adams.data.heatmap.Heatmap;
+import adams.data.io.input.SimpleHeatmapReader;
+import adams.flow.transformer.locateobjects.LocatedObject;
+import adams.flow.transformer.locateobjects.LocatedObjects;
+import adams.test.AbstractTestHelper;
+import adams.test.AdamsTestCase;
+import adams.test.TestHelper;
+import adams.test.TmpFile;
+
+import java.util.List;
+
+/**
+ * Ancestor for heatmap object locator test cases.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractHeatmapObjectLocatorTestCase
+  extends AdamsTestCase {
+
+  /**
+   * Constructs the test case. Called by subclasses.
+   *
+   * @param name 	the name of the test
+   */
+  public AbstractHeatmapObjectLocatorTestCase(String name) {
+    super(name);
+  }
+
+  /**
+   * Returns the test helper class to use.
+   *
+   * @return		the helper class instance
+   */
+  @Override
+  protected AbstractTestHelper newTestHelper() {
+    return new TestHelper(this, "adams/flow/transformer/heatmaplocateobjects/data");
+  }
+
+  /**
+   * Loads the heatmap in the simple heatmap format.
+   *
+   * @param filename	the file to read (no path)
+   * @return		the heatmap, null if failed to load
+   */
+  protected Heatmap load(String filename) {
+    SimpleHeatmapReader	reader;
+    List<Heatmap>	maps;
+
+    m_TestHelper.copyResourceToTmp(filename);
+    reader = new SimpleHeatmapReader();
+    reader.setInput(new TmpFile(filename));
+    maps = reader.read();
+    m_TestHelper.deleteFileFromTmp(filename);
+
+    if (maps.size() > 0)
+      return maps.get(0);
+    else
+      return null;
+  }
+
+  /**
+   * Returns the filenames (without path) of the input data files to use
+   * in the regression test.
+   *
+   * @return		the filenames
+   */
+  protected abstract String[] getRegressionInputFiles();
+
+  /**
+   * Returns the setups to use in the regression test.
+   *
+   * @return		the setups
+   */
+  protected abstract AbstractHeatmapObjectLocator[] getRegressionSetups();
+
+  /**
+   * Returns the ignored line indices to use in the regression test.
+   *
+   * @return		the line indices
+   */
+  protected int[] getRegressionIgnoredLineIndices() {
+    return new int[0];
+  }
+
+  /**
+   * Saves the located objects as file, one object per line.
+   *
+   * @param objects	the located objects
+   * @param filename	the file to save the data to (in the temp directory)
+   * @return		true if successfully saved
+   */
+  protected boolean save(LocatedObjects objects, String filename) {
+    StringBuilder	content;
+
+    content = new StringBuilder();
+    for (LocatedObject object: objects) {
+      content.append("x=").append(object.getX());
+      content.append(", y=").append(object.getY());
+      content.append(", width=").append(object.getWidth());
+      content.append(", height=").append(object.getHeight());
+      content.append(", count=").append(object.getMetaData().get(ConnectedComponents.KEY_COUNT));
+      content.append(", mean=").append(object.getMetaData().get(ConnectedComponents.KEY_MEAN));
+      content.append(", max=").append(object.getMetaData().get(ConnectedComponents.KEY_MAX));
+      content.append("\n");
+    }
+
+    return m_TestHelper.save(content.toString(), filename);
+  }
+
+  /**
+   * Creates an output filename based on the input filename.
+   *
+   * @param input	the input filename (no path)
+   * @param no		the number of the test
+   * @return		the generated output filename (no path)
+   */
+  protected String createOutputFilename(String input, int no) {
+    String	result;
+    int		index;
+    String	ext;
+
+    ext = "-out" + no;
+
+    index = input.lastIndexOf('.');
+    if (index == -1) {
+      result = input + ext;
+    }
+    else {
+      result  = input.substring(0, index);
+      result += ext;
+      result += input.substring(index);
+    }
+
+    return result;
+  }
+
+  /**
+   * Compares the located objects against previously saved output data.
+   */
+  public void testRegression() {
+    Heatmap				map;
+    LocatedObjects			objects;
+    boolean				ok;
+    String				regression;
+    int					i;
+    String[]				input;
+    AbstractHeatmapObjectLocator[]	setups;
+    String[]				output;
+    TmpFile[]				outputFiles;
+
+    if (m_NoRegressionTest)
+      return;
+
+    input   = getRegressionInputFiles();
+    output  = new String[input.length];
+    setups  = getRegressionSetups();
+    assertEquals("Number of files and setups differ!", input.length, setups.length);
+
+    // process data
+    for (i = 0; i < input.length; i++) {
+      map = load(input[i]);
+      assertNotNull("Failed to load data?", map);
+
+      objects = setups[i].locate(map);
+      assertNotNull("Failed to locate objects?", objects);
+
+      output[i] = createOutputFilename(input[i], i);
+      ok        = save(objects, output[i]);
+      assertTrue("Failed to save regression data?", ok);
+    }
+
+    // test regression
+    outputFiles = new TmpFile[output.length];
+    for (i = 0; i < output.length; i++)
+      outputFiles[i] = new TmpFile(output[i]);
+    regression = m_Regression.compare(outputFiles, getRegressionIgnoredLineIndices());
+    assertNull("Output differs:\n" + regression, regression);
+
+    // remove output, clean up scheme
+    for (i = 0; i < output.length; i++) {
+      if (setups[i] instanceof Destroyable)
+	((Destroyable) setups[i]).destroy();
+      m_TestHelper.deleteFileFromTmp(output[i]);
+    }
+  }
+}
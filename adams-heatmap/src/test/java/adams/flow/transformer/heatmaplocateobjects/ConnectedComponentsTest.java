@@ -0,0 +1,111 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ConnectedComponentsTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.flow.transformer.heatmaplocateobjects;
+
+import adams.data.filter.HeatmapThreshold.Type;
+import adams.data.filter.heatmapthreshold.Manual;
+import adams.env.Environment;
+import adams.flow.transformer.heatmaplocateobjects.ConnectedComponents.Connectivity;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the adams.flow.transformer.heatmaplocateobjects.ConnectedComponents class. Run from commandline with: <br><br>
+ * java adams.flow.transformer.heatmaplocateobjects.ConnectedComponentsTest
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class ConnectedComponentsTest
+  extends AbstractHeatmapObjectLocatorTestCase {
+
+  /**
+   * Initializes the test.
+   *
+   * @param name	the name of the test
+   */
+  public ConnectedComponentsTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Returns the filenames (without path) of the input data files to use
+   * in the regression test.
+   *
+   * @return		the filenames
+   */
+  @Override
+  protected String[] getRegressionInputFiles() {
+    return new String[]{
+	"objects.hm",
+	"objects.hm",
+	"objects.hm",
+	"objects.hm",
+	"objects.hm",
+    };
+  }
+
+  /**
+   * Returns the setups to use in the regression test.
+   *
+   * @return		the setups
+   */
+  @Override
+  protected AbstractHeatmapObjectLocator[] getRegressionSetups() {
+    ConnectedComponents[]	result;
+    Manual			manual;
+
+    result    = new ConnectedComponents[5];
+    result[0] = new ConnectedComponents();
+    result[1] = new ConnectedComponents();
+    result[1].setConnectivity(Connectivity.FOUR);
+    result[2] = new ConnectedComponents();
+    result[2].setMinSize(2);
+    result[3] = new ConnectedComponents();
+    result[3].setMaxSize(3);
+    result[4] = new ConnectedComponents();
+    result[4].setConnectivity(Connectivity.FOUR);
+    result[4].setType(Type.BELOW);
+    manual = new Manual();
+    manual.setThreshold(0.5);
+    result[4].setThreshold(manual);
+
+    return result;
+  }
+
+  /**
+   * Returns a test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(ConnectedComponentsTest.class);
+  }
+
+  /**
+   * Runs the test from commandline.
+   *
+   * @param args	ignored
+   */
+  public static void main(String[] args) {
+    Environment.setEnvironmentClass(Environment.class);
+    runTest(suite());
+  }
+}
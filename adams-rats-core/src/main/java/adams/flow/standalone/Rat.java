@@ -19,12 +19,15 @@
  */
 package adams.flow.standalone;
 
+import adams.core.DateUtils;
 import adams.core.Pausable;
 import adams.core.Properties;
 import adams.core.QuickInfoHelper;
 import adams.core.Utils;
 import adams.core.Variables;
 import adams.core.base.BaseRegExp;
+import adams.core.io.FileUtils;
+import adams.core.io.PlaceholderFile;
 import adams.core.logging.LoggingLevel;
 import adams.db.LogEntry;
 import adams.event.FlowPauseStateEvent;
@@ -57,17 +60,27 @@ import adams.flow.core.Token;
 import adams.flow.execution.debug.AbstractScopeRestriction;
 import adams.flow.execution.debug.DebugScopeRestrictionHandler;
 import adams.flow.execution.debug.SubFlowRestriction;
+import adams.flow.standalone.rats.RatMetrics;
 import adams.flow.standalone.rats.RatRunnable;
+import adams.flow.standalone.rats.input.AbstractRatInput;
 import adams.flow.standalone.rats.input.DummyInput;
 import adams.flow.standalone.rats.input.RatInput;
 import adams.flow.standalone.rats.log.AbstractLogObjectGenerator;
 import adams.flow.standalone.rats.log.LogEntryGenerator;
+import adams.flow.standalone.rats.output.AbstractRatOutput;
 import adams.flow.standalone.rats.output.DummyOutput;
 import adams.flow.standalone.rats.output.RatOutput;
 import adams.gui.flow.tree.Node;
 
+import java.util.Date;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 /**
  <!-- globalinfo-start -->
@@ -241,6 +254,41 @@ import java.util.Set;
  * &nbsp;&nbsp;&nbsp;default: false
  * </pre>
  *
+ * <pre>-num-workers &lt;int&gt; (property: numWorkers)
+ * &nbsp;&nbsp;&nbsp;The number of workers processing the received data with the actors, each
+ * &nbsp;&nbsp;&nbsp;using its own copy of the actors, which get set up when the rat starts; ignored
+ * &nbsp;&nbsp;&nbsp;if no actors or breakpoint present; cannot be combined with 'performLazySetup'.
+ * &nbsp;&nbsp;&nbsp;default: 1
+ * &nbsp;&nbsp;&nbsp;minimum: 1
+ * </pre>
+ *
+ * <pre>-max-in-flight &lt;int&gt; (property: maxInFlight)
+ * &nbsp;&nbsp;&nbsp;The maximum number of received items that are queued, being processed or
+ * &nbsp;&nbsp;&nbsp;waiting for transmission when using multiple workers; the receiver blocks
+ * &nbsp;&nbsp;&nbsp;once reached; 0 = twice the number of workers.
+ * &nbsp;&nbsp;&nbsp;default: 0
+ * &nbsp;&nbsp;&nbsp;minimum: 0
+ * </pre>
+ *
+ * <pre>-ordered-output &lt;boolean&gt; (property: orderedOutput)
+ * &nbsp;&nbsp;&nbsp;If enabled, the output of multiple workers gets transmitted in the order
+ * &nbsp;&nbsp;&nbsp;the data was received rather than the order in which processing finished.
+ * &nbsp;&nbsp;&nbsp;default: true
+ * </pre>
+ *
+ * <pre>-metrics-interval &lt;int&gt; (property: metricsInterval)
+ * &nbsp;&nbsp;&nbsp;The interval in msec for outputting the metrics (throughput, latencies,
+ * &nbsp;&nbsp;&nbsp;backlog) while the rat is running; 0 to disable.
+ * &nbsp;&nbsp;&nbsp;default: 0
+ * &nbsp;&nbsp;&nbsp;minimum: 0
+ * </pre>
+ *
+ * <pre>-metrics-output &lt;adams.core.io.PlaceholderFile&gt; (property: metricsOutput)
+ * &nbsp;&nbsp;&nbsp;The CSV file to append the metrics to; if pointing to a directory, the
+ * &nbsp;&nbsp;&nbsp;metrics get logged at INFO level instead.
+ * &nbsp;&nbsp;&nbsp;default: ${CWD}
+ * </pre>
+ *
  <!-- options-end -->
  *
  * @author  fracpete (fracpete at waikato dot ac dot nz)
@@ -323,6 +371,30 @@ public class Rat
   /** whether a Breakpoint actor is part of the sub-flow. */
   protected boolean m_BreakpointPresent;
 
+  /** the number of workers. */
+  protected int m_NumWorkers;
+
+  /** the maximum number of items in flight when using multiple workers. */
+  protected int m_MaxInFlight;
+
+  /** whether to transmit the output of the workers in order of reception. */
+  protected boolean m_OrderedOutput;
+
+  /** the executor to use for running threads, if any. */
+  protected transient RatExecutor m_Executor;
+
+  /** the interval in msec for outputting the metrics (0 = off). */
+  protected int m_MetricsInterval;
+
+  /** the file to append the metrics to (directory = log). */
+  protected PlaceholderFile m_MetricsOutput;
+
+  /** the metrics. */
+  protected transient volatile RatMetrics m_Metrics;
+
+  /** the scheduled periodic output of the metrics. */
+  protected transient ScheduledFuture<?> m_MetricsSchedule;
+
   /**
    * Returns a string describing the object.
    *
@@ -427,6 +499,26 @@ public class Rat
     m_OptionManager.add(
       "wrapup-after-execution", "wrapUpAfterExecution",
       false);
+
+    m_OptionManager.add(
+      "num-workers", "numWorkers",
+      1, 1, null);
+
+    m_OptionManager.add(
+      "max-in-flight", "maxInFlight",
+      0, 0, null);
+
+    m_OptionManager.add(
+      "ordered-output", "orderedOutput",
+      true);
+
+    m_OptionManager.add(
+      "metrics-interval", "metricsInterval",
+      0, 0, null);
+
+    m_OptionManager.add(
+      "metrics-output", "metricsOutput",
+      new PlaceholderFile("."));
   }
 
   /**
@@ -1134,6 +1226,173 @@ public class Rat
     return "Whether to wrapUp the actors after execution to save memory; only available in conjunction with 'performLazySetup'.";
   }
 
+  /**
+   * Sets the number of workers processing the data with the actors.
+   *
+   * @param value	the number of workers
+   */
+  public void setNumWorkers(int value) {
+    if (getOptionManager().isValid("numWorkers", value)) {
+      m_NumWorkers = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the number of workers processing the data with the actors.
+   *
+   * @return		the number of workers
+   */
+  public int getNumWorkers() {
+    return m_NumWorkers;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String numWorkersTipText() {
+    return
+      "The number of workers processing the received data with the actors, "
+	+ "each using its own copy of the actors, which get set up when the "
+	+ "rat starts; ignored if no actors or breakpoint present; cannot be "
+	+ "combined with 'performLazySetup'.";
+  }
+
+  /**
+   * Sets the maximum number of items in flight when using multiple workers.
+   *
+   * @param value	the maximum, 0 = twice the number of workers
+   */
+  public void setMaxInFlight(int value) {
+    if (getOptionManager().isValid("maxInFlight", value)) {
+      m_MaxInFlight = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the maximum number of items in flight when using multiple workers.
+   *
+   * @return		the maximum, 0 = twice the number of workers
+   */
+  public int getMaxInFlight() {
+    return m_MaxInFlight;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String maxInFlightTipText() {
+    return
+      "The maximum number of received items that are queued, being processed "
+	+ "or waiting for transmission when using multiple workers; the receiver "
+	+ "blocks once reached; 0 = twice the number of workers.";
+  }
+
+  /**
+   * Sets whether to transmit the output of multiple workers in the order
+   * the data was received.
+   *
+   * @param value	true if ordered
+   */
+  public void setOrderedOutput(boolean value) {
+    m_OrderedOutput = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to transmit the output of multiple workers in the order
+   * the data was received.
+   *
+   * @return		true if ordered
+   */
+  public boolean getOrderedOutput() {
+    return m_OrderedOutput;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String orderedOutputTipText() {
+    return
+      "If enabled, the output of multiple workers gets transmitted in the "
+	+ "order the data was received rather than the order in which "
+	+ "processing finished.";
+  }
+
+  /**
+   * Sets the interval for outputting the metrics.
+   *
+   * @param value	the interval in msec, 0 to disable
+   */
+  public void setMetricsInterval(int value) {
+    if (getOptionManager().isValid("metricsInterval", value)) {
+      m_MetricsInterval = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the interval for outputting the metrics.
+   *
+   * @return		the interval in msec, 0 if disabled
+   */
+  public int getMetricsInterval() {
+    return m_MetricsInterval;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String metricsIntervalTipText() {
+    return
+      "The interval in msec for outputting the metrics (throughput, "
+	+ "latencies, backlog) while the rat is running; 0 to disable.";
+  }
+
+  /**
+   * Sets the file to append the metrics to.
+   *
+   * @param value	the file, directory to log instead
+   */
+  public void setMetricsOutput(PlaceholderFile value) {
+    m_MetricsOutput = value;
+    reset();
+  }
+
+  /**
+   * Returns the file to append the metrics to.
+   *
+   * @return		the file, directory to log instead
+   */
+  public PlaceholderFile getMetricsOutput() {
+    return m_MetricsOutput;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String metricsOutputTipText() {
+    return
+      "The CSV file to append the metrics to; if pointing to a directory, "
+	+ "the metrics get logged at INFO level instead.";
+  }
+
   /**
    * Returns the additional information.
    *
@@ -1171,6 +1430,12 @@ public class Rat
     if (!m_SendErrorQueue.getValue().equals(DEFAULT_SENDERRORS))
       result += QuickInfoHelper.toString(this, "sendErrorQueue", m_SendErrorQueue, ", send errors: ");
     result += QuickInfoHelper.toString(this, "showInControl", m_ShowInControl, "control", ", ");
+    if (m_NumWorkers > 1) {
+      result += QuickInfoHelper.toString(this, "numWorkers", m_NumWorkers, ", workers: ");
+      result += QuickInfoHelper.toString(this, "orderedOutput", m_OrderedOutput, "ordered", ", ");
+    }
+    if (m_MetricsInterval > 0)
+      result += QuickInfoHelper.toString(this, "metricsInterval", m_MetricsInterval, ", metrics: ");
 
     result += ", variables [";
     result += QuickInfoHelper.toString(this, "scopeHandlingVariables", getScopeHandlingVariables(), "scope: ");
@@ -1531,6 +1796,12 @@ public class Rat
 
     result = super.setUp();
 
+    // the workers set up their copies of the actors when starting and keep them until stopped
+    if (result == null) {
+      if ((m_NumWorkers > 1) && m_PerformLazySetup)
+	result = "Multiple workers cannot be combined with lazy setup (and wrap up after execution)!";
+    }
+
     if (result == null) {
       m_BreakpointPresent = ActorUtils.breakPointPresent(m_Actors);
       if (!m_PerformLazySetup || isBreakpointPresent())
@@ -1593,6 +1864,15 @@ public class Rat
       m_Actors.setErrorHandler(this);
     }
 
+    if (result == null)
+      getMetrics().reset();
+
+    if (result == null) {
+      m_Executor = (RatExecutor) ActorUtils.findClosestType(this, RatExecutor.class, true);
+      if (m_Executor != null)
+	m_Executor.register(this);
+    }
+
     if (result == null) {
       if (getRoot() instanceof PauseStateHandler) {
 	manager = ((PauseStateHandler) getRoot()).getPauseStateManager();
@@ -1624,6 +1904,140 @@ public class Rat
     return m_Actors.setUp();
   }
 
+  /**
+   * Returns the executor in use for running threads.
+   *
+   * @return		the executor, null if none available
+   */
+  public RatExecutor getExecutor() {
+    return m_Executor;
+  }
+
+  /**
+   * Runs the task in a separate thread, using the {@link RatExecutor} of the
+   * flow if available, otherwise a new thread.
+   *
+   * @param name	the name for the thread
+   * @param task	the task to run
+   * @return		the future for the task
+   */
+  public Future<?> startThread(String name, Runnable task) {
+    FutureTask<Object>	result;
+
+    if (m_Executor != null)
+      return m_Executor.submit(name, task);
+
+    result = new FutureTask<>(task, null);
+    new Thread(result, name).start();
+
+    return result;
+  }
+
+  /**
+   * Returns the metrics of this rat.
+   *
+   * @return		the metrics
+   */
+  public RatMetrics getMetrics() {
+    if (m_Metrics == null) {
+      synchronized(this) {
+	if (m_Metrics == null)
+	  m_Metrics = new RatMetrics();
+      }
+    }
+    return m_Metrics;
+  }
+
+  /**
+   * Samples the current backlog of receiver and transmitter and updates
+   * the metrics.
+   */
+  public void updateBacklog() {
+    RatMetrics	metrics;
+
+    metrics = getMetrics();
+    if (m_Receiver instanceof AbstractRatInput)
+      metrics.updateInputBacklog(((AbstractRatInput) m_Receiver).getBacklog());
+    if (m_Transmitter instanceof AbstractRatOutput)
+      metrics.updateOutputBacklog(((AbstractRatOutput) m_Transmitter).getBacklog());
+  }
+
+  /**
+   * Outputs the current metrics, either appending them to the CSV file
+   * or logging them.
+   *
+   * @see		#getMetricsOutput()
+   */
+  public void outputMetrics() {
+    Map<String,Object>	values;
+    StringBuilder	line;
+    StringBuilder	head;
+    boolean		header;
+    String		msg;
+
+    updateBacklog();
+    values = getMetrics().getValues();
+
+    if (m_MetricsOutput.isDirectory()) {
+      getLogger().info("Metrics: " + values);
+      return;
+    }
+
+    line = new StringBuilder();
+    line.append(DateUtils.getTimestampFormatter().format(new Date()));
+    line.append(",\"").append(getFullName().replace("\"", "\"\"")).append("\"");
+    for (Object value: values.values())
+      line.append(",").append(value);
+    line.append("\n");
+
+    // other rats may append to the same file
+    synchronized(RatMetrics.getFileLock(m_MetricsOutput)) {
+      header = !m_MetricsOutput.exists() || (m_MetricsOutput.length() == 0);
+      if (header) {
+	head = new StringBuilder("timestamp,rat");
+	for (String key: values.keySet())
+	  head.append(",").append(key);
+	head.append("\n");
+	line.insert(0, head);
+      }
+      msg = FileUtils.writeToFileMsg(m_MetricsOutput.getAbsolutePath(), line.toString(), true, null);
+    }
+    if (msg != null)
+      getLogger().warning("Failed to write metrics to " + m_MetricsOutput + ": " + msg);
+  }
+
+  /**
+   * Starts the periodic output of the metrics, if enabled.
+   *
+   * @see		#getMetricsInterval()
+   */
+  protected synchronized void startMetricsOutput() {
+    if ((m_MetricsInterval <= 0) || (m_MetricsSchedule != null))
+      return;
+
+    m_MetricsSchedule = RatMetrics.getScheduler().scheduleAtFixedRate(() -> {
+      // an exception would cancel any further output
+      try {
+	outputMetrics();
+      }
+      catch (Throwable t) {
+	getLogger().log(Level.SEVERE, "Failed to output metrics!", t);
+      }
+    }, m_MetricsInterval, m_MetricsInterval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops the periodic output of the metrics, outputting them one last time.
+   */
+  protected synchronized void stopMetricsOutput() {
+    if (m_MetricsSchedule == null)
+      return;
+
+    m_MetricsSchedule.cancel(false);
+    m_MetricsSchedule = null;
+    outputMetrics();
+  }
+
   /**
    * Starts the runnable.
    *
@@ -1657,14 +2071,16 @@ public class Rat
 	  result = "Unhandled initial rat state: " + m_InitialState;
       }
       if (result == null)
-	new Thread(m_Runnable).start();
+	startThread(getFullName(), m_Runnable);
     }
     catch (Exception e) {
       result = handleException("Failed to start!", e);
     }
 
-    if (result == null)
+    if (result == null) {
+      startMetricsOutput();
       notifyRatStateListeners();
+    }
 
     return result;
   }
@@ -1759,6 +2175,7 @@ public class Rat
    * Nulls the runnable and notifies listeners.
    */
   public void wrapUpRunnable() {
+    stopMetricsOutput();
     m_Runnable = null;
     notifyRatStateListeners();
   }
@@ -1901,6 +2318,13 @@ public class Rat
   public void cleanUp() {
     PauseStateManager	manager;
 
+    if (m_Executor != null) {
+      m_Executor.unregister(this);
+      m_Executor = null;
+    }
+
+    stopMetricsOutput();
+
     m_Actors.cleanUp();
     m_StateListeners.clear();
 
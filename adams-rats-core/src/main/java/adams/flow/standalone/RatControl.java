@@ -15,7 +15,7 @@
 
 /*
  * RatControl.java
- * Copyright (C) 2014-2024 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2014-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.flow.standalone;
 
@@ -63,6 +63,7 @@ import javax.swing.JMenuItem;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.awt.event.ActionEvent;
@@ -163,6 +164,13 @@ import java.util.Map;
  * &nbsp;&nbsp;&nbsp;default: 10000
  * &nbsp;&nbsp;&nbsp;minimum: -1
  * </pre>
+ *
+ * <pre>-metrics-refresh &lt;int&gt; (property: metricsRefresh)
+ * &nbsp;&nbsp;&nbsp;The interval in msec for refreshing the displayed metrics of the rats,
+ * &nbsp;&nbsp;&nbsp;0 to hide the metrics.
+ * &nbsp;&nbsp;&nbsp;default: 1000
+ * &nbsp;&nbsp;&nbsp;minimum: 0
+ * </pre>
  * 
  <!-- options-end -->
  *
@@ -223,6 +231,12 @@ public class RatControl
   /** whether the rat control is stopping. */
   protected boolean m_RatControlStopping;
 
+  /** the refresh interval in msec for the metrics (0 = off). */
+  protected int m_MetricsRefresh;
+
+  /** the timer for refreshing the metrics. */
+  protected transient Timer m_MetricsTimer;
+
   /**
    * Returns a string describing the object.
    *
@@ -260,6 +274,10 @@ public class RatControl
     m_OptionManager.add(
       "console-line-limit", "consoleLineLimit",
       10000, -1, null);
+
+    m_OptionManager.add(
+      "metrics-refresh", "metricsRefresh",
+      1000, 0, null);
   }
 
   /**
@@ -320,6 +338,37 @@ public class RatControl
     return "The line limit for the console output, <=0 for no limit.";
   }
 
+  /**
+   * Sets the interval for refreshing the displayed metrics.
+   *
+   * @param value	the interval in msec, 0 to hide
+   */
+  public void setMetricsRefresh(int value) {
+    if (getOptionManager().isValid("metricsRefresh", value)) {
+      m_MetricsRefresh = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the interval for refreshing the displayed metrics.
+   *
+   * @return		the interval in msec, 0 if hidden
+   */
+  public int getMetricsRefresh() {
+    return m_MetricsRefresh;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String metricsRefreshTipText() {
+    return "The interval in msec for refreshing the displayed metrics of the rats, 0 to hide the metrics.";
+  }
+
   /**
    * Returns the default value for displaying the panel in the editor
    * rather than in a separate frame.
@@ -417,6 +466,7 @@ public class RatControl
         subcpanel.setGroup(rats);
         subcpanel.setBulkActionEnabled(m_BulkActions);
         subcpanel.setPausable(rat.getMode() == RatMode.CONTINUOUS);
+        ((RatControlPanel) subcpanel).setMetricsVisible(m_MetricsRefresh > 0);
 	subcpanel.setActor(rat);
 	param.addParameter(" - " + rat.getName(), subcpanel);
 	m_ControlPanels.add(subcpanel);
@@ -500,9 +550,30 @@ public class RatControl
 
     setUpControlStates();
 
+    // metrics
+    if (m_MetricsTimer != null)
+      m_MetricsTimer.stop();
+    if (m_MetricsRefresh > 0) {
+      m_MetricsTimer = new Timer(m_MetricsRefresh, (ActionEvent e) -> updateMetrics());
+      m_MetricsTimer.start();
+    }
+    else {
+      m_MetricsTimer = null;
+    }
+
     return result;
   }
 
+  /**
+   * Refreshes the metrics displayed by the rat panels.
+   */
+  protected void updateMetrics() {
+    for (AbstractControlPanel panel: m_ControlPanels) {
+      if (panel instanceof RatControlPanel)
+	((RatControlPanel) panel).updateMetrics();
+    }
+  }
+
   /**
    * Configures the control states.
    *
@@ -765,6 +836,11 @@ public class RatControl
   public void cleanUp() {
     PauseStateManager	manager;
 
+    if (m_MetricsTimer != null) {
+      m_MetricsTimer.stop();
+      m_MetricsTimer = null;
+    }
+
     m_ControlPanels.clear();
     m_ControlPanelsPerRats.clear();
     m_ControlStates.clear();
@@ -0,0 +1,584 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * RatExecutor.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.flow.standalone;
+
+import adams.core.QuickInfoHelper;
+import adams.core.logging.LoggingHelper;
+import adams.flow.core.RatThreadType;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ <!-- globalinfo-start -->
+ * Provides the threads for all the Rat, Rats and RatPlague actors (including their workers and inputs that listen in the background) in this flow, rather than each of them creating their own thread.<br>
+ * Threads can either be platform threads or virtual threads (requires Java 21 or later, falls back to platform threads otherwise). Threads are named after the task they are running.<br>
+ * When wrapping up, the rats that use this executor get stopped first, then the executor waits for the tasks to finish, up to the shutdown timeout.
+ * <br><br>
+ <!-- globalinfo-end -->
+ *
+ <!-- flow-summary-start -->
+ <!-- flow-summary-end -->
+ *
+ <!-- options-start -->
+ * <pre>-logging-level &lt;OFF|SEVERE|WARNING|INFO|CONFIG|FINE|FINER|FINEST&gt; (property: loggingLevel)
+ * &nbsp;&nbsp;&nbsp;The logging level for outputting errors and debugging output.
+ * &nbsp;&nbsp;&nbsp;default: WARNING
+ * </pre>
+ * 
+ * <pre>-name &lt;java.lang.String&gt; (property: name)
+ * &nbsp;&nbsp;&nbsp;The name of the actor.
+ * &nbsp;&nbsp;&nbsp;default: RatExecutor
+ * </pre>
+ * 
+ * <pre>-annotation &lt;adams.core.base.BaseAnnotation&gt; (property: annotations)
+ * &nbsp;&nbsp;&nbsp;The annotations to attach to this actor.
+ * &nbsp;&nbsp;&nbsp;default: 
+ * </pre>
+ * 
+ * <pre>-skip &lt;boolean&gt; (property: skip)
+ * &nbsp;&nbsp;&nbsp;If set to true, transformation is skipped and the input token is just forwarded 
+ * &nbsp;&nbsp;&nbsp;as it is.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ * 
+ * <pre>-stop-flow-on-error &lt;boolean&gt; (property: stopFlowOnError)
+ * &nbsp;&nbsp;&nbsp;If set to true, the flow gets stopped in case this actor encounters an error;
+ * &nbsp;&nbsp;&nbsp; useful for critical actors.
+ * &nbsp;&nbsp;&nbsp;default: false
+ * </pre>
+ * 
+ * <pre>-thread-type &lt;PLATFORM|VIRTUAL&gt; (property: threadType)
+ * &nbsp;&nbsp;&nbsp;The type of threads to use; virtual threads require Java 21 or later 
+ * &nbsp;&nbsp;&nbsp;(on Java 21-23, inputs/outputs that block in synchronized code pin the 
+ * &nbsp;&nbsp;&nbsp;carrier thread).
+ * &nbsp;&nbsp;&nbsp;default: PLATFORM
+ * </pre>
+ * 
+ * <pre>-max-threads &lt;int&gt; (property: maxThreads)
+ * &nbsp;&nbsp;&nbsp;The maximum number of platform threads, additional tasks get queued; -1 
+ * &nbsp;&nbsp;&nbsp;= unlimited; NB: every running rat, worker and background input occupies 
+ * &nbsp;&nbsp;&nbsp;a thread, queued workers only start once a thread becomes available and 
+ * &nbsp;&nbsp;&nbsp;get cancelled if the rat stops before then.
+ * &nbsp;&nbsp;&nbsp;default: -1
+ * &nbsp;&nbsp;&nbsp;minimum: -1
+ * </pre>
+ * 
+ * <pre>-shutdown-timeout &lt;int&gt; (property: shutdownTimeout)
+ * &nbsp;&nbsp;&nbsp;The time in msec to wait for the tasks to finish when wrapping up, before 
+ * &nbsp;&nbsp;&nbsp;interrupting them; -1 = wait indefinitely.
+ * &nbsp;&nbsp;&nbsp;default: 10000
+ * &nbsp;&nbsp;&nbsp;minimum: -1
+ * </pre>
+ * 
+ <!-- options-end -->
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class RatExecutor
+  extends AbstractStandalone {
+
+  /** for serialization. */
+  private static final long serialVersionUID = 2784331902436529617L;
+
+  /** the type of threads. */
+  protected RatThreadType m_ThreadType;
+
+  /** the maximum number of platform threads. */
+  protected int m_MaxThreads;
+
+  /** the timeout for the shutdown in msec. */
+  protected int m_ShutdownTimeout;
+
+  /** the executor. */
+  protected transient ExecutorService m_Executor;
+
+  /** the rats using this executor. */
+  protected transient Set<Rat> m_Rats;
+
+  /** the number of queued tasks. */
+  protected transient AtomicInteger m_Queued;
+
+  /** the number of active tasks. */
+  protected transient AtomicInteger m_Active;
+
+  /** the number of completed tasks. */
+  protected transient AtomicLong m_Completed;
+
+  /**
+   * Returns a string describing the object.
+   *
+   * @return 			a description suitable for displaying in the gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+      "Provides the threads for all the Rat, Rats and RatPlague actors "
+	+ "(including their workers and inputs that listen in the background) "
+	+ "in this flow, rather than each of them creating their own thread.\n"
+	+ "Threads can either be platform threads or virtual threads (requires "
+	+ "Java 21 or later, falls back to platform threads otherwise). Threads "
+	+ "are named after the task they are running.\n"
+	+ "When wrapping up, the rats that use this executor get stopped first, "
+	+ "then the executor waits for the tasks to finish, up to the shutdown "
+	+ "timeout.";
+  }
+
+  /**
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+      "thread-type", "threadType",
+      RatThreadType.PLATFORM);
+
+    m_OptionManager.add(
+      "max-threads", "maxThreads",
+      -1, -1, null);
+
+    m_OptionManager.add(
+      "shutdown-timeout", "shutdownTimeout",
+      10000, -1, null);
+  }
+
+  /**
+   * Initializes the members.
+   */
+  @Override
+  protected void initialize() {
+    super.initialize();
+
+    m_Rats      = new HashSet<>();
+    m_Queued    = new AtomicInteger();
+    m_Active    = new AtomicInteger();
+    m_Completed = new AtomicLong();
+  }
+
+  /**
+   * Sets the type of threads to use.
+   *
+   * @param value	the type
+   */
+  public void setThreadType(RatThreadType value) {
+    m_ThreadType = value;
+    reset();
+  }
+
+  /**
+   * Returns the type of threads to use.
+   *
+   * @return		the type
+   */
+  public RatThreadType getThreadType() {
+    return m_ThreadType;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String threadTypeTipText() {
+    return
+      "The type of threads to use; virtual threads require Java 21 or later "
+	+ "(on Java 21-23, inputs/outputs that block in synchronized code pin "
+	+ "the carrier thread).";
+  }
+
+  /**
+   * Sets the maximum number of platform threads.
+   *
+   * @param value	the maximum, -1 for unlimited
+   */
+  public void setMaxThreads(int value) {
+    if (getOptionManager().isValid("maxThreads", value)) {
+      m_MaxThreads = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the maximum number of platform threads.
+   *
+   * @return		the maximum, -1 for unlimited
+   */
+  public int getMaxThreads() {
+    return m_MaxThreads;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String maxThreadsTipText() {
+    return
+      "The maximum number of platform threads, additional tasks get queued; "
+	+ "-1 = unlimited; NB: every running rat, worker and background input "
+	+ "occupies a thread, queued workers only start once a thread becomes "
+	+ "available and get cancelled if the rat stops before then.";
+  }
+
+  /**
+   * Sets the time to wait for the tasks to finish when wrapping up.
+   *
+   * @param value	the timeout in msec, -1 to wait indefinitely
+   */
+  public void setShutdownTimeout(int value) {
+    if (getOptionManager().isValid("shutdownTimeout", value)) {
+      m_ShutdownTimeout = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the time to wait for the tasks to finish when wrapping up.
+   *
+   * @return		the timeout in msec, -1 to wait indefinitely
+   */
+  public int getShutdownTimeout() {
+    return m_ShutdownTimeout;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String shutdownTimeoutTipText() {
+    return
+      "The time in msec to wait for the tasks to finish when wrapping up, "
+	+ "before interrupting them; -1 = wait indefinitely.";
+  }
+
+  /**
+   * Returns a quick info about the actor, which will be displayed in the GUI.
+   *
+   * @return		null if no info available, otherwise short string
+   */
+  @Override
+  public String getQuickInfo() {
+    String	result;
+
+    result = QuickInfoHelper.toString(this, "threadType", m_ThreadType, "type: ");
+    if (m_ThreadType == RatThreadType.PLATFORM)
+      result += QuickInfoHelper.toString(this, "maxThreads", (m_MaxThreads < 1 ? "unlimited" : "" + m_MaxThreads), ", max: ");
+
+    return result;
+  }
+
+  /**
+   * Creates a thread factory for virtual threads, using reflection.
+   *
+   * @param prefix	the prefix for the thread names
+   * @return		the factory, null if virtual threads not available
+   */
+  protected ThreadFactory createVirtualThreadFactory(String prefix) {
+    Class	builderCls;
+    Object	builder;
+    Method	method;
+
+    try {
+      builderCls = Class.forName("java.lang.Thread$Builder");
+      builder    = Thread.class.getMethod("ofVirtual").invoke(null);
+      method     = builderCls.getMethod("name", String.class, long.class);
+      builder    = method.invoke(builder, prefix, 1L);
+      method     = builderCls.getMethod("factory");
+      return (ThreadFactory) method.invoke(builder);
+    }
+    catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Creates the executor.
+   *
+   * @return		the executor
+   */
+  protected ExecutorService createExecutor() {
+    final String		prefix;
+    final AtomicInteger		count;
+    ThreadFactory		factory;
+    ThreadPoolExecutor		result;
+
+    prefix = getFullName() + "-";
+
+    if (m_ThreadType == RatThreadType.VIRTUAL) {
+      factory = createVirtualThreadFactory(prefix);
+      if (factory != null) {
+	try {
+	  return (ExecutorService) Executors.class
+	    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+	    .invoke(null, factory);
+	}
+	catch (Exception e) {
+	  // ignored, falling back to platform threads
+	}
+      }
+      getLogger().warning("Virtual threads not available, using platform threads!");
+    }
+
+    count   = new AtomicInteger();
+    factory = (Runnable r) -> new Thread(r, prefix + count.incrementAndGet());
+    if (m_MaxThreads < 1) {
+      result = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), factory);
+    }
+    else {
+      result = new ThreadPoolExecutor(m_MaxThreads, m_MaxThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+      result.allowCoreThreadTimeOut(true);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the executor, creates it if necessary.
+   *
+   * @return		the executor
+   */
+  protected synchronized ExecutorService getExecutor() {
+    if (m_Executor == null)
+      m_Executor = createExecutor();
+    return m_Executor;
+  }
+
+  /**
+   * Registers the rat as user of this executor. Registered rats get
+   * stopped before the executor shuts down.
+   *
+   * @param rat		the rat to register
+   */
+  public void register(Rat rat) {
+    synchronized(m_Rats) {
+      m_Rats.add(rat);
+    }
+  }
+
+  /**
+   * Removes the rat from the users of this executor.
+   *
+   * @param rat		the rat to remove
+   */
+  public void unregister(Rat rat) {
+    synchronized(m_Rats) {
+      m_Rats.remove(rat);
+    }
+  }
+
+  /**
+   * Submits the task. The thread running the task is named after it.
+   *
+   * @param name	the name of the task
+   * @param task	the task to run
+   * @return		the future of the task
+   */
+  public Future<?> submit(final String name, final Runnable task) {
+    final AtomicBoolean	started;
+    FutureTask<Object>	result;
+
+    started = new AtomicBoolean();
+    result  = new FutureTask<Object>(() -> {
+      Thread	current;
+      String	oldName;
+
+      started.set(true);
+      m_Queued.decrementAndGet();
+      m_Active.incrementAndGet();
+      current = Thread.currentThread();
+      oldName = current.getName();
+      current.setName(name);
+      try {
+	task.run();
+      }
+      catch (Throwable t) {
+	getLogger().severe("Task '" + name + "' failed:\n" + LoggingHelper.throwableToString(t));
+      }
+      finally {
+	current.setName(oldName);
+	m_Active.decrementAndGet();
+	m_Completed.incrementAndGet();
+      }
+    }, null) {
+      @Override
+      protected void done() {
+	// cancelled while still queued
+	if (isCancelled() && !started.get())
+	  m_Queued.decrementAndGet();
+      }
+    };
+
+    m_Queued.incrementAndGet();
+    try {
+      getExecutor().execute(result);
+    }
+    catch (RuntimeException e) {
+      m_Queued.decrementAndGet();
+      throw e;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the number of tasks currently running.
+   *
+   * @return		the number of tasks
+   */
+  public int getActiveCount() {
+    return m_Active.get();
+  }
+
+  /**
+   * Returns the number of tasks waiting for a thread.
+   *
+   * @return		the number of tasks
+   */
+  public int getQueuedCount() {
+    return m_Queued.get();
+  }
+
+  /**
+   * Returns the number of tasks that have finished.
+   *
+   * @return		the number of tasks
+   */
+  public long getCompletedCount() {
+    return m_Completed.get();
+  }
+
+  /**
+   * Returns the number of rats using this executor.
+   *
+   * @return		the number of rats
+   */
+  public int getRatCount() {
+    synchronized(m_Rats) {
+      return m_Rats.size();
+    }
+  }
+
+  /**
+   * Executes the flow item.
+   *
+   * @return		null if everything is fine, otherwise error message
+   */
+  @Override
+  protected String doExecute() {
+    getExecutor();
+    return null;
+  }
+
+  /**
+   * Stops the registered rats and shuts down the executor, waiting for the
+   * tasks to finish (up to the shutdown timeout).
+   */
+  protected void shutdown() {
+    List<Rat>		rats;
+    ExecutorService	executor;
+    boolean		terminated;
+
+    synchronized(m_Rats) {
+      rats = new ArrayList<>(m_Rats);
+    }
+    for (Rat rat: rats) {
+      if (rat.isRunnableActive())
+	rat.stopRunnable();
+    }
+
+    synchronized(this) {
+      executor   = m_Executor;
+      m_Executor = null;
+    }
+    if (executor == null)
+      return;
+
+    // drop tasks that got cancelled while waiting for a thread
+    if (executor instanceof ThreadPoolExecutor)
+      ((ThreadPoolExecutor) executor).purge();
+    executor.shutdown();
+    try {
+      if (m_ShutdownTimeout < 0)
+	terminated = executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      else
+	terminated = executor.awaitTermination(m_ShutdownTimeout, TimeUnit.MILLISECONDS);
+    }
+    catch (InterruptedException e) {
+      terminated = false;
+    }
+    if (!terminated) {
+      getLogger().warning("Tasks still active after shutdown timeout, interrupting: " + getActiveCount());
+      executor.shutdownNow();
+    }
+    if (isLoggingEnabled())
+      getLogger().info("Completed tasks: " + getCompletedCount());
+  }
+
+  /**
+   * Stops the execution. No message set.
+   */
+  @Override
+  public void stopExecution() {
+    super.stopExecution();
+    shutdown();
+  }
+
+  /**
+   * Cleans up after the execution has finished.
+   */
+  @Override
+  public void wrapUp() {
+    shutdown();
+    super.wrapUp();
+  }
+
+  /**
+   * Cleans up after the execution has finished. Also removes graphical
+   * components.
+   */
+  @Override
+  public void cleanUp() {
+    synchronized(m_Rats) {
+      m_Rats.clear();
+    }
+    super.cleanUp();
+  }
+}
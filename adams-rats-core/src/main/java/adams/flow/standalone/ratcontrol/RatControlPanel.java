@@ -15,7 +15,7 @@
 
 /*
  * RatControlPanel.java
- * Copyright (C) 2018-2024 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2018-2026 University of Waikato, Hamilton, NZ
  */
 
 package adams.flow.standalone.ratcontrol;
@@ -25,6 +25,7 @@ import adams.flow.standalone.Rat;
 import adams.gui.core.BaseButton;
 import adams.gui.core.ImageManager;
 
+import javax.swing.JLabel;
 import javax.swing.SwingWorker;
 import java.awt.event.ActionEvent;
 import java.util.List;
@@ -43,6 +44,9 @@ public class RatControlPanel
   /** the button for stopping/starting. */
   protected BaseButton m_ButtonStopStart;
 
+  /** the label for the metrics. */
+  protected JLabel m_LabelMetrics;
+
   /**
    * Initializes the widgets.
    */
@@ -53,6 +57,10 @@ public class RatControlPanel
     m_ButtonStopStart = new BaseButton(ImageManager.getIcon("run.gif"));
     m_ButtonStopStart.addActionListener((ActionEvent e) -> stopOrStart());
     add(m_ButtonStopStart);
+
+    m_LabelMetrics = new JLabel();
+    m_LabelMetrics.setVisible(false);
+    add(m_LabelMetrics);
   }
 
   /**
@@ -138,6 +146,35 @@ public class RatControlPanel
       m_ButtonStopStart.setIcon(ImageManager.getIcon("run.gif"));
   }
 
+  /**
+   * Sets whether to display the metrics of the rat.
+   *
+   * @param value	true if to display
+   */
+  public void setMetricsVisible(boolean value) {
+    m_LabelMetrics.setVisible(value);
+  }
+
+  /**
+   * Returns whether the metrics of the rat are displayed.
+   *
+   * @return		true if displayed
+   */
+  public boolean isMetricsVisible() {
+    return m_LabelMetrics.isVisible();
+  }
+
+  /**
+   * Updates the displayed metrics of the rat.
+   */
+  public void updateMetrics() {
+    if ((m_Actor == null) || !isMetricsVisible())
+      return;
+
+    m_Actor.updateBacklog();
+    m_LabelMetrics.setText(m_Actor.getMetrics().toSummary());
+  }
+
   /**
    * Sets the "stoppable" state of the control panel.
    *
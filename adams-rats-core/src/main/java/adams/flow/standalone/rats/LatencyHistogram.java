@@ -0,0 +1,215 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * LatencyHistogram.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.flow.standalone.rats;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram for latencies in nano-seconds, using log-linear
+ * buckets (like HDR histograms): every power of two is split into
+ * {@link #SUB_BUCKETS} equally sized buckets, resulting in a relative
+ * error of about 3%. Recording a value is a handful of atomic
+ * increments and never blocks.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class LatencyHistogram
+  implements Serializable {
+
+  /** for serialization. */
+  private static final long serialVersionUID = -2203918845730651974L;
+
+  /** the number of bits used for the sub-buckets. */
+  public final static int SUB_BUCKET_BITS = 5;
+
+  /** the number of sub-buckets per power of two. */
+  public final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /** the total number of buckets (covers all positive longs). */
+  public final static int NUM_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  /** the counts per bucket. */
+  protected AtomicLongArray m_Counts;
+
+  /** the number of recorded values. */
+  protected LongAdder m_Count;
+
+  /** the sum of the recorded values. */
+  protected LongAdder m_Sum;
+
+  /** the largest recorded value. */
+  protected AtomicLong m_Max;
+
+  /**
+   * Initializes the histogram.
+   */
+  public LatencyHistogram() {
+    m_Counts = new AtomicLongArray(NUM_BUCKETS);
+    m_Count  = new LongAdder();
+    m_Sum    = new LongAdder();
+    m_Max    = new AtomicLong();
+  }
+
+  /**
+   * Returns the bucket index for the value.
+   *
+   * @param value	the value (>= 0)
+   * @return		the index
+   */
+  protected static int bucketIndex(long value) {
+    int		shift;
+
+    if (value < SUB_BUCKETS)
+      return (int) value;
+    shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+  }
+
+  /**
+   * Returns the largest value that falls into the bucket.
+   *
+   * @param index	the bucket index
+   * @return		the upper bound (inclusive)
+   */
+  protected static long bucketUpperBound(int index) {
+    int		shift;
+    long	mantissa;
+
+    if (index < SUB_BUCKETS)
+      return index;
+    shift    = index / SUB_BUCKETS - 1;
+    mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+    return ((mantissa + 1) << shift) - 1;
+  }
+
+  /**
+   * Records the latency.
+   *
+   * @param nanos	the latency in nano-seconds, negative values are treated as 0
+   */
+  public void record(long nanos) {
+    long	max;
+
+    if (nanos < 0)
+      nanos = 0;
+    m_Counts.incrementAndGet(bucketIndex(nanos));
+    m_Count.increment();
+    m_Sum.add(nanos);
+    max = m_Max.get();
+    while ((nanos > max) && !m_Max.compareAndSet(max, nanos))
+      max = m_Max.get();
+  }
+
+  /**
+   * Returns the number of recorded values.
+   *
+   * @return		the count
+   */
+  public long getCount() {
+    return m_Count.sum();
+  }
+
+  /**
+   * Returns the mean latency.
+   *
+   * @return		the mean in nano-seconds, 0 if nothing recorded
+   */
+  public double getMean() {
+    long	count;
+
+    count = m_Count.sum();
+    if (count == 0)
+      return 0;
+    return (double) m_Sum.sum() / count;
+  }
+
+  /**
+   * Returns the largest recorded latency.
+   *
+   * @return		the maximum in nano-seconds
+   */
+  public long getMax() {
+    return m_Max.get();
+  }
+
+  /**
+   * Returns the latency at the specified percentile, i.e., the upper bound
+   * of the bucket the percentile falls into (capped by the maximum).
+   *
+   * @param percentile	the percentile (0-100)
+   * @return		the latency in nano-seconds, 0 if nothing recorded
+   */
+  public long getPercentile(double percentile) {
+    long	count;
+    long	target;
+    long	sum;
+    int		i;
+
+    count = 0;
+    for (i = 0; i < NUM_BUCKETS; i++)
+      count += m_Counts.get(i);
+    if (count == 0)
+      return 0;
+
+    target = (long) Math.ceil(count * Math.max(0.0, Math.min(100.0, percentile)) / 100.0);
+    if (target < 1)
+      target = 1;
+    sum = 0;
+    for (i = 0; i < NUM_BUCKETS; i++) {
+      sum += m_Counts.get(i);
+      if (sum >= target)
+	return Math.min(bucketUpperBound(i), getMax());
+    }
+
+    return getMax();
+  }
+
+  /**
+   * Clears all recorded values. Values recorded concurrently may or may
+   * not survive the reset.
+   */
+  public void reset() {
+    int		i;
+
+    for (i = 0; i < NUM_BUCKETS; i++)
+      m_Counts.set(i, 0);
+    m_Count.reset();
+    m_Sum.reset();
+    m_Max.set(0);
+  }
+
+  /**
+   * Returns a short description of the histogram (in msec).
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return
+      "count=" + getCount()
+	+ ", mean=" + RatMetrics.toMsec(getMean())
+	+ ", p50=" + RatMetrics.toMsec(getPercentile(50))
+	+ ", p99=" + RatMetrics.toMsec(getPercentile(99))
+	+ ", max=" + RatMetrics.toMsec(getMax());
+  }
+}
@@ -0,0 +1,486 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * RatMetrics.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.flow.standalone.rats;
+
+import adams.core.Utils;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput, latency and backlog metrics of a single Rat actor.
+ * All methods are thread-safe and non-blocking, so that they can be
+ * called from the receiving thread, the workers and the transmitting
+ * thread without affecting throughput.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class RatMetrics
+  implements Serializable {
+
+  /** for serialization. */
+  private static final long serialVersionUID = 7346128510273649901L;
+
+  /** the name for the number of received items. */
+  public final static String RECEIVED = "received";
+
+  /** the name for the number of transmitted items. */
+  public final static String TRANSMITTED = "transmitted";
+
+  /** the name for the number of failed items. */
+  public final static String FAILED = "failed";
+
+  /** the name for the receive rate. */
+  public final static String RATE = "rate_per_sec";
+
+  /** the prefix for the receive latencies. */
+  public final static String RECEIVE = "receive";
+
+  /** the prefix for the process latencies. */
+  public final static String PROCESS = "process";
+
+  /** the prefix for the transmit latencies. */
+  public final static String TRANSMIT = "transmit";
+
+  /** the name for the current input backlog. */
+  public final static String INPUT_BACKLOG = "input_backlog";
+
+  /** the name for the maximum input backlog. */
+  public final static String INPUT_BACKLOG_MAX = "input_backlog_max";
+
+  /** the name for the current output backlog. */
+  public final static String OUTPUT_BACKLOG = "output_backlog";
+
+  /** the name for the maximum output backlog. */
+  public final static String OUTPUT_BACKLOG_MAX = "output_backlog_max";
+
+  /** the name for the time blocked on back-pressure. */
+  public final static String BLOCKED = "blocked_msec";
+
+  /** the scheduler shared by all rats for outputting their metrics. */
+  protected static ScheduledExecutorService m_Scheduler;
+
+  /** the locks for the metrics files (absolute path), shared by all rats. */
+  protected static final Map<String,Object> m_FileLocks = new ConcurrentHashMap<>();
+
+  /** the number of received items. */
+  protected LongAdder m_Received;
+
+  /** the number of transmitted items. */
+  protected LongAdder m_Transmitted;
+
+  /** the number of items that failed processing/transmitting. */
+  protected LongAdder m_Failed;
+
+  /** the receive latencies. */
+  protected LatencyHistogram m_ReceiveLatency;
+
+  /** the process latencies. */
+  protected LatencyHistogram m_ProcessLatency;
+
+  /** the transmit latencies. */
+  protected LatencyHistogram m_TransmitLatency;
+
+  /** the current input backlog (-1 if unknown). */
+  protected AtomicLong m_InputBacklog;
+
+  /** the maximum input backlog. */
+  protected AtomicLong m_InputBacklogMax;
+
+  /** the current output backlog (-1 if unknown). */
+  protected AtomicLong m_OutputBacklog;
+
+  /** the maximum output backlog. */
+  protected AtomicLong m_OutputBacklogMax;
+
+  /** the nano-seconds spent blocked on back-pressure. */
+  protected LongAdder m_Blocked;
+
+  /** the time the metrics were (re-)started. */
+  protected volatile long m_Start;
+
+  /**
+   * Initializes the metrics.
+   */
+  public RatMetrics() {
+    m_Received         = new LongAdder();
+    m_Transmitted      = new LongAdder();
+    m_Failed           = new LongAdder();
+    m_ReceiveLatency   = new LatencyHistogram();
+    m_ProcessLatency   = new LatencyHistogram();
+    m_TransmitLatency  = new LatencyHistogram();
+    m_InputBacklog     = new AtomicLong(-1);
+    m_InputBacklogMax  = new AtomicLong();
+    m_OutputBacklog    = new AtomicLong(-1);
+    m_OutputBacklogMax = new AtomicLong();
+    m_Blocked          = new LongAdder();
+    m_Start            = System.currentTimeMillis();
+  }
+
+  /**
+   * Turns nano-seconds into milli-seconds, rounded to three decimals.
+   *
+   * @param nanos	the nano-seconds
+   * @return		the milli-seconds
+   */
+  public static double toMsec(double nanos) {
+    return Math.round(nanos / 1000.0) / 1000.0;
+  }
+
+  /**
+   * Updates the maximum.
+   *
+   * @param max		the maximum to update
+   * @param value	the new value
+   */
+  protected static void updateMax(AtomicLong max, long value) {
+    long	current;
+
+    current = max.get();
+    while ((value > current) && !max.compareAndSet(current, value))
+      current = max.get();
+  }
+
+  /**
+   * Records the time a call to the receiver took.
+   *
+   * @param nanos	the time the receiver took
+   */
+  public void received(long nanos) {
+    m_ReceiveLatency.record(nanos);
+  }
+
+  /**
+   * Counts a received item.
+   */
+  public void receivedItem() {
+    m_Received.increment();
+  }
+
+  /**
+   * Records the processing of an item by the actors.
+   *
+   * @param nanos	the time the actors took
+   * @param success	whether processing succeeded
+   */
+  public void processed(long nanos, boolean success) {
+    m_ProcessLatency.record(nanos);
+    if (!success)
+      m_Failed.increment();
+  }
+
+  /**
+   * Records a transmission.
+   *
+   * @param nanos	the time the transmitter took
+   * @param success	whether transmission succeeded
+   */
+  public void transmitted(long nanos, boolean success) {
+    m_TransmitLatency.record(nanos);
+    if (success)
+      m_Transmitted.increment();
+    else
+      m_Failed.increment();
+  }
+
+  /**
+   * Records time spent waiting for downstream capacity.
+   *
+   * @param nanos	the time blocked
+   */
+  public void blocked(long nanos) {
+    if (nanos > 0)
+      m_Blocked.add(nanos);
+  }
+
+  /**
+   * Updates the input backlog.
+   *
+   * @param value	the current backlog, -1 if unknown
+   */
+  public void updateInputBacklog(long value) {
+    m_InputBacklog.set(value);
+    updateMax(m_InputBacklogMax, value);
+  }
+
+  /**
+   * Updates the output backlog.
+   *
+   * @param value	the current backlog, -1 if unknown
+   */
+  public void updateOutputBacklog(long value) {
+    m_OutputBacklog.set(value);
+    updateMax(m_OutputBacklogMax, value);
+  }
+
+  /**
+   * Returns the number of received items.
+   *
+   * @return		the count
+   */
+  public long getReceived() {
+    return m_Received.sum();
+  }
+
+  /**
+   * Returns the number of transmitted items.
+   *
+   * @return		the count
+   */
+  public long getTransmitted() {
+    return m_Transmitted.sum();
+  }
+
+  /**
+   * Returns the number of items that failed processing or transmission.
+   *
+   * @return		the count
+   */
+  public long getFailed() {
+    return m_Failed.sum();
+  }
+
+  /**
+   * Returns the latencies of the receiver.
+   *
+   * @return		the histogram
+   */
+  public LatencyHistogram getReceiveLatency() {
+    return m_ReceiveLatency;
+  }
+
+  /**
+   * Returns the latencies of the actors.
+   *
+   * @return		the histogram
+   */
+  public LatencyHistogram getProcessLatency() {
+    return m_ProcessLatency;
+  }
+
+  /**
+   * Returns the latencies of the transmitter.
+   *
+   * @return		the histogram
+   */
+  public LatencyHistogram getTransmitLatency() {
+    return m_TransmitLatency;
+  }
+
+  /**
+   * Returns the current input backlog.
+   *
+   * @return		the backlog, -1 if unknown
+   */
+  public long getInputBacklog() {
+    return m_InputBacklog.get();
+  }
+
+  /**
+   * Returns the maximum input backlog.
+   *
+   * @return		the backlog
+   */
+  public long getInputBacklogMax() {
+    return m_InputBacklogMax.get();
+  }
+
+  /**
+   * Returns the current output backlog.
+   *
+   * @return		the backlog, -1 if unknown
+   */
+  public long getOutputBacklog() {
+    return m_OutputBacklog.get();
+  }
+
+  /**
+   * Returns the maximum output backlog.
+   *
+   * @return		the backlog
+   */
+  public long getOutputBacklogMax() {
+    return m_OutputBacklogMax.get();
+  }
+
+  /**
+   * Returns the time spent blocked on back-pressure.
+   *
+   * @return		the time in nano-seconds
+   */
+  public long getBlocked() {
+    return m_Blocked.sum();
+  }
+
+  /**
+   * Returns the number of received items per second since the (re-)start.
+   *
+   * @return		the rate
+   */
+  public double getRate() {
+    long	elapsed;
+
+    elapsed = System.currentTimeMillis() - m_Start;
+    if (elapsed <= 0)
+      return 0;
+    return Utils.round(getReceived() * 1000.0 / elapsed, 3);
+  }
+
+  /**
+   * Resets all the metrics.
+   */
+  public void reset() {
+    m_Received.reset();
+    m_Transmitted.reset();
+    m_Failed.reset();
+    m_ReceiveLatency.reset();
+    m_ProcessLatency.reset();
+    m_TransmitLatency.reset();
+    m_InputBacklog.set(-1);
+    m_InputBacklogMax.set(0);
+    m_OutputBacklog.set(-1);
+    m_OutputBacklogMax.set(0);
+    m_Blocked.reset();
+    m_Start = System.currentTimeMillis();
+  }
+
+  /**
+   * Adds the statistics of the histogram to the map.
+   *
+   * @param result	the map to add to
+   * @param prefix	the prefix for the names
+   * @param hist	the histogram to add
+   */
+  protected void add(Map<String,Object> result, String prefix, LatencyHistogram hist) {
+    result.put(prefix + "_mean_msec", toMsec(hist.getMean()));
+    result.put(prefix + "_p50_msec", toMsec(hist.getPercentile(50)));
+    result.put(prefix + "_p99_msec", toMsec(hist.getPercentile(99)));
+    result.put(prefix + "_max_msec", toMsec(hist.getMax()));
+  }
+
+  /**
+   * Returns a snapshot of the metrics, using the names as keys (the order
+   * is always the same).
+   *
+   * @return		the metrics
+   */
+  public Map<String,Object> getValues() {
+    Map<String,Object>	result;
+
+    result = new LinkedHashMap<>();
+    result.put(RECEIVED, getReceived());
+    result.put(TRANSMITTED, getTransmitted());
+    result.put(FAILED, getFailed());
+    result.put(RATE, getRate());
+    add(result, RECEIVE, m_ReceiveLatency);
+    add(result, PROCESS, m_ProcessLatency);
+    add(result, TRANSMIT, m_TransmitLatency);
+    result.put(INPUT_BACKLOG, getInputBacklog());
+    result.put(INPUT_BACKLOG_MAX, getInputBacklogMax());
+    result.put(OUTPUT_BACKLOG, getOutputBacklog());
+    result.put(OUTPUT_BACKLOG_MAX, getOutputBacklogMax());
+    result.put(BLOCKED, toMsec(getBlocked()));
+
+    return result;
+  }
+
+  /**
+   * Returns the scheduler shared by all rats for the periodic output of
+   * their metrics. Uses a single daemon thread.
+   *
+   * @return		the scheduler
+   */
+  public static synchronized ScheduledExecutorService getScheduler() {
+    if (m_Scheduler == null) {
+      m_Scheduler = Executors.newSingleThreadScheduledExecutor((Runnable r) -> {
+	Thread thread = new Thread(r, RatMetrics.class.getSimpleName() + "-output");
+	thread.setDaemon(true);
+	return thread;
+      });
+    }
+    return m_Scheduler;
+  }
+
+  /**
+   * Returns the lock to hold while writing to the metrics file, as several
+   * rats can append to the same file.
+   *
+   * @param file	the metrics file
+   * @return		the lock
+   */
+  public static Object getFileLock(File file) {
+    return m_FileLocks.computeIfAbsent(file.getAbsolutePath(), (String k) -> new Object());
+  }
+
+  /**
+   * Returns the names of the metrics, in the order used by {@link #getValues()}.
+   *
+   * @return		the names
+   */
+  public static List<String> getNames() {
+    return new ArrayList<>(new RatMetrics().getValues().keySet());
+  }
+
+  /**
+   * Returns a one-line summary, eg for displaying in the GUI.
+   *
+   * @return		the summary
+   */
+  public String toSummary() {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    result.append("in: ").append(getReceived());
+    result.append(", out: ").append(getTransmitted());
+    result.append(", failed: ").append(getFailed());
+    result.append(", rate: ").append(getRate()).append("/s");
+    result.append(", p99 (ms) rcv/proc/send: ");
+    result.append(toMsec(m_ReceiveLatency.getPercentile(99))).append("/");
+    result.append(toMsec(m_ProcessLatency.getPercentile(99))).append("/");
+    result.append(toMsec(m_TransmitLatency.getPercentile(99)));
+    if (getInputBacklog() > -1)
+      result.append(", backlog in: ").append(getInputBacklog()).append(" (max ").append(getInputBacklogMax()).append(")");
+    if (getOutputBacklog() > -1)
+      result.append(", backlog out: ").append(getOutputBacklog()).append(" (max ").append(getOutputBacklogMax()).append(")");
+    if (getBlocked() > 0)
+      result.append(", blocked: ").append(toMsec(getBlocked())).append("ms");
+
+    return result.toString();
+  }
+
+  /**
+   * Returns all the metrics as string.
+   *
+   * @return		the metrics
+   */
+  @Override
+  public String toString() {
+    return getValues().toString();
+  }
+}
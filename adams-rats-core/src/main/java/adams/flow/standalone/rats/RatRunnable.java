@@ -15,17 +15,18 @@
 
 /*
  * RatRunnable.java
- * Copyright (C) 2014-2018 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2014-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.flow.standalone.rats;
 
-import adams.core.Utils;
 import adams.core.logging.LoggingHelper;
 import adams.flow.core.RatMode;
 import adams.flow.core.RunnableWithLogging;
 import adams.flow.core.Token;
 import adams.flow.standalone.Rat;
 import adams.flow.standalone.rats.input.PollingRatInput;
+import adams.flow.standalone.rats.output.AbstractRatOutput;
+import adams.flow.standalone.rats.output.RatOutput;
 
 import java.util.logging.Level;
 
@@ -49,6 +50,12 @@ public class RatRunnable
   /** whether the execution has been paused. */
   protected boolean m_Paused;
 
+  /** the workers, if more than one. */
+  protected RatWorkerPool m_Workers;
+
+  /** for waking up the waiting thread when resumed or stopped. */
+  protected RatSignal m_Signal;
+
   /**
    * Initializes the runnable.
    *
@@ -61,6 +68,7 @@ public class RatRunnable
     m_Owner     = owner;
     m_HasActors = (owner.getActorHandler().active() > 0);
     m_Paused    = paused;
+    m_Signal    = new RatSignal();
   }
 
   /**
@@ -72,6 +80,47 @@ public class RatRunnable
     return m_Owner;
   }
 
+  /**
+   * Waits for the specified number of milliseconds, unless the execution
+   * gets stopped or resumed (both of which wake up the waiting thread).
+   *
+   * @param msec	the maximum time to wait in msec
+   */
+  protected void doWait(long msec) {
+    if (msec > 0)
+      m_Signal.await(() -> m_Stopped, msec);
+  }
+
+  /**
+   * Blocks while paused, until resumed or stopped.
+   */
+  protected void waitWhilePaused() {
+    m_Signal.await(() -> !m_Paused || m_Stopped, -1);
+  }
+
+  /**
+   * Blocks until the transmitter accepts input or the execution gets stopped.
+   * Transmitters derived from {@link AbstractRatOutput} signal when their
+   * input has been consumed, others get checked periodically.
+   *
+   * @param transmitter	the transmitter to wait for
+   */
+  protected void waitForTransmitter(RatOutput transmitter) {
+    long	start;
+
+    if (transmitter.canInput())
+      return;
+
+    start = System.nanoTime();
+    while (!transmitter.canInput() && !m_Stopped) {
+      if (transmitter instanceof AbstractRatOutput)
+	((AbstractRatOutput) transmitter).waitForInput(100);
+      else
+	doWait(10);
+    }
+    m_Owner.getMetrics().blocked(System.nanoTime() - start);
+  }
+
   /**
    * Transmits the data.
    *
@@ -80,12 +129,12 @@ public class RatRunnable
    */
   protected String transmit(Object data) {
     String	result;
+    long	start;
 
     result = null;
 
     if (data != null) {
-      while (!m_Owner.getTransmitter().canInput() && !m_Stopped)
-	Utils.wait(this, this, 100, 100);
+      waitForTransmitter(m_Owner.getTransmitter());
 
       if (!m_Stopped) {
 	if (isLoggingEnabled())
@@ -94,7 +143,14 @@ public class RatRunnable
 
 	if (isLoggingEnabled())
 	  getLogger().info("Transmitting to " + m_Owner.getTransmitter().getFullName());
-	result = m_Owner.getTransmitter().transmit();
+	start  = System.nanoTime();
+	result = "Transmitter failed: " + m_Owner.getTransmitter().getFullName();
+	try {
+	  result = m_Owner.getTransmitter().transmit();
+	}
+	finally {
+	  m_Owner.getMetrics().transmitted(System.nanoTime() - start, (result == null));
+	}
 
 	if (result != null)
 	  getLogger().warning("Failed to transmit to " + m_Owner.getTransmitter().getFullName() + ": " + result);
@@ -106,6 +162,70 @@ public class RatRunnable
     return result;
   }
 
+  /**
+   * Returns the worker pool, if more than one worker is used.
+   *
+   * @return		the pool, null if processing in this thread
+   */
+  public RatWorkerPool getWorkers() {
+    return m_Workers;
+  }
+
+  /**
+   * Pushes the data through the actors and transmits the output.
+   *
+   * @param data	the data to process
+   * @return		null if successful, otherwise error message
+   */
+  protected String process(Object data) {
+    String	result;
+    Token	token;
+    long	start;
+
+    result = null;
+
+    // delayed setup?
+    if (m_Owner.getPerformLazySetup() && !m_Owner.hasLazySetupPerformed()) {
+      result = m_Owner.lazySetup();
+      if (result != null)
+	getOwner().getLogger().log(Level.SEVERE, result);
+    }
+    if (result == null) {
+      start  = System.nanoTime();
+      result = "Actors failed: " + m_Owner.getActorHandler().getFullName();
+      try {
+	m_Owner.getActorHandler().input(new Token(data));
+	result = m_Owner.getActorHandler().execute();
+      }
+      finally {
+	m_Owner.getMetrics().processed(System.nanoTime() - start, (result == null));
+      }
+    }
+    if (result == null) {
+      while (m_Owner.getActorHandler().hasPendingOutput() && !m_Stopped) {
+	token  = m_Owner.getActorHandler().output();
+	try {
+	  result = transmit(token.getPayload());
+	}
+	catch (Throwable t) {
+	  result = LoggingHelper.throwableToString(t);
+	}
+	if (result != null) {
+	  getOwner().queueSendError(data, result);
+	  break;
+	}
+      }
+    }
+    else {
+      getOwner().queueFlowError(data, result);
+    }
+    // free up memory?
+    if (m_Owner.getPerformLazySetup() && m_Owner.getWrapUpAfterExecution() && !m_Owner.isBreakpointPresent())
+      m_Owner.getActorHandler().wrapUp();
+
+    return result;
+  }
+
   /**
    * Performs the actual execution.
    */
@@ -113,11 +233,24 @@ public class RatRunnable
   protected void doRun() {
     String	result;
     Object	data;
-    Token	token;
+    long	start;
+
+    // multiple workers?
+    if (m_HasActors && (m_Owner.getNumWorkers() > 1) && !m_Owner.isBreakpointPresent()) {
+      m_Workers = new RatWorkerPool(this, m_Owner.getNumWorkers(), m_Owner.getMaxInFlight(), m_Owner.getOrderedOutput());
+      result    = m_Workers.start();
+      if (result != null) {
+	getOwner().log(result, "setup");
+	m_Workers = null;
+	return;
+      }
+      if (isLoggingEnabled())
+	getLogger().info("Started " + m_Workers.getNumWorkers() + " workers");
+    }
 
     while (!m_Stopped) {
       if (m_Paused && !m_Stopped) {
-	Utils.wait(this, this, 100, 10);
+	waitWhilePaused();
 	continue;
       }
 
@@ -127,12 +260,15 @@ public class RatRunnable
       if (m_Owner.getReceiver().isStopped())
 	break;
 
+      start = System.nanoTime();
       try {
 	result = m_Owner.getReceiver().receive();
       }
       catch (Throwable t) {
 	result = LoggingHelper.throwableToString(t);
       }
+      m_Owner.getMetrics().received(System.nanoTime() - start);
+      m_Owner.updateBacklog();
 
       if (getOwner().getReceiver().getReceptionInterrupted())
 	getLogger().warning("Reception interrupted: " + m_Owner.getReceiver().getFullName());
@@ -152,6 +288,8 @@ public class RatRunnable
 	try {
 	  while (m_Owner.getReceiver().hasPendingOutput() && !m_Stopped) {
 	    data = m_Owner.getReceiver().output();
+	    if (data != null)
+	      m_Owner.getMetrics().receivedItem();
 	    if (isLoggingEnabled())
 	      getLogger().finer("Data: " + data);
 
@@ -161,37 +299,10 @@ public class RatRunnable
 	    // actors?
 	    if (m_HasActors) {
 	      if (data != null) {
-	        // delayed setup?
-	        if (m_Owner.getPerformLazySetup() && !m_Owner.hasLazySetupPerformed()) {
-		  result = m_Owner.lazySetup();
-		  if (result != null)
-		    getOwner().getLogger().log(Level.SEVERE, result);
-		}
-	        if (result == null) {
-		  m_Owner.getActorHandler().input(new Token(data));
-		  result = m_Owner.getActorHandler().execute();
-		}
-		if (result == null) {
-		  while (m_Owner.getActorHandler().hasPendingOutput() && !m_Stopped) {
-		    token  = m_Owner.getActorHandler().output();
-		    try {
-		      result = transmit(token.getPayload());
-		    }
-		    catch (Throwable t) {
-		      result = LoggingHelper.throwableToString(t);
-		    }
-		    if (result != null) {
-		      getOwner().queueSendError(data, result);
-		      break;
-		    }
-		  }
-		}
-		else {
-		  getOwner().queueFlowError(data, result);
-		}
-		// free up memory?
-		if (m_Owner.getPerformLazySetup() && m_Owner.getWrapUpAfterExecution() && !m_Owner.isBreakpointPresent())
-		  m_Owner.getActorHandler().wrapUp();
+		if (m_Workers != null)
+		  m_Workers.submit(data);
+		else
+		  result = process(data);
 	      }
 	    }
 	    else {
@@ -227,11 +338,18 @@ public class RatRunnable
       // wait before next poll?
       if (!m_Stopped) {
 	if (m_Owner.getReceiver() instanceof PollingRatInput) {
-	  Utils.wait(this, this, ((PollingRatInput) m_Owner.getReceiver()).getWaitPoll(), 10);
+	  doWait(((PollingRatInput) m_Owner.getReceiver()).getWaitPoll());
 	}
       }
     }
 
+    if (m_Workers != null) {
+      if (m_Stopped)
+	m_Workers.stop();
+      else
+	m_Workers.finish();
+    }
+
     if (m_Stopped) {
       m_Owner.getReceiver().stopExecution();
       m_Owner.getTransmitter().stopExecution();
@@ -262,6 +380,7 @@ public class RatRunnable
    */
   public void resumeExecution() {
     m_Paused = false;
+    m_Signal.signalAll();
   }
 
   /**
@@ -279,6 +398,9 @@ public class RatRunnable
   @Override
   public void stopExecution() {
     super.stopExecution();
+    m_Signal.signalAll();
+    if (m_Workers != null)
+      m_Workers.stop();
     m_Owner.getActorHandler().stopExecution();
     m_Owner.getReceiver().stopExecution();
     m_Owner.getTransmitter().stopExecution();
@@ -0,0 +1,120 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * RatSignal.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.flow.standalone.rats;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Lets threads wait for a condition until another thread signals a change.
+ * Uses a lock/condition pair rather than Object.wait()/notifyAll(), as the
+ * latter pin virtual threads to their carrier thread on Java 21-23.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class RatSignal
+  implements Serializable {
+
+  /** for serialization. */
+  private static final long serialVersionUID = -3270958186235614470L;
+
+  /** the signals shared by objects outside the rats (eg queues). */
+  protected static final Map<Object,RatSignal> SHARED = new WeakHashMap<>();
+
+  /** the lock. */
+  protected ReentrantLock m_Lock;
+
+  /** the condition to wait on. */
+  protected Condition m_Changed;
+
+  /**
+   * Initializes the signal.
+   */
+  public RatSignal() {
+    m_Lock    = new ReentrantLock();
+    m_Changed = m_Lock.newCondition();
+  }
+
+  /**
+   * Waits until the condition is met or the timeout is reached. The
+   * condition gets evaluated while holding the lock.
+   *
+   * @param done	the condition to wait for
+   * @param msec	the maximum time to wait in msec, &lt; 0 to wait indefinitely
+   * @return		false if interrupted, otherwise true
+   */
+  public boolean await(BooleanSupplier done, long msec) {
+    long	nanos;
+
+    nanos = TimeUnit.MILLISECONDS.toNanos(msec);
+    m_Lock.lock();
+    try {
+      while (!done.getAsBoolean()) {
+	if (msec < 0) {
+	  m_Changed.await();
+	}
+	else {
+	  if (nanos <= 0)
+	    break;
+	  nanos = m_Changed.awaitNanos(nanos);
+	}
+      }
+      return true;
+    }
+    catch (InterruptedException e) {
+      return false;
+    }
+    finally {
+      m_Lock.unlock();
+    }
+  }
+
+  /**
+   * Wakes up all the waiting threads.
+   */
+  public void signalAll() {
+    m_Lock.lock();
+    try {
+      m_Changed.signalAll();
+    }
+    finally {
+      m_Lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the signal associated with the object, eg a queue that
+   * producers and consumers in different rats share.
+   *
+   * @param obj		the object to get the signal for
+   * @return		the signal
+   */
+  public static RatSignal forObject(Object obj) {
+    synchronized(SHARED) {
+      return SHARED.computeIfAbsent(obj, k -> new RatSignal());
+    }
+  }
+}
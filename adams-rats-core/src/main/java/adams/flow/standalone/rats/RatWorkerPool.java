@@ -0,0 +1,469 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+/*
+ * RatWorkerPool.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.flow.standalone.rats;
+
+import adams.core.logging.LoggingHelper;
+import adams.flow.control.LocalScopeSubProcess;
+import adams.flow.core.ActorUtils;
+import adams.flow.core.Token;
+import adams.flow.standalone.Rat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Processes the received data with several workers, each using its own
+ * copy of the Rat's sub-flow. The receiving thread hands the data over
+ * via a queue, which is bounded by the maximum number of items in flight
+ * (queued, being processed or waiting for transmission). Transmission is
+ * serialized, either in the order of reception (using a re-sequencing
+ * buffer) or in the order of completion.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class RatWorkerPool {
+
+  /** the time in msec to wait for a running worker to finish when stopping. */
+  public final static int STOP_TIMEOUT = 10000;
+
+  /**
+   * Container for a received item.
+   */
+  protected static class Item {
+
+    /** the sequence number. */
+    public long sequence;
+
+    /** the received data. */
+    public Object data;
+
+    /** the generated output. */
+    public List<Object> output;
+
+    /** the flow error, if any. */
+    public String error;
+  }
+
+  /**
+   * Worker that processes the items with its own copy of the sub-flow.
+   */
+  protected class Worker
+    implements Runnable {
+
+    /** the sub-flow to use. */
+    protected LocalScopeSubProcess m_Actors;
+
+    /** the thread executing the worker. */
+    protected volatile Thread m_Thread;
+
+    /**
+     * Initializes the worker.
+     *
+     * @param actors	the sub-flow to use
+     */
+    public Worker(LocalScopeSubProcess actors) {
+      m_Actors = actors;
+    }
+
+    /**
+     * Returns the sub-flow of this worker.
+     *
+     * @return		the sub-flow
+     */
+    public LocalScopeSubProcess getActors() {
+      return m_Actors;
+    }
+
+    /**
+     * Returns the thread executing the worker.
+     *
+     * @return		the thread, null if not running
+     */
+    public Thread getThread() {
+      return m_Thread;
+    }
+
+    /**
+     * Processes the items until stopped or finished.
+     */
+    @Override
+    public void run() {
+      Item	item;
+
+      m_Thread = Thread.currentThread();
+      while (!m_Stopped) {
+	try {
+	  item = m_Queue.poll(100, TimeUnit.MILLISECONDS);
+	}
+	catch (InterruptedException e) {
+	  break;
+	}
+	if (item == null) {
+	  if (m_Finishing)
+	    break;
+	  continue;
+	}
+	process(m_Actors, item);
+	completed(item);
+      }
+      m_Thread = null;
+    }
+  }
+
+  /** the owning runnable. */
+  protected RatRunnable m_Runnable;
+
+  /** the owning rat. */
+  protected Rat m_Owner;
+
+  /** the number of workers. */
+  protected int m_NumWorkers;
+
+  /** whether to transmit in the order of reception. */
+  protected boolean m_Ordered;
+
+  /** the hand-off queue. */
+  protected LinkedBlockingQueue<Item> m_Queue;
+
+  /** the permits for items in flight. */
+  protected Semaphore m_InFlight;
+
+  /** the maximum number of items in flight. */
+  protected int m_MaxInFlight;
+
+  /** the re-sequencing buffer, also guards the sequence numbers. */
+  protected TreeMap<Long,Item> m_Buffer;
+
+  /** serializes the transmission. */
+  protected final Object m_TransmitLock;
+
+  /** the next sequence number to assign. */
+  protected long m_NextSequence;
+
+  /** the next sequence number to transmit. */
+  protected long m_NextTransmit;
+
+  /** the workers. */
+  protected List<Worker> m_Workers;
+
+  /** the futures of the running workers. */
+  protected List<Future<?>> m_Futures;
+
+  /** whether the pool has been stopped. */
+  protected volatile boolean m_Stopped;
+
+  /** whether no more items will be submitted. */
+  protected volatile boolean m_Finishing;
+
+  /**
+   * Initializes the pool.
+   *
+   * @param runnable	the owning runnable
+   * @param numWorkers	the number of workers
+   * @param maxInFlight	the maximum number of items in flight, &lt;= 0 for twice the number of workers
+   * @param ordered	whether to transmit in the order of reception
+   */
+  public RatWorkerPool(RatRunnable runnable, int numWorkers, int maxInFlight, boolean ordered) {
+    m_Runnable     = runnable;
+    m_Owner        = runnable.getOwner();
+    m_NumWorkers   = Math.max(1, numWorkers);
+    m_MaxInFlight  = (maxInFlight <= 0) ? 2 * m_NumWorkers : Math.max(maxInFlight, m_NumWorkers);
+    m_Ordered      = ordered;
+    m_Queue        = new LinkedBlockingQueue<>();
+    m_InFlight     = new Semaphore(m_MaxInFlight);
+    m_Buffer       = new TreeMap<>();
+    m_TransmitLock = new Object();
+    m_NextSequence = 0;
+    m_NextTransmit = 0;
+    m_Workers      = new ArrayList<>();
+    m_Futures      = new ArrayList<>();
+    m_Stopped      = false;
+    m_Finishing    = false;
+  }
+
+  /**
+   * Returns the number of workers.
+   *
+   * @return		the number of workers
+   */
+  public int getNumWorkers() {
+    return m_NumWorkers;
+  }
+
+  /**
+   * Returns the number of items in flight (queued, being processed or
+   * waiting for transmission).
+   *
+   * @return		the number of items
+   */
+  public int getNumInFlight() {
+    return m_MaxInFlight - m_InFlight.availablePermits();
+  }
+
+  /**
+   * Creates and sets up the copies of the sub-flow and starts the workers.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  public String start() {
+    String			result;
+    LocalScopeSubProcess	actors;
+    int				i;
+
+    result = null;
+    for (i = 0; i < m_NumWorkers; i++) {
+      actors = (LocalScopeSubProcess) m_Owner.getActorHandler().shallowCopy();
+      actors.setParent(m_Owner);
+      actors.setLoggingLevel(m_Owner.getLoggingLevel());
+      result = actors.setUp();
+      if (result != null) {
+	result = "Failed to set up actors of worker #" + (i + 1) + ": " + result;
+	break;
+      }
+      ActorUtils.updateErrorHandler(actors, m_Owner, m_Owner.isLoggingEnabled());
+      actors.setErrorHandler(m_Owner);
+      m_Workers.add(new Worker(actors));
+    }
+
+    if (result == null) {
+      for (i = 0; i < m_Workers.size(); i++)
+	m_Futures.add(m_Owner.startThread(m_Owner.getFullName() + "-worker-" + (i + 1), m_Workers.get(i)));
+    }
+    else {
+      stop();
+    }
+
+    return result;
+  }
+
+  /**
+   * Hands the data over to the workers. Blocks if the maximum number of
+   * items in flight has been reached.
+   *
+   * @param data	the data to process
+   * @return		true if submitted, false if stopped
+   */
+  public boolean submit(Object data) {
+    Item	item;
+    long	start;
+
+    if (!m_InFlight.tryAcquire()) {
+      start = System.nanoTime();
+      try {
+	while (!m_InFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+	  if (m_Stopped)
+	    return false;
+	}
+      }
+      catch (InterruptedException e) {
+	return false;
+      }
+      finally {
+	m_Owner.getMetrics().blocked(System.nanoTime() - start);
+      }
+    }
+    if (m_Stopped) {
+      m_InFlight.release();
+      return false;
+    }
+
+    item      = new Item();
+    item.data = data;
+    synchronized(m_Buffer) {
+      item.sequence = m_NextSequence++;
+    }
+    m_Queue.add(item);
+
+    return true;
+  }
+
+  /**
+   * Pushes the item through the sub-flow and collects the output.
+   *
+   * @param actors	the sub-flow to use
+   * @param item	the item to process
+   */
+  protected void process(LocalScopeSubProcess actors, Item item) {
+    Token	token;
+    long	start;
+
+    item.output = new ArrayList<>();
+    start       = System.nanoTime();
+    try {
+      actors.input(new Token(item.data));
+      item.error = actors.execute();
+      if (item.error == null) {
+	while (actors.hasPendingOutput() && !m_Stopped) {
+	  token = actors.output();
+	  item.output.add(token.getPayload());
+	}
+      }
+    }
+    catch (Throwable t) {
+      item.error = LoggingHelper.throwableToString(t);
+    }
+    m_Owner.getMetrics().processed(System.nanoTime() - start, (item.error == null));
+  }
+
+  /**
+   * Transmits the output of the item, handling errors.
+   *
+   * @param item	the item to transmit
+   */
+  protected void transmit(Item item) {
+    String	result;
+
+    result = item.error;
+    if (result != null) {
+      m_Owner.queueFlowError(item.data, result);
+      m_Owner.log("Actors failed to transform/transmit data: " + result, "transform/transmit");
+      return;
+    }
+
+    for (Object output: item.output) {
+      if (m_Stopped)
+	break;
+      try {
+	result = m_Runnable.transmit(output);
+      }
+      catch (Throwable t) {
+	result = LoggingHelper.throwableToString(t);
+      }
+      if (result != null) {
+	m_Owner.queueSendError(item.data, result);
+	m_Owner.log("Actors failed to transform/transmit data: " + result, "transform/transmit");
+	break;
+      }
+    }
+  }
+
+  /**
+   * Called by a worker once the item has been processed. Transmits the
+   * item (and any buffered items that are now due, if ordered). The buffer
+   * is only locked for determining the due items, so that submitting
+   * isn't held up by the transmission.
+   *
+   * @param item	the processed item
+   */
+  protected void completed(Item item) {
+    List<Item>	due;
+
+    due = new ArrayList<>();
+    synchronized(m_TransmitLock) {
+      synchronized(m_Buffer) {
+	if (m_Ordered) {
+	  m_Buffer.put(item.sequence, item);
+	  while (!m_Buffer.isEmpty() && (m_Buffer.firstKey() == m_NextTransmit)) {
+	    due.add(m_Buffer.pollFirstEntry().getValue());
+	    m_NextTransmit++;
+	  }
+	}
+	else {
+	  due.add(item);
+	}
+      }
+      for (Item d: due) {
+	transmit(d);
+	m_InFlight.release();
+      }
+    }
+  }
+
+  /**
+   * Waits for all the submitted items to get transmitted and then stops
+   * the workers.
+   */
+  public void finish() {
+    m_Finishing = true;
+    try {
+      // the workers may never get a thread (eg bounded executor), so don't wait once stopped
+      while (!m_Stopped) {
+	if (m_InFlight.tryAcquire(m_MaxInFlight, 100, TimeUnit.MILLISECONDS)) {
+	  m_InFlight.release(m_MaxInFlight);
+	  break;
+	}
+      }
+    }
+    catch (InterruptedException e) {
+      // ignored
+    }
+    stop();
+  }
+
+  /**
+   * Stops the workers and waits for them to finish. Workers that haven't
+   * started yet (eg queued in an executor with a maximum number of threads)
+   * get cancelled, running ones get waited for up to {@link #STOP_TIMEOUT}
+   * msec before they get interrupted. Items that haven't been processed or
+   * transmitted yet get queued as flow errors.
+   */
+  public synchronized void stop() {
+    int		i;
+    Future<?>	future;
+    Worker	worker;
+    List<Item>	discarded;
+
+    m_Stopped = true;
+    for (i = 0; i < m_Workers.size(); i++)
+      m_Workers.get(i).getActors().stopExecution();
+    for (i = 0; i < m_Futures.size(); i++) {
+      worker = m_Workers.get(i);
+      future = m_Futures.get(i);
+      if (worker.getThread() == Thread.currentThread())
+	continue;
+      if ((worker.getThread() == null) && future.cancel(false))
+	continue;
+      try {
+	future.get(STOP_TIMEOUT, TimeUnit.MILLISECONDS);
+      }
+      catch (TimeoutException e) {
+	m_Owner.getLogger().warning("Worker #" + (i + 1) + " still running after " + STOP_TIMEOUT + "msec, interrupting!");
+	future.cancel(true);
+      }
+      catch (Exception e) {
+	// ignored
+      }
+    }
+    m_Futures.clear();
+    discarded = new ArrayList<>();
+    m_Queue.drainTo(discarded);
+    synchronized(m_Buffer) {
+      discarded.addAll(m_Buffer.values());
+      m_Buffer.clear();
+    }
+    if (!discarded.isEmpty()) {
+      m_Owner.getLogger().warning("Discarding " + discarded.size() + " item(s) that haven't been processed/transmitted");
+      for (Item item: discarded)
+	m_Owner.queueFlowError(item.data, "Discarded, as rat stopped before processing/transmitting the data");
+    }
+    for (i = 0; i < m_Workers.size(); i++) {
+      m_Workers.get(i).getActors().wrapUp();
+      m_Workers.get(i).getActors().cleanUp();
+    }
+    m_Workers.clear();
+  }
+}
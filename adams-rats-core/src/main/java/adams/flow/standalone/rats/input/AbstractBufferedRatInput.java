@@ -15,7 +15,7 @@
 
 /*
  * AbstractBufferedRatInput.java
- * Copyright (C) 2016-2019 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2016-2026 University of Waikato, Hamilton, NZ
  */
 
 package adams.flow.standalone.rats.input;
@@ -192,6 +192,21 @@ public abstract class AbstractBufferedRatInput
     return result;
   }
 
+  /**
+   * Returns the number of buffered items.
+   *
+   * @return		the backlog, -1 if not available
+   */
+  @Override
+  public int getBacklog() {
+    BlockingQueue	buffer;
+
+    buffer = m_Buffer;
+    if (buffer == null)
+      return -1;
+    return buffer.size() + ((m_Current != null) ? 1 : 0);
+  }
+
   /**
    * Stops the execution.
    */
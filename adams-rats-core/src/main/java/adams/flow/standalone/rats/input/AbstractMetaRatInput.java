@@ -15,7 +15,7 @@
 
 /*
  * AbstractMetaRatInput.java
- * Copyright (C) 2014-2018 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2014-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.flow.standalone.rats.input;
 
@@ -225,6 +225,18 @@ public abstract class AbstractMetaRatInput
     return m_Data.remove(0);
   }
 
+  /**
+   * Returns the backlog of the base-receiver.
+   *
+   * @return		the backlog, -1 if not available
+   */
+  @Override
+  public int getBacklog() {
+    if (m_Input instanceof AbstractRatInput)
+      return ((AbstractRatInput) m_Input).getBacklog();
+    return -1;
+  }
+
   /**
    * Stops the execution.
    */
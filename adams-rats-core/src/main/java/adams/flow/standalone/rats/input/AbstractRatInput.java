@@ -15,7 +15,7 @@
 
 /*
  * AbstractRatInput.java
- * Copyright (C) 2014-2018 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2014-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.flow.standalone.rats.input;
 
@@ -31,6 +31,7 @@ import adams.flow.control.StorageQueueHandler;
 import adams.flow.core.QueueHelper;
 import adams.flow.standalone.QueueInit;
 import adams.flow.standalone.Rat;
+import adams.flow.standalone.rats.RatSignal;
 
 /**
  * Ancestor for input receivers.
@@ -48,8 +49,8 @@ public abstract class AbstractRatInput
   /** the owner. */
   protected Rat m_Owner;
   
-  /** whether the reception was stopped. */
-  protected boolean m_Stopped;
+  /** whether the reception was stopped (only reset by {@link #initReception()}). */
+  protected volatile boolean m_Stopped;
 
   /** the logging prefix. */
   protected String m_LoggingPrefix;
@@ -60,6 +61,9 @@ public abstract class AbstractRatInput
   /** whether reception was interrupted. */
   protected boolean m_ReceptionInterrupted;
 
+  /** for waking up the thread waiting in doWait. */
+  protected RatSignal m_Signal;
+
   /**
    * Initializes the members.
    */
@@ -68,6 +72,7 @@ public abstract class AbstractRatInput
     super.initialize();
 
     m_LoggingPrefix = "";
+    m_Signal        = new RatSignal();
   }
 
   /**
@@ -209,32 +214,20 @@ public abstract class AbstractRatInput
    * @param msec	the maximum number of milli-seconds to wait, no waiting if 0
    */
   protected void doWait(int msec) {
-    int		count;
-    int		current;
-    
-    if (msec == 0)
+    if (msec <= 0)
       return;
     
     if (isLoggingEnabled())
       getLogger().fine("doWait: " + msec);
     
-    count = 0;
-    while ((count < msec) && canReceive()) {
-      try {
-	current = msec - 100;
-	if (current <= 0)
-	  current = msec;
-	if (current > 100)
-	  current = 100;
-	synchronized(this) {
-	  wait(current);
-	}
-	count += current;
-      }
-      catch (Exception e) {
-	// ignored
-      }
-    }
+    m_Signal.await(() -> !canReceive(), msec);
+  }
+
+  /**
+   * Wakes up the thread waiting in {@link #doWait(int)}.
+   */
+  protected void signal() {
+    m_Signal.signalAll();
   }
   
   /**
@@ -273,6 +266,7 @@ public abstract class AbstractRatInput
    */
   public void interruptReception() {
     m_ReceptionInterrupted = true;
+    signal();
   }
 
   /**
@@ -312,7 +306,6 @@ public abstract class AbstractRatInput
   public String receive() {
     String	result;
     
-    m_Stopped              = false;
     m_ReceptionInterrupted = false;
     m_ReceptionRunning     = true;
 
@@ -351,6 +344,7 @@ public abstract class AbstractRatInput
    */
   public void stopExecution() {
     m_Stopped = true;
+    signal();
     if (isLoggingEnabled())
       getLogger().info("Stopped");
   }
@@ -363,6 +357,17 @@ public abstract class AbstractRatInput
   public boolean isStopped() {
     return m_Stopped;
   }
+
+  /**
+   * Returns the current backlog, i.e., the number of items buffered by the receiver and not yet output.
+   * <br><br>
+   * Default implementation returns -1.
+   *
+   * @return		the backlog, -1 if not available
+   */
+  public int getBacklog() {
+    return -1;
+  }
   
   /**
    * Cleans up data structures, frees up memory.
@@ -15,7 +15,7 @@
 
 /*
  * DeQueue.java
- * Copyright (C) 2014-2018 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2014-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.flow.standalone.rats.input;
 
@@ -23,6 +23,7 @@ import adams.core.QuickInfoHelper;
 import adams.flow.control.StorageName;
 import adams.flow.control.StorageQueueHandler;
 import adams.flow.control.StorageUpdater;
+import adams.flow.standalone.rats.RatSignal;
 import adams.flow.core.Unknown;
 
 import java.util.concurrent.TimeUnit;
@@ -212,6 +213,9 @@ public class DeQueue
   @Override
   protected String doReceive() {
     m_Output = poll(m_Queue);
+    // wake up producers waiting for space in the queue
+    if (m_Output != null)
+      RatSignal.forObject(m_Queue).signalAll();
     return null;
   }
 
@@ -240,16 +244,28 @@ public class DeQueue
     return result;
   }
 
+  /**
+   * Returns the number of items in the queue.
+   *
+   * @return		the backlog, -1 if not available
+   */
+  @Override
+  public int getBacklog() {
+    StorageQueueHandler	queue;
+
+    queue = m_Queue;
+    if (queue == null)
+      return -1;
+    return queue.size();
+  }
+
   /**
    * Stops the execution.
    */
   @Override
   public void stopExecution() {
     super.stopExecution();
-    if (m_Queue != null) {
-      synchronized (m_Queue) {
-	m_Queue.notifyAll();
-      }
-    }
+    if (m_Queue != null)
+      RatSignal.forObject(m_Queue).signalAll();
   }
 }
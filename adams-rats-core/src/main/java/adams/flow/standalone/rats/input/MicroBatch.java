@@ -0,0 +1,479 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * MicroBatch.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.flow.standalone.rats.input;
+
+import adams.core.QuickInfoHelper;
+import adams.core.logging.LoggingHelper;
+import adams.flow.core.Unknown;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ <!-- globalinfo-start -->
+ * Meta-receiver that collects the data generated by the base-receiver in batches and forwards them as arrays.<br>
+ * A batch is emitted as soon as either the maximum batch size has been reached or the maximum linger time (in msec) has passed since the first item of the batch arrived.<br>
+ * The base-receiver is run in a separate thread, which allows the linger time to be honored even with blocking receivers like DeQueue or Subscribe.
+ * <br><br>
+ <!-- globalinfo-end -->
+ *
+ <!-- options-start -->
+ * <pre>-logging-level &lt;OFF|SEVERE|WARNING|INFO|CONFIG|FINE|FINER|FINEST&gt; (property: loggingLevel)
+ * &nbsp;&nbsp;&nbsp;The logging level for outputting errors and debugging output.
+ * &nbsp;&nbsp;&nbsp;default: WARNING
+ * </pre>
+ *
+ * <pre>-input &lt;adams.flow.standalone.rats.input.RatInput&gt; (property: input)
+ * &nbsp;&nbsp;&nbsp;The receiver to wrap.
+ * &nbsp;&nbsp;&nbsp;default: adams.flow.standalone.rats.input.DummyInput
+ * </pre>
+ *
+ * <pre>-batch-size &lt;int&gt; (property: batchSize)
+ * &nbsp;&nbsp;&nbsp;The maximum number of items per batch.
+ * &nbsp;&nbsp;&nbsp;default: 100
+ * &nbsp;&nbsp;&nbsp;minimum: 1
+ * </pre>
+ *
+ * <pre>-max-linger &lt;int&gt; (property: maxLinger)
+ * &nbsp;&nbsp;&nbsp;The maximum number of milli-seconds to wait for more items after the
+ * &nbsp;&nbsp;&nbsp;first item of a batch has arrived; 0 only forwards what is available immediately.
+ * &nbsp;&nbsp;&nbsp;default: 1000
+ * &nbsp;&nbsp;&nbsp;minimum: 0
+ * </pre>
+ *
+ <!-- options-end -->
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class MicroBatch
+  extends AbstractMetaRatInput {
+
+  /** for serialization. */
+  private static final long serialVersionUID = 3478193582641016513L;
+
+  /** the maximum batch size. */
+  protected int m_BatchSize;
+
+  /** the maximum linger time in msec. */
+  protected int m_MaxLinger;
+
+  /** the buffer filled by the collector. */
+  protected transient BlockingQueue m_Buffer;
+
+  /** the collector thread. */
+  protected transient Future<?> m_Collector;
+
+  /** whether the collector is to stop. */
+  protected transient volatile boolean m_CollectorStopped;
+
+  /** the internal timeout interval for polling the buffer in msec. */
+  protected int m_PollTimeout;
+
+  /**
+   * Returns a string describing the object.
+   *
+   * @return 			a description suitable for displaying in the gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+      "Meta-receiver that collects the data generated by the base-receiver "
+	+ "in batches and forwards them as arrays.\n"
+	+ "A batch is emitted as soon as either the maximum batch size has been "
+	+ "reached or the maximum linger time (in msec) has passed since the "
+	+ "first item of the batch arrived.\n"
+	+ "The base-receiver is run in a separate thread, which allows the "
+	+ "linger time to be honored even with blocking receivers like DeQueue "
+	+ "or Subscribe.";
+  }
+
+  /**
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+      "batch-size", "batchSize",
+      100, 1, null);
+
+    m_OptionManager.add(
+      "max-linger", "maxLinger",
+      1000, 0, null);
+  }
+
+  /**
+   * Initializes the members.
+   */
+  @Override
+  protected void initialize() {
+    super.initialize();
+
+    m_PollTimeout = 100;
+  }
+
+  /**
+   * Sets the maximum number of items per batch.
+   *
+   * @param value	the maximum
+   */
+  public void setBatchSize(int value) {
+    if (getOptionManager().isValid("batchSize", value)) {
+      m_BatchSize = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the maximum number of items per batch.
+   *
+   * @return		the maximum
+   */
+  public int getBatchSize() {
+    return m_BatchSize;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String batchSizeTipText() {
+    return "The maximum number of items per batch.";
+  }
+
+  /**
+   * Sets the maximum number of milli-seconds to wait for more items.
+   *
+   * @param value	the linger time in msec
+   */
+  public void setMaxLinger(int value) {
+    if (getOptionManager().isValid("maxLinger", value)) {
+      m_MaxLinger = value;
+      reset();
+    }
+  }
+
+  /**
+   * Returns the maximum number of milli-seconds to wait for more items.
+   *
+   * @return		the linger time in msec
+   */
+  public int getMaxLinger() {
+    return m_MaxLinger;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String maxLingerTipText() {
+    return
+      "The maximum number of milli-seconds to wait for more items after the "
+	+ "first item of a batch has arrived; 0 only forwards what is available "
+	+ "immediately.";
+  }
+
+  /**
+   * Returns a quick info about the actor, which will be displayed in the GUI.
+   *
+   * @return		null if no info available, otherwise short string
+   */
+  @Override
+  public String getQuickInfo() {
+    String	result;
+
+    result = super.getQuickInfo();
+    result += QuickInfoHelper.toString(this, "batchSize", m_BatchSize, ", batch: ");
+    result += QuickInfoHelper.toString(this, "maxLinger", m_MaxLinger, ", linger: ");
+
+    return result;
+  }
+
+  /**
+   * Returns the type of data this scheme generates.
+   *
+   * @return		the type of data
+   */
+  @Override
+  public Class generates() {
+    return Array.newInstance(m_Input.generates(), 0).getClass();
+  }
+
+  /**
+   * Initializes the reception.
+   *
+   * @return		null if successfully initialized, otherwise error message
+   */
+  @Override
+  public String initReception() {
+    String	result;
+
+    result = super.initReception();
+
+    if (result == null) {
+      // room for the batch currently being assembled and the next one
+      m_Buffer           = new ArrayBlockingQueue(m_BatchSize * 2);
+      m_CollectorStopped = false;
+      m_Collector        = null;
+    }
+
+    return result;
+  }
+
+  /**
+   * Adds the item to the buffer, blocking while the buffer is full.
+   *
+   * @param item	the item to add
+   * @return		true if added, false if stopped
+   */
+  protected boolean offer(Object item) {
+    while (!m_CollectorStopped) {
+      try {
+	if (m_Buffer.offer(item, m_PollTimeout, TimeUnit.MILLISECONDS))
+	  return true;
+      }
+      catch (InterruptedException e) {
+	break;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Keeps receiving data from the base-receiver and places it in the buffer
+   * till stopped.
+   */
+  protected void collect() {
+    String	result;
+
+    while (!m_CollectorStopped) {
+      try {
+	result = m_Input.receive();
+      }
+      catch (Throwable t) {
+	result = LoggingHelper.throwableToString(t);
+      }
+
+      if (m_CollectorStopped)
+	break;
+
+      if (result != null) {
+	getOwner().log("Failed to receive from " + m_Input.getFullName() + ": " + result, "receive");
+      }
+      else {
+	while (!m_CollectorStopped && m_Input.hasPendingOutput()) {
+	  if (!offer(m_Input.output()))
+	    break;
+	}
+      }
+
+      if (!m_CollectorStopped && (m_Input instanceof PollingRatInput))
+	doWait(((PollingRatInput) m_Input).getWaitPoll());
+    }
+
+    if (isLoggingEnabled())
+      getLogger().info("Collector finished");
+  }
+
+  /**
+   * Starts the collector thread, if necessary.
+   */
+  protected synchronized void startCollector() {
+    if ((m_Collector != null) || m_CollectorStopped)
+      return;
+    m_Collector = getOwner().startThread(getFullName() + "-collector", this::collect);
+  }
+
+  /**
+   * Stops the collector thread, if running, and waits for it to finish.
+   */
+  protected synchronized void stopCollector() {
+    m_CollectorStopped = true;
+    if (m_Collector == null)
+      return;
+
+    m_Input.stopExecution();
+    try {
+      m_Collector.get(m_PollTimeout * 10, TimeUnit.MILLISECONDS);
+    }
+    catch (Exception e) {
+      if (isLoggingEnabled())
+	getLogger().log(Level.INFO, "Exception while waiting for collector", e);
+    }
+    if (!m_Collector.isDone()) {
+      getLogger().warning("Collector failed to finish, cancelling");
+      m_Collector.cancel(true);
+    }
+    m_Collector = null;
+  }
+
+  /**
+   * Turns the items into an array. Uses the class of the base-receiver's
+   * output as component type if possible, otherwise Object.
+   *
+   * @param items	the items to convert
+   * @return		the array
+   */
+  protected Object toArray(List items) {
+    Object	result;
+    Class	cls;
+    int		i;
+
+    cls = m_Input.generates();
+    if ((cls == Unknown.class) || cls.isPrimitive()) {
+      cls = Object.class;
+    }
+    else {
+      for (Object item: items) {
+	if (!cls.isInstance(item)) {
+	  cls = Object.class;
+	  break;
+	}
+      }
+    }
+
+    result = Array.newInstance(cls, items.size());
+    for (i = 0; i < items.size(); i++)
+      Array.set(result, i, items.get(i));
+
+    return result;
+  }
+
+  /**
+   * Performs the actual reception of data.
+   * Blocks till the first item is available, then collects further items till
+   * either the batch size or the linger time has been reached.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  @Override
+  protected String doReceive() {
+    List	batch;
+    Object	item;
+    long	end;
+    long	remaining;
+
+    preReceive();
+    startCollector();
+
+    batch = new ArrayList();
+    item  = null;
+
+    // wait for first item
+    while (canReceive() && (item == null)) {
+      try {
+	item = m_Buffer.poll(m_PollTimeout, TimeUnit.MILLISECONDS);
+      }
+      catch (Exception e) {
+	if (isLoggingEnabled())
+	  getLogger().log(Level.INFO, "Exception while polling", e);
+	break;
+      }
+    }
+    if (item == null)
+      return null;
+    batch.add(item);
+
+    // fill batch
+    end = System.currentTimeMillis() + m_MaxLinger;
+    while (canReceive() && (batch.size() < m_BatchSize)) {
+      if (m_Buffer.drainTo(batch, m_BatchSize - batch.size()) > 0)
+	continue;
+      remaining = end - System.currentTimeMillis();
+      if (remaining <= 0)
+	break;
+      try {
+	item = m_Buffer.poll(remaining, TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException e) {
+	break;
+      }
+      if (item != null)
+	batch.add(item);
+    }
+
+    if (isLoggingEnabled())
+      getLogger().fine("Batch size: " + batch.size());
+
+    m_Data.add(toArray(batch));
+
+    return null;
+  }
+
+  /**
+   * Returns the number of items collected but not yet output, plus the
+   * backlog of the base-receiver.
+   *
+   * @return		the backlog, -1 if not available
+   */
+  @Override
+  public int getBacklog() {
+    BlockingQueue	buffer;
+    int			result;
+
+    buffer = m_Buffer;
+    if (buffer == null)
+      return -1;
+    result = buffer.size();
+    if (super.getBacklog() > 0)
+      result += super.getBacklog();
+
+    return result;
+  }
+
+  /**
+   * Stops the execution.
+   */
+  @Override
+  public void stopExecution() {
+    m_CollectorStopped = true;
+    super.stopExecution();
+    stopCollector();
+  }
+
+  /**
+   * Cleans up data structures, frees up memory.
+   */
+  @Override
+  public void cleanUp() {
+    int		discarded;
+
+    stopCollector();
+    if (m_Buffer != null) {
+      discarded = m_Buffer.size();
+      if (discarded > 0)
+	getLogger().warning("Discarded " + discarded + " item(s) collected from " + m_Input.getFullName() + " but not yet forwarded as batch");
+      m_Buffer.clear();
+    }
+    super.cleanUp();
+  }
+}
@@ -15,7 +15,7 @@
 
 /*
  * AbstractMetaRatOutput.java
- * Copyright (C) 2014-2018 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2014-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.flow.standalone.rats.output;
 
@@ -182,4 +182,16 @@ public abstract class AbstractMetaRatOutput
     
     return result;
   }
+
+  /**
+   * Returns the backlog of the base-transmitter.
+   *
+   * @return		the backlog, -1 if not available
+   */
+  @Override
+  public int getBacklog() {
+    if (m_Output instanceof AbstractRatOutput)
+      return ((AbstractRatOutput) m_Output).getBacklog();
+    return -1;
+  }
 }
@@ -15,7 +15,7 @@
 
 /**
  * AbstractRatOutput.java
- * Copyright (C) 2014-2017 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2014-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.flow.standalone.rats.output;
 
@@ -35,6 +35,7 @@ import adams.flow.core.ActorVariablesFinder;
 import adams.flow.core.QueueHelper;
 import adams.flow.standalone.QueueInit;
 import adams.flow.standalone.Rat;
+import adams.flow.standalone.rats.RatSignal;
 
 import java.util.HashSet;
 import java.util.Hashtable;
@@ -77,6 +78,9 @@ public abstract class AbstractRatOutput
   /** for backing up the state of an actor. */
   protected Hashtable<String,Object> m_BackupState;
 
+  /** for waking up threads waiting for this transmitter. */
+  protected RatSignal m_Signal;
+
   /**
    * Initializes the members.
    */
@@ -88,6 +92,7 @@ public abstract class AbstractRatOutput
     m_DetectedVariables       = null;
     m_DetectedObjectVariables = null;
     m_VariablesUpdated        = new HashSet<String>();
+    m_Signal                  = new RatSignal();
   }
 
   /**
@@ -189,7 +194,31 @@ public abstract class AbstractRatOutput
   public boolean canInput() {
     return (m_Input == null);
   }
-  
+
+  /**
+   * Blocks until input can be supplied, the transmitter gets stopped or
+   * the timeout is reached.
+   *
+   * @param msec	the maximum time to wait in msec
+   * @return		true if input can be supplied
+   * @see		#canInput()
+   */
+  public boolean waitForInput(long msec) {
+    if (msec > 0)
+      m_Signal.await(() -> canInput() || m_Stopped, msec);
+
+    return canInput();
+  }
+
+  /**
+   * Wakes up threads waiting for this transmitter.
+   *
+   * @see		#waitForInput(long)
+   */
+  protected void signal() {
+    m_Signal.signalAll();
+  }
+
   /**
    * The data to transmit.
    * 
@@ -197,6 +226,8 @@ public abstract class AbstractRatOutput
    */
   public void input(Object obj) {
     m_Input = obj;
+    if (obj == null)
+      signal();
   }
 
   /**
@@ -288,32 +319,13 @@ public abstract class AbstractRatOutput
    * @param msec	the maximum number of milli-seconds to wait, no waiting if 0
    */
   protected void doWait(int msec) {
-    int		count;
-    int		current;
-    
-    if (msec == 0)
+    if (msec <= 0)
       return;
     
     if (isLoggingEnabled())
       getLogger().fine("doWait: " + msec);
     
-    count = 0;
-    while ((count < msec) && !m_Stopped) {
-      try {
-	current = msec - 100;
-	if (current <= 0)
-	  current = msec;
-	if (current > 100)
-	  current = 100;
-	synchronized(this) {
-	  wait(current);
-	}
-	count += current;
-      }
-      catch (Exception e) {
-	// ignored
-      }
-    }
+    m_Signal.await(() -> m_Stopped, msec);
   }
   
   /**
@@ -484,6 +496,7 @@ public abstract class AbstractRatOutput
     if (result == null) {
       result  = doTransmit();
       m_Input = null;
+      signal();
     }
     
     return result;
@@ -523,7 +536,8 @@ public abstract class AbstractRatOutput
     }
     
     m_Stopped = true;
-    
+    signal();
+
     if (isLoggingEnabled())
       getLogger().info("Stopped");
   }
@@ -537,6 +551,17 @@ public abstract class AbstractRatOutput
     return m_Stopped;
   }
 
+  /**
+   * Returns the current backlog, i.e., the number of items waiting downstream of the transmitter (eg in a queue).
+   * <br><br>
+   * Default implementation returns -1.
+   *
+   * @return		the backlog, -1 if not available
+   */
+  public int getBacklog() {
+    return -1;
+  }
+
   /**
    * Cleans up data structures, frees up memory.
    */
@@ -15,7 +15,7 @@
 
 /*
  * EnQueue.java
- * Copyright (C) 2014-2024 University of Waikato, Hamilton, New Zealand
+ * Copyright (C) 2014-2026 University of Waikato, Hamilton, New Zealand
  */
 package adams.flow.standalone.rats.output;
 
@@ -66,6 +66,9 @@ public class EnQueue
   /** the guard for enqueuing the data. */
   protected AbstractEnqueueGuard m_Guard;
 
+  /** the queue used for the last transmission. */
+  protected transient StorageQueueHandler m_LastQueue;
+
   /** the retrieval delay in msecs. */
   protected long m_RetrievalDelay;
 
@@ -231,10 +234,28 @@ public class EnQueue
       result = "Queue not available: " + m_StorageName;
     else
       m_Guard.enqueue(queue, m_Input, m_RetrievalDelay);
+    m_LastQueue = queue;
+    if (getOwner() != null)
+      getOwner().getMetrics().blocked(m_Guard.getBlocked());
 
     return result;
   }
 
+  /**
+   * Returns the number of items in the queue.
+   *
+   * @return		the backlog, -1 if not available
+   */
+  @Override
+  public int getBacklog() {
+    StorageQueueHandler	queue;
+
+    queue = m_LastQueue;
+    if (queue == null)
+      return -1;
+    return queue.size();
+  }
+
   /**
    * Stops the execution.
    */
@@ -0,0 +1,189 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * UnBatch.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.flow.standalone.rats.output;
+
+import adams.core.QuickInfoHelper;
+import adams.flow.core.Unknown;
+
+import java.lang.reflect.Array;
+
+/**
+ <!-- globalinfo-start -->
+ * Meta-transmitter that splits arrays (eg generated by the MicroBatch receiver) into their elements and forwards them one by one to the base-transmitter.<br>
+ * Any other data is forwarded as is.
+ * <br><br>
+ <!-- globalinfo-end -->
+ *
+ <!-- options-start -->
+ * <pre>-logging-level &lt;OFF|SEVERE|WARNING|INFO|CONFIG|FINE|FINER|FINEST&gt; (property: loggingLevel)
+ * &nbsp;&nbsp;&nbsp;The logging level for outputting errors and debugging output.
+ * &nbsp;&nbsp;&nbsp;default: WARNING
+ * </pre>
+ *
+ * <pre>-output &lt;adams.flow.standalone.rats.output.RatOutput&gt; (property: output)
+ * &nbsp;&nbsp;&nbsp;The transmitter to wrap.
+ * &nbsp;&nbsp;&nbsp;default: adams.flow.standalone.rats.output.DummyOutput
+ * </pre>
+ *
+ * <pre>-stop-on-error &lt;boolean&gt; (property: stopOnError)
+ * &nbsp;&nbsp;&nbsp;If enabled, the remaining elements get skipped once transmitting an element
+ * &nbsp;&nbsp;&nbsp;failed; otherwise all elements get transmitted and the errors are combined.
+ * &nbsp;&nbsp;&nbsp;default: true
+ * </pre>
+ *
+ <!-- options-end -->
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class UnBatch
+  extends AbstractMetaRatOutput {
+
+  /** for serialization. */
+  private static final long serialVersionUID = -1843097463012578346L;
+
+  /** whether to stop on the first error. */
+  protected boolean m_StopOnError;
+
+  /**
+   * Returns a string describing the object.
+   *
+   * @return 			a description suitable for displaying in the gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+      "Meta-transmitter that splits arrays (eg generated by the MicroBatch "
+	+ "receiver) into their elements and forwards them one by one to the "
+	+ "base-transmitter.\n"
+	+ "Any other data is forwarded as is.";
+  }
+
+  /**
+   * Adds options to the internal list of options.
+   */
+  @Override
+  public void defineOptions() {
+    super.defineOptions();
+
+    m_OptionManager.add(
+      "stop-on-error", "stopOnError",
+      true);
+  }
+
+  /**
+   * Sets whether to skip the remaining elements after an error.
+   *
+   * @param value	true if to stop
+   */
+  public void setStopOnError(boolean value) {
+    m_StopOnError = value;
+    reset();
+  }
+
+  /**
+   * Returns whether to skip the remaining elements after an error.
+   *
+   * @return		true if to stop
+   */
+  public boolean getStopOnError() {
+    return m_StopOnError;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return 		tip text for this property suitable for
+   * 			displaying in the GUI or for listing the options.
+   */
+  public String stopOnErrorTipText() {
+    return
+      "If enabled, the remaining elements get skipped once transmitting an "
+	+ "element failed; otherwise all elements get transmitted and the errors "
+	+ "are combined.";
+  }
+
+  /**
+   * Returns a quick info about the actor, which will be displayed in the GUI.
+   *
+   * @return		null if no info available, otherwise short string
+   */
+  @Override
+  public String getQuickInfo() {
+    String	result;
+
+    result = super.getQuickInfo();
+    result += QuickInfoHelper.toString(this, "stopOnError", m_StopOnError, "stop on error", ", ");
+
+    return result;
+  }
+
+  /**
+   * Returns the type of data this scheme accepts.
+   *
+   * @return		the type of data
+   */
+  @Override
+  public Class[] accepts() {
+    return new Class[]{Unknown.class};
+  }
+
+  /**
+   * Hook method that calls the base-output's transmit() method for each
+   * element of the array.
+   *
+   * @return		null if successful, otherwise error message
+   */
+  @Override
+  protected String callTransmit() {
+    StringBuilder	errors;
+    String		msg;
+    Object		array;
+    int			i;
+    int			len;
+
+    if ((m_Input == null) || !m_Input.getClass().isArray())
+      return super.callTransmit();
+
+    errors = new StringBuilder();
+    array  = m_Input;
+    len    = Array.getLength(array);
+    for (i = 0; i < len; i++) {
+      if (m_Stopped)
+	break;
+      m_Output.input(Array.get(array, i));
+      msg = m_Output.transmit();
+      if (msg != null) {
+	if (errors.length() > 0)
+	  errors.append("\n");
+	errors.append("Element #" + (i+1) + "/" + len + " failed with transmitting: " + msg);
+	if (m_StopOnError)
+	  break;
+      }
+    }
+
+    if (isLoggingEnabled())
+      getLogger().fine("Transmitted " + len + " elements");
+
+    if (errors.length() > 0)
+      return errors.toString();
+    else
+      return null;
+  }
+}
@@ -15,7 +15,7 @@
 
 /*
  * AbstractEnqueueGuard.java
- * Copyright (C) 2016-2024 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2016-2026 University of Waikato, Hamilton, NZ
  */
 
 package adams.flow.standalone.rats.output.enqueue;
@@ -39,6 +39,9 @@ public abstract class AbstractEnqueueGuard
   /** whether the scheme has been stopped. */
   protected boolean m_Stopped;
 
+  /** the nano-seconds the last enqueue was blocked. */
+  protected long m_Blocked;
+
   /**
    * Enqueues the object if possible.
    *
@@ -58,6 +61,7 @@ public abstract class AbstractEnqueueGuard
    */
   public String enqueue(StorageQueueHandler handler, Object input) {
     m_Stopped = false;
+    m_Blocked = 0;
     return doEnqueue(handler, input, 0);
   }
 
@@ -70,9 +74,20 @@ public abstract class AbstractEnqueueGuard
    */
   public String enqueue(StorageQueueHandler handler, Object input, long retrievalDelay) {
     m_Stopped = false;
+    m_Blocked = 0;
     return doEnqueue(handler, input, retrievalDelay);
   }
 
+  /**
+   * Returns the time the last enqueue operation was blocked, waiting for
+   * the queue to accept data.
+   *
+   * @return		the time in nano-seconds
+   */
+  public long getBlocked() {
+    return m_Blocked;
+  }
+
   /**
    * Stops the execution.
    */
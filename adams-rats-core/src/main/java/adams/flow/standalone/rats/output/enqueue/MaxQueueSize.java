@@ -15,13 +15,13 @@
 
 /*
  * MaxQueueSize.java
- * Copyright (C) 2016-2024 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2016-2026 University of Waikato, Hamilton, NZ
  */
 
 package adams.flow.standalone.rats.output.enqueue;
 
-import adams.core.Utils;
 import adams.flow.control.StorageQueueHandler;
+import adams.flow.standalone.rats.RatSignal;
 
 /**
  * Ensures that the queue doesn't exceed the specified size; waits till the queue can accept data again.
@@ -39,6 +39,9 @@ public class MaxQueueSize
   /** the time in msec to wait between checks. */
   protected int m_Wait;
 
+  /** the queue currently waiting for. */
+  protected transient StorageQueueHandler m_Waiting;
+
   /**
    * Returns a string describing the object.
    *
@@ -46,7 +49,12 @@ public class MaxQueueSize
    */
   @Override
   public String globalInfo() {
-    return "Ensures that the queue doesn't exceed the specified size; waits till the queue can accept data again.";
+    return
+      "Ensures that the queue doesn't exceed the specified size; waits till "
+	+ "the queue can accept data again.\n"
+	+ "Consumers that signal the queue when removing data (eg the DeQueue "
+	+ "rat input) wake up the waiting thread immediately, otherwise the "
+	+ "queue size gets checked at the specified interval.";
   }
 
   /**
@@ -120,7 +128,7 @@ public class MaxQueueSize
    * 			displaying in the GUI or for listing the options.
    */
   public String waitTipText() {
-    return "The time to wait between checks (in msec).";
+    return "The maximum time to wait between checks (in msec), unless signalled by the consumer of the queue.";
   }
 
   /**
@@ -134,25 +142,44 @@ public class MaxQueueSize
   @Override
   protected String doEnqueue(StorageQueueHandler handler, Object input, long retrievalDelay) {
     String	result;
+    long	start;
 
     if ((m_Limit < 1) || (handler.size() < m_Limit)) {
       handler.addDelayedBy(input, retrievalDelay);
       return null;
     }
 
-    result = null;
-    while (handler.size() >= m_Limit) {
-      Utils.wait(this, this, m_Wait, 50);
-      if (m_Stopped) {
-	result = "Enqueuing stopped!";
-	break;
+    result    = null;
+    m_Waiting = handler;
+    start     = System.nanoTime();
+    try {
+      while ((handler.size() >= m_Limit) && !m_Stopped) {
+	if (!RatSignal.forObject(handler).await(() -> (handler.size() < m_Limit) || m_Stopped, (m_Wait > 0) ? m_Wait : -1))
+	  break;
       }
-      if (handler.size() < m_Limit) {
+      if (m_Stopped || (handler.size() >= m_Limit))
+	result = "Enqueuing stopped!";
+      else
 	handler.addDelayedBy(input, retrievalDelay);
-	break;
-      }
+    }
+    finally {
+      m_Waiting = null;
+      m_Blocked = System.nanoTime() - start;
     }
 
     return result;
   }
+
+  /**
+   * Stops the execution, waking up a waiting thread.
+   */
+  @Override
+  public void stopExecution() {
+    StorageQueueHandler	waiting;
+
+    super.stopExecution();
+    waiting = m_Waiting;
+    if (waiting != null)
+      RatSignal.forObject(waiting).signalAll();
+  }
 }
@@ -15,7 +15,7 @@
 
 /*
  * GetRatControlStatus.java
- * Copyright (C) 2017-2018 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2017-2026 University of Waikato, Hamilton, NZ
  */
 
 package adams.scripting.command.flow;
@@ -32,10 +32,13 @@ import adams.flow.standalone.Rat;
 import adams.flow.standalone.RatControl;
 import adams.flow.standalone.ratcontrol.AbstractControlState;
 import adams.flow.standalone.ratcontrol.RatControlState;
+import adams.flow.standalone.rats.RatMetrics;
 import adams.scripting.command.AbstractRemoteCommandOnFlowWithResponse;
 
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Retrieves status of Rat actors managed by RatControl actor from a
@@ -70,6 +73,9 @@ public class GetRatControlStatus
   /** the column of the interactive flag. */
   public final static int COL_INTERACTIVE = 6;
 
+  /** the first column of the metrics. */
+  public final static int COL_METRICS = 7;
+
   /** the status. */
   protected SpreadSheet m_Status;
 
@@ -90,7 +96,17 @@ public class GetRatControlStatus
 	+ "- ispaused -- whether the Rat is currently paused\n"
 	+ "- stoppable -- whether the Rat can be stopped\n"
 	+ "- isstopped -- whether the Rat is currently stopped\n"
-	+ "- isinteractive -- whether the Rat contains at least one interactive actor";
+	+ "- isinteractive -- whether the Rat contains at least one interactive actor\n"
+	+ "followed by the metrics of the Rat (counts, latencies in msec, backlog), "
+	+ "empty for Rats groups:\n"
+	+ "- " + RatMetrics.RECEIVED + " -- the number of received items\n"
+	+ "- " + RatMetrics.TRANSMITTED + " -- the number of transmitted items\n"
+	+ "- " + RatMetrics.FAILED + " -- the number of items that failed processing/transmitting\n"
+	+ "- " + RatMetrics.RATE + " -- the number of received items per second\n"
+	+ "- receive/process/transmit_mean/p50/p99/max_msec -- the latencies of receiver, actors and transmitter\n"
+	+ "- " + RatMetrics.INPUT_BACKLOG + "/" + RatMetrics.INPUT_BACKLOG_MAX + " -- the current/maximum items buffered by the receiver (-1 if n/a)\n"
+	+ "- " + RatMetrics.OUTPUT_BACKLOG + "/" + RatMetrics.OUTPUT_BACKLOG_MAX + " -- the current/maximum items queued by the transmitter (-1 if n/a)\n"
+	+ "- " + RatMetrics.BLOCKED + " -- the time spent blocked on back-pressure";
   }
 
   /**
@@ -189,11 +205,15 @@ public class GetRatControlStatus
    */
   @Override
   protected void prepareResponsePayload() {
-    Actor 	flow;
-    SpreadSheet	sheet;
-    Row		row;
-    RatControl	rc;
-    Actor	actor;
+    Actor 		flow;
+    SpreadSheet		sheet;
+    Row			row;
+    RatControl		rc;
+    Actor		actor;
+    List<String>	names;
+    Map<String,Object>	values;
+    Object		value;
+    int			i;
 
     super.prepareResponsePayload();
 
@@ -210,6 +230,9 @@ public class GetRatControlStatus
       row.addCell("" + COL_STOPPABLE).setContent("stoppable");
       row.addCell("" + COL_STOPPED).setContent("isstopped");
       row.addCell("" + COL_INTERACTIVE).setContent("isinteractive");
+      names = RatMetrics.getNames();
+      for (i = 0; i < names.size(); i++)
+	row.addCell("" + (COL_METRICS + i)).setContent(names.get(i));
       for (Actor a : ActorUtils.enumerate(flow, new Class[]{RatControl.class})) {
 	rc = (RatControl) a;
 	for (AbstractControlState state: rc.getControlStates()) {
@@ -228,6 +251,17 @@ public class GetRatControlStatus
 	    row.addCell(COL_STOPPED).setContent(false);
 	  }
 	  row.addCell(COL_INTERACTIVE).setContent(ActorUtils.isInteractive(actor));
+	  if (actor instanceof Rat) {
+	    ((Rat) actor).updateBacklog();
+	    values = ((Rat) actor).getMetrics().getValues();
+	    for (i = 0; i < names.size(); i++) {
+	      value = values.get(names.get(i));
+	      if (value instanceof Double)
+		row.addCell(COL_METRICS + i).setContent((Double) value);
+	      else if (value instanceof Number)
+		row.addCell(COL_METRICS + i).setContent(((Number) value).longValue());
+	    }
+	  }
 	}
       }
       m_Status = sheet;
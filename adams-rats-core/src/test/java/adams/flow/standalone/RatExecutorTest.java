@@ -0,0 +1,208 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * RatExecutorTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.flow.standalone;
+
+import adams.env.Environment;
+import adams.flow.AbstractFlowTest;
+import adams.flow.control.Flow;
+import adams.flow.control.Sleep;
+import adams.flow.control.StorageName;
+import adams.flow.control.StorageQueueHandler;
+import adams.flow.core.Actor;
+import adams.flow.core.RatThreadType;
+import adams.flow.standalone.rats.input.DeQueue;
+import adams.flow.standalone.rats.output.EnQueue;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the RatExecutor actor.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class RatExecutorTest
+  extends AbstractFlowTest {
+
+  /**
+   * Initializes the test.
+   *
+   * @param name	the name of the test
+   */
+  public RatExecutorTest(String name) {
+    super(name);
+  }
+
+  /** the number of items to send. */
+  public final static int NUM_ITEMS = 20;
+
+  /** the input queue. */
+  public final static StorageName INPUT = new StorageName("in");
+
+  /** the output queue. */
+  public final static StorageName OUTPUT = new StorageName("out");
+
+  /**
+   * Creates a flow with a rat that uses several workers and the executor.
+   *
+   * @param executor	the executor to use
+   * @return		the flow
+   */
+  protected Flow createFlow(RatExecutor executor) {
+    Flow	result;
+    QueueInit	init;
+    Rats	rats;
+    Rat		rat;
+    DeQueue	in;
+    EnQueue	out;
+    Sleep	sleep;
+
+    init = new QueueInit();
+    init.setStorageName(new StorageName[]{INPUT, OUTPUT});
+
+    in = new DeQueue();
+    in.setStorageName(INPUT);
+    out = new EnQueue();
+    out.setStorageName(OUTPUT);
+    sleep = new Sleep();
+    sleep.setInterval(5);
+
+    rat = new Rat();
+    rat.setReceiver(in);
+    rat.setActors(new Actor[]{sleep});
+    rat.setTransmitter(out);
+    rat.setNumWorkers(4);
+
+    rats = new Rats();
+    rats.setRats(new Actor[]{rat});
+
+    result = new Flow();
+    result.setActors(new Actor[]{executor, init, rats});
+
+    return result;
+  }
+
+  /**
+   * Sends items through the flow and stops it, failing if the items don't
+   * make it through or if stopping the flow doesn't finish.
+   *
+   * @param executor	the executor to use
+   * @throws Exception	if the test fails
+   */
+  protected void process(RatExecutor executor) throws Exception {
+    final Flow		flow;
+    StorageQueueHandler	input;
+    StorageQueueHandler	output;
+    Thread		stopper;
+    String		msg;
+    int			i;
+
+    flow = createFlow(executor);
+    msg  = flow.setUp();
+    assertNull("setUp failed: " + msg, msg);
+    msg = flow.execute();
+    assertNull("execute failed: " + msg, msg);
+    input  = (StorageQueueHandler) flow.getStorageHandler().getStorage().get(INPUT);
+    output = (StorageQueueHandler) flow.getStorageHandler().getStorage().get(OUTPUT);
+    for (i = 0; i < NUM_ITEMS; i++)
+      input.addDelayedBy(i, 0);
+    for (i = 0; i < NUM_ITEMS; i++)
+      assertNotNull("timed out waiting for item #" + (i + 1), output.poll(30, TimeUnit.SECONDS));
+
+    stopper = new Thread(() -> {
+      flow.stopExecution();
+      flow.wrapUp();
+      flow.cleanUp();
+    });
+    stopper.start();
+    stopper.join(30000);
+    assertFalse("stopping the flow did not finish", stopper.isAlive());
+    assertEquals("tasks still active", 0, executor.getActiveCount());
+    assertEquals("tasks still queued", 0, executor.getQueuedCount());
+  }
+
+  /**
+   * Tests the executor without limit on the number of threads.
+   *
+   * @throws Exception	if the test fails
+   */
+  public void testUnbounded() throws Exception {
+    process(new RatExecutor());
+  }
+
+  /**
+   * Tests the executor with fewer threads than the rat and its workers
+   * require, ie some workers never get started.
+   *
+   * @throws Exception	if the test fails
+   */
+  public void testBounded() throws Exception {
+    RatExecutor	executor;
+
+    executor = new RatExecutor();
+    executor.setMaxThreads(2);
+    process(executor);
+  }
+
+  /**
+   * Tests the executor with virtual threads (falls back to platform
+   * threads before Java 21).
+   *
+   * @throws Exception	if the test fails
+   */
+  public void testVirtual() throws Exception {
+    RatExecutor	executor;
+
+    executor = new RatExecutor();
+    executor.setThreadType(RatThreadType.VIRTUAL);
+    process(executor);
+  }
+
+  /**
+   * Used to create an instance of a specific actor.
+   *
+   * @return a suitably configured <code>Actor</code> value
+   */
+  @Override
+  public Actor getActor() {
+    return new Flow();
+  }
+
+  /**
+   * Returns a test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(RatExecutorTest.class);
+  }
+
+  /**
+   * Runs the test from commandline.
+   *
+   * @param args	ignored
+   */
+  public static void main(String[] args) {
+    Environment.setEnvironmentClass(Environment.class);
+    runTest(suite());
+  }
+}
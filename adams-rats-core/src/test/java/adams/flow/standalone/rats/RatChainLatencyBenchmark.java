@@ -0,0 +1,298 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+/*
+ * RatChainLatencyBenchmark.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+package adams.flow.standalone.rats;
+
+import adams.env.Environment;
+import adams.flow.control.Flow;
+import adams.flow.control.StorageName;
+import adams.flow.control.StorageQueueHandler;
+import adams.flow.core.Actor;
+import adams.flow.standalone.QueueInit;
+import adams.flow.standalone.Rat;
+import adams.flow.standalone.Rats;
+import adams.flow.standalone.rats.input.DeQueue;
+import adams.flow.standalone.rats.output.EnQueue;
+import adams.flow.standalone.rats.output.enqueue.MaxQueueSize;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of a chain of rats, each dequeuing from one queue
+ * and enqueuing in the next one. Items are timestamped when entering the
+ * first queue and the latency gets determined when they leave the last
+ * one. The per-hop overhead is the latency divided by the number of hops.
+ * <br><br>
+ * Two scenarios are measured: single items with idle time in between and
+ * bursts of items, with the queues limited to a small size via the
+ * {@link MaxQueueSize} guard (back-pressure).
+ * <br><br>
+ * Run from commandline with: <br><br>
+ * java adams.flow.standalone.rats.RatChainLatencyBenchmark [hops [items [limit]]]
+ * <br><br>
+ * The benchmark only uses API that predates the signal-driven hand-off and
+ * can therefore be run against older revisions for comparison.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class RatChainLatencyBenchmark {
+
+  /** the flow. */
+  protected Flow m_Flow;
+
+  /** the number of hops. */
+  protected int m_Hops;
+
+  /** the first queue. */
+  protected StorageQueueHandler m_First;
+
+  /** the last queue. */
+  protected StorageQueueHandler m_Last;
+
+  /**
+   * Initializes the benchmark.
+   *
+   * @param hops	the number of rats in the chain
+   * @param limit	the queue limit to enforce, &lt; 1 for unlimited
+   */
+  public RatChainLatencyBenchmark(int hops, int limit) {
+    m_Hops = hops;
+    m_Flow = createFlow(hops, limit);
+  }
+
+  /**
+   * Returns the name of the queue.
+   *
+   * @param index	the index of the queue
+   * @return		the name
+   */
+  protected static StorageName queue(int index) {
+    return new StorageName("q" + index);
+  }
+
+  /**
+   * Creates the flow with the chain of rats.
+   *
+   * @param hops	the number of rats in the chain
+   * @param limit	the queue limit to enforce, &lt; 1 for unlimited
+   * @return		the flow
+   */
+  protected static Flow createFlow(int hops, int limit) {
+    Flow		result;
+    QueueInit		init;
+    StorageName[]	names;
+    Rats		rats;
+    Actor[]		chain;
+    Rat			rat;
+    DeQueue		in;
+    EnQueue		out;
+    MaxQueueSize	guard;
+    int			i;
+
+    names = new StorageName[hops + 1];
+    for (i = 0; i <= hops; i++)
+      names[i] = queue(i);
+    init = new QueueInit();
+    init.setStorageName(names);
+
+    chain = new Actor[hops];
+    for (i = 0; i < hops; i++) {
+      in = new DeQueue();
+      in.setStorageName(queue(i));
+      out = new EnQueue();
+      out.setStorageName(queue(i + 1));
+      if (limit > 0) {
+	guard = new MaxQueueSize();
+	guard.setLimit(limit);
+	out.setGuard(guard);
+      }
+      rat = new Rat();
+      rat.setName("hop" + (i + 1));
+      rat.setReceiver(in);
+      rat.setTransmitter(out);
+      chain[i] = rat;
+    }
+    rats = new Rats();
+    rats.setRats(chain);
+
+    result = new Flow();
+    result.setActors(new Actor[]{init, rats});
+
+    return result;
+  }
+
+  /**
+   * Sets up and starts the flow.
+   *
+   * @throws Exception	if setup fails
+   */
+  public void start() throws Exception {
+    String	msg;
+
+    msg = m_Flow.setUp();
+    if (msg == null)
+      msg = m_Flow.execute();
+    if (msg != null)
+      throw new IllegalStateException(msg);
+    m_First = (StorageQueueHandler) m_Flow.getStorageHandler().getStorage().get(queue(0));
+    m_Last  = (StorageQueueHandler) m_Flow.getStorageHandler().getStorage().get(queue(m_Hops));
+  }
+
+  /**
+   * Stops the flow.
+   */
+  public void stop() {
+    m_Flow.stopExecution();
+    m_Flow.wrapUp();
+    m_Flow.cleanUp();
+  }
+
+  /**
+   * Waits for the item to leave the chain.
+   *
+   * @return		the latency in nano-seconds
+   * @throws Exception	if polling fails or times out
+   */
+  protected long receive() throws Exception {
+    Object	item;
+
+    item = m_Last.poll(30, TimeUnit.SECONDS);
+    if (item == null)
+      throw new IllegalStateException("Timed out waiting for item!");
+
+    return System.nanoTime() - (Long) item;
+  }
+
+  /**
+   * Sends single items, waiting for each to leave the chain.
+   *
+   * @param items	the number of items
+   * @param idle	the idle time between items in msec
+   * @return		the latencies in nano-seconds
+   * @throws Exception	if benchmark fails
+   */
+  public long[] runSingle(int items, int idle) throws Exception {
+    long[]	result;
+    int		i;
+
+    result = new long[items];
+    for (i = 0; i < items; i++) {
+      m_First.addDelayedBy(System.nanoTime(), 0);
+      result[i] = receive();
+      if (idle > 0)
+	Thread.sleep(idle);
+    }
+
+    return result;
+  }
+
+  /**
+   * Sends the items as a single burst.
+   *
+   * @param items	the number of items
+   * @return		the latencies in nano-seconds
+   * @throws Exception	if benchmark fails
+   */
+  public long[] runBurst(int items) throws Exception {
+    long[]	result;
+    Thread	producer;
+    int		i;
+
+    producer = new Thread(() -> {
+      for (int n = 0; n < items; n++)
+	m_First.addDelayedBy(System.nanoTime(), 0);
+    });
+    producer.start();
+
+    result = new long[items];
+    for (i = 0; i < items; i++)
+      result[i] = receive();
+    producer.join();
+
+    return result;
+  }
+
+  /**
+   * Outputs the statistics of the latencies.
+   *
+   * @param label	the label for the output
+   * @param latencies	the latencies in nano-seconds
+   * @param hops	the number of hops
+   */
+  protected static void print(String label, long[] latencies, int hops) {
+    long[]	sorted;
+    double	mean;
+
+    sorted = latencies.clone();
+    Arrays.sort(sorted);
+    mean = Arrays.stream(sorted).average().orElse(0);
+    System.out.printf(
+      "%s: mean=%.3fms, median=%.3fms, p99=%.3fms, max=%.3fms, per hop (mean)=%.3fms%n",
+      label,
+      mean / 1e6,
+      sorted[sorted.length / 2] / 1e6,
+      sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.99))] / 1e6,
+      sorted[sorted.length - 1] / 1e6,
+      mean / hops / 1e6);
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args	optional: hops items limit
+   * @throws Exception	if benchmark fails
+   */
+  public static void main(String[] args) throws Exception {
+    int				hops;
+    int				items;
+    int				limit;
+    RatChainLatencyBenchmark	benchmark;
+
+    Environment.setEnvironmentClass(Environment.class);
+
+    hops  = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+    items = (args.length > 1) ? Integer.parseInt(args[1]) : 200;
+    limit = (args.length > 2) ? Integer.parseInt(args[2]) : 2;
+
+    System.out.println("Hops: " + hops + ", items: " + items + ", queue limit: " + limit);
+
+    benchmark = new RatChainLatencyBenchmark(hops, -1);
+    benchmark.start();
+    try {
+      benchmark.runSingle(20, 0);  // warm-up
+      print("single (idle 5ms)", benchmark.runSingle(items, 5), hops);
+      print("single (idle 250ms)", benchmark.runSingle(Math.min(items, 20), 250), hops);
+      print("burst", benchmark.runBurst(items * 10), hops);
+    }
+    finally {
+      benchmark.stop();
+    }
+
+    benchmark = new RatChainLatencyBenchmark(hops, limit);
+    benchmark.start();
+    try {
+      print("burst (back-pressure)", benchmark.runBurst(items * 10), hops);
+    }
+    finally {
+      benchmark.stop();
+    }
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * RatWorkerPoolTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.flow.standalone.rats;
+
+import adams.env.Environment;
+import adams.flow.control.Flow;
+import adams.flow.control.Sleep;
+import adams.flow.control.StorageName;
+import adams.flow.control.StorageQueueHandler;
+import adams.flow.core.Actor;
+import adams.flow.standalone.QueueInit;
+import adams.flow.standalone.Rat;
+import adams.flow.standalone.Rats;
+import adams.flow.standalone.rats.input.DeQueue;
+import adams.flow.standalone.rats.output.EnQueue;
+import adams.test.AdamsTestCase;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the RatWorkerPool class, using a Rat with several workers that
+ * moves items from one queue to another.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class RatWorkerPoolTest
+  extends AdamsTestCase {
+
+  /** the number of items to send. */
+  public final static int NUM_ITEMS = 50;
+
+  /** the number of workers. */
+  public final static int NUM_WORKERS = 4;
+
+  /** the input queue. */
+  public final static StorageName INPUT = new StorageName("in");
+
+  /** the output queue. */
+  public final static StorageName OUTPUT = new StorageName("out");
+
+  /**
+   * Initializes the test.
+   *
+   * @param name	the name of the test
+   */
+  public RatWorkerPoolTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Creates the flow with a single rat using several workers.
+   *
+   * @param ordered	whether to output the items in the order of reception
+   * @return		the flow
+   */
+  protected Flow createFlow(boolean ordered) {
+    Flow	result;
+    QueueInit	init;
+    Rats	rats;
+    Rat		rat;
+    DeQueue	in;
+    EnQueue	out;
+    Sleep	sleep;
+
+    init = new QueueInit();
+    init.setStorageName(new StorageName[]{INPUT, OUTPUT});
+
+    in = new DeQueue();
+    in.setStorageName(INPUT);
+    out = new EnQueue();
+    out.setStorageName(OUTPUT);
+    sleep = new Sleep();
+    sleep.setInterval(5);
+
+    rat = new Rat();
+    rat.setName("worker");
+    rat.setReceiver(in);
+    rat.setActors(new Actor[]{sleep});
+    rat.setTransmitter(out);
+    rat.setNumWorkers(NUM_WORKERS);
+    rat.setOrderedOutput(ordered);
+
+    rats = new Rats();
+    rats.setRats(new Actor[]{rat});
+
+    result = new Flow();
+    result.setActors(new Actor[]{init, rats});
+
+    return result;
+  }
+
+  /**
+   * Returns the live threads of the rat's workers.
+   *
+   * @return		the threads
+   */
+  protected List<Thread> getWorkerThreads() {
+    List<Thread>	result;
+
+    result = new ArrayList<>();
+    for (Thread thread: Thread.getAllStackTraces().keySet()) {
+      if (thread.isAlive() && thread.getName().contains("-worker-"))
+	result.add(thread);
+    }
+
+    return result;
+  }
+
+  /**
+   * Sends the items through the flow and collects the output, then stops
+   * the flow.
+   *
+   * @param flow	the flow to use
+   * @return		the output
+   * @throws Exception	if executing the flow fails
+   */
+  protected List<Integer> process(Flow flow) throws Exception {
+    List<Integer>	result;
+    StorageQueueHandler	input;
+    StorageQueueHandler	output;
+    Object		item;
+    String		msg;
+    int			i;
+
+    result = new ArrayList<>();
+    msg    = flow.setUp();
+    assertNull("setUp failed: " + msg, msg);
+    try {
+      msg = flow.execute();
+      assertNull("execute failed: " + msg, msg);
+      input  = (StorageQueueHandler) flow.getStorageHandler().getStorage().get(INPUT);
+      output = (StorageQueueHandler) flow.getStorageHandler().getStorage().get(OUTPUT);
+      for (i = 0; i < NUM_ITEMS; i++)
+	input.addDelayedBy(i, 0);
+      for (i = 0; i < NUM_ITEMS; i++) {
+	item = output.poll(30, TimeUnit.SECONDS);
+	assertNotNull("timed out waiting for item #" + (i + 1), item);
+	result.add((Integer) item);
+      }
+    }
+    finally {
+      flow.stopExecution();
+      flow.wrapUp();
+      flow.cleanUp();
+    }
+
+    return result;
+  }
+
+  /**
+   * Tests that the items get output in the order of reception.
+   *
+   * @throws Exception	if the test fails
+   */
+  public void testOrdered() throws Exception {
+    List<Integer>	output;
+    int			i;
+
+    output = process(createFlow(true));
+    assertEquals("number of items differs", NUM_ITEMS, output.size());
+    for (i = 0; i < NUM_ITEMS; i++)
+      assertEquals("item #" + (i + 1) + " differs", i, (int) output.get(i));
+  }
+
+  /**
+   * Tests that all items get output, in whatever order they completed.
+   *
+   * @throws Exception	if the test fails
+   */
+  public void testUnordered() throws Exception {
+    List<Integer>	output;
+    int			i;
+
+    output = process(createFlow(false));
+    assertEquals("number of items differs", NUM_ITEMS, output.size());
+    Collections.sort(output);
+    for (i = 0; i < NUM_ITEMS; i++)
+      assertEquals("item #" + (i + 1) + " missing", i, (int) output.get(i));
+  }
+
+  /**
+   * Tests that stopping the flow stops all the workers.
+   *
+   * @throws Exception	if the test fails
+   */
+  public void testStop() throws Exception {
+    int		i;
+
+    process(createFlow(true));
+    // the futures complete just before the threads terminate
+    for (i = 0; (i < 100) && !getWorkerThreads().isEmpty(); i++)
+      Thread.sleep(10);
+    assertEquals("workers still running: " + getWorkerThreads(), 0, getWorkerThreads().size());
+  }
+
+  /**
+   * Returns a test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(RatWorkerPoolTest.class);
+  }
+
+  /**
+   * Runs the test from commandline.
+   *
+   * @param args	ignored
+   */
+  public static void main(String[] args) {
+    Environment.setEnvironmentClass(Environment.class);
+    runTest(suite());
+  }
+}
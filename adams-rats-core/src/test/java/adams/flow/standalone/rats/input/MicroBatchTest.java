@@ -0,0 +1,212 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * MicroBatchTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.flow.standalone.rats.input;
+
+import adams.env.Environment;
+import adams.flow.control.Flow;
+import adams.flow.control.StorageName;
+import adams.flow.control.StorageQueueHandler;
+import adams.flow.core.Actor;
+import adams.flow.standalone.QueueInit;
+import adams.flow.standalone.Rat;
+import adams.flow.standalone.Rats;
+import adams.flow.standalone.rats.output.EnQueue;
+import adams.test.AdamsTestCase;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the MicroBatch rat input.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class MicroBatchTest
+  extends AdamsTestCase {
+
+  /** the input queue. */
+  public final static StorageName INPUT = new StorageName("in");
+
+  /** the output queue. */
+  public final static StorageName OUTPUT = new StorageName("out");
+
+  /**
+   * Initializes the test.
+   *
+   * @param name	the name of the test
+   */
+  public MicroBatchTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Creates the flow with a rat that batches the items of the input queue.
+   *
+   * @param batchSize	the maximum batch size
+   * @param maxLinger	the maximum linger time in msec
+   * @return		the flow
+   */
+  protected Flow createFlow(int batchSize, int maxLinger) {
+    Flow	result;
+    QueueInit	init;
+    Rats	rats;
+    Rat		rat;
+    DeQueue	in;
+    MicroBatch	batch;
+    EnQueue	out;
+
+    init = new QueueInit();
+    init.setStorageName(new StorageName[]{INPUT, OUTPUT});
+
+    in = new DeQueue();
+    in.setStorageName(INPUT);
+    batch = new MicroBatch();
+    batch.setInput(in);
+    batch.setBatchSize(batchSize);
+    batch.setMaxLinger(maxLinger);
+    out = new EnQueue();
+    out.setStorageName(OUTPUT);
+
+    rat = new Rat();
+    rat.setReceiver(batch);
+    rat.setTransmitter(out);
+
+    rats = new Rats();
+    rats.setRats(new Actor[]{rat});
+
+    result = new Flow();
+    result.setActors(new Actor[]{init, rats});
+
+    return result;
+  }
+
+  /**
+   * Sends the items through the flow and collects the batches until all
+   * items have been received, then stops the flow.
+   *
+   * @param flow	the flow to use
+   * @param numItems	the number of items to send
+   * @return		the batches
+   * @throws Exception	if executing the flow fails
+   */
+  protected List<Object> process(Flow flow, int numItems) throws Exception {
+    List<Object>	result;
+    StorageQueueHandler	input;
+    StorageQueueHandler	output;
+    Object		batch;
+    String		msg;
+    int			received;
+    int			i;
+
+    result = new ArrayList<>();
+    msg    = flow.setUp();
+    assertNull("setUp failed: " + msg, msg);
+    try {
+      msg = flow.execute();
+      assertNull("execute failed: " + msg, msg);
+      input  = (StorageQueueHandler) flow.getStorageHandler().getStorage().get(INPUT);
+      output = (StorageQueueHandler) flow.getStorageHandler().getStorage().get(OUTPUT);
+      for (i = 0; i < numItems; i++)
+	input.addDelayedBy(i, 0);
+      received = 0;
+      while (received < numItems) {
+	batch = output.poll(30, TimeUnit.SECONDS);
+	assertNotNull("timed out waiting for batch, items received: " + received, batch);
+	assertTrue("not an array: " + batch.getClass().getName(), batch.getClass().isArray());
+	result.add(batch);
+	received += Array.getLength(batch);
+      }
+    }
+    finally {
+      flow.stopExecution();
+      flow.wrapUp();
+      flow.cleanUp();
+    }
+
+    return result;
+  }
+
+  /**
+   * Checks that the batches contain all the items in order and don't
+   * exceed the batch size.
+   *
+   * @param batches	the batches to check
+   * @param numItems	the number of items sent
+   * @param batchSize	the maximum batch size
+   */
+  protected void check(List<Object> batches, int numItems, int batchSize) {
+    int		next;
+    int		i;
+
+    next = 0;
+    for (Object batch: batches) {
+      assertTrue("empty batch", Array.getLength(batch) > 0);
+      assertTrue("batch too large: " + Array.getLength(batch), Array.getLength(batch) <= batchSize);
+      for (i = 0; i < Array.getLength(batch); i++) {
+	assertEquals("item differs", next, ((Number) Array.get(batch, i)).intValue());
+	next++;
+      }
+    }
+    assertEquals("number of items differs", numItems, next);
+  }
+
+  /**
+   * Tests that the items get grouped into batches of at most the batch size.
+   *
+   * @throws Exception	if the test fails
+   */
+  public void testBatchSize() throws Exception {
+    check(process(createFlow(5, 1000), 23), 23, 5);
+  }
+
+  /**
+   * Tests that an incomplete batch gets forwarded once the linger time
+   * has passed.
+   *
+   * @throws Exception	if the test fails
+   */
+  public void testLinger() throws Exception {
+    check(process(createFlow(100, 100), 7), 7, 100);
+  }
+
+  /**
+   * Returns a test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(MicroBatchTest.class);
+  }
+
+  /**
+   * Runs the test from commandline.
+   *
+   * @param args	ignored
+   */
+  public static void main(String[] args) {
+    Environment.setEnvironmentClass(Environment.class);
+    runTest(suite());
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * UnBatchTest.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ */
+
+package adams.flow.standalone.rats.output;
+
+import adams.env.Environment;
+import adams.flow.control.Flow;
+import adams.flow.control.StorageName;
+import adams.flow.control.StorageQueueHandler;
+import adams.flow.core.Actor;
+import adams.flow.standalone.QueueInit;
+import adams.flow.standalone.Rat;
+import adams.flow.standalone.Rats;
+import adams.flow.standalone.rats.input.DeQueue;
+import adams.test.AdamsTestCase;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the UnBatch rat output.
+ *
+ * @author  fracpete (fracpete at waikato dot ac dot nz)
+ */
+public class UnBatchTest
+  extends AdamsTestCase {
+
+  /** the input queue. */
+  public final static StorageName INPUT = new StorageName("in");
+
+  /** the output queue. */
+  public final static StorageName OUTPUT = new StorageName("out");
+
+  /**
+   * Initializes the test.
+   *
+   * @param name	the name of the test
+   */
+  public UnBatchTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Creates the flow with a rat that splits the arrays of the input queue.
+   *
+   * @return		the flow
+   */
+  protected Flow createFlow() {
+    Flow	result;
+    QueueInit	init;
+    Rats	rats;
+    Rat		rat;
+    DeQueue	in;
+    UnBatch	unbatch;
+    EnQueue	out;
+
+    init = new QueueInit();
+    init.setStorageName(new StorageName[]{INPUT, OUTPUT});
+
+    in = new DeQueue();
+    in.setStorageName(INPUT);
+    out = new EnQueue();
+    out.setStorageName(OUTPUT);
+    unbatch = new UnBatch();
+    unbatch.setOutput(out);
+
+    rat = new Rat();
+    rat.setReceiver(in);
+    rat.setTransmitter(unbatch);
+
+    rats = new Rats();
+    rats.setRats(new Actor[]{rat});
+
+    result = new Flow();
+    result.setActors(new Actor[]{init, rats});
+
+    return result;
+  }
+
+  /**
+   * Tests that arrays get split into their elements, in order, and that
+   * other data gets passed through.
+   *
+   * @throws Exception	if the test fails
+   */
+  public void testUnBatch() throws Exception {
+    Flow		flow;
+    StorageQueueHandler	input;
+    StorageQueueHandler	output;
+    Object		item;
+    String		msg;
+    int			i;
+
+    flow = createFlow();
+    msg  = flow.setUp();
+    assertNull("setUp failed: " + msg, msg);
+    try {
+      msg = flow.execute();
+      assertNull("execute failed: " + msg, msg);
+      input  = (StorageQueueHandler) flow.getStorageHandler().getStorage().get(INPUT);
+      output = (StorageQueueHandler) flow.getStorageHandler().getStorage().get(OUTPUT);
+      input.addDelayedBy(new Integer[]{0, 1, 2}, 0);
+      input.addDelayedBy(new Integer[0], 0);
+      input.addDelayedBy(3, 0);
+      input.addDelayedBy(new int[]{4, 5}, 0);
+      for (i = 0; i <= 5; i++) {
+	item = output.poll(30, TimeUnit.SECONDS);
+	assertNotNull("timed out waiting for item #" + (i + 1), item);
+	assertEquals("item differs", i, ((Number) item).intValue());
+      }
+      assertNull("unexpected item", output.poll(200, TimeUnit.MILLISECONDS));
+    }
+    finally {
+      flow.stopExecution();
+      flow.wrapUp();
+      flow.cleanUp();
+    }
+  }
+
+  /**
+   * Returns a test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(UnBatchTest.class);
+  }
+
+  /**
+   * Runs the test from commandline.
+   *
+   * @param args	ignored
+   */
+  public static void main(String[] args) {
+    Environment.setEnvironmentClass(Environment.class);
+    runTest(suite());
+  }
+}
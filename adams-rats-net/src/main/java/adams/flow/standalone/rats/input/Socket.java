@@ -359,7 +359,7 @@ public class Socket
 	  }
 	}
       };
-      new Thread(run).start();
+      getOwner().startThread(getFullName() + "-accept", run);
     }
 
     return null;
@@ -15,7 +15,7 @@
 
 /*
  * RatControl.java
- * Copyright (C) 2018 University of Waikato, Hamilton, NZ
+ * Copyright (C) 2018-2026 University of Waikato, Hamilton, NZ
  */
 
 package adams.flow.rest.control;
@@ -43,6 +43,7 @@ import javax.ws.rs.FormParam;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import java.util.Map.Entry;
 
 /**
  * Controls Rat actors in flows with {@link RatControl} actors.
@@ -140,6 +141,7 @@ public class RatControl
     JsonArray 				rats;
     JsonObject				rat;
     JsonObject				group;
+    JsonObject				metrics;
     MessageCollection			errors;
     Actor				flow;
     adams.flow.standalone.RatControl 	rc;
@@ -185,6 +187,13 @@ public class RatControl
 	  rat.addProperty("stopped", false);
 	}
 	rat.addProperty("interactive", ActorUtils.isInteractive(actor));
+	if (actor instanceof Rat) {
+	  ((Rat) actor).updateBacklog();
+	  metrics = new JsonObject();
+	  for (Entry<String,Object> entry: ((Rat) actor).getMetrics().getValues().entrySet())
+	    metrics.addProperty(entry.getKey(), (Number) entry.getValue());
+	  rat.add("metrics", metrics);
+	}
 	rats.add(rat);
       }
     }